@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.DynamicMBean;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures reading and writing a single attribute.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttributeBenchmark {
+
+	private DynamicMBean wrapper;
+
+	private DynamicMBean compiled;
+
+	private DynamicMBean standardMBean;
+
+	private final Attribute attribute = new Attribute("a042", 42L);
+
+	private final Attribute standardAttribute = new Attribute("A042", 42L);
+
+	@Setup
+	public void setup() throws Exception {
+		wrapper = new JMXBeanWrapper(new WideBean());
+		compiled = JMXBeanWrapper.compiled(new WideBean());
+		standardMBean = new StandardMBean(new WideBean(), WideBeanMBean.class);
+	}
+
+	@Benchmark
+	public Object wrapperGet() throws Exception {
+		return wrapper.getAttribute("a042");
+	}
+
+	@Benchmark
+	public void wrapperSet() throws Exception {
+		wrapper.setAttribute(attribute);
+	}
+
+	@Benchmark
+	public Object compiledGet() throws Exception {
+		return compiled.getAttribute("a042");
+	}
+
+	@Benchmark
+	public void compiledSet() throws Exception {
+		compiled.setAttribute(attribute);
+	}
+
+	@Benchmark
+	public Object standardMBeanGet() throws Exception {
+		return standardMBean.getAttribute("A042");
+	}
+
+	@Benchmark
+	public void standardMBeanSet() throws Exception {
+		standardMBean.setAttribute(standardAttribute);
+	}
+}
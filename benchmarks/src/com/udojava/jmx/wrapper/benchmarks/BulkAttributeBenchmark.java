@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.DynamicMBean;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures the bulk attribute access with a growing number of attributes.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BulkAttributeBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int count;
+
+	private DynamicMBean wrapper;
+
+	private DynamicMBean compiled;
+
+	private DynamicMBean standardMBean;
+
+	private String[] names;
+
+	private String[] standardNames;
+
+	private AttributeList attributes;
+
+	private AttributeList standardAttributes;
+
+	@Setup
+	public void setup() throws Exception {
+		wrapper = new JMXBeanWrapper(new WideBean());
+		compiled = JMXBeanWrapper.compiled(new WideBean());
+		standardMBean = new StandardMBean(new WideBean(), WideBeanMBean.class);
+
+		names = new String[count];
+		standardNames = new String[count];
+		attributes = new AttributeList();
+		standardAttributes = new AttributeList();
+		for (int i = 0; i < count; i++) {
+			names[i] = String.format("a%03d", i);
+			standardNames[i] = String.format("A%03d", i);
+			attributes.add(new Attribute(names[i], (long) i));
+			standardAttributes.add(new Attribute(standardNames[i], (long) i));
+		}
+	}
+
+	@Benchmark
+	public AttributeList wrapperGet() {
+		return wrapper.getAttributes(names);
+	}
+
+	@Benchmark
+	public AttributeList wrapperSet() {
+		return wrapper.setAttributes(attributes);
+	}
+
+	@Benchmark
+	public AttributeList compiledGet() {
+		return compiled.getAttributes(names);
+	}
+
+	@Benchmark
+	public AttributeList compiledSet() {
+		return compiled.setAttributes(attributes);
+	}
+
+	@Benchmark
+	public AttributeList standardMBeanGet() {
+		return standardMBean.getAttributes(standardNames);
+	}
+
+	@Benchmark
+	public AttributeList standardMBeanSet() {
+		return standardMBean.setAttributes(standardAttributes);
+	}
+}
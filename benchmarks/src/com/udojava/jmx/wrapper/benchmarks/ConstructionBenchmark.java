@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.IntrospectionException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures the construction of wrappers. <em>Cold</em> benchmarks wrap an
+ * instance of a freshly loaded class, which has not been analyzed before,
+ * <em>repeated</em> benchmarks wrap instances of the same class again and
+ * again.
+ * 
+ * The cold compiled benchmark can't use a freshly loaded class, because its
+ * methods are not visible to the class loader of the wrapper and would be
+ * called through method handles. It drops the cached metadata of the bean
+ * class before every invocation instead.
+ * 
+ * Note that the {@link StandardMBean} baseline caches its introspection per
+ * MBean interface, which is shared by all fresh classes.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConstructionBenchmark {
+
+	/**
+	 * Provides a bean of a fresh class for every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Cold {
+		Object bean;
+
+		@Setup(Level.Invocation)
+		public void loadClass() {
+			bean = FreshClassLoader.newInstance(WideBean.class);
+		}
+	}
+
+	/**
+	 * Provides a bean of a class that is visible to the wrapper, whose cached
+	 * metadata is dropped before every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Forgotten {
+		private static final ClassValue<?> CACHE = metadataCache();
+
+		final Object bean = new WideBean();
+
+		@Setup(Level.Invocation)
+		public void forget() {
+			CACHE.remove(WideBean.class);
+		}
+
+		private static ClassValue<?> metadataCache() {
+			try {
+				Field field = Class.forName(
+						"com.udojava.jmx.wrapper.BeanMetadata")
+						.getDeclaredField("CACHE");
+				field.setAccessible(true);
+				return (ClassValue<?>) field.get(null);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private final WideBean bean = new WideBean();
+
+	@Benchmark
+	public JMXBeanWrapper wrapperCold(Cold cold)
+			throws IntrospectionException {
+		return new JMXBeanWrapper(cold.bean);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper wrapperRepeated() throws IntrospectionException {
+		return new JMXBeanWrapper(bean);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper compiledCold(Forgotten forgotten)
+			throws IntrospectionException {
+		return JMXBeanWrapper.compiled(forgotten.bean);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper compiledRepeated() throws IntrospectionException {
+		return JMXBeanWrapper.compiled(bean);
+	}
+
+	@Benchmark
+	public StandardMBean standardMBeanCold(Cold cold)
+			throws NotCompliantMBeanException {
+		return new StandardMBean((WideBeanMBean) cold.bean,
+				WideBeanMBean.class);
+	}
+
+	@Benchmark
+	public StandardMBean standardMBeanRepeated()
+			throws NotCompliantMBeanException {
+		return new StandardMBean(bean, WideBeanMBean.class);
+	}
+}
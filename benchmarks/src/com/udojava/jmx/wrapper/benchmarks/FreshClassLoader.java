@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class loader that defines its own copy of some classes and delegates all
+ * others to its parent. A new loader gives a new <code>Class</code> object
+ * for the same bean class, which has not been analyzed by the wrapper yet.
+ * This is used to measure the cold construction of wrappers.
+ * 
+ * The fresh classes are not visible to the class loader of the wrapper, so
+ * compiled wrappers call their methods through method handles.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+class FreshClassLoader extends ClassLoader {
+
+	private final Set<String> classNames;
+
+	FreshClassLoader(String... classNames) {
+		super(FreshClassLoader.class.getClassLoader());
+		this.classNames = new HashSet<String>(Arrays.asList(classNames));
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve)
+			throws ClassNotFoundException {
+		if (!classNames.contains(name)) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> c = findLoadedClass(name);
+			if (c == null) {
+				byte[] bytes = readClass(name);
+				c = defineClass(name, bytes, 0, bytes.length);
+			}
+			if (resolve) {
+				resolveClass(c);
+			}
+			return c;
+		}
+	}
+
+	private byte[] readClass(String name) throws ClassNotFoundException {
+		InputStream in = getParent().getResourceAsStream(
+				name.replace('.', '/') + ".class");
+		if (in == null) {
+			throw new ClassNotFoundException(name);
+		}
+		try {
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int n;
+				while ((n = in.read(buffer)) > 0) {
+					out.write(buffer, 0, n);
+				}
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+
+	/**
+	 * Creates a new instance of a class, loaded by a new loader.
+	 * 
+	 * @param type
+	 *            The class to load again.
+	 * @return A new instance of the fresh class.
+	 */
+	static Object newInstance(Class<?> type) {
+		try {
+			return new FreshClassLoader(type.getName()).loadClass(
+					type.getName()).newInstance();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanOperation;
+import com.udojava.jmx.wrapper.JMXBeanParameter;
+
+/**
+ * A bean with overloaded operations.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@JMXBean(description = "Bean with overloaded operations")
+public class OperationBean implements OperationBeanMBean {
+
+	@JMXBeanOperation
+	public String echo(@JMXBeanParameter(name = "p1") String p1) {
+		return p1;
+	}
+
+	@JMXBeanOperation
+	public String echo(String p1, String p2) {
+		return p2;
+	}
+
+	@JMXBeanOperation
+	public String echo(String p1, String p2, String p3) {
+		return p3;
+	}
+
+	@JMXBeanOperation
+	public long add(long a, long b) {
+		return a + b;
+	}
+}
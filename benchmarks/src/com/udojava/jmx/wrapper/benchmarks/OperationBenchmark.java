@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.DynamicMBean;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures invoking overloaded operations.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OperationBenchmark {
+
+	private static final String[] ECHO1 = { "java.lang.String" };
+
+	private static final String[] ECHO3 = { "java.lang.String",
+			"java.lang.String", "java.lang.String" };
+
+	private static final String[] ADD = { "long", "long" };
+
+	private DynamicMBean wrapper;
+
+	private DynamicMBean compiled;
+
+	private DynamicMBean standardMBean;
+
+	private final Object[] echo1 = { "a" };
+
+	private final Object[] echo3 = { "a", "b", "c" };
+
+	private final Object[] add = { 1L, 2L };
+
+	@Setup
+	public void setup() throws Exception {
+		wrapper = new JMXBeanWrapper(new OperationBean());
+		compiled = JMXBeanWrapper.compiled(new OperationBean());
+		standardMBean = new StandardMBean(new OperationBean(),
+				OperationBeanMBean.class);
+	}
+
+	@Benchmark
+	public Object wrapperEcho1() throws Exception {
+		return wrapper.invoke("echo", echo1, ECHO1);
+	}
+
+	@Benchmark
+	public Object wrapperEcho3() throws Exception {
+		return wrapper.invoke("echo", echo3, ECHO3);
+	}
+
+	@Benchmark
+	public Object wrapperAdd() throws Exception {
+		return wrapper.invoke("add", add, ADD);
+	}
+
+	@Benchmark
+	public Object wrapperAddWithoutSignature() throws Exception {
+		return wrapper.invoke("add", add, null);
+	}
+
+	@Benchmark
+	public Object compiledEcho1() throws Exception {
+		return compiled.invoke("echo", echo1, ECHO1);
+	}
+
+	@Benchmark
+	public Object compiledEcho3() throws Exception {
+		return compiled.invoke("echo", echo3, ECHO3);
+	}
+
+	@Benchmark
+	public Object compiledAdd() throws Exception {
+		return compiled.invoke("add", add, ADD);
+	}
+
+	@Benchmark
+	public Object standardMBeanEcho1() throws Exception {
+		return standardMBean.invoke("echo", echo1, ECHO1);
+	}
+
+	@Benchmark
+	public Object standardMBeanEcho3() throws Exception {
+		return standardMBean.invoke("echo", echo3, ECHO3);
+	}
+
+	@Benchmark
+	public Object standardMBeanAdd() throws Exception {
+		return standardMBean.invoke("add", add, ADD);
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures the startup time of registering many beans of a freshly loaded
+ * class with an MBean server, with eager and lazy wrappers.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RegistrationBenchmark {
+
+	@Param({ "10000", "50000" })
+	public int count;
+
+	private Object[] beans;
+
+	private ObjectName[] names;
+
+	private MBeanServer server;
+
+	@Setup
+	public void names() throws Exception {
+		names = new ObjectName[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = new ObjectName("benchmark:type=WideBean,name=" + i);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void freshBeans() {
+		Class<?> beanClass = FreshClassLoader.newInstance(WideBean.class)
+				.getClass();
+		beans = new Object[count];
+		for (int i = 0; i < count; i++) {
+			try {
+				beans[i] = beanClass.newInstance();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		server = MBeanServerFactory.newMBeanServer();
+	}
+
+	@Benchmark
+	public MBeanServer eager() throws Exception {
+		for (int i = 0; i < count; i++) {
+			server.registerMBean(new JMXBeanWrapper(beans[i]), names[i]);
+		}
+		return server;
+	}
+
+	@Benchmark
+	public MBeanServer lazy() throws Exception {
+		for (int i = 0; i < count; i++) {
+			server.registerMBean(JMXBeanWrapper.lazy(beans[i]), names[i]);
+		}
+		return server;
+	}
+
+	@Benchmark
+	public MBeanServer standardMBean() throws Exception {
+		for (int i = 0; i < count; i++) {
+			server.registerMBean(new StandardMBean((WideBeanMBean) beans[i],
+					WideBeanMBean.class), names[i]);
+		}
+		return server;
+	}
+}
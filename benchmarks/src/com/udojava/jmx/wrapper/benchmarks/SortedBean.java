@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanAttribute;
+import com.udojava.jmx.wrapper.JMXBeanOperation;
+
+/**
+ * A bean with ten attributes and ten operations, sorted by sort value.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@JMXBean(sorted = true)
+public class SortedBean implements SortingBeanMBean {
+
+	@JMXBeanAttribute(description = "Attribute 0", sortValue = "9")
+	public int getValue0() {
+		return 0;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 1", sortValue = "8")
+	public int getValue1() {
+		return 1;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 2", sortValue = "7")
+	public int getValue2() {
+		return 2;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 3", sortValue = "6")
+	public int getValue3() {
+		return 3;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 4", sortValue = "5")
+	public int getValue4() {
+		return 4;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 5", sortValue = "4")
+	public int getValue5() {
+		return 5;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 6", sortValue = "3")
+	public int getValue6() {
+		return 6;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 7", sortValue = "2")
+	public int getValue7() {
+		return 7;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 8", sortValue = "1")
+	public int getValue8() {
+		return 8;
+	}
+
+	@JMXBeanAttribute(description = "Attribute 9", sortValue = "0")
+	public int getValue9() {
+		return 9;
+	}
+
+	@JMXBeanOperation(sortValue = "9")
+	public int operation0(int p) {
+		return p + 0;
+	}
+
+	@JMXBeanOperation(sortValue = "8")
+	public int operation1(int p) {
+		return p + 1;
+	}
+
+	@JMXBeanOperation(sortValue = "7")
+	public int operation2(int p) {
+		return p + 2;
+	}
+
+	@JMXBeanOperation(sortValue = "6")
+	public int operation3(int p) {
+		return p + 3;
+	}
+
+	@JMXBeanOperation(sortValue = "5")
+	public int operation4(int p) {
+		return p + 4;
+	}
+
+	@JMXBeanOperation(sortValue = "4")
+	public int operation5(int p) {
+		return p + 5;
+	}
+
+	@JMXBeanOperation(sortValue = "3")
+	public int operation6(int p) {
+		return p + 6;
+	}
+
+	@JMXBeanOperation(sortValue = "2")
+	public int operation7(int p) {
+		return p + 7;
+	}
+
+	@JMXBeanOperation(sortValue = "1")
+	public int operation8(int p) {
+		return p + 8;
+	}
+
+	@JMXBeanOperation(sortValue = "0")
+	public int operation9(int p) {
+		return p + 9;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+/**
+ * Standard MBean interface of {@link SortedBean} and {@link UnsortedBean},
+ * used for the {@link javax.management.StandardMBean} baseline.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public interface SortingBeanMBean {
+
+	int getValue0();
+
+	int getValue1();
+
+	int getValue2();
+
+	int getValue3();
+
+	int getValue4();
+
+	int getValue5();
+
+	int getValue6();
+
+	int getValue7();
+
+	int getValue8();
+
+	int getValue9();
+
+	int operation0(int p);
+
+	int operation1(int p);
+
+	int operation2(int p);
+
+	int operation3(int p);
+
+	int operation4(int p);
+
+	int operation5(int p);
+
+	int operation6(int p);
+
+	int operation7(int p);
+
+	int operation8(int p);
+
+	int operation9(int p);
+}
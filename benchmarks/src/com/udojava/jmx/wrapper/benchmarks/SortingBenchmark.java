@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.IntrospectionException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Measures the cost of sorting attributes and operations, which is only paid
+ * when a class is analyzed for the first time.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortingBenchmark {
+
+	/**
+	 * Provides beans of fresh classes for every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Cold {
+		Object sorted;
+		Object unsorted;
+
+		@Setup(Level.Invocation)
+		public void loadClasses() {
+			sorted = FreshClassLoader.newInstance(SortedBean.class);
+			unsorted = FreshClassLoader.newInstance(UnsortedBean.class);
+		}
+	}
+
+	private final SortedBean sorted = new SortedBean();
+
+	private final UnsortedBean unsorted = new UnsortedBean();
+
+	@Benchmark
+	public JMXBeanWrapper sortedCold(Cold cold) throws IntrospectionException {
+		return new JMXBeanWrapper(cold.sorted);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper unsortedCold(Cold cold)
+			throws IntrospectionException {
+		return new JMXBeanWrapper(cold.unsorted);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper sortedRepeated() throws IntrospectionException {
+		return new JMXBeanWrapper(sorted);
+	}
+
+	@Benchmark
+	public JMXBeanWrapper unsortedRepeated() throws IntrospectionException {
+		return new JMXBeanWrapper(unsorted);
+	}
+
+	@Benchmark
+	public StandardMBean standardMBeanCold(Cold cold)
+			throws NotCompliantMBeanException {
+		return new StandardMBean((SortingBeanMBean) cold.unsorted,
+				SortingBeanMBean.class);
+	}
+}
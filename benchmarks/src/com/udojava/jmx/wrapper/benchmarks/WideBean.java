@@ -0,0 +1,1140 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanAttribute;
+
+/**
+ * A bean with 100 read-write <code>long</code> attributes.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@JMXBean(description = "Bean with many attributes")
+public class WideBean implements WideBeanMBean {
+	private long a000 = 0;
+	private long a001 = 1;
+	private long a002 = 2;
+	private long a003 = 3;
+	private long a004 = 4;
+	private long a005 = 5;
+	private long a006 = 6;
+	private long a007 = 7;
+	private long a008 = 8;
+	private long a009 = 9;
+	private long a010 = 10;
+	private long a011 = 11;
+	private long a012 = 12;
+	private long a013 = 13;
+	private long a014 = 14;
+	private long a015 = 15;
+	private long a016 = 16;
+	private long a017 = 17;
+	private long a018 = 18;
+	private long a019 = 19;
+	private long a020 = 20;
+	private long a021 = 21;
+	private long a022 = 22;
+	private long a023 = 23;
+	private long a024 = 24;
+	private long a025 = 25;
+	private long a026 = 26;
+	private long a027 = 27;
+	private long a028 = 28;
+	private long a029 = 29;
+	private long a030 = 30;
+	private long a031 = 31;
+	private long a032 = 32;
+	private long a033 = 33;
+	private long a034 = 34;
+	private long a035 = 35;
+	private long a036 = 36;
+	private long a037 = 37;
+	private long a038 = 38;
+	private long a039 = 39;
+	private long a040 = 40;
+	private long a041 = 41;
+	private long a042 = 42;
+	private long a043 = 43;
+	private long a044 = 44;
+	private long a045 = 45;
+	private long a046 = 46;
+	private long a047 = 47;
+	private long a048 = 48;
+	private long a049 = 49;
+	private long a050 = 50;
+	private long a051 = 51;
+	private long a052 = 52;
+	private long a053 = 53;
+	private long a054 = 54;
+	private long a055 = 55;
+	private long a056 = 56;
+	private long a057 = 57;
+	private long a058 = 58;
+	private long a059 = 59;
+	private long a060 = 60;
+	private long a061 = 61;
+	private long a062 = 62;
+	private long a063 = 63;
+	private long a064 = 64;
+	private long a065 = 65;
+	private long a066 = 66;
+	private long a067 = 67;
+	private long a068 = 68;
+	private long a069 = 69;
+	private long a070 = 70;
+	private long a071 = 71;
+	private long a072 = 72;
+	private long a073 = 73;
+	private long a074 = 74;
+	private long a075 = 75;
+	private long a076 = 76;
+	private long a077 = 77;
+	private long a078 = 78;
+	private long a079 = 79;
+	private long a080 = 80;
+	private long a081 = 81;
+	private long a082 = 82;
+	private long a083 = 83;
+	private long a084 = 84;
+	private long a085 = 85;
+	private long a086 = 86;
+	private long a087 = 87;
+	private long a088 = 88;
+	private long a089 = 89;
+	private long a090 = 90;
+	private long a091 = 91;
+	private long a092 = 92;
+	private long a093 = 93;
+	private long a094 = 94;
+	private long a095 = 95;
+	private long a096 = 96;
+	private long a097 = 97;
+	private long a098 = 98;
+	private long a099 = 99;
+
+	@JMXBeanAttribute
+	public long getA000() {
+		return a000;
+	}
+
+	@JMXBeanAttribute
+	public void setA000(long value) {
+		a000 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA001() {
+		return a001;
+	}
+
+	@JMXBeanAttribute
+	public void setA001(long value) {
+		a001 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA002() {
+		return a002;
+	}
+
+	@JMXBeanAttribute
+	public void setA002(long value) {
+		a002 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA003() {
+		return a003;
+	}
+
+	@JMXBeanAttribute
+	public void setA003(long value) {
+		a003 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA004() {
+		return a004;
+	}
+
+	@JMXBeanAttribute
+	public void setA004(long value) {
+		a004 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA005() {
+		return a005;
+	}
+
+	@JMXBeanAttribute
+	public void setA005(long value) {
+		a005 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA006() {
+		return a006;
+	}
+
+	@JMXBeanAttribute
+	public void setA006(long value) {
+		a006 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA007() {
+		return a007;
+	}
+
+	@JMXBeanAttribute
+	public void setA007(long value) {
+		a007 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA008() {
+		return a008;
+	}
+
+	@JMXBeanAttribute
+	public void setA008(long value) {
+		a008 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA009() {
+		return a009;
+	}
+
+	@JMXBeanAttribute
+	public void setA009(long value) {
+		a009 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA010() {
+		return a010;
+	}
+
+	@JMXBeanAttribute
+	public void setA010(long value) {
+		a010 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA011() {
+		return a011;
+	}
+
+	@JMXBeanAttribute
+	public void setA011(long value) {
+		a011 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA012() {
+		return a012;
+	}
+
+	@JMXBeanAttribute
+	public void setA012(long value) {
+		a012 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA013() {
+		return a013;
+	}
+
+	@JMXBeanAttribute
+	public void setA013(long value) {
+		a013 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA014() {
+		return a014;
+	}
+
+	@JMXBeanAttribute
+	public void setA014(long value) {
+		a014 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA015() {
+		return a015;
+	}
+
+	@JMXBeanAttribute
+	public void setA015(long value) {
+		a015 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA016() {
+		return a016;
+	}
+
+	@JMXBeanAttribute
+	public void setA016(long value) {
+		a016 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA017() {
+		return a017;
+	}
+
+	@JMXBeanAttribute
+	public void setA017(long value) {
+		a017 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA018() {
+		return a018;
+	}
+
+	@JMXBeanAttribute
+	public void setA018(long value) {
+		a018 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA019() {
+		return a019;
+	}
+
+	@JMXBeanAttribute
+	public void setA019(long value) {
+		a019 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA020() {
+		return a020;
+	}
+
+	@JMXBeanAttribute
+	public void setA020(long value) {
+		a020 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA021() {
+		return a021;
+	}
+
+	@JMXBeanAttribute
+	public void setA021(long value) {
+		a021 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA022() {
+		return a022;
+	}
+
+	@JMXBeanAttribute
+	public void setA022(long value) {
+		a022 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA023() {
+		return a023;
+	}
+
+	@JMXBeanAttribute
+	public void setA023(long value) {
+		a023 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA024() {
+		return a024;
+	}
+
+	@JMXBeanAttribute
+	public void setA024(long value) {
+		a024 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA025() {
+		return a025;
+	}
+
+	@JMXBeanAttribute
+	public void setA025(long value) {
+		a025 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA026() {
+		return a026;
+	}
+
+	@JMXBeanAttribute
+	public void setA026(long value) {
+		a026 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA027() {
+		return a027;
+	}
+
+	@JMXBeanAttribute
+	public void setA027(long value) {
+		a027 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA028() {
+		return a028;
+	}
+
+	@JMXBeanAttribute
+	public void setA028(long value) {
+		a028 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA029() {
+		return a029;
+	}
+
+	@JMXBeanAttribute
+	public void setA029(long value) {
+		a029 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA030() {
+		return a030;
+	}
+
+	@JMXBeanAttribute
+	public void setA030(long value) {
+		a030 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA031() {
+		return a031;
+	}
+
+	@JMXBeanAttribute
+	public void setA031(long value) {
+		a031 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA032() {
+		return a032;
+	}
+
+	@JMXBeanAttribute
+	public void setA032(long value) {
+		a032 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA033() {
+		return a033;
+	}
+
+	@JMXBeanAttribute
+	public void setA033(long value) {
+		a033 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA034() {
+		return a034;
+	}
+
+	@JMXBeanAttribute
+	public void setA034(long value) {
+		a034 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA035() {
+		return a035;
+	}
+
+	@JMXBeanAttribute
+	public void setA035(long value) {
+		a035 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA036() {
+		return a036;
+	}
+
+	@JMXBeanAttribute
+	public void setA036(long value) {
+		a036 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA037() {
+		return a037;
+	}
+
+	@JMXBeanAttribute
+	public void setA037(long value) {
+		a037 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA038() {
+		return a038;
+	}
+
+	@JMXBeanAttribute
+	public void setA038(long value) {
+		a038 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA039() {
+		return a039;
+	}
+
+	@JMXBeanAttribute
+	public void setA039(long value) {
+		a039 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA040() {
+		return a040;
+	}
+
+	@JMXBeanAttribute
+	public void setA040(long value) {
+		a040 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA041() {
+		return a041;
+	}
+
+	@JMXBeanAttribute
+	public void setA041(long value) {
+		a041 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA042() {
+		return a042;
+	}
+
+	@JMXBeanAttribute
+	public void setA042(long value) {
+		a042 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA043() {
+		return a043;
+	}
+
+	@JMXBeanAttribute
+	public void setA043(long value) {
+		a043 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA044() {
+		return a044;
+	}
+
+	@JMXBeanAttribute
+	public void setA044(long value) {
+		a044 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA045() {
+		return a045;
+	}
+
+	@JMXBeanAttribute
+	public void setA045(long value) {
+		a045 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA046() {
+		return a046;
+	}
+
+	@JMXBeanAttribute
+	public void setA046(long value) {
+		a046 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA047() {
+		return a047;
+	}
+
+	@JMXBeanAttribute
+	public void setA047(long value) {
+		a047 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA048() {
+		return a048;
+	}
+
+	@JMXBeanAttribute
+	public void setA048(long value) {
+		a048 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA049() {
+		return a049;
+	}
+
+	@JMXBeanAttribute
+	public void setA049(long value) {
+		a049 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA050() {
+		return a050;
+	}
+
+	@JMXBeanAttribute
+	public void setA050(long value) {
+		a050 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA051() {
+		return a051;
+	}
+
+	@JMXBeanAttribute
+	public void setA051(long value) {
+		a051 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA052() {
+		return a052;
+	}
+
+	@JMXBeanAttribute
+	public void setA052(long value) {
+		a052 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA053() {
+		return a053;
+	}
+
+	@JMXBeanAttribute
+	public void setA053(long value) {
+		a053 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA054() {
+		return a054;
+	}
+
+	@JMXBeanAttribute
+	public void setA054(long value) {
+		a054 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA055() {
+		return a055;
+	}
+
+	@JMXBeanAttribute
+	public void setA055(long value) {
+		a055 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA056() {
+		return a056;
+	}
+
+	@JMXBeanAttribute
+	public void setA056(long value) {
+		a056 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA057() {
+		return a057;
+	}
+
+	@JMXBeanAttribute
+	public void setA057(long value) {
+		a057 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA058() {
+		return a058;
+	}
+
+	@JMXBeanAttribute
+	public void setA058(long value) {
+		a058 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA059() {
+		return a059;
+	}
+
+	@JMXBeanAttribute
+	public void setA059(long value) {
+		a059 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA060() {
+		return a060;
+	}
+
+	@JMXBeanAttribute
+	public void setA060(long value) {
+		a060 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA061() {
+		return a061;
+	}
+
+	@JMXBeanAttribute
+	public void setA061(long value) {
+		a061 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA062() {
+		return a062;
+	}
+
+	@JMXBeanAttribute
+	public void setA062(long value) {
+		a062 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA063() {
+		return a063;
+	}
+
+	@JMXBeanAttribute
+	public void setA063(long value) {
+		a063 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA064() {
+		return a064;
+	}
+
+	@JMXBeanAttribute
+	public void setA064(long value) {
+		a064 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA065() {
+		return a065;
+	}
+
+	@JMXBeanAttribute
+	public void setA065(long value) {
+		a065 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA066() {
+		return a066;
+	}
+
+	@JMXBeanAttribute
+	public void setA066(long value) {
+		a066 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA067() {
+		return a067;
+	}
+
+	@JMXBeanAttribute
+	public void setA067(long value) {
+		a067 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA068() {
+		return a068;
+	}
+
+	@JMXBeanAttribute
+	public void setA068(long value) {
+		a068 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA069() {
+		return a069;
+	}
+
+	@JMXBeanAttribute
+	public void setA069(long value) {
+		a069 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA070() {
+		return a070;
+	}
+
+	@JMXBeanAttribute
+	public void setA070(long value) {
+		a070 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA071() {
+		return a071;
+	}
+
+	@JMXBeanAttribute
+	public void setA071(long value) {
+		a071 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA072() {
+		return a072;
+	}
+
+	@JMXBeanAttribute
+	public void setA072(long value) {
+		a072 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA073() {
+		return a073;
+	}
+
+	@JMXBeanAttribute
+	public void setA073(long value) {
+		a073 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA074() {
+		return a074;
+	}
+
+	@JMXBeanAttribute
+	public void setA074(long value) {
+		a074 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA075() {
+		return a075;
+	}
+
+	@JMXBeanAttribute
+	public void setA075(long value) {
+		a075 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA076() {
+		return a076;
+	}
+
+	@JMXBeanAttribute
+	public void setA076(long value) {
+		a076 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA077() {
+		return a077;
+	}
+
+	@JMXBeanAttribute
+	public void setA077(long value) {
+		a077 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA078() {
+		return a078;
+	}
+
+	@JMXBeanAttribute
+	public void setA078(long value) {
+		a078 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA079() {
+		return a079;
+	}
+
+	@JMXBeanAttribute
+	public void setA079(long value) {
+		a079 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA080() {
+		return a080;
+	}
+
+	@JMXBeanAttribute
+	public void setA080(long value) {
+		a080 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA081() {
+		return a081;
+	}
+
+	@JMXBeanAttribute
+	public void setA081(long value) {
+		a081 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA082() {
+		return a082;
+	}
+
+	@JMXBeanAttribute
+	public void setA082(long value) {
+		a082 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA083() {
+		return a083;
+	}
+
+	@JMXBeanAttribute
+	public void setA083(long value) {
+		a083 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA084() {
+		return a084;
+	}
+
+	@JMXBeanAttribute
+	public void setA084(long value) {
+		a084 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA085() {
+		return a085;
+	}
+
+	@JMXBeanAttribute
+	public void setA085(long value) {
+		a085 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA086() {
+		return a086;
+	}
+
+	@JMXBeanAttribute
+	public void setA086(long value) {
+		a086 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA087() {
+		return a087;
+	}
+
+	@JMXBeanAttribute
+	public void setA087(long value) {
+		a087 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA088() {
+		return a088;
+	}
+
+	@JMXBeanAttribute
+	public void setA088(long value) {
+		a088 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA089() {
+		return a089;
+	}
+
+	@JMXBeanAttribute
+	public void setA089(long value) {
+		a089 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA090() {
+		return a090;
+	}
+
+	@JMXBeanAttribute
+	public void setA090(long value) {
+		a090 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA091() {
+		return a091;
+	}
+
+	@JMXBeanAttribute
+	public void setA091(long value) {
+		a091 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA092() {
+		return a092;
+	}
+
+	@JMXBeanAttribute
+	public void setA092(long value) {
+		a092 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA093() {
+		return a093;
+	}
+
+	@JMXBeanAttribute
+	public void setA093(long value) {
+		a093 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA094() {
+		return a094;
+	}
+
+	@JMXBeanAttribute
+	public void setA094(long value) {
+		a094 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA095() {
+		return a095;
+	}
+
+	@JMXBeanAttribute
+	public void setA095(long value) {
+		a095 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA096() {
+		return a096;
+	}
+
+	@JMXBeanAttribute
+	public void setA096(long value) {
+		a096 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA097() {
+		return a097;
+	}
+
+	@JMXBeanAttribute
+	public void setA097(long value) {
+		a097 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA098() {
+		return a098;
+	}
+
+	@JMXBeanAttribute
+	public void setA098(long value) {
+		a098 = value;
+	}
+
+	@JMXBeanAttribute
+	public long getA099() {
+		return a099;
+	}
+
+	@JMXBeanAttribute
+	public void setA099(long value) {
+		a099 = value;
+	}
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.benchmarks;
+
+/**
+ * Standard MBean interface of {@link WideBean}, used for the
+ * {@link javax.management.StandardMBean} baseline.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public interface WideBeanMBean {
+
+	long getA000();
+
+	void setA000(long value);
+
+	long getA001();
+
+	void setA001(long value);
+
+	long getA002();
+
+	void setA002(long value);
+
+	long getA003();
+
+	void setA003(long value);
+
+	long getA004();
+
+	void setA004(long value);
+
+	long getA005();
+
+	void setA005(long value);
+
+	long getA006();
+
+	void setA006(long value);
+
+	long getA007();
+
+	void setA007(long value);
+
+	long getA008();
+
+	void setA008(long value);
+
+	long getA009();
+
+	void setA009(long value);
+
+	long getA010();
+
+	void setA010(long value);
+
+	long getA011();
+
+	void setA011(long value);
+
+	long getA012();
+
+	void setA012(long value);
+
+	long getA013();
+
+	void setA013(long value);
+
+	long getA014();
+
+	void setA014(long value);
+
+	long getA015();
+
+	void setA015(long value);
+
+	long getA016();
+
+	void setA016(long value);
+
+	long getA017();
+
+	void setA017(long value);
+
+	long getA018();
+
+	void setA018(long value);
+
+	long getA019();
+
+	void setA019(long value);
+
+	long getA020();
+
+	void setA020(long value);
+
+	long getA021();
+
+	void setA021(long value);
+
+	long getA022();
+
+	void setA022(long value);
+
+	long getA023();
+
+	void setA023(long value);
+
+	long getA024();
+
+	void setA024(long value);
+
+	long getA025();
+
+	void setA025(long value);
+
+	long getA026();
+
+	void setA026(long value);
+
+	long getA027();
+
+	void setA027(long value);
+
+	long getA028();
+
+	void setA028(long value);
+
+	long getA029();
+
+	void setA029(long value);
+
+	long getA030();
+
+	void setA030(long value);
+
+	long getA031();
+
+	void setA031(long value);
+
+	long getA032();
+
+	void setA032(long value);
+
+	long getA033();
+
+	void setA033(long value);
+
+	long getA034();
+
+	void setA034(long value);
+
+	long getA035();
+
+	void setA035(long value);
+
+	long getA036();
+
+	void setA036(long value);
+
+	long getA037();
+
+	void setA037(long value);
+
+	long getA038();
+
+	void setA038(long value);
+
+	long getA039();
+
+	void setA039(long value);
+
+	long getA040();
+
+	void setA040(long value);
+
+	long getA041();
+
+	void setA041(long value);
+
+	long getA042();
+
+	void setA042(long value);
+
+	long getA043();
+
+	void setA043(long value);
+
+	long getA044();
+
+	void setA044(long value);
+
+	long getA045();
+
+	void setA045(long value);
+
+	long getA046();
+
+	void setA046(long value);
+
+	long getA047();
+
+	void setA047(long value);
+
+	long getA048();
+
+	void setA048(long value);
+
+	long getA049();
+
+	void setA049(long value);
+
+	long getA050();
+
+	void setA050(long value);
+
+	long getA051();
+
+	void setA051(long value);
+
+	long getA052();
+
+	void setA052(long value);
+
+	long getA053();
+
+	void setA053(long value);
+
+	long getA054();
+
+	void setA054(long value);
+
+	long getA055();
+
+	void setA055(long value);
+
+	long getA056();
+
+	void setA056(long value);
+
+	long getA057();
+
+	void setA057(long value);
+
+	long getA058();
+
+	void setA058(long value);
+
+	long getA059();
+
+	void setA059(long value);
+
+	long getA060();
+
+	void setA060(long value);
+
+	long getA061();
+
+	void setA061(long value);
+
+	long getA062();
+
+	void setA062(long value);
+
+	long getA063();
+
+	void setA063(long value);
+
+	long getA064();
+
+	void setA064(long value);
+
+	long getA065();
+
+	void setA065(long value);
+
+	long getA066();
+
+	void setA066(long value);
+
+	long getA067();
+
+	void setA067(long value);
+
+	long getA068();
+
+	void setA068(long value);
+
+	long getA069();
+
+	void setA069(long value);
+
+	long getA070();
+
+	void setA070(long value);
+
+	long getA071();
+
+	void setA071(long value);
+
+	long getA072();
+
+	void setA072(long value);
+
+	long getA073();
+
+	void setA073(long value);
+
+	long getA074();
+
+	void setA074(long value);
+
+	long getA075();
+
+	void setA075(long value);
+
+	long getA076();
+
+	void setA076(long value);
+
+	long getA077();
+
+	void setA077(long value);
+
+	long getA078();
+
+	void setA078(long value);
+
+	long getA079();
+
+	void setA079(long value);
+
+	long getA080();
+
+	void setA080(long value);
+
+	long getA081();
+
+	void setA081(long value);
+
+	long getA082();
+
+	void setA082(long value);
+
+	long getA083();
+
+	void setA083(long value);
+
+	long getA084();
+
+	void setA084(long value);
+
+	long getA085();
+
+	void setA085(long value);
+
+	long getA086();
+
+	void setA086(long value);
+
+	long getA087();
+
+	void setA087(long value);
+
+	long getA088();
+
+	void setA088(long value);
+
+	long getA089();
+
+	void setA089(long value);
+
+	long getA090();
+
+	void setA090(long value);
+
+	long getA091();
+
+	void setA091(long value);
+
+	long getA092();
+
+	void setA092(long value);
+
+	long getA093();
+
+	void setA093(long value);
+
+	long getA094();
+
+	void setA094(long value);
+
+	long getA095();
+
+	void setA095(long value);
+
+	long getA096();
+
+	void setA096(long value);
+
+	long getA097();
+
+	void setA097(long value);
+
+	long getA098();
+
+	void setA098(long value);
+
+	long getA099();
+
+	void setA099(long value);
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.udojava.jmx.wrapper.AttributeVisitor;
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * The numeric and boolean attributes of one wrapped bean, read through the
+ * wrapper.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class BeanValues implements AttributeVisitor {
+
+	final ObjectName name;
+
+	final List<String> names = new ArrayList<String>();
+
+	final List<Object> values = new ArrayList<Object>();
+
+	/**
+	 * The attributes of the bean info. The values are visited in this order,
+	 * attributes that are not numeric or failed to read are missing in
+	 * {@link #names}.
+	 */
+	MBeanAttributeInfo[] attributes;
+
+	private BeanValues(ObjectName name) {
+		this.name = name;
+	}
+
+	@Override
+	public void visit(String name, Object value) {
+		if (value instanceof Number || value instanceof Boolean) {
+			names.add(name);
+			values.add(value);
+		}
+	}
+
+	/**
+	 * Reads the wrappers registered with an MBean server in parallel, on a
+	 * pool of its own, so slow getters do not block the common pool of the
+	 * application. Getters that may hang should have a
+	 * {@link com.udojava.jmx.wrapper.JMXBeanAttribute#timeoutMillis()}.
+	 * 
+	 * @param server
+	 *            The MBean server.
+	 * @return The values of the beans, ordered by their names.
+	 */
+	static List<BeanValues> readAll(MBeanServer server) {
+		List<JMXBeanWrapper> wrappers = JMXBeanWrapper.getRegistered(server);
+		List<Future<BeanValues>> futures = new ArrayList<Future<BeanValues>>(
+				wrappers.size());
+		for (JMXBeanWrapper wrapper : wrappers) {
+			futures.add(ExecutorHolder.EXECUTOR.submit(() -> read(wrapper)));
+		}
+		List<BeanValues> result = new ArrayList<BeanValues>(futures.size());
+		boolean interrupted = false;
+		for (Future<BeanValues> future : futures) {
+			while (true) {
+				try {
+					BeanValues values = future.get();
+					if (values != null) {
+						result.add(values);
+					}
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		result.sort(new Comparator<BeanValues>() {
+			@Override
+			public int compare(BeanValues o1, BeanValues o2) {
+				return o1.name.getCanonicalName().compareTo(
+						o2.name.getCanonicalName());
+			}
+		});
+		return result;
+	}
+
+	private static BeanValues read(JMXBeanWrapper wrapper) {
+		ObjectName name = wrapper.getObjectName();
+		if (name == null) {
+			return null;
+		}
+		BeanValues values = new BeanValues(name);
+		wrapper.visitAttributes(values);
+		/*
+		 * Lazy wrappers have the complete bean info once they were visited
+		 */
+		values.attributes = wrapper.getMBeanInfo().getAttributes();
+		return values;
+	}
+
+	/**
+	 * Holds the pool that reads the beans, shared by all exporters. It is
+	 * created with the first read and its threads end when they are idle.
+	 */
+	private static final class ExecutorHolder {
+		static final ExecutorService EXECUTOR = newExecutor();
+
+		private static ExecutorService newExecutor() {
+			int threads = Math.max(2, Math.min(8, Runtime.getRuntime()
+					.availableProcessors()));
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+					threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r,
+									"JMXBeanExporter read "
+											+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+	}
+}
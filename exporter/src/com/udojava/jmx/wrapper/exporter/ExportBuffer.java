@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that renders text as UTF-8, reused for every export
+ * so rendering does not allocate a new buffer or intermediate strings. Longs
+ * are written digit by digit.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class ExportBuffer {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private byte[] bytes;
+
+	private int size;
+
+	/**
+	 * Creates an empty buffer.
+	 * 
+	 * @param capacity
+	 *            The initial capacity in bytes.
+	 */
+	ExportBuffer(int capacity) {
+		bytes = new byte[capacity];
+	}
+
+	/**
+	 * Empties the buffer, keeping its capacity.
+	 */
+	void reset() {
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	ExportBuffer append(char c) {
+		if (c < 0x80) {
+			ensure(1);
+			bytes[size++] = (byte) c;
+		} else if (c < 0x800) {
+			ensure(2);
+			bytes[size++] = (byte) (0xc0 | c >> 6);
+			bytes[size++] = (byte) (0x80 | c & 0x3f);
+		} else {
+			ensure(3);
+			bytes[size++] = (byte) (0xe0 | c >> 12);
+			bytes[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+			bytes[size++] = (byte) (0x80 | c & 0x3f);
+		}
+		return this;
+	}
+
+	ExportBuffer append(String s) {
+		int length = s.length();
+		ensure(length);
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				bytes[size++] = (byte) c;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				appendCodePoint(Character.toCodePoint(c, s.charAt(++i)));
+				ensure(length - i);
+			} else {
+				append(c);
+				ensure(length - i);
+			}
+		}
+		return this;
+	}
+
+	ExportBuffer append(long value) {
+		if (value == Long.MIN_VALUE) {
+			return append(Long.toString(value));
+		}
+		ensure(20);
+		if (value < 0) {
+			bytes[size++] = '-';
+			value = -value;
+		}
+		int end = size + digits(value);
+		int position = end;
+		do {
+			bytes[--position] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		size = end;
+		return this;
+	}
+
+	ExportBuffer append(double value) {
+		if (value == (long) value && Math.abs(value) < 1e15) {
+			append((long) value);
+			return append(".0");
+		}
+		return append(Double.toString(value));
+	}
+
+	/**
+	 * @return A copy of the content.
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * @return The 64 bit FNV-1a hash of the content.
+	 */
+	long hash() {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < size; i++) {
+			hash = (hash ^ (bytes[i] & 0xff)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private void appendCodePoint(int codePoint) {
+		ensure(4);
+		bytes[size++] = (byte) (0xf0 | codePoint >> 18);
+		bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+		bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+		bytes[size++] = (byte) (0x80 | codePoint & 0x3f);
+	}
+
+	private static int digits(long value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	private void ensure(int more) {
+		if (size + more > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size
+					+ more));
+		}
+	}
+}
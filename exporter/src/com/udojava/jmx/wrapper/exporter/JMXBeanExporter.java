@@ -0,0 +1,471 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the numeric and boolean attributes of all wrapped beans registered
+ * with an MBean server over HTTP, for monitoring systems that scrape metrics.
+ * The beans are read through the wrappers directly, in parallel, instead of
+ * walking the MBean server with one call per attribute:
+ * 
+ * <pre>
+ * JMXBeanExporter exporter = new JMXBeanExporter(
+ * 		ManagementFactory.getPlatformMBeanServer(), 9404);
+ * exporter.start();
+ * </pre>
+ * 
+ * <code>/metrics</code> returns the OpenMetrics text format. Every attribute
+ * becomes a metric family named after the domain and the attribute, with the
+ * key properties of the object name as labels. <code>/metrics.json</code>
+ * returns all beans in one JSON document.
+ * 
+ * A response is rendered into a reused buffer and kept for
+ * {@link #setCacheMillis(long)}, so concurrent and frequent scrapes read the
+ * beans only once. Responses carry an <code>ETag</code>, a request with a
+ * matching <code>If-None-Match</code> header gets an empty
+ * <code>304 Not Modified</code> response.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public class JMXBeanExporter {
+
+	/**
+	 * The content type of the OpenMetrics text format.
+	 */
+	public static final String OPENMETRICS_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+	/**
+	 * The content type of the JSON format.
+	 */
+	public static final String JSON_TYPE = "application/json; charset=utf-8";
+
+	/**
+	 * The time running requests are given to finish when the exporter is
+	 * stopped, in seconds.
+	 */
+	private static final int STOP_DELAY_SECONDS = 1;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * A rendered response.
+	 */
+	private static final class Response {
+		final byte[] body;
+		final String etag;
+		final long time;
+
+		Response(byte[] body, String etag, long time) {
+			this.body = body;
+			this.etag = etag;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * One value of a metric family.
+	 */
+	private static final class Sample {
+		final String labels;
+		final Object value;
+
+		Sample(String labels, Object value) {
+			this.labels = labels;
+			this.value = value;
+		}
+	}
+
+	private final MBeanServer server;
+
+	private final HttpServer http;
+
+	private final ExecutorService executor;
+
+	private volatile long cacheMillis = 1000;
+
+	/**
+	 * The reused render buffer, guarded by this exporter.
+	 */
+	private final ExportBuffer buffer = new ExportBuffer(64 * 1024);
+
+	/**
+	 * The last responses, guarded by this exporter.
+	 */
+	private Response openMetrics;
+
+	private Response json;
+
+	/**
+	 * Creates an exporter on all interfaces. It does not serve requests until
+	 * it is started.
+	 * 
+	 * @param server
+	 *            The MBean server the wrappers are registered with.
+	 * @param port
+	 *            The HTTP port, <code>0</code> for any free port.
+	 * @throws IOException
+	 *             If the port can not be bound.
+	 */
+	public JMXBeanExporter(MBeanServer server, int port) throws IOException {
+		this(server, new InetSocketAddress(port));
+	}
+
+	/**
+	 * Creates an exporter. It does not serve requests until it is started.
+	 * 
+	 * @param server
+	 *            The MBean server the wrappers are registered with.
+	 * @param address
+	 *            The HTTP address.
+	 * @throws IOException
+	 *             If the address can not be bound.
+	 */
+	public JMXBeanExporter(MBeanServer server, InetSocketAddress address)
+			throws IOException {
+		this.server = server;
+		this.http = HttpServer.create(address, 0);
+		this.executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "JMXBeanExporter "
+						+ count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		http.setExecutor(executor);
+		http.createContext("/metrics", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				if (path.equals("/metrics")) {
+					serve(exchange, false);
+				} else if (path.equals("/metrics.json")) {
+					serve(exchange, true);
+				} else {
+					send(exchange, 404, null, null, null);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param cacheMillis
+	 *            The time in milliseconds a response is served again, 1000 by
+	 *            default. <code>0</code> renders every request.
+	 */
+	public void setCacheMillis(long cacheMillis) {
+		this.cacheMillis = cacheMillis;
+	}
+
+	/**
+	 * Starts serving requests.
+	 */
+	public void start() {
+		http.start();
+	}
+
+	/**
+	 * Stops serving requests and closes the port. Running requests are given
+	 * up to {@value #STOP_DELAY_SECONDS} second to finish.
+	 */
+	public void stop() {
+		http.stop(STOP_DELAY_SECONDS);
+		executor.shutdown();
+	}
+
+	/**
+	 * @return The port the exporter is bound to.
+	 */
+	public int getPort() {
+		return http.getAddress().getPort();
+	}
+
+	private void serve(HttpExchange exchange, boolean asJson)
+			throws IOException {
+		String method = exchange.getRequestMethod();
+		if (!method.equals("GET") && !method.equals("HEAD")) {
+			exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+			send(exchange, 405, null, null, null);
+			return;
+		}
+		Response response = getResponse(asJson);
+		String type = asJson ? JSON_TYPE : OPENMETRICS_TYPE;
+		if (response.etag.equals(exchange.getRequestHeaders().getFirst(
+				"If-None-Match"))) {
+			send(exchange, 304, null, null, response.etag);
+		} else {
+			send(exchange, 200, method.equals("HEAD") ? null : response.body,
+					type, response.etag);
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] body,
+			String type, String etag) throws IOException {
+		try {
+			if (type != null) {
+				exchange.getResponseHeaders().set("Content-Type", type);
+			}
+			if (etag != null) {
+				exchange.getResponseHeaders().set("ETag", etag);
+			}
+			exchange.sendResponseHeaders(status, body == null ? -1
+					: body.length);
+			if (body != null) {
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Returns the cached response, or renders a new one if it expired. If the
+	 * new response has the same content, the cached one is kept with a new
+	 * time.
+	 */
+	private synchronized Response getResponse(boolean asJson) {
+		Response cached = asJson ? json : openMetrics;
+		long now = System.currentTimeMillis();
+		if (cached != null && now - cached.time < cacheMillis) {
+			return cached;
+		}
+		List<BeanValues> beans = BeanValues.readAll(server);
+		buffer.reset();
+		if (asJson) {
+			renderJson(beans);
+		} else {
+			renderOpenMetrics(beans);
+		}
+		String etag = "\"" + Long.toHexString(buffer.hash()) + "\"";
+		Response response = new Response(cached != null
+				&& cached.etag.equals(etag)
+				&& cached.body.length == buffer.size() ? cached.body : buffer
+				.toByteArray(), etag, now);
+		if (asJson) {
+			json = response;
+		} else {
+			openMetrics = response;
+		}
+		return response;
+	}
+
+	/**
+	 * Renders the OpenMetrics text format. The values are grouped into
+	 * families by domain and attribute name.
+	 */
+	private void renderOpenMetrics(List<BeanValues> beans) {
+		Map<String, List<Sample>> families = new TreeMap<String, List<Sample>>();
+		for (BeanValues bean : beans) {
+			String prefix = metricName(bean.name.getDomain()) + "_";
+			String labels = labels(bean.name);
+			for (int i = 0; i < bean.names.size(); i++) {
+				String family = prefix + metricName(bean.names.get(i));
+				List<Sample> samples = families.get(family);
+				if (samples == null) {
+					samples = new ArrayList<Sample>();
+					families.put(family, samples);
+				}
+				samples.add(new Sample(labels, bean.values.get(i)));
+			}
+		}
+		for (Map.Entry<String, List<Sample>> family : families.entrySet()) {
+			buffer.append("# TYPE ").append(family.getKey())
+					.append(" gauge\n");
+			for (Sample sample : family.getValue()) {
+				buffer.append(family.getKey()).append(sample.labels)
+						.append(' ');
+				appendOpenMetricsValue(sample.value);
+				buffer.append('\n');
+			}
+		}
+		buffer.append("# EOF\n");
+	}
+
+	private void appendOpenMetricsValue(Object value) {
+		if (value instanceof Boolean) {
+			buffer.append(((Boolean) value).booleanValue() ? '1' : '0');
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number)) {
+				buffer.append("NaN");
+			} else if (Double.isInfinite(number)) {
+				buffer.append(number > 0 ? "+Inf" : "-Inf");
+			} else {
+				buffer.append(number);
+			}
+		} else if (value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte) {
+			buffer.append(((Number) value).longValue());
+		} else {
+			buffer.append(value.toString());
+		}
+	}
+
+	/**
+	 * Renders all beans as one JSON document:
+	 * <code>{"beans":[{"name":"...","attributes":{"...":1}}]}</code>.
+	 */
+	private void renderJson(List<BeanValues> beans) {
+		buffer.append("{\"beans\":[");
+		for (int b = 0; b < beans.size(); b++) {
+			BeanValues bean = beans.get(b);
+			if (b > 0) {
+				buffer.append(',');
+			}
+			buffer.append("{\"name\":");
+			appendJsonString(bean.name.getCanonicalName());
+			buffer.append(",\"attributes\":{");
+			for (int i = 0; i < bean.names.size(); i++) {
+				if (i > 0) {
+					buffer.append(',');
+				}
+				appendJsonString(bean.names.get(i));
+				buffer.append(':');
+				appendJsonValue(bean.values.get(i));
+			}
+			buffer.append("}}");
+		}
+		buffer.append("]}");
+	}
+
+	private void appendJsonValue(Object value) {
+		if (value instanceof Boolean) {
+			buffer.append(value.toString());
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				buffer.append("null");
+			} else {
+				buffer.append(number);
+			}
+		} else if (value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte) {
+			buffer.append(((Number) value).longValue());
+		} else {
+			buffer.append(value.toString());
+		}
+	}
+
+	private void appendJsonString(String s) {
+		buffer.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				buffer.append('\\').append(c);
+			} else if (c < 0x20) {
+				buffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+			} else {
+				buffer.append(c);
+			}
+		}
+		buffer.append('"');
+	}
+
+	/**
+	 * Returns the labels of an object name, its key properties in
+	 * alphabetical order.
+	 */
+	private static String labels(ObjectName name) {
+		Hashtable<String, String> properties = name.getKeyPropertyList();
+		if (properties.isEmpty()) {
+			return "";
+		}
+		List<String> keys = new ArrayList<String>(properties.keySet());
+		Collections.sort(keys);
+		StringBuilder labels = new StringBuilder("{");
+		for (String key : keys) {
+			if (labels.length() > 1) {
+				labels.append(',');
+			}
+			labels.append(metricName(key)).append("=\"");
+			String value = properties.get(key);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					labels.append('\\').append(c);
+				} else if (c == '\n') {
+					labels.append("\\n");
+				} else {
+					labels.append(c);
+				}
+			}
+			labels.append('"');
+		}
+		return labels.append('}').toString();
+	}
+
+	/**
+	 * Replaces the characters that are not allowed in metric and label names
+	 * by underscores, names starting with a digit get a leading underscore.
+	 */
+	static String metricName(String name) {
+		StringBuilder result = null;
+		if (name.isEmpty() || name.charAt(0) >= '0' && name.charAt(0) <= '9') {
+			result = new StringBuilder(name.length() + 1).append('_');
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'
+					|| c >= '0' && c <= '9' || c == '_';
+			if (!valid && result == null) {
+				result = new StringBuilder(name.length());
+				result.append(name, 0, i);
+			}
+			if (result != null) {
+				result.append(valid ? c : '_');
+			}
+		}
+		return result == null ? name : result.toString();
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+/**
+ * A counter that lives in a {@link SharedCounterRegion}, outside of the heap.
+ * Updates are atomic operations on the mapped memory, so other processes
+ * reading the region see the live value. Like all {@link LongSupplier}s, a
+ * shared counter in an annotated field or returned by an annotated getter is
+ * exposed as a read-only <code>long</code> attribute, which reads the same
+ * memory:
+ * 
+ * <pre>
+ * &#064;JMXBeanAttribute(description = &quot;Requests served&quot;)
+ * private final SharedCounter requests = region.counter(&quot;requests&quot;);
+ * </pre>
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class SharedCounter implements LongSupplier {
+
+	private final ByteBuffer buffer;
+
+	private final int offset;
+
+	SharedCounter(ByteBuffer buffer, int offset) {
+		this.buffer = buffer;
+		this.offset = offset;
+	}
+
+	/**
+	 * Adds one to the count.
+	 */
+	public void increment() {
+		SharedCounterRegion.LONGS.getAndAdd(buffer, offset, 1L);
+	}
+
+	/**
+	 * Adds a value to the count.
+	 * 
+	 * @param value
+	 *            The value to add.
+	 */
+	public void add(long value) {
+		SharedCounterRegion.LONGS.getAndAdd(buffer, offset, value);
+	}
+
+	/**
+	 * Sets the count, for counters that are used as gauges.
+	 * 
+	 * @param value
+	 *            The new value.
+	 */
+	public void set(long value) {
+		SharedCounterRegion.LONGS.setVolatile(buffer, offset, value);
+	}
+
+	/**
+	 * @return The current count.
+	 */
+	public long get() {
+		return (long) SharedCounterRegion.LONGS.getVolatile(buffer, offset);
+	}
+
+	@Override
+	public long getAsLong() {
+		return get();
+	}
+
+	/**
+	 * Returns the current count and sets it to zero.
+	 * 
+	 * @return The count before the reset.
+	 */
+	public long reset() {
+		return (long) SharedCounterRegion.LONGS.getAndSet(buffer, offset, 0L);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(get());
+	}
+}
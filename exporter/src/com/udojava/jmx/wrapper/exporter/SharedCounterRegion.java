@@ -0,0 +1,272 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A memory-mapped file holding {@link SharedCounter}s. The application
+ * creates the region and its counters, and other processes open the same file
+ * to read the live values, without connecting to the JVM and without copying:
+ * 
+ * <pre>
+ * SharedCounterRegion region = SharedCounterRegion.create(
+ * 		Paths.get(&quot;/tmp/myapp.counters&quot;), 1024);
+ * SharedCounter requests = region.counter(&quot;requests&quot;);
+ * </pre>
+ * 
+ * All numbers are in the native byte order of the machine. The file starts
+ * with a header:
+ * 
+ * <pre>
+ *  0 int magic, 0x4A4D5843 ("JMXC")
+ *  4 int version, 1
+ *  8 int capacity, the number of slots
+ * 12 int number of counters, written after their slots
+ * 16 unused, up to {@value #HEADER_SIZE}
+ * </pre>
+ * 
+ * followed by the slots, {@value #SLOT_SIZE} bytes each: an unsigned short
+ * name length and the UTF-8 name at offset 0, and the <code>long</code> value
+ * at offset {@value #VALUE_OFFSET}. The mapping starts at a page boundary and
+ * the header is padded to the slot size, so every counter has two 64 byte
+ * cache lines of its own, and counters updated by different threads do not
+ * slow each other down.
+ * The mapping is released by the garbage collector, when the region and all
+ * its counters are no longer used.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class SharedCounterRegion {
+
+	/**
+	 * The maximum length of a counter name in UTF-8 bytes.
+	 */
+	public static final int MAX_NAME_LENGTH = 118;
+
+	static final int MAGIC = 0x4A4D5843;
+
+	static final int VERSION = 1;
+
+	static final int CAPACITY = 8;
+
+	static final int COUNT = 12;
+
+	static final int HEADER_SIZE = 128;
+
+	static final int SLOT_SIZE = 128;
+
+	static final int VALUE_OFFSET = 120;
+
+	static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(
+			int[].class, ByteOrder.nativeOrder());
+
+	static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(
+			long[].class, ByteOrder.nativeOrder());
+
+	private final ByteBuffer buffer;
+
+	private final int capacity;
+
+	/**
+	 * The counters created by this region, guarded by it. <code>null</code>
+	 * for a region opened for reading.
+	 */
+	private final Map<String, SharedCounter> counters;
+
+	private SharedCounterRegion(MappedByteBuffer buffer, boolean writable) {
+		this.buffer = buffer.order(ByteOrder.nativeOrder());
+		this.capacity = this.buffer.getInt(CAPACITY);
+		this.counters = writable ? new HashMap<String, SharedCounter>() : null;
+	}
+
+	/**
+	 * Creates a region. An existing file is overwritten.
+	 * 
+	 * @param path
+	 *            The file.
+	 * @param capacity
+	 *            The maximum number of counters.
+	 * @return The region.
+	 * @throws IOException
+	 *             If the file can not be written.
+	 */
+	public static SharedCounterRegion create(Path path, int capacity)
+			throws IOException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			mapped = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE
+					+ (long) SLOT_SIZE * capacity);
+		}
+		mapped.order(ByteOrder.nativeOrder());
+		mapped.putInt(4, VERSION);
+		mapped.putInt(CAPACITY, capacity);
+		INTS.setRelease(mapped, COUNT, 0);
+		INTS.setRelease(mapped, 0, MAGIC);
+		return new SharedCounterRegion(mapped, true);
+	}
+
+	/**
+	 * Opens a region for reading, e.g. from another process.
+	 * 
+	 * @param path
+	 *            The file.
+	 * @return The region.
+	 * @throws IOException
+	 *             If the file can not be read or is not a counter region of
+	 *             this byte order.
+	 */
+	public static SharedCounterRegion open(Path path) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		mapped.order(ByteOrder.nativeOrder());
+		if (mapped.capacity() < HEADER_SIZE
+				|| (int) INTS.getAcquire(mapped, 0) != MAGIC) {
+			throw new IOException("not a counter region: " + path);
+		}
+		if (mapped.getInt(4) != VERSION) {
+			throw new IOException("unsupported counter region version "
+					+ mapped.getInt(4) + ": " + path);
+		}
+		return new SharedCounterRegion(mapped, false);
+	}
+
+	/**
+	 * Returns the counter of a name, it is created if it does not exist yet.
+	 * New counters start at zero.
+	 * 
+	 * @param name
+	 *            The name of the counter.
+	 * @return The counter.
+	 * @throws IllegalStateException
+	 *             If the region is full or was opened for reading.
+	 */
+	public synchronized SharedCounter counter(String name) {
+		if (counters == null) {
+			throw new IllegalStateException("region is read-only");
+		}
+		SharedCounter counter = counters.get(name);
+		if (counter != null) {
+			return counter;
+		}
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_NAME_LENGTH) {
+			throw new IllegalArgumentException("counter name too long: "
+					+ name);
+		}
+		int index = counters.size();
+		if (index == capacity) {
+			throw new IllegalStateException("region is full, capacity "
+					+ capacity);
+		}
+		int slot = HEADER_SIZE + SLOT_SIZE * index;
+		buffer.putShort(slot, (short) bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			buffer.put(slot + 2 + i, bytes[i]);
+		}
+		counter = new SharedCounter(buffer, slot + VALUE_OFFSET);
+		counters.put(name, counter);
+		INTS.setRelease(buffer, COUNT, index + 1);
+		return counter;
+	}
+
+	/**
+	 * @return The number of counters in the region.
+	 */
+	public int size() {
+		return (int) INTS.getAcquire(buffer, COUNT);
+	}
+
+	/**
+	 * @param index
+	 *            The index of the counter, below {@link #size()}.
+	 * @return The name of the counter.
+	 */
+	public String getName(int index) {
+		int slot = slot(index);
+		byte[] bytes = new byte[buffer.getShort(slot) & 0xffff];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(slot + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param index
+	 *            The index of the counter, below {@link #size()}.
+	 * @return The current value of the counter.
+	 */
+	public long get(int index) {
+		return (long) LONGS.getVolatile(buffer, slot(index) + VALUE_OFFSET);
+	}
+
+	/**
+	 * Finds a counter.
+	 * 
+	 * @param name
+	 *            The name of the counter.
+	 * @return The index of the counter, <code>-1</code> if there is none of
+	 *         that name.
+	 */
+	public int indexOf(String name) {
+		int size = size();
+		for (int i = 0; i < size; i++) {
+			if (getName(i).equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int slot(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("counter " + index);
+		}
+		return HEADER_SIZE + SLOT_SIZE * index;
+	}
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+/**
+ * Writes the numeric and boolean attributes of all wrapped beans registered
+ * with an MBean server into a memory-mapped file, periodically, so local tools
+ * can read them with a {@link SnapshotFileReader} without connecting to the
+ * JVM, like the <code>hsperfdata</code> files of the JVM itself.
+ * 
+ * The file starts with a header and a schema, listing the bean name,
+ * attribute name and type of every value, followed by the values, 8 bytes
+ * each. The schema is taken from the bean infos: every readable attribute
+ * with a numeric or boolean type gets a value, <code>&lt;name&gt;Delta</code>
+ * attributes are left out. Values that fail to read or are
+ * <code>null</code> are written as missing, so they keep their place.
+ * 
+ * The values are updated in place, protected by a sequence number that is
+ * odd while they are written. When beans come or go, a new file with the new
+ * schema is written next to the old one and moved over it, and the old one
+ * is marked as replaced. See {@link SnapshotFileReader} for the exact
+ * layout.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public class SnapshotFileExporter implements Closeable {
+
+	private final MBeanServer server;
+
+	private final Path path;
+
+	private final long intervalMillis;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * The mapped file and its schema, guarded by this exporter.
+	 */
+	private MappedByteBuffer buffer;
+
+	private String[] beanNames = new String[0];
+
+	private String[] attributeNames = new String[0];
+
+	private boolean[] doubles = new boolean[0];
+
+	private long sequence;
+
+	/**
+	 * Creates an exporter. No file is written until it is started or
+	 * {@link #update()} is called.
+	 * 
+	 * @param server
+	 *            The MBean server the wrappers are registered with.
+	 * @param path
+	 *            The file to write.
+	 * @param intervalMillis
+	 *            The interval to write the values in milliseconds.
+	 */
+	public SnapshotFileExporter(MBeanServer server, Path path,
+			long intervalMillis) {
+		if (intervalMillis < 1) {
+			throw new IllegalArgumentException("interval must be positive");
+		}
+		this.server = server;
+		this.path = path;
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * Starts writing the file in the background, the first time immediately.
+	 */
+	public synchronized void start() {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "JMXBeanWrapper snapshot "
+								+ path.getFileName());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					update();
+				} catch (IOException | RuntimeException e) {
+					/*
+					 * Try again with the next interval
+					 */
+				}
+			}
+		}, 0, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops writing, marks the file as replaced and deletes it, so readers
+	 * notice that it is gone.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+				scheduler = null;
+			}
+			if (buffer != null) {
+				SnapshotFileReader.INTS.setRelease(buffer,
+						SnapshotFileReader.STATUS,
+						SnapshotFileReader.STATUS_REPLACED);
+				buffer = null;
+			}
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Reads the beans and writes their values, or a new file if the schema
+	 * changed.
+	 * 
+	 * @throws IOException
+	 *             If the file can not be written.
+	 */
+	public synchronized void update() throws IOException {
+		List<BeanValues> beans = BeanValues.readAll(server);
+		if (buffer == null || !sameSchema(beans)) {
+			writeFile(beans);
+			return;
+		}
+		sequence++;
+		SnapshotFileReader.LONGS.setOpaque(buffer,
+				SnapshotFileReader.SEQUENCE, sequence);
+		VarHandle.storeStoreFence();
+		buffer.putLong(SnapshotFileReader.TIME, System.currentTimeMillis());
+		writeValues(buffer, buffer.getInt(SnapshotFileReader.VALUES_OFFSET),
+				beans);
+		sequence++;
+		SnapshotFileReader.LONGS.setRelease(buffer,
+				SnapshotFileReader.SEQUENCE, sequence);
+	}
+
+	private boolean sameSchema(List<BeanValues> beans) {
+		int index = 0;
+		for (BeanValues bean : beans) {
+			String beanName = bean.name.getCanonicalName();
+			for (MBeanAttributeInfo info : bean.attributes) {
+				int type = valueType(info);
+				if (type < 0) {
+					continue;
+				}
+				if (index >= beanNames.length
+						|| !beanNames[index].equals(beanName)
+						|| !attributeNames[index].equals(info.getName())
+						|| doubles[index] != (type == SnapshotFileReader.TYPE_DOUBLE)) {
+					return false;
+				}
+				index++;
+			}
+		}
+		return index == beanNames.length;
+	}
+
+	/**
+	 * Returns the type of the value of an attribute in the file.
+	 * 
+	 * @param info
+	 *            The attribute.
+	 * @return {@link SnapshotFileReader#TYPE_LONG} or
+	 *         {@link SnapshotFileReader#TYPE_DOUBLE}, <code>-1</code> if the
+	 *         attribute is not written.
+	 */
+	private static int valueType(MBeanAttributeInfo info) {
+		if (!info.isReadable()
+				|| "true".equals(info.getDescriptor().getFieldValue(
+						JMXBeanWrapper.BEAN_ATTRIBUTE_DELTA))) {
+			return -1;
+		}
+		switch (info.getType()) {
+		case "long":
+		case "int":
+		case "short":
+		case "byte":
+		case "boolean":
+		case "java.lang.Long":
+		case "java.lang.Integer":
+		case "java.lang.Short":
+		case "java.lang.Byte":
+		case "java.lang.Boolean":
+		case "java.math.BigInteger":
+		case "java.util.concurrent.atomic.AtomicLong":
+		case "java.util.concurrent.atomic.AtomicInteger":
+		case "java.util.concurrent.atomic.LongAdder":
+			return SnapshotFileReader.TYPE_LONG;
+		case "double":
+		case "float":
+		case "java.lang.Double":
+		case "java.lang.Float":
+		case "java.lang.Number":
+		case "java.math.BigDecimal":
+		case "java.util.concurrent.atomic.DoubleAdder":
+			return SnapshotFileReader.TYPE_DOUBLE;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Writes a new file next to the old one and moves it over it, then marks
+	 * the old one as replaced.
+	 */
+	private void writeFile(List<BeanValues> beans) throws IOException {
+		List<String> newBeanNames = new ArrayList<String>();
+		List<String> newAttributeNames = new ArrayList<String>();
+		List<Boolean> newDoubles = new ArrayList<Boolean>();
+		int schemaLength = 0;
+		for (BeanValues bean : beans) {
+			String beanName = bean.name.getCanonicalName();
+			for (MBeanAttributeInfo info : bean.attributes) {
+				int type = valueType(info);
+				if (type < 0) {
+					continue;
+				}
+				newBeanNames.add(beanName);
+				newAttributeNames.add(info.getName());
+				newDoubles.add(type == SnapshotFileReader.TYPE_DOUBLE);
+				schemaLength += 5 + utf8Length(beanName)
+						+ utf8Length(info.getName());
+			}
+		}
+		int count = newBeanNames.size();
+		int valuesOffset = (SnapshotFileReader.SCHEMA + schemaLength + 7) & ~7;
+
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(temporary,
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			mapped = channel.map(MapMode.READ_WRITE, 0, valuesOffset + 8L
+					* count);
+		}
+		mapped.putInt(SnapshotFileReader.MAGIC_OFFSET, SnapshotFileReader.MAGIC);
+		mapped.putInt(SnapshotFileReader.VERSION_OFFSET,
+				SnapshotFileReader.VERSION);
+		mapped.putInt(SnapshotFileReader.STATUS, SnapshotFileReader.STATUS_LIVE);
+		mapped.putInt(SnapshotFileReader.COUNT, count);
+		mapped.putLong(SnapshotFileReader.SEQUENCE, 0);
+		mapped.putLong(SnapshotFileReader.TIME, System.currentTimeMillis());
+		mapped.putInt(SnapshotFileReader.VALUES_OFFSET, valuesOffset);
+		mapped.putInt(SnapshotFileReader.SCHEMA_LENGTH, schemaLength);
+		ByteBuffer schema = mapped.duplicate();
+		schema.position(SnapshotFileReader.SCHEMA);
+		for (int i = 0; i < count; i++) {
+			putString(schema, newBeanNames.get(i));
+			putString(schema, newAttributeNames.get(i));
+			schema.put(newDoubles.get(i) ? SnapshotFileReader.TYPE_DOUBLE
+					: SnapshotFileReader.TYPE_LONG);
+		}
+		writeValues(mapped, valuesOffset, beans);
+		mapped.force();
+
+		try {
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (buffer != null) {
+			SnapshotFileReader.INTS.setRelease(buffer,
+					SnapshotFileReader.STATUS,
+					SnapshotFileReader.STATUS_REPLACED);
+		}
+		buffer = mapped;
+		beanNames = newBeanNames.toArray(new String[0]);
+		attributeNames = newAttributeNames.toArray(new String[0]);
+		doubles = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			doubles[i] = newDoubles.get(i);
+		}
+		sequence = 0;
+	}
+
+	private static void writeValues(ByteBuffer target, int offset,
+			List<BeanValues> beans) {
+		for (BeanValues bean : beans) {
+			/*
+			 * The values were visited in the order of the attributes
+			 */
+			int next = 0;
+			for (MBeanAttributeInfo info : bean.attributes) {
+				int type = valueType(info);
+				if (type < 0) {
+					continue;
+				}
+				Object value = null;
+				if (next < bean.names.size()
+						&& bean.names.get(next).equals(info.getName())) {
+					value = bean.values.get(next++);
+				}
+				target.putLong(offset, encode(value,
+						type == SnapshotFileReader.TYPE_DOUBLE));
+				offset += 8;
+			}
+		}
+	}
+
+	/**
+	 * Encodes a value as the 8 bytes written to the file.
+	 */
+	private static long encode(Object value, boolean isDouble) {
+		if (value instanceof Boolean) {
+			return ((Boolean) value) ? 1 : 0;
+		}
+		if (!(value instanceof Number)) {
+			return isDouble ? SnapshotFileReader.MISSING_DOUBLE
+					: SnapshotFileReader.MISSING_LONG;
+		}
+		if (isDouble) {
+			/*
+			 * Canonical NaN, so a value never looks like a missing one
+			 */
+			return Double.doubleToLongBits(((Number) value).doubleValue());
+		}
+		return ((Number) value).longValue();
+	}
+
+	private static void putString(ByteBuffer target, String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		target.putShort((short) bytes.length);
+		target.put(bytes);
+	}
+
+	private static int utf8Length(String s) {
+		int length = s.getBytes(StandardCharsets.UTF_8).length;
+		if (length > 0xffff) {
+			throw new IllegalArgumentException("name too long: " + s);
+		}
+		return length;
+	}
+}
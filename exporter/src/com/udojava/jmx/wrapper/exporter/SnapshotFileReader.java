@@ -0,0 +1,390 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a file written by a {@link SnapshotFileExporter}. The file is mapped
+ * into memory and the values are read directly from it, without connecting to
+ * the JVM that writes it. The reader does not depend on the rest of the
+ * JMXWrapper and can be copied into other tools.
+ * 
+ * All numbers are big-endian. The header is:
+ * 
+ * <pre>
+ *  0 int  magic, 0x4A4D5846 ("JMXF")
+ *  4 int  version, 1
+ *  8 int  status, 0 while live, 1 once the file was replaced or deleted
+ * 12 int  number of values
+ * 16 long sequence, odd while the values are written
+ * 24 long time of the values, in milliseconds since the epoch
+ * 32 int  offset of the values
+ * 36 int  length of the schema
+ * 40      schema
+ * </pre>
+ * 
+ * The schema has one entry per value: the canonical bean name and the
+ * attribute name, each as an unsigned short length and UTF-8 bytes, and a
+ * type byte, 0 for <code>long</code> and 1 for <code>double</code>. The
+ * values follow at their offset, 8 bytes each, booleans are 0 or 1. A value
+ * that could not be read, or was <code>null</code>, is written as
+ * <code>0x8000000000000000</code> for a <code>long</code> and as the NaN
+ * <code>0x7ff80000000000ff</code> for a <code>double</code>. The writer
+ * never writes this NaN otherwise.
+ * 
+ * A consistent read takes the sequence, copies the values and checks that the
+ * sequence is still the same and even. If the sequence stays odd, the writer
+ * most likely died while writing, reads then fail after
+ * {@link #setMaxWaitMillis(long)}. When the schema changes, the writer
+ * replaces the file, so readers reopen it if the status is 1, see
+ * {@link #refresh()}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class SnapshotFileReader implements Closeable {
+
+	static final int MAGIC = 0x4A4D5846;
+
+	static final int VERSION = 1;
+
+	static final int MAGIC_OFFSET = 0;
+
+	static final int VERSION_OFFSET = 4;
+
+	static final int STATUS = 8;
+
+	static final int COUNT = 12;
+
+	static final int SEQUENCE = 16;
+
+	static final int TIME = 24;
+
+	static final int VALUES_OFFSET = 32;
+
+	static final int SCHEMA_LENGTH = 36;
+
+	static final int SCHEMA = 40;
+
+	static final int STATUS_LIVE = 0;
+
+	static final int STATUS_REPLACED = 1;
+
+	static final byte TYPE_LONG = 0;
+
+	static final byte TYPE_DOUBLE = 1;
+
+	/**
+	 * The raw value of a <code>long</code> that could not be read.
+	 */
+	static final long MISSING_LONG = Long.MIN_VALUE;
+
+	/**
+	 * The raw bits of a <code>double</code> that could not be read.
+	 */
+	static final long MISSING_DOUBLE = 0x7ff80000000000ffL;
+
+	/**
+	 * Ordered access to the status and the sequence in the mapped file.
+	 */
+	static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(
+			int[].class, ByteOrder.BIG_ENDIAN);
+
+	static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(
+			long[].class, ByteOrder.BIG_ENDIAN);
+
+	private final Path path;
+
+	private long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private MappedByteBuffer buffer;
+
+	private String[] beanNames;
+
+	private String[] attributeNames;
+
+	private boolean[] doubles;
+
+	private int valuesOffset;
+
+	/**
+	 * Opens a snapshot file.
+	 * 
+	 * @param path
+	 *            The file.
+	 * @throws IOException
+	 *             If the file can not be read or is not a snapshot file.
+	 */
+	public SnapshotFileReader(Path path) throws IOException {
+		this.path = path;
+		open();
+	}
+
+	private void open() throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (mapped.capacity() < SCHEMA || mapped.getInt(MAGIC_OFFSET) != MAGIC) {
+			throw new IOException("not a snapshot file: " + path);
+		}
+		if (mapped.getInt(VERSION_OFFSET) != VERSION) {
+			throw new IOException("unsupported snapshot file version "
+					+ mapped.getInt(VERSION_OFFSET) + ": " + path);
+		}
+		int count = mapped.getInt(COUNT);
+		beanNames = new String[count];
+		attributeNames = new String[count];
+		doubles = new boolean[count];
+		ByteBuffer schema = mapped.duplicate();
+		schema.position(SCHEMA);
+		for (int i = 0; i < count; i++) {
+			beanNames[i] = getString(schema);
+			attributeNames[i] = getString(schema);
+			doubles[i] = schema.get() == TYPE_DOUBLE;
+		}
+		valuesOffset = mapped.getInt(VALUES_OFFSET);
+		buffer = mapped;
+	}
+
+	/**
+	 * @param maxWaitMillis
+	 *            The maximum time to wait for a consistent read, 100
+	 *            milliseconds by default.
+	 */
+	public void setMaxWaitMillis(long maxWaitMillis) {
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+	}
+
+	/**
+	 * Waits for the next attempt of a read.
+	 * 
+	 * @param start
+	 *            The start of the read, as returned by
+	 *            {@link System#nanoTime()}.
+	 * @throws IOException
+	 *             If the maximum wait time passed.
+	 */
+	private void retry(long start) throws IOException {
+		if (System.nanoTime() - start > maxWaitNanos) {
+			throw new IOException("no consistent values in " + path
+					+ ", the writer may have stopped while writing");
+		}
+		Thread.onSpinWait();
+	}
+
+	private static String getString(ByteBuffer source) {
+		byte[] bytes = new byte[source.getShort() & 0xffff];
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return <code>true</code> if the writer replaced or deleted the file,
+	 *         the values are not updated anymore.
+	 */
+	public boolean isReplaced() {
+		return (int) INTS.getAcquire(buffer, STATUS) != STATUS_LIVE;
+	}
+
+	/**
+	 * Opens the file again if it was replaced. The indexes of the values
+	 * change then.
+	 * 
+	 * @return <code>true</code> if the file was opened again.
+	 * @throws IOException
+	 *             If the new file can not be read, e.g. because the writer
+	 *             deleted it.
+	 */
+	public boolean refresh() throws IOException {
+		if (!isReplaced()) {
+			return false;
+		}
+		open();
+		return true;
+	}
+
+	/**
+	 * @return The number of values.
+	 */
+	public int size() {
+		return beanNames.length;
+	}
+
+	/**
+	 * @param index
+	 *            The index of the value.
+	 * @return The canonical name of the bean.
+	 */
+	public String getBeanName(int index) {
+		return beanNames[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of the value.
+	 * @return The name of the attribute.
+	 */
+	public String getAttributeName(int index) {
+		return attributeNames[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of the value.
+	 * @return <code>true</code> if the value is a <code>double</code>,
+	 *         otherwise it is a <code>long</code>.
+	 */
+	public boolean isDouble(int index) {
+		return doubles[index];
+	}
+
+	/**
+	 * Finds a value.
+	 * 
+	 * @param beanName
+	 *            The canonical name of the bean.
+	 * @param attributeName
+	 *            The name of the attribute.
+	 * @return The index of the value, <code>-1</code> if it is not in the
+	 *         file.
+	 */
+	public int indexOf(String beanName, String attributeName) {
+		for (int i = 0; i < beanNames.length; i++) {
+			if (attributeNames[i].equals(attributeName)
+					&& beanNames[i].equals(beanName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Copies a consistent set of all values. Doubles are copied as their raw
+	 * bits, see {@link #getValue(long[], int)}.
+	 * 
+	 * @param values
+	 *            Receives the values, at least {@link #size()} long.
+	 * @return The time the values were written, in milliseconds since the
+	 *         epoch.
+	 * @throws IOException
+	 *             If no consistent values could be read within
+	 *             {@link #setMaxWaitMillis(long)}.
+	 */
+	public long read(long[] values) throws IOException {
+		long start = System.nanoTime();
+		while (true) {
+			long before = (long) LONGS.getAcquire(buffer, SEQUENCE);
+			if ((before & 1) != 0) {
+				retry(start);
+				continue;
+			}
+			long time = buffer.getLong(TIME);
+			for (int i = 0; i < beanNames.length; i++) {
+				values[i] = buffer.getLong(valuesOffset + 8 * i);
+			}
+			VarHandle.loadLoadFence();
+			if ((long) LONGS.getOpaque(buffer, SEQUENCE) == before) {
+				return time;
+			}
+			retry(start);
+		}
+	}
+
+	/**
+	 * Reads a single value.
+	 * 
+	 * @param index
+	 *            The index of the value.
+	 * @return The value, a <code>Long</code> or a <code>Double</code>,
+	 *         <code>null</code> if the writer could not read it.
+	 * @throws IOException
+	 *             If no consistent value could be read within
+	 *             {@link #setMaxWaitMillis(long)}.
+	 */
+	public Number getValue(int index) throws IOException {
+		long start = System.nanoTime();
+		while (true) {
+			long before = (long) LONGS.getAcquire(buffer, SEQUENCE);
+			if ((before & 1) != 0) {
+				retry(start);
+				continue;
+			}
+			long value = buffer.getLong(valuesOffset + 8 * index);
+			VarHandle.loadLoadFence();
+			if ((long) LONGS.getOpaque(buffer, SEQUENCE) == before) {
+				return decode(value, index);
+			}
+			retry(start);
+		}
+	}
+
+	/**
+	 * Decodes a value copied by {@link #read(long[])}.
+	 * 
+	 * @param values
+	 *            The copied values.
+	 * @param index
+	 *            The index of the value.
+	 * @return The value, a <code>Long</code> or a <code>Double</code>,
+	 *         <code>null</code> if the writer could not read it.
+	 */
+	public Number getValue(long[] values, int index) {
+		return decode(values[index], index);
+	}
+
+	private Number decode(long value, int index) {
+		if (doubles[index]) {
+			return value == MISSING_DOUBLE ? null : (Number) Double
+					.longBitsToDouble(value);
+		}
+		return value == MISSING_LONG ? null : (Number) value;
+	}
+
+	/**
+	 * Releases the file. The mapping itself is released by the garbage
+	 * collector.
+	 */
+	@Override
+	public void close() {
+		buffer = null;
+	}
+}
@@ -0,0 +1,181 @@
+package com.udojava.jmx.wrapper.exporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanAttribute;
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+public class JMXBeanExporterTest {
+	@JMXBean
+	public static class TestBean {
+		volatile long requests;
+
+		@JMXBeanAttribute
+		public long getRequests() {
+			return requests;
+		}
+
+		@JMXBeanAttribute
+		public double getLoad() {
+			return 0.5;
+		}
+
+		@JMXBeanAttribute
+		public boolean isActive() {
+			return true;
+		}
+
+		@JMXBeanAttribute
+		public String getName() {
+			return "a \"name\"";
+		}
+	}
+
+	private MBeanServer server;
+
+	private JMXBeanExporter exporter;
+
+	private TestBean bean1 = new TestBean();
+
+	@Before
+	public void setUp() throws Exception {
+		server = MBeanServerFactory.newMBeanServer();
+		server.registerMBean(new JMXBeanWrapper(bean1), new ObjectName(
+				"com.example:type=Cache,name=first"));
+		server.registerMBean(new JMXBeanWrapper(new TestBean()),
+				new ObjectName("com.example:type=Cache,name=\"se\\\"cond\""));
+		exporter = new JMXBeanExporter(server, 0);
+		exporter.setCacheMillis(0);
+		exporter.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		exporter.stop();
+		for (ObjectName name : server.queryNames(new ObjectName(
+				"com.example:*"), null)) {
+			server.unregisterMBean(name);
+		}
+	}
+
+	private HttpURLConnection open(String path) throws IOException {
+		return (HttpURLConnection) new URL("http://localhost:"
+				+ exporter.getPort() + path).openConnection();
+	}
+
+	private static String read(HttpURLConnection connection)
+			throws IOException {
+		InputStream in = connection.getInputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] bytes = new byte[4096];
+		int read;
+		while ((read = in.read(bytes)) > 0) {
+			out.write(bytes, 0, read);
+		}
+		in.close();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testOpenMetrics() throws Exception {
+		bean1.requests = 42;
+		HttpURLConnection connection = open("/metrics");
+
+		assertEquals(200, connection.getResponseCode());
+		assertEquals(JMXBeanExporter.OPENMETRICS_TYPE,
+				connection.getContentType());
+		String body = read(connection);
+		assertTrue(body, body.contains("# TYPE com_example_requests gauge\n"));
+		assertTrue(body, body
+				.contains("com_example_requests{name=\"first\",type=\"Cache\"} 42\n"));
+		assertTrue(body, body
+				.contains("com_example_requests{name=\"\\\"se\\\\\\\"cond\\\"\",type=\"Cache\"} 0\n"));
+		assertTrue(body, body
+				.contains("com_example_load{name=\"first\",type=\"Cache\"} 0.5\n"));
+		assertTrue(body, body
+				.contains("com_example_active{name=\"first\",type=\"Cache\"} 1\n"));
+		assertFalse(body, body.contains("com_example_name"));
+		assertEquals(1, body.split("# TYPE com_example_requests ").length - 1);
+		assertTrue(body, body.endsWith("# EOF\n"));
+	}
+
+	@Test
+	public void testJson() throws Exception {
+		bean1.requests = 7;
+		HttpURLConnection connection = open("/metrics.json");
+
+		assertEquals(200, connection.getResponseCode());
+		assertEquals(JMXBeanExporter.JSON_TYPE, connection.getContentType());
+		String body = read(connection);
+		assertTrue(body, body.startsWith("{\"beans\":[{\"name\":"));
+		assertTrue(body, body.contains("{\"name\":\"com.example:name=first,type=Cache\",\"attributes\":{"));
+		assertTrue(body, body.contains("\"requests\":7"));
+		assertTrue(body, body.contains("\"load\":0.5"));
+		assertTrue(body, body.contains("\"active\":true"));
+		assertTrue(body, body.contains("se\\\\\\\"cond"));
+	}
+
+	@Test
+	public void testETag() throws Exception {
+		HttpURLConnection first = open("/metrics");
+		assertEquals(200, first.getResponseCode());
+		String etag = first.getHeaderField("ETag");
+		assertNotNull(etag);
+		read(first);
+
+		HttpURLConnection second = open("/metrics");
+		second.setRequestProperty("If-None-Match", etag);
+		assertEquals(304, second.getResponseCode());
+
+		bean1.requests++;
+		HttpURLConnection third = open("/metrics");
+		third.setRequestProperty("If-None-Match", etag);
+		assertEquals(200, third.getResponseCode());
+		assertFalse(etag.equals(third.getHeaderField("ETag")));
+		read(third);
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		exporter.setCacheMillis(60000);
+		bean1.requests = 1;
+		String before = read(open("/metrics"));
+		bean1.requests = 2;
+
+		assertEquals(before, read(open("/metrics")));
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		assertEquals(404, open("/metrics/other").getResponseCode());
+		HttpURLConnection post = open("/metrics");
+		post.setRequestMethod("POST");
+		assertEquals(405, post.getResponseCode());
+	}
+
+	@Test
+	public void testMetricName() {
+		assertEquals("com_example", JMXBeanExporter.metricName("com.example"));
+		assertEquals("_1abc", JMXBeanExporter.metricName("1abc"));
+		assertEquals("Floor_Level", JMXBeanExporter.metricName("Floor Level"));
+	}
+}
@@ -0,0 +1,137 @@
+package com.udojava.jmx.wrapper.exporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.management.MBeanAttributeInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanAttribute;
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+public class SharedCounterTest {
+	@JMXBean
+	public static class TestBean {
+		@JMXBeanAttribute(description = "Requests served")
+		final SharedCounter requests;
+
+		TestBean(SharedCounterRegion region) {
+			requests = region.counter("requests");
+		}
+	}
+
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = Files.createTempFile("counters", ".region");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+		SharedCounterRegion region = SharedCounterRegion.create(file, 4);
+		SharedCounter requests = region.counter("requests");
+		SharedCounter errors = region.counter("errors");
+
+		assertSame(requests, region.counter("requests"));
+		requests.increment();
+		requests.add(2);
+		errors.set(5);
+		assertEquals(3, requests.get());
+		assertEquals(5, errors.getAsLong());
+		assertEquals(5, errors.reset());
+		assertEquals(0, errors.get());
+		assertEquals(2, region.size());
+		assertEquals("errors", region.getName(1));
+	}
+
+	@Test
+	public void testReader() throws Exception {
+		SharedCounterRegion region = SharedCounterRegion.create(file, 4);
+		SharedCounter requests = region.counter("requests");
+		requests.add(10);
+
+		SharedCounterRegion reader = SharedCounterRegion.open(file);
+		assertEquals(1, reader.size());
+		int index = reader.indexOf("requests");
+		assertEquals(0, index);
+		assertEquals(10, reader.get(index));
+
+		requests.increment();
+		assertEquals(11, reader.get(index));
+		region.counter("später");
+		assertEquals(2, reader.size());
+		assertEquals(1, reader.indexOf("später"));
+		assertEquals(-1, reader.indexOf("other"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReadOnly() throws Exception {
+		SharedCounterRegion.create(file, 4);
+		SharedCounterRegion.open(file).counter("requests");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFull() throws Exception {
+		SharedCounterRegion region = SharedCounterRegion.create(file, 1);
+		region.counter("one");
+		region.counter("two");
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoRegion() throws Exception {
+		Files.write(file, new byte[64]);
+		SharedCounterRegion.open(file);
+	}
+
+	@Test
+	public void testAttribute() throws Exception {
+		SharedCounterRegion region = SharedCounterRegion.create(file, 4);
+		TestBean testBean = new TestBean(region);
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		MBeanAttributeInfo info = bean.getMBeanInfo().getAttributes()[0];
+		assertEquals("requests", info.getName());
+		assertEquals("long", info.getType());
+		assertFalse(info.isWritable());
+		testBean.requests.add(4);
+		assertEquals(4L, bean.getAttribute("requests"));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final SharedCounter counter = SharedCounterRegion.create(file, 1)
+				.counter("requests");
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						counter.increment();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(40000, counter.get());
+	}
+}
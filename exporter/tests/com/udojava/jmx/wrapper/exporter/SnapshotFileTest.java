@@ -0,0 +1,209 @@
+package com.udojava.jmx.wrapper.exporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.udojava.jmx.wrapper.JMXBean;
+import com.udojava.jmx.wrapper.JMXBeanAttribute;
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+public class SnapshotFileTest {
+	@JMXBean
+	public static class ChangingBean {
+		volatile Long count;
+		volatile Number value = 1L;
+
+		@JMXBeanAttribute
+		public Long getCount() {
+			return count;
+		}
+
+		@JMXBeanAttribute
+		public Number getValue() {
+			return value;
+		}
+
+		@JMXBeanAttribute(rateWindowMillis = 1000)
+		public long getTotal() {
+			return 7;
+		}
+	}
+
+	private MBeanServer server;
+
+	private Path directory;
+
+	private Path file;
+
+	private SnapshotFileExporter exporter;
+
+	private JMXBeanExporterTest.TestBean bean = new JMXBeanExporterTest.TestBean();
+
+	@Before
+	public void setUp() throws Exception {
+		server = MBeanServerFactory.newMBeanServer();
+		server.registerMBean(new JMXBeanWrapper(bean), new ObjectName(
+				"com.example:type=Cache,name=first"));
+		directory = Files.createTempDirectory("snapshot");
+		file = directory.resolve("beans.snapshot");
+		exporter = new SnapshotFileExporter(server, file, 10);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		exporter.close();
+		Files.deleteIfExists(directory);
+		for (ObjectName name : server.queryNames(new ObjectName(
+				"com.example:*"), null)) {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriterStoppedWhileWriting() throws Exception {
+		exporter.update();
+		/*
+		 * An odd sequence, as left by a writer killed during an update
+		 */
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }),
+					SnapshotFileReader.SEQUENCE + 7);
+		}
+
+		try (SnapshotFileReader reader = new SnapshotFileReader(file)) {
+			reader.setMaxWaitMillis(10);
+			reader.read(new long[reader.size()]);
+		}
+	}
+
+	@Test
+	public void testSchemaAndValues() throws Exception {
+		bean.requests = 42;
+		exporter.update();
+
+		try (SnapshotFileReader reader = new SnapshotFileReader(file)) {
+			assertEquals(3, reader.size());
+			int requests = reader.indexOf("com.example:name=first,type=Cache",
+					"requests");
+			int load = reader.indexOf("com.example:name=first,type=Cache",
+					"load");
+			int active = reader.indexOf("com.example:name=first,type=Cache",
+					"active");
+			assertTrue(requests >= 0);
+			assertFalse(reader.isDouble(requests));
+			assertTrue(reader.isDouble(load));
+			assertEquals(-1, reader.indexOf("com.example:name=first,type=Cache",
+					"name"));
+
+			long[] values = new long[reader.size()];
+			long time = reader.read(values);
+			assertTrue(time > 0);
+			assertEquals(42L, reader.getValue(values, requests));
+			assertEquals(0.5, reader.getValue(values, load));
+			assertEquals(1L, reader.getValue(values, active));
+
+			bean.requests = 43;
+			exporter.update();
+			assertFalse(reader.isReplaced());
+			assertEquals(43L, reader.getValue(requests));
+		}
+	}
+
+	@Test
+	public void testSchemaFromBeanInfo() throws Exception {
+		ChangingBean changing = new ChangingBean();
+		server.registerMBean(new JMXBeanWrapper(changing), new ObjectName(
+				"com.example:type=Changing"));
+		exporter.update();
+
+		try (SnapshotFileReader reader = new SnapshotFileReader(file)) {
+			String name = "com.example:type=Changing";
+			int count = reader.indexOf(name, "count");
+			int value = reader.indexOf(name, "value");
+			assertFalse(reader.isDouble(count));
+			assertTrue(reader.isDouble(value));
+			assertTrue(reader.indexOf(name, "totalRate") >= 0);
+			assertEquals(-1, reader.indexOf(name, "totalDelta"));
+			assertNull(reader.getValue(count));
+			assertEquals(1.0, reader.getValue(value));
+
+			changing.count = 5L;
+			changing.value = 2.5;
+			exporter.update();
+			assertFalse(reader.isReplaced());
+			assertEquals(5L, reader.getValue(count));
+			assertEquals(2.5, reader.getValue(value));
+		}
+	}
+
+	@Test
+	public void testSchemaChange() throws Exception {
+		exporter.update();
+		try (SnapshotFileReader reader = new SnapshotFileReader(file)) {
+			assertEquals(3, reader.size());
+			assertFalse(reader.refresh());
+
+			server.registerMBean(new JMXBeanWrapper(
+					new JMXBeanExporterTest.TestBean()), new ObjectName(
+					"com.example:type=Cache,name=second"));
+			exporter.update();
+
+			assertTrue(reader.isReplaced());
+			assertTrue(reader.refresh());
+			assertEquals(6, reader.size());
+			assertEquals(0L, reader.getValue(reader.indexOf(
+					"com.example:name=second,type=Cache", "requests")));
+		}
+	}
+
+	@Test
+	public void testBackground() throws Exception {
+		exporter.start();
+		long end = System.currentTimeMillis() + 5000;
+		while (!Files.exists(file) && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		try (SnapshotFileReader reader = new SnapshotFileReader(file)) {
+			int requests = reader.indexOf("com.example:name=first,type=Cache",
+					"requests");
+			bean.requests = 7;
+			while (reader.getValue(requests).longValue() != 7
+					&& System.currentTimeMillis() < end) {
+				Thread.sleep(10);
+			}
+			assertEquals(7L, reader.getValue(requests));
+
+			exporter.close();
+			assertTrue(reader.isReplaced());
+			assertFalse(Files.exists(file));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoSnapshotFile() throws Exception {
+		Files.write(file, new byte[64]);
+		try {
+			new SnapshotFileReader(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
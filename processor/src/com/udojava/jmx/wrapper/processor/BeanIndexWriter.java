@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Collects the <code>JMXBean</code> annotated classes of a compilation and
+ * writes them to the bean index <code>META-INF/jmxwrapper/beans.idx</code>,
+ * which is read at runtime by <code>JMXBeanIndex</code>.
+ * 
+ * The index is a UTF-8 text file with one line per bean class and the tab
+ * separated columns binary class name, object name template, binary name of
+ * the generated support class (empty if there is none) and <code>true</code>
+ * if the class has a public constructor without parameters. Lines starting
+ * with <code>#</code> are comments.
+ * 
+ * Entries of an existing index are kept for classes that are still annotated
+ * but not part of the compilation, so incremental builds don't lose them.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+class BeanIndexWriter {
+
+	static final String RESOURCE = "META-INF/jmxwrapper/beans.idx";
+
+	static final String HEADER = "# JMXWrapper bean index 1";
+
+	private final ProcessingEnvironment env;
+
+	private final Elements elements;
+
+	/**
+	 * The index lines by class name, sorted so the index is reproducible.
+	 */
+	private final Map<String, String> entries = new TreeMap<String, String>();
+
+	private final List<Element> originatingElements = new ArrayList<Element>();
+
+	BeanIndexWriter(ProcessingEnvironment env) {
+		this.env = env;
+		this.elements = env.getElementUtils();
+	}
+
+	/**
+	 * Adds a bean class to the index.
+	 * 
+	 * @param type
+	 *            The annotated class.
+	 * @param supportClassName
+	 *            The name of the generated support class, <code>null</code>
+	 *            if none was generated.
+	 */
+	void add(TypeElement type, String supportClassName) {
+		String className = elements.getBinaryName(type).toString();
+		entries.put(className, className + "\t" + objectName(type, className)
+				+ "\t" + (supportClassName == null ? "" : supportClassName)
+				+ "\t" + isInstantiable(type));
+		originatingElements.add(type);
+	}
+
+	/**
+	 * Writes the index, merged with the entries of an existing index.
+	 */
+	void write() {
+		if (entries.isEmpty()) {
+			return;
+		}
+		readExisting();
+		try {
+			FileObject file = env.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", RESOURCE,
+					originatingElements.toArray(new Element[0]));
+			Writer out = new OutputStreamWriter(file.openOutputStream(),
+					StandardCharsets.UTF_8);
+			try {
+				out.write(HEADER + "\n");
+				for (String line : entries.values()) {
+					out.write(line + "\n");
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			env.getMessager().printMessage(Kind.ERROR,
+					"Can't write bean index: " + e);
+		}
+	}
+
+	private void readExisting() {
+		try {
+			FileObject file = env.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", RESOURCE);
+			Reader reader = new InputStreamReader(file.openInputStream(),
+					StandardCharsets.UTF_8);
+			BufferedReader in = new BufferedReader(reader);
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					int tab = line.indexOf('\t');
+					if (line.startsWith("#") || tab < 0) {
+						continue;
+					}
+					String className = line.substring(0, tab);
+					if (!entries.containsKey(className)
+							&& isStillAnnotated(className)) {
+						entries.put(className, line);
+					}
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			/*
+			 * No index of an earlier build
+			 */
+		}
+	}
+
+	private boolean isStillAnnotated(String className) {
+		TypeElement type = elements.getTypeElement(className.replace('$', '.'));
+		return type != null && findJMXBean(type) != null;
+	}
+
+	/**
+	 * Returns the object name template of the class, with the default of
+	 * <code>ObjectNameTemplate</code> if the annotation has none.
+	 */
+	private String objectName(TypeElement type, String className) {
+		AnnotationMirror jmxBean = findJMXBean(type);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : jmxBean
+				.getElementValues().entrySet()) {
+			if (value.getKey().getSimpleName().contentEquals("objectName")
+					&& !value.getValue().getValue().equals("")) {
+				return (String) value.getValue().getValue();
+			}
+		}
+		String packageName = elements.getPackageOf(type).getQualifiedName()
+				.toString();
+		return (packageName.equals("") ? "default" : packageName) + ":type="
+				+ className.substring(className.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Finds the annotation of a class, it may also be inherited.
+	 */
+	private AnnotationMirror findJMXBean(TypeElement type) {
+		for (AnnotationMirror mirror : elements.getAllAnnotationMirrors(type)) {
+			if (((TypeElement) mirror.getAnnotationType().asElement())
+					.getQualifiedName().contentEquals(JMXBeanProcessor.JMX_BEAN)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the class and all enclosing classes are public and static,
+	 * and the class has a public constructor without parameters.
+	 */
+	private static boolean isInstantiable(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return false;
+		}
+		Element element = type;
+		while (element.getKind() == ElementKind.CLASS) {
+			TypeElement enclosed = (TypeElement) element;
+			if (!enclosed.getModifiers().contains(Modifier.PUBLIC)) {
+				return false;
+			}
+			if (enclosed.getNestingKind() == NestingKind.TOP_LEVEL) {
+				break;
+			}
+			if (enclosed.getNestingKind() != NestingKind.MEMBER
+					|| !enclosed.getModifiers().contains(Modifier.STATIC)) {
+				return false;
+			}
+			element = enclosed.getEnclosingElement();
+		}
+		for (ExecutableElement constructor : ElementFilter
+				.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty()
+					&& constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor that generates a <code>JMXBeanSupport</code> class for
+ * every <code>JMXBean</code> annotated class. The generated class describes
+ * the annotated members and calls them directly, so the
+ * <code>JMXBeanWrapper</code> does not need reflection to analyze or access
+ * the bean.
+ * 
+ * All annotated classes of a compilation are also listed in the bean index
+ * <code>META-INF/jmxwrapper/beans.idx</code>, see {@link BeanIndexWriter}, so
+ * they can be found at runtime without scanning the class path.
+ * 
+ * The processor is found automatically by the Java compiler, if the
+ * JMXWrapper-processor artifact is on the compile class path or the annotation
+ * processor path.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@SupportedAnnotationTypes(JMXBeanProcessor.JMX_BEAN)
+public class JMXBeanProcessor extends AbstractProcessor {
+
+	static final String PACKAGE = "com.udojava.jmx.wrapper";
+
+	static final String JMX_BEAN = PACKAGE + ".JMXBean";
+
+	private BeanIndexWriter index;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		TypeElement jmxBean = processingEnv.getElementUtils().getTypeElement(
+				JMX_BEAN);
+		if (jmxBean == null) {
+			return false;
+		}
+		if (index == null) {
+			index = new BeanIndexWriter(processingEnv);
+		}
+		if (roundEnv.processingOver()) {
+			index.write();
+			return false;
+		}
+		for (Element element : roundEnv.getElementsAnnotatedWith(jmxBean)) {
+			if (element.getKind() != ElementKind.CLASS) {
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			if (!isSupported(type)) {
+				processingEnv.getMessager().printMessage(
+						Kind.NOTE,
+						"No bean support generated for " + type
+								+ ", it is not accessible from its package",
+						type);
+				index.add(type, null);
+				continue;
+			}
+			index.add(type, writeSupportClass(type));
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a support class can be generated for a bean class. The class
+	 * must not be abstract and it, and all enclosing classes must be
+	 * accessible from the package.
+	 */
+	private boolean isSupported(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return false;
+		}
+		Element element = type;
+		while (element.getKind().isClass() || element.getKind().isInterface()) {
+			if (element.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			if (element.getEnclosingElement() == null) {
+				break;
+			}
+			if (element.getEnclosingElement().getKind() == ElementKind.METHOD
+					|| element.getEnclosingElement().getKind() == ElementKind.CONSTRUCTOR) {
+				return false;
+			}
+			element = element.getEnclosingElement();
+		}
+		return true;
+	}
+
+	/**
+	 * @return The name of the support class, <code>null</code> if it could not
+	 *         be written.
+	 */
+	private String writeSupportClass(TypeElement type) {
+		SupportClassWriter writer = new SupportClassWriter(processingEnv, type);
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					writer.getQualifiedName(), type);
+			Writer out = file.openWriter();
+			try {
+				writer.write(out);
+			} finally {
+				out.close();
+			}
+			return writer.getQualifiedName();
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Can't write bean support class: " + e, type);
+			return null;
+		}
+	}
+}
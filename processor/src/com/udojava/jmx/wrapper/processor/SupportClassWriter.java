@@ -0,0 +1,396 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the source of the <code>JMXBeanSupport</code> class for one bean
+ * class. The annotated members are found the same way the
+ * <code>JMXBeanWrapper</code> finds them through reflection: all public
+ * methods of the class, including inherited ones, that carry a
+ * <code>JMXBeanAttribute</code>, <code>JMXBeanOperation</code> or
+ * <code>JMXBeanSnapshot</code> annotation.
+ * 
+ * The annotations themselves are passed to the support as anonymous
+ * implementations of the annotation types, returning the values found at
+ * compile time.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+class SupportClassWriter {
+
+	static final String JMX_BEAN_ATTRIBUTE = JMXBeanProcessor.PACKAGE
+			+ ".JMXBeanAttribute";
+
+	static final String JMX_BEAN_OPERATION = JMXBeanProcessor.PACKAGE
+			+ ".JMXBeanOperation";
+
+	static final String JMX_BEAN_PARAMETER = JMXBeanProcessor.PACKAGE
+			+ ".JMXBeanParameter";
+
+	static final String JMX_BEAN_SNAPSHOT = JMXBeanProcessor.PACKAGE
+			+ ".JMXBeanSnapshot";
+
+	static final String JMX_BEAN_SUPPORT = JMXBeanProcessor.PACKAGE
+			+ ".JMXBeanSupport";
+
+	static final String CLASS_NAME_SUFFIX = "MBeanSupport";
+
+	private final Elements elements;
+
+	private final Types types;
+
+	private final TypeElement type;
+
+	/**
+	 * The annotated methods of the bean class, in member index order.
+	 */
+	private final List<ExecutableElement> members = new ArrayList<ExecutableElement>();
+
+	private final String packageName;
+
+	private final String simpleName;
+
+	SupportClassWriter(ProcessingEnvironment env, TypeElement type) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+		this.type = type;
+		this.packageName = elements.getPackageOf(type).getQualifiedName()
+				.toString();
+		String binaryName = elements.getBinaryName(type).toString();
+		this.simpleName = binaryName.substring(
+				packageName.length() == 0 ? 0 : packageName.length() + 1)
+				.replace('$', '_')
+				+ CLASS_NAME_SUFFIX;
+
+		for (Element element : elements.getAllMembers(type)) {
+			if (element.getKind() != ElementKind.METHOD
+					|| !element.getModifiers().contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			if (findAnnotation(element, JMX_BEAN_ATTRIBUTE) != null
+					|| findAnnotation(element, JMX_BEAN_OPERATION) != null
+					|| findAnnotation(element, JMX_BEAN_SNAPSHOT) != null) {
+				members.add((ExecutableElement) element);
+			}
+		}
+	}
+
+	/**
+	 * @return The qualified name of the support class.
+	 */
+	String getQualifiedName() {
+		return packageName.length() == 0 ? simpleName : packageName + "."
+				+ simpleName;
+	}
+
+	/**
+	 * Writes the support class source.
+	 * 
+	 * @param out
+	 *            The writer to write to.
+	 * @throws IOException
+	 */
+	void write(Writer out) throws IOException {
+		StringBuilder src = new StringBuilder();
+		src.append("// Generated by the JMXWrapper annotation processor, do not edit.\n");
+		if (packageName.length() > 0) {
+			src.append("package ").append(packageName).append(";\n\n");
+		}
+		src.append("public final class ").append(simpleName)
+				.append(" extends ").append(JMX_BEAN_SUPPORT).append(" {\n\n");
+
+		src.append("\tpublic ").append(simpleName).append("() {\n");
+		for (int i = 0; i < members.size(); i++) {
+			writeMember(src, i, members.get(i));
+		}
+		src.append("\t}\n\n");
+
+		writeDispatch(src, "get", "Object bean, int member", 0, "bean, member");
+		writeDispatch(src, "set", "Object bean, int member, Object value", 1,
+				"bean, member, value");
+		writeDispatch(src, "invoke", "Object bean, int member, Object[] params",
+				-1, null);
+		src.append("}\n");
+		out.write(src.toString());
+	}
+
+	private void writeMember(StringBuilder src, int index,
+			ExecutableElement method) {
+		src.append("\t\tmember(").append(index).append(", ")
+				.append(elements.getConstantExpression(method.getSimpleName()
+						.toString())).append(", ")
+				.append(elements.getConstantExpression(className(method
+						.getReturnType()))).append(",\n\t\t\t\tnew String[] {");
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			src.append(i > 0 ? ", " : " ").append(
+					elements.getConstantExpression(className(parameters.get(i)
+							.asType())));
+		}
+		src.append(" },\n\t\t\t\t");
+		writeAnnotation(src, findAnnotation(method, JMX_BEAN_ATTRIBUTE));
+		src.append(",\n\t\t\t\t");
+		writeAnnotation(src, findAnnotation(method, JMX_BEAN_OPERATION));
+		src.append(",\n\t\t\t\tnew ").append(JMX_BEAN_PARAMETER)
+				.append("[] {");
+		for (int i = 0; i < parameters.size(); i++) {
+			src.append(i > 0 ? ",\n\t\t\t\t" : "\n\t\t\t\t");
+			writeAnnotation(src,
+					findAnnotation(parameters.get(i), JMX_BEAN_PARAMETER));
+		}
+		src.append(" }");
+		AnnotationMirror snapshot = findAnnotation(method, JMX_BEAN_SNAPSHOT);
+		if (snapshot != null) {
+			src.append(",\n\t\t\t\t");
+			writeAnnotation(src, snapshot);
+		}
+		src.append(");\n");
+	}
+
+	/**
+	 * Writes an anonymous implementation of an annotation type, that returns
+	 * the values of the annotation mirror.
+	 */
+	private void writeAnnotation(StringBuilder src, AnnotationMirror mirror) {
+		if (mirror == null) {
+			src.append("null");
+			return;
+		}
+		String annotationType = ((TypeElement) mirror.getAnnotationType()
+				.asElement()).getQualifiedName().toString();
+		src.append("new ").append(annotationType).append("() {\n");
+		src.append("\t\t\t\t\tpublic Class<? extends java.lang.annotation.Annotation> annotationType() {\n");
+		src.append("\t\t\t\t\t\treturn ").append(annotationType)
+				.append(".class;\n");
+		src.append("\t\t\t\t\t}\n");
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements
+				.getElementValuesWithDefaults(mirror).entrySet()) {
+			TypeMirror returnType = entry.getKey().getReturnType();
+			src.append("\t\t\t\t\tpublic ").append(returnType).append(' ')
+					.append(entry.getKey().getSimpleName()).append("() {\n");
+			src.append("\t\t\t\t\t\treturn ")
+					.append(valueExpression(entry.getValue(), returnType))
+					.append(";\n");
+			src.append("\t\t\t\t\t}\n");
+		}
+		src.append("\t\t\t\t}");
+	}
+
+	/**
+	 * Writes one of the dispatch methods, a switch over the member index.
+	 * 
+	 * @param arity
+	 *            The number of parameters of the members handled by the
+	 *            method, <code>-1</code> for all members.
+	 * @param superArgs
+	 *            The arguments to pass to the super method for all other
+	 *            members, <code>null</code> to throw an exception instead.
+	 */
+	private void writeDispatch(StringBuilder src, String name,
+			String parameters, int arity, String superArgs) {
+		src.append("\t@Override\n\tprotected Object ").append(name)
+				.append('(').append(parameters)
+				.append(") throws Exception {\n");
+		src.append("\t\tswitch (member) {\n");
+		for (int i = 0; i < members.size(); i++) {
+			ExecutableElement method = members.get(i);
+			List<? extends VariableElement> methodParameters = method
+					.getParameters();
+			if (arity >= 0 && methodParameters.size() != arity) {
+				continue;
+			}
+			src.append("\t\tcase ").append(i).append(":\n\t\t\t");
+			boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+			if (!isVoid) {
+				src.append("return ");
+			}
+			if (method.getModifiers().contains(Modifier.STATIC)) {
+				src.append(sourceName(type.asType()));
+			} else {
+				src.append("((").append(sourceName(type.asType()))
+						.append(") bean)");
+			}
+			src.append('.').append(method.getSimpleName()).append('(');
+			for (int p = 0; p < methodParameters.size(); p++) {
+				if (p > 0) {
+					src.append(", ");
+				}
+				src.append('(')
+						.append(sourceName(boxed(methodParameters.get(p)
+								.asType()))).append(") ")
+						.append(arity == 1 ? "value" : "params[" + p + "]");
+			}
+			src.append(");\n");
+			if (isVoid) {
+				src.append("\t\t\treturn null;\n");
+			}
+		}
+		src.append("\t\tdefault:\n\t\t\t");
+		if (superArgs != null) {
+			src.append("return super.").append(name).append('(')
+					.append(superArgs).append(");\n");
+		} else {
+			src.append("throw new IllegalArgumentException(\"Unknown member \" + member);\n");
+		}
+		src.append("\t\t}\n\t}\n\n");
+	}
+
+	/**
+	 * Returns the source code expression of an annotation value.
+	 */
+	private String valueExpression(AnnotationValue value,
+			final TypeMirror type) {
+		return value.accept(
+				new SimpleAnnotationValueVisitor8<String, Void>() {
+					@Override
+					protected String defaultAction(Object o, Void p) {
+						return elements.getConstantExpression(o);
+					}
+
+					@Override
+					public String visitType(TypeMirror t, Void p) {
+						return sourceName(t) + ".class";
+					}
+
+					@Override
+					public String visitEnumConstant(VariableElement c, Void p) {
+						return ((TypeElement) c.getEnclosingElement())
+								.getQualifiedName() + "." + c.getSimpleName();
+					}
+
+					@Override
+					public String visitArray(
+							List<? extends AnnotationValue> values, Void p) {
+						TypeMirror component = ((ArrayType) type)
+								.getComponentType();
+						StringBuilder array = new StringBuilder("new ")
+								.append(sourceName(component)).append("[] {");
+						for (int i = 0; i < values.size(); i++) {
+							array.append(i > 0 ? ", " : " ").append(
+									valueExpression(values.get(i), component));
+						}
+						return array.append(" }").toString();
+					}
+
+					@Override
+					public String visitAnnotation(AnnotationMirror a, Void p) {
+						throw new IllegalArgumentException(
+								"Nested annotations are not supported: " + a);
+					}
+				}, null);
+	}
+
+	private static AnnotationMirror findAnnotation(Element element,
+			String annotationType) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement())
+					.getQualifiedName().contentEquals(annotationType)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private TypeMirror boxed(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return types.boxedClass(types.getPrimitiveType(type.getKind()))
+					.asType();
+		}
+		return type;
+	}
+
+	/**
+	 * Returns the name of a type as it is used in source code, generic types
+	 * are erased.
+	 */
+	private String sourceName(TypeMirror type) {
+		return types.erasure(type).toString();
+	}
+
+	/**
+	 * Returns the name of a type as it is returned by
+	 * {@link Class#getName()}.
+	 */
+	private String className(TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return "[" + descriptor(((ArrayType) type).getComponentType());
+		}
+		if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+			return type.toString();
+		}
+		return elements.getBinaryName(
+				(TypeElement) types.asElement(types.erasure(type))).toString();
+	}
+
+	private String descriptor(TypeMirror type) {
+		switch (type.getKind()) {
+		case BOOLEAN:
+			return "Z";
+		case BYTE:
+			return "B";
+		case CHAR:
+			return "C";
+		case SHORT:
+			return "S";
+		case INT:
+			return "I";
+		case LONG:
+			return "J";
+		case FLOAT:
+			return "F";
+		case DOUBLE:
+			return "D";
+		case ARRAY:
+			return "[" + descriptor(((ArrayType) type).getComponentType());
+		default:
+			return "L" + className(type) + ";";
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.udojava.jmx.wrapper.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanFeatureInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.udojava.jmx.wrapper.JMXBeanIndex;
+import com.udojava.jmx.wrapper.JMXBeanRegistry;
+import com.udojava.jmx.wrapper.JMXBeanSupport;
+import com.udojava.jmx.wrapper.JMXBeanWrapper;
+
+public class JMXBeanProcessorTest {
+
+	private static final String SOURCE = "package test;\n"
+			+ "import com.udojava.jmx.wrapper.*;\n"
+			+ "@JMXBean(description = \"Processed bean\")\n"
+			+ "public class TestBean {\n"
+			+ "	private int level;\n"
+			+ "	private boolean active;\n"
+			+ "	@JMXBeanAttribute(name = \"Floor Level\", description = \"The level\", sortValue = \"1\")\n"
+			+ "	public int getLevel() { return level; }\n"
+			+ "	@JMXBeanAttribute(name = \"Floor Level\")\n"
+			+ "	public void setLevel(int level) { this.level = level; }\n"
+			+ "	@JMXBeanAttribute\n"
+			+ "	public boolean isActive() { return active; }\n"
+			+ "	@JMXBeanAttribute\n"
+			+ "	public String[] getNames() { return new String[] { \"a\", \"b\" }; }\n"
+			+ "	@JMXBeanOperation(impactType = JMXBeanOperation.IMPACT_TYPES.ACTION)\n"
+			+ "	public void activate() { active = true; }\n"
+			+ "	@JMXBeanOperation(name = \"Echo\", description = \"Echoes\")\n"
+			+ "	public String echo(@JMXBeanParameter(name = \"Input\", description = \"What to echo\") String p) { return p; }\n"
+			+ "	@JMXBeanOperation(name = \"Echo\")\n"
+			+ "	public String echo(String p, int times) { String r = \"\"; for (int i = 0; i < times; i++) r += p; return r; }\n"
+			+ "	@JMXBeanSnapshot(\"Floor Level\")\n"
+			+ "	public java.util.Map<String, Object> snapshot() { return java.util.Collections.<String, Object>singletonMap(\"Floor Level\", 42); }\n"
+			+ "	public static class Nested extends TestBean {\n"
+			+ "		@JMXBeanOperation\n"
+			+ "		public long nestedOperation(long p) { return p * 2; }\n"
+			+ "	}\n"
+			+ "	@JMXBean(objectName = \"test:type=Named,name={name}\")\n"
+			+ "	public static class Named {\n"
+			+ "		public Named(String name) { }\n"
+			+ "	}\n"
+			+ "}\n";
+
+	private static ClassLoader processed;
+
+	private static ClassLoader plain;
+
+	@BeforeClass
+	public static void compile() throws IOException {
+		processed = compile(true);
+		plain = compile(false);
+	}
+
+	private static ClassLoader compile(boolean process) throws IOException {
+		File dir = File.createTempFile("processor", "test");
+		dir.delete();
+		dir.mkdirs();
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(
+				null, null, null);
+		String classPath = new File(JMXBeanSupport.class.getProtectionDomain()
+				.getCodeSource().getLocation().getPath()).getPath();
+		List<String> options = new ArrayList<String>(Arrays.asList("-d",
+				dir.getPath(), "-classpath", classPath));
+		if (!process) {
+			options.add("-proc:none");
+		}
+		JavaFileObject source = new SimpleJavaFileObject(
+				new File(dir, "TestBean.java").toURI(),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return SOURCE;
+			}
+		};
+		JavaCompiler.CompilationTask task = compiler.getTask(null,
+				fileManager, null, options, null,
+				Collections.singletonList(source));
+		if (process) {
+			task.setProcessors(Collections.singletonList(new JMXBeanProcessor()));
+		}
+		assertTrue("Compilation failed", task.call());
+		fileManager.close();
+
+		return new URLClassLoader(new URL[] { dir.toURI().toURL() },
+				JMXBeanProcessorTest.class.getClassLoader());
+	}
+
+	private static String describe(MBeanFeatureInfo[] infos) {
+		List<String> descriptions = new ArrayList<String>();
+		for (MBeanFeatureInfo info : infos) {
+			descriptions.add(info.toString());
+		}
+		Collections.sort(descriptions);
+		return descriptions.toString();
+	}
+
+	private static JMXBeanWrapper wrap(ClassLoader loader, String className)
+			throws Exception {
+		return new JMXBeanWrapper(loader.loadClass(className).newInstance());
+	}
+
+	@Test
+	public void testSupportGenerated() throws Exception {
+		Class<?> support = processed.loadClass("test.TestBeanMBeanSupport");
+		assertTrue(JMXBeanSupport.class.isAssignableFrom(support));
+		assertNotNull(processed.loadClass("test.TestBean_NestedMBeanSupport"));
+	}
+
+	@Test
+	public void testSameBeanInfo() throws Exception {
+		for (String className : new String[] { "test.TestBean",
+				"test.TestBean$Nested" }) {
+			MBeanInfo expected = wrap(plain, className).getMBeanInfo();
+			MBeanInfo actual = wrap(processed, className).getMBeanInfo();
+
+			assertEquals(expected.getClassName(), actual.getClassName());
+			assertEquals(expected.getDescription(), actual.getDescription());
+			assertEquals(describe(expected.getAttributes()),
+					describe(actual.getAttributes()));
+			assertEquals(describe(expected.getOperations()),
+					describe(actual.getOperations()));
+		}
+	}
+
+	@Test
+	public void testAccess() throws Exception {
+		JMXBeanWrapper bean = wrap(processed, "test.TestBean$Nested");
+
+		bean.setAttribute(new Attribute("Floor Level", 3));
+		assertEquals(3, bean.getAttribute("Floor Level"));
+		assertEquals(false, bean.getAttribute("active"));
+		bean.invoke("activate", null, null);
+		assertEquals(true, bean.getAttribute("active"));
+		assertEquals("x", bean.invoke("Echo", new Object[] { "x" },
+				new String[] { "java.lang.String" }));
+		assertEquals("xxx", bean.invoke("Echo", new Object[] { "x", 3 },
+				new String[] { "java.lang.String", "int" }));
+		assertEquals(8L, bean.invoke("nestedOperation", new Object[] { 4L },
+				new String[] { "long" }));
+	}
+
+	@Test
+	public void testIndex() throws Exception {
+		JMXBeanIndex index = JMXBeanIndex.load(processed);
+
+		assertEquals("[test.TestBean, test.TestBean$Named, test.TestBean$Nested]",
+				index.getEntries().toString());
+		JMXBeanIndex.Entry named = index.getEntries().get(1);
+		assertEquals("test:type=Named,name={name}", named.getObjectName());
+		assertFalse(named.isInstantiable());
+		JMXBeanIndex.Entry nested = index.getEntries().get(2);
+		assertEquals("test:type=TestBean$Nested", nested.getObjectName());
+		assertEquals("test.TestBean_NestedMBeanSupport",
+				nested.getSupportClassName());
+		assertTrue(nested.isInstantiable());
+
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		List<ObjectName> names = index.registerAll(new JMXBeanRegistry(server));
+		assertEquals(2, names.size());
+		assertEquals(0, server.getAttribute(new ObjectName(
+				"test:type=TestBean"), "Floor Level"));
+		assertTrue(server.isRegistered(new ObjectName(
+				"test:type=TestBean$Nested")));
+
+		assertTrue(JMXBeanIndex.load(plain).getEntries().isEmpty());
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		JMXBeanWrapper bean = wrap(processed, "test.TestBean");
+
+		AttributeList attributes = bean.getAttributes(new String[] {
+				"Floor Level", "active" });
+		assertEquals(42, attributes.asList().get(0).getValue());
+		assertEquals(false, attributes.asList().get(1).getValue());
+	}
+}
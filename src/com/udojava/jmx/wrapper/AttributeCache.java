@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the last value of one attribute of one bean for a limited time. If
+ * the value has expired and several threads read the attribute at the same
+ * time, only one of them calls the getter, the others wait for its result.
+ * Failed reads are not cached.
+ * 
+ * Cached values are returned directly. Only the getter call is made through
+ * the timeout guard of the attribute, if it has one, so the guard bounds the
+ * wait of all threads and its back-off does not hide fresh values.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class AttributeCache {
+
+	/**
+	 * A cached value and the time it was read.
+	 */
+	private static final class Entry {
+		final Object value;
+		final long loaded;
+
+		Entry(Object value, long loaded) {
+			this.value = value;
+			this.loaded = loaded;
+		}
+	}
+
+	/**
+	 * The time to live of a value, in nanoseconds.
+	 */
+	private final long ttlNanos;
+
+	/**
+	 * The last value read, <code>null</code> if there is none or it was
+	 * invalidated.
+	 */
+	private volatile Entry entry;
+
+	/**
+	 * The read currently running, <code>null</code> if there is none.
+	 */
+	private FutureTask<Object> loading;
+
+	/**
+	 * Counts the invalidations, a read only stores its value if there was no
+	 * invalidation while it was running.
+	 */
+	private long generation;
+
+	/**
+	 * Creates a new cache.
+	 * 
+	 * @param ttlMillis
+	 *            The time to live of a value, in milliseconds.
+	 */
+	AttributeCache(long ttlMillis) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Returns the cached value, or reads it through the getter of the
+	 * attribute if it has expired.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @param attribute
+	 *            The attribute to read.
+	 * @param guard
+	 *            The timeout guard of the getter, <code>null</code> if it has
+	 *            none.
+	 * @return The attribute value.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	Object getValue(final Object bean, final BeanAttribute attribute,
+			final CallGuard guard) throws IllegalAccessException,
+			InvocationTargetException {
+		Entry current = entry;
+		if (current != null && System.nanoTime() - current.loaded < ttlNanos) {
+			return current.value;
+		}
+
+		FutureTask<Object> task;
+		boolean owner = false;
+		long started;
+		synchronized (this) {
+			current = entry;
+			if (current != null
+					&& System.nanoTime() - current.loaded < ttlNanos) {
+				return current.value;
+			}
+			task = loading;
+			if (task == null) {
+				task = new FutureTask<Object>(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						if (guard == null) {
+							return attribute.getValue(bean);
+						}
+						return guard.call(new Callable<Object>() {
+							@Override
+							public Object call() throws Exception {
+								return attribute.getValue(bean);
+							}
+						});
+					}
+				});
+				loading = task;
+				owner = true;
+			}
+			started = generation;
+		}
+
+		if (owner) {
+			task.run();
+			synchronized (this) {
+				if (loading == task) {
+					loading = null;
+				}
+				if (generation == started) {
+					try {
+						entry = new Entry(getResult(task), System.nanoTime());
+					} catch (Exception e) {
+						/*
+						 * Failed reads are not cached
+						 */
+					}
+				}
+			}
+		}
+		return getResult(task);
+	}
+
+	/**
+	 * Drops the cached value, the next read calls the getter again.
+	 */
+	synchronized void invalidate() {
+		entry = null;
+		loading = null;
+		generation++;
+	}
+
+	private static Object getResult(FutureTask<Object> task)
+			throws IllegalAccessException, InvocationTargetException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InvocationTargetException) {
+				throw (InvocationTargetException) cause;
+			}
+			if (cause instanceof IllegalAccessException) {
+				throw (IllegalAccessException) cause;
+			}
+			throw new InvocationTargetException(cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.AttributeChangeNotification;
+
+/**
+ * Watches one attribute of one bean for thresholds and changes, see
+ * {@link JMXBeanAttribute#monitorMillis()}. The getter is called directly, on
+ * the threads of the {@link AttributeSampler}s, and
+ * {@link AttributeChangeNotification}s are sent through the notifier of the
+ * wrapper, so slow listeners never hold up the monitors.
+ * 
+ * A threshold notifies once when it is reached and is armed again when the
+ * value reaches the other threshold, or moves back from it if there is no
+ * other threshold. A failing getter is skipped.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class AttributeMonitor implements Runnable {
+
+	private static final int NORMAL = 0;
+
+	private static final int HIGH = 1;
+
+	private static final int LOW = 2;
+
+	private final Object bean;
+
+	private final BeanAttribute attribute;
+
+	private final String name;
+
+	private final String type;
+
+	private final JMXBeanNotifier notifier;
+
+	/**
+	 * The thresholds, {@link Double#NaN} if not set.
+	 */
+	private final double high;
+
+	private final double low;
+
+	private final boolean notifyOnChange;
+
+	/**
+	 * The value of the last read, and if one was read yet. Only used by the
+	 * scheduled reads, which never run concurrently.
+	 */
+	private Object last;
+
+	private boolean read;
+
+	/**
+	 * {@link #HIGH} or {@link #LOW} after that threshold was reached,
+	 * otherwise {@link #NORMAL}.
+	 */
+	private int state = NORMAL;
+
+	/**
+	 * The scheduled reads, <code>null</code> if they are stopped.
+	 */
+	private ScheduledFuture<?> future;
+
+	/**
+	 * Creates a new monitor, it is not started yet.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @param attribute
+	 *            The monitored attribute.
+	 * @param name
+	 *            The name of the attribute.
+	 * @param type
+	 *            The type of the attribute.
+	 * @param notifier
+	 *            Sends the notifications of the wrapper.
+	 */
+	AttributeMonitor(Object bean, BeanAttribute attribute, String name,
+			String type, JMXBeanNotifier notifier) {
+		this.bean = bean;
+		this.attribute = attribute;
+		this.name = name;
+		this.type = type;
+		this.notifier = notifier;
+		this.high = attribute.getHighThreshold();
+		this.low = attribute.getLowThreshold();
+		this.notifyOnChange = attribute.isNotifyOnChange();
+	}
+
+	/**
+	 * Starts reading the attribute, the first value is read immediately in
+	 * the background. Does nothing if it is already running.
+	 */
+	synchronized void start() {
+		if (future == null) {
+			future = AttributeSampler.getTickScheduler()
+					.scheduleWithFixedDelay(this, 0,
+							attribute.getMonitorMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops reading the attribute. The last value and the threshold state are
+	 * kept.
+	 */
+	synchronized void stop() {
+		if (future != null) {
+			future.cancel(false);
+			future = null;
+		}
+	}
+
+	/**
+	 * Reads the attribute once and sends the notifications.
+	 */
+	@Override
+	public void run() {
+		Object value;
+		try {
+			value = attribute.getValue(bean);
+		} catch (Exception e) {
+			return;
+		}
+		Object previous = last;
+		boolean changed = read
+				&& !Arrays.deepEquals(new Object[] { previous },
+						new Object[] { value });
+		last = value;
+		read = true;
+		if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			if (number >= high && state != HIGH) {
+				state = HIGH;
+				notify("high", name + " reached the high threshold " + high,
+						previous, value);
+				return;
+			}
+			if (number <= low && state != LOW) {
+				state = LOW;
+				notify("low", name + " reached the low threshold " + low,
+						previous, value);
+				return;
+			}
+			if (state == HIGH && Double.isNaN(low) && number < high
+					|| state == LOW && Double.isNaN(high) && number > low) {
+				state = NORMAL;
+			}
+		}
+		if (changed && notifyOnChange) {
+			notify("change", name + " changed", previous, value);
+		}
+	}
+
+	/**
+	 * Sends a notification. Waiting notifications of the same attribute and
+	 * kind are replaced.
+	 */
+	private void notify(String kind, String message, Object oldValue,
+			Object newValue) {
+		notifier.send(new AttributeChangeNotification(bean, 0,
+				System.currentTimeMillis(), message, name, type, oldValue,
+				newValue), name + "." + kind);
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the rate and delta of one counter attribute of one bean, see
+ * {@link JMXBeanAttribute#rateWindowMillis()}. The counter is read in the
+ * background {@value #SLOTS} times per window, on the threads of the
+ * {@link AttributeSampler}s, and the last values are kept in a ring. The rate
+ * is the sum of the increases between the values in the ring, divided by the
+ * time between the oldest and the newest value. A value lower than the one
+ * before counts as a reset, the increase is then the value itself.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class AttributeRate implements Runnable {
+
+	/**
+	 * The number of values read per window.
+	 */
+	static final int SLOTS = 10;
+
+	private static final double NANOS_PER_SECOND = 1000000000d;
+
+	private final Object bean;
+
+	private final BeanAttribute attribute;
+
+	private final long intervalMillis;
+
+	/**
+	 * <code>true</code> if the counter has an integral type, so the delta is a
+	 * <code>long</code>.
+	 */
+	private final boolean integral;
+
+	/**
+	 * The ring of values and their {@link System#nanoTime()}, one more than
+	 * the slots, so the ring spans the whole window.
+	 */
+	private final double[] values = new double[SLOTS + 1];
+
+	private final long[] times = new long[SLOTS + 1];
+
+	/**
+	 * The number of values in the ring, and the position of the next one.
+	 */
+	private int size;
+
+	private int next;
+
+	/**
+	 * The value at the last read of the delta, <code>null</code> before the
+	 * first read.
+	 */
+	private Number lastDelta;
+
+	/**
+	 * The scheduled reads, <code>null</code> if they are stopped.
+	 */
+	private volatile ScheduledFuture<?> future;
+
+	/**
+	 * Creates a new rate, it is not started yet.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @param attribute
+	 *            The counter attribute.
+	 * @param integral
+	 *            If the counter has an integral type.
+	 */
+	AttributeRate(Object bean, BeanAttribute attribute, boolean integral) {
+		this.bean = bean;
+		this.attribute = attribute;
+		this.integral = integral;
+		this.intervalMillis = Math.max(1, attribute.getRateWindowMillis()
+				/ SLOTS);
+	}
+
+	/**
+	 * Starts reading the counter, the first value is read immediately in the
+	 * background. Does nothing if it is already running.
+	 */
+	synchronized void start() {
+		if (future == null) {
+			future = AttributeSampler.getTickScheduler()
+					.scheduleAtFixedRate(this, 0, intervalMillis,
+							TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops reading the counter. The values read so far are kept.
+	 */
+	synchronized void stop() {
+		if (future != null) {
+			future.cancel(false);
+			future = null;
+		}
+	}
+
+	/**
+	 * Reads the counter once.
+	 */
+	@Override
+	public void run() {
+		Object value;
+		try {
+			value = attribute.getValue(bean);
+		} catch (Exception e) {
+			return;
+		}
+		if (value instanceof Number) {
+			add(((Number) value).doubleValue(), System.nanoTime());
+		}
+	}
+
+	/**
+	 * Adds a value to the ring, replacing the oldest one if it is full.
+	 */
+	synchronized void add(double value, long time) {
+		values[next] = value;
+		times[next] = time;
+		next = (next + 1) % values.length;
+		if (size < values.length) {
+			size++;
+		}
+	}
+
+	/**
+	 * @return The increase per second over the values in the ring,
+	 *         <code>0</code> if there are less than two.
+	 */
+	synchronized double getRate() {
+		if (size < 2) {
+			return 0;
+		}
+		int oldest = (next - size + values.length) % values.length;
+		int newest = (next - 1 + values.length) % values.length;
+		double increase = 0;
+		for (int i = 1; i < size; i++) {
+			int current = (oldest + i) % values.length;
+			int previous = (oldest + i - 1) % values.length;
+			increase += values[current] >= values[previous] ? values[current]
+					- values[previous] : values[current];
+		}
+		long nanos = times[newest] - times[oldest];
+		return nanos <= 0 ? 0 : increase * NANOS_PER_SECOND / nanos;
+	}
+
+	/**
+	 * Reads the counter and returns the increase since the last call. The
+	 * first call returns <code>0</code>.
+	 * 
+	 * @return The increase, a <code>Long</code> for integral counters,
+	 *         otherwise a <code>Double</code>.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	Number getDelta() throws IllegalAccessException,
+			InvocationTargetException {
+		Object read = attribute.getValue(bean);
+		if (!(read instanceof Number)) {
+			return null;
+		}
+		Number value = (Number) read;
+		Number last;
+		synchronized (this) {
+			last = lastDelta;
+			lastDelta = value;
+		}
+		if (integral) {
+			long current = value.longValue();
+			long previous = last == null ? current : last.longValue();
+			return current >= previous ? current - previous : current;
+		}
+		double current = value.doubleValue();
+		double previous = last == null ? current : last.doubleValue();
+		return current >= previous ? current - previous : current;
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads one attribute of one bean periodically in the background and keeps
+ * the last value and the time it was read. JMX clients are served from the
+ * last sample and never wait for the getter. Sampling only runs between
+ * {@link #start()} and {@link #stop()}, which the wrapper calls when it is
+ * registered and unregistered.
+ * 
+ * All samplers share one pool of daemon threads, the rates and monitors tick
+ * on another pool, so slow getters only delay other samples. A getter with a
+ * timeout is called through its {@link CallGuard}, a hanging getter blocks a
+ * sampler thread only until the timeout. A failing getter keeps the previous
+ * sample.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class AttributeSampler implements Runnable {
+
+	/**
+	 * A sampled value and the time it was read.
+	 */
+	private static final class Sample {
+		final Object value;
+		final long time;
+
+		Sample(Object value, long time) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * The scheduler shared by all samplers, created when the first sampler
+	 * starts.
+	 */
+	private static ScheduledExecutorService scheduler;
+
+	/**
+	 * The scheduler shared by all rates and monitors, created when the first
+	 * of them starts.
+	 */
+	private static ScheduledExecutorService tickScheduler;
+
+	private final Object bean;
+
+	private final BeanAttribute attribute;
+
+	private final long sampleMillis;
+
+	/**
+	 * The guard of the getter, <code>null</code> if it has no timeout.
+	 */
+	private final CallGuard guard;
+
+	/**
+	 * The last sample, <code>null</code> if there is none yet.
+	 */
+	private volatile Sample sample;
+
+	/**
+	 * The scheduled sampling, <code>null</code> if sampling is stopped.
+	 */
+	private volatile ScheduledFuture<?> future;
+
+	/**
+	 * Creates a new sampler, it is not started yet.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @param attribute
+	 *            The attribute to read.
+	 * @param sampleMillis
+	 *            The delay between two samples, in milliseconds.
+	 * @param guard
+	 *            The guard of the getter, <code>null</code> if it has no
+	 *            timeout.
+	 */
+	AttributeSampler(Object bean, BeanAttribute attribute, long sampleMillis,
+			CallGuard guard) {
+		this.bean = bean;
+		this.attribute = attribute;
+		this.sampleMillis = sampleMillis;
+		this.guard = guard;
+	}
+
+	/**
+	 * Starts sampling, the first sample is taken immediately in the
+	 * background. Does nothing if sampling is already running.
+	 */
+	synchronized void start() {
+		if (future == null) {
+			future = getScheduler().scheduleWithFixedDelay(this, 0,
+					sampleMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops sampling. The last sample is kept.
+	 */
+	synchronized void stop() {
+		if (future != null) {
+			future.cancel(false);
+			future = null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if sampling is running.
+	 */
+	boolean isRunning() {
+		return future != null;
+	}
+
+	/**
+	 * @return The last sampled value, <code>null</code> if no sample was
+	 *         taken yet.
+	 */
+	Object getValue() {
+		Sample current = sample;
+		return current == null ? null : current.value;
+	}
+
+	/**
+	 * @return The time of the last sample in milliseconds since the epoch,
+	 *         <code>0</code> if no sample was taken yet.
+	 */
+	long getTime() {
+		Sample current = sample;
+		return current == null ? 0 : current.time;
+	}
+
+	/**
+	 * Takes one sample.
+	 */
+	@Override
+	public void run() {
+		try {
+			Object value;
+			if (guard == null) {
+				value = attribute.getValue(bean);
+			} else {
+				value = guard.call(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						return attribute.getValue(bean);
+					}
+				});
+			}
+			sample = new Sample(value, System.currentTimeMillis());
+		} catch (Exception e) {
+			/*
+			 * Keep the previous sample, and keep the sampling running
+			 */
+		}
+	}
+
+	/**
+	 * @return The scheduler shared by all samplers.
+	 */
+	static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = newScheduler("JMXBeanWrapper sampler ");
+		}
+		return scheduler;
+	}
+
+	/**
+	 * @return The scheduler shared by all rates and monitors.
+	 */
+	static synchronized ScheduledExecutorService getTickScheduler() {
+		if (tickScheduler == null) {
+			tickScheduler = newScheduler("JMXBeanWrapper tick ");
+		}
+		return tickScheduler;
+	}
+
+	private static ScheduledExecutorService newScheduler(
+			final String threadName) {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+				Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, threadName
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.management.openmbean.OpenDataException;
+
+/**
+ * Access to the attributes setter and getter methods.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+class BeanAttribute {
+	/**
+	 * The getter method for this attribute.
+	 */
+	private BeanMember getter;
+
+	/**
+	 * The setter method for this attribute.
+	 */
+	private BeanMember setter;
+
+	/**
+	 * The bound accessor of the getter method.
+	 */
+	private MemberAccessor getterAccessor;
+
+	/**
+	 * The bound accessor of the setter method.
+	 */
+	private MemberAccessor setterAccessor;
+
+	/**
+	 * The description for this attribute.
+	 */
+	private String description;
+
+	private String sortValue;
+
+	/**
+	 * The time to cache the getter value, <code>0</code> if it is not cached.
+	 */
+	private long cacheMillis;
+
+	/**
+	 * The interval to sample the getter, <code>0</code> if it is not sampled.
+	 */
+	private long sampleMillis;
+
+	/**
+	 * For the synthetic sample time attribute, the name of the sampled
+	 * attribute, otherwise <code>null</code>.
+	 */
+	private String sampleTimeOf;
+
+	/**
+	 * The timeout for getter calls, <code>0</code> for no timeout.
+	 */
+	private long timeoutMillis;
+
+	/**
+	 * The window of the rate attribute, <code>0</code> if the attribute has no
+	 * rate.
+	 */
+	private long rateWindowMillis;
+
+	/**
+	 * For the synthetic rate and delta attributes, the name of the counted
+	 * attribute, otherwise <code>null</code>.
+	 */
+	private String rateOf;
+
+	/**
+	 * <code>true</code> for the synthetic delta attribute.
+	 */
+	private boolean delta;
+
+	/**
+	 * The monitor interval, <code>0</code> if the attribute is not monitored.
+	 */
+	private long monitorMillis;
+
+	/**
+	 * The monitor thresholds, {@link Double#NaN} if not set.
+	 */
+	private double highThreshold = Double.NaN;
+
+	private double lowThreshold = Double.NaN;
+
+	private boolean notifyOnChange;
+
+	/**
+	 * Converts the values to open data, <code>null</code> if they are not
+	 * converted.
+	 */
+	private OpenConverter openConverter;
+
+	/**
+	 * Creates a new bean attribute.
+	 * 
+	 * @param getter
+	 *            The getter method.
+	 * @param setter
+	 *            The setter method.
+	 * @param description
+	 *            The attribute description.
+	 */
+	public BeanAttribute(BeanMember getter, BeanMember setter,
+			String description, String sortValue) {
+		setGetter(getter);
+		setSetter(setter);
+		setDescription(description);
+		setSortValue(sortValue);
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public BeanMember getGetter() {
+		return getter;
+	}
+
+	public BeanMember getSetter() {
+		return setter;
+	}
+
+	public void setGetter(BeanMember method) {
+		this.getter = method;
+		this.getterAccessor = method == null ? null : method.getAccessor();
+	}
+
+	public void setSetter(BeanMember method) {
+		this.setter = method;
+		this.setterAccessor = method == null ? null : method.getAccessor();
+	}
+
+	/**
+	 * @return <code>true</code> if the attribute has a getter, or is a sample
+	 *         time, rate or delta.
+	 */
+	public boolean isReadable() {
+		return getterAccessor != null || sampleTimeOf != null
+				|| rateOf != null;
+	}
+
+	/**
+	 * @return <code>true</code> if the attribute has a setter.
+	 */
+	public boolean isWritable() {
+		return setterAccessor != null;
+	}
+
+	/**
+	 * Reads the attribute value through the bound getter.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @return The attribute value.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	public Object getValue(Object bean) throws IllegalAccessException,
+			InvocationTargetException {
+		return getterAccessor.invoke(bean);
+	}
+
+	/**
+	 * Writes the attribute value through the bound setter.
+	 * 
+	 * @param bean
+	 *            The bean to write to.
+	 * @param value
+	 *            The new attribute value.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	public void setValue(Object bean, Object value)
+			throws IllegalAccessException, InvocationTargetException {
+		setterAccessor.invoke1(bean, value);
+	}
+
+	/**
+	 * Converts the values of the getter and setter to and from open data.
+	 * 
+	 * @param converter
+	 *            The converter of the attribute type.
+	 */
+	void setOpenConverter(OpenConverter converter) {
+		this.openConverter = converter;
+		if (getterAccessor != null) {
+			getterAccessor = new OpenTypeAccessor(getterAccessor, converter);
+		}
+		if (setterAccessor != null) {
+			setterAccessor = new OpenTypeAccessor(setterAccessor, converter);
+		}
+	}
+
+	/**
+	 * Converts a value that was not read through the getter, like a snapshot
+	 * value, the same way the getter values are converted.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return The open data, or the value itself if values are not converted.
+	 * @throws OpenDataException
+	 */
+	Object toOpenValue(Object value) throws OpenDataException {
+		return openConverter == null ? value : openConverter
+				.toOpenValue(value);
+	}
+
+	/**
+	 * Creates a copy of this attribute that calls the getter and setter
+	 * through generated classes instead of method handles.
+	 * 
+	 * @return The compiled attribute.
+	 */
+	BeanAttribute compile() {
+		BeanAttribute compiled = new BeanAttribute(null, null, description,
+				sortValue);
+		compiled.cacheMillis = cacheMillis;
+		compiled.sampleMillis = sampleMillis;
+		compiled.sampleTimeOf = sampleTimeOf;
+		compiled.timeoutMillis = timeoutMillis;
+		compiled.rateWindowMillis = rateWindowMillis;
+		compiled.rateOf = rateOf;
+		compiled.delta = delta;
+		compiled.monitorMillis = monitorMillis;
+		compiled.highThreshold = highThreshold;
+		compiled.lowThreshold = lowThreshold;
+		compiled.notifyOnChange = notifyOnChange;
+		compiled.openConverter = openConverter;
+		compiled.getter = getter;
+		compiled.setter = setter;
+		compiled.getterAccessor = getterAccessor == null ? null
+				: getterAccessor.compile();
+		compiled.setterAccessor = setterAccessor == null ? null
+				: setterAccessor.compile();
+		return compiled;
+	}
+
+	public String getSortValue() {
+		return sortValue;
+	}
+
+	public void setSortValue(String sortValue) {
+		this.sortValue = sortValue;
+	}
+
+	public long getCacheMillis() {
+		return cacheMillis;
+	}
+
+	public void setCacheMillis(long cacheMillis) {
+		this.cacheMillis = cacheMillis;
+	}
+
+	public long getSampleMillis() {
+		return sampleMillis;
+	}
+
+	public void setSampleMillis(long sampleMillis) {
+		this.sampleMillis = sampleMillis;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public String getSampleTimeOf() {
+		return sampleTimeOf;
+	}
+
+	public void setSampleTimeOf(String sampleTimeOf) {
+		this.sampleTimeOf = sampleTimeOf;
+	}
+
+	public long getRateWindowMillis() {
+		return rateWindowMillis;
+	}
+
+	public void setRateWindowMillis(long rateWindowMillis) {
+		this.rateWindowMillis = rateWindowMillis;
+	}
+
+	public String getRateOf() {
+		return rateOf;
+	}
+
+	public boolean isDelta() {
+		return delta;
+	}
+
+	/**
+	 * Makes this the synthetic rate or delta attribute of a counted
+	 * attribute.
+	 * 
+	 * @param rateOf
+	 *            The name of the counted attribute.
+	 * @param delta
+	 *            <code>true</code> for the delta, <code>false</code> for the
+	 *            rate.
+	 */
+	public void setRateOf(String rateOf, boolean delta) {
+		this.rateOf = rateOf;
+		this.delta = delta;
+	}
+
+	public long getMonitorMillis() {
+		return monitorMillis;
+	}
+
+	public double getHighThreshold() {
+		return highThreshold;
+	}
+
+	public double getLowThreshold() {
+		return lowThreshold;
+	}
+
+	public boolean isNotifyOnChange() {
+		return notifyOnChange;
+	}
+
+	/**
+	 * Monitors the attribute, see {@link JMXBeanAttribute#monitorMillis()}.
+	 * 
+	 * @param monitorMillis
+	 *            The monitor interval.
+	 * @param highThreshold
+	 *            The high threshold, {@link Double#NaN} if not set.
+	 * @param lowThreshold
+	 *            The low threshold, {@link Double#NaN} if not set.
+	 * @param notifyOnChange
+	 *            <code>true</code> to notify changes.
+	 */
+	public void setMonitor(long monitorMillis, double highThreshold,
+			double lowThreshold, boolean notifyOnChange) {
+		this.monitorMillis = monitorMillis;
+		this.highThreshold = highThreshold;
+		this.lowThreshold = lowThreshold;
+		this.notifyOnChange = notifyOnChange;
+	}
+
+}
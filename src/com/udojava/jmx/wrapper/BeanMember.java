@@ -0,0 +1,255 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import javax.management.IntrospectionException;
+
+/**
+ * An annotated member of a bean class, as it was found by reflection or by
+ * the annotation processor. This is the raw input for building the bean
+ * metadata: the annotations are not yet localized and getters and setters are
+ * not yet merged into attributes.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class BeanMember {
+
+	/**
+	 * The Java name of the member.
+	 */
+	private final String memberName;
+
+	/**
+	 * The class name of the result type, as returned by
+	 * {@link Class#getName()}.
+	 */
+	private final String returnType;
+
+	/**
+	 * The class names of the parameter types, as returned by
+	 * {@link Class#getName()}.
+	 */
+	private final String[] parameterTypes;
+
+	/**
+	 * The attribute annotation, <code>null</code> if the member is no
+	 * attribute.
+	 */
+	private final JMXBeanAttribute attribute;
+
+	/**
+	 * The operation annotation, <code>null</code> if the member is no
+	 * operation.
+	 */
+	private final JMXBeanOperation operation;
+
+	/**
+	 * The parameter annotations, <code>null</code> elements for parameters
+	 * without annotation.
+	 */
+	private final JMXBeanParameter[] parameters;
+
+	/**
+	 * The snapshot annotation, <code>null</code> if the member is no snapshot
+	 * method.
+	 */
+	private final JMXBeanSnapshot snapshot;
+
+	/**
+	 * Calls the member.
+	 */
+	private final MemberAccessor accessor;
+
+	/**
+	 * <code>true</code> if the member reads or writes a field, instead of
+	 * calling a method.
+	 */
+	private final boolean field;
+
+	BeanMember(String memberName, String returnType, String[] parameterTypes,
+			JMXBeanAttribute attribute, JMXBeanOperation operation,
+			JMXBeanParameter[] parameters, MemberAccessor accessor) {
+		this(memberName, returnType, parameterTypes, attribute, operation,
+				parameters, null, accessor);
+	}
+
+	BeanMember(String memberName, String returnType, String[] parameterTypes,
+			JMXBeanAttribute attribute, JMXBeanOperation operation,
+			JMXBeanParameter[] parameters, JMXBeanSnapshot snapshot,
+			MemberAccessor accessor) {
+		this(memberName, returnType, parameterTypes, attribute, operation,
+				parameters, snapshot, accessor, false);
+	}
+
+	private BeanMember(String memberName, String returnType,
+			String[] parameterTypes, JMXBeanAttribute attribute,
+			JMXBeanOperation operation, JMXBeanParameter[] parameters,
+			JMXBeanSnapshot snapshot, MemberAccessor accessor, boolean field) {
+		this.field = field;
+		this.memberName = memberName;
+		this.returnType = returnType;
+		this.parameterTypes = parameterTypes;
+		this.attribute = attribute;
+		this.operation = operation;
+		this.parameters = parameters;
+		this.snapshot = snapshot;
+		this.accessor = accessor;
+	}
+
+	/**
+	 * Creates the member for an annotated method.
+	 * 
+	 * @param method
+	 *            The method.
+	 * @return The member, or <code>null</code> if the method is not
+	 *         annotated.
+	 */
+	static BeanMember forMethod(Method method) {
+		JMXBeanAttribute attribute = method
+				.getAnnotation(JMXBeanAttribute.class);
+		JMXBeanOperation operation = method
+				.getAnnotation(JMXBeanOperation.class);
+		JMXBeanSnapshot snapshot = method.getAnnotation(JMXBeanSnapshot.class);
+		if (attribute == null && operation == null && snapshot == null) {
+			return null;
+		}
+		Class<?>[] classes = method.getParameterTypes();
+		String[] parameterTypes = new String[classes.length];
+		for (int i = 0; i < classes.length; i++) {
+			parameterTypes[i] = classes[i].getName();
+		}
+		JMXBeanParameter[] parameters = new JMXBeanParameter[classes.length];
+		if (operation != null) {
+			Annotation[][] paramAnnotations = method.getParameterAnnotations();
+			for (int i = 0; i < classes.length; i++) {
+				for (Annotation a : paramAnnotations[i]) {
+					if (a instanceof JMXBeanParameter) {
+						parameters[i] = (JMXBeanParameter) a;
+					}
+				}
+			}
+		}
+		return new BeanMember(method.getName(), method.getReturnType()
+				.getName(), parameterTypes, attribute, operation, parameters,
+				snapshot, new MethodAccessor(method));
+	}
+
+	/**
+	 * Creates the members for an annotated field. A field is described by a
+	 * reading member, that looks like a getter, and a writing member, that
+	 * looks like a setter, if the field is writable.
+	 * 
+	 * @param field
+	 *            The field.
+	 * @param members
+	 *            Receives the members.
+	 * @throws IntrospectionException
+	 *             If the field is not accessible.
+	 */
+	static void forField(Field field, List<BeanMember> members)
+			throws IntrospectionException {
+		JMXBeanAttribute attribute = field
+				.getAnnotation(JMXBeanAttribute.class);
+		if (attribute == null) {
+			return;
+		}
+		String type = FieldAccessor.attributeType(field);
+		members.add(new BeanMember(field.getName(), type, new String[0],
+				attribute, null, new JMXBeanParameter[0], null, FieldAccessor
+						.reader(field), true));
+		FieldAccessor writer = FieldAccessor.writer(field);
+		if (writer != null) {
+			members.add(new BeanMember(field.getName(), "void",
+					new String[] { type }, attribute, null,
+					new JMXBeanParameter[1], null, writer, true));
+		}
+	}
+
+	/**
+	 * Creates a copy of this member that reads one value of a metric.
+	 * 
+	 * @param returnType
+	 *            The class name of the value type.
+	 * @param accessor
+	 *            The accessor reading the value.
+	 * @return The copy.
+	 */
+	BeanMember forMetricValue(String returnType, MemberAccessor accessor) {
+		return new BeanMember(memberName, returnType, parameterTypes,
+				attribute, operation, parameters, snapshot, accessor, field);
+	}
+
+	/**
+	 * @return <code>true</code> if the member reads or writes a field.
+	 */
+	boolean isField() {
+		return field;
+	}
+
+	String getMemberName() {
+		return memberName;
+	}
+
+	String getReturnType() {
+		return returnType;
+	}
+
+	String[] getParameterTypes() {
+		return parameterTypes;
+	}
+
+	JMXBeanAttribute getAttribute() {
+		return attribute;
+	}
+
+	JMXBeanOperation getOperation() {
+		return operation;
+	}
+
+	JMXBeanParameter[] getParameters() {
+		return parameters;
+	}
+
+	JMXBeanSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	MemberAccessor getAccessor() {
+		return accessor;
+	}
+
+	@Override
+	public String toString() {
+		return memberName;
+	}
+}
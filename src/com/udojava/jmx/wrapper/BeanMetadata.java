@@ -0,0 +1,1512 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.AttributeChangeNotification;
+import javax.management.Descriptor;
+import javax.management.ImmutableDescriptor;
+import javax.management.IntrospectionException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenMBeanAttributeInfoSupport;
+
+/**
+ * The immutable result of analyzing an annotated bean class. All wrappers of
+ * one class share a single instance, so the reflection, localization and
+ * sorting work is only done once per class (and locale, if the bean uses a
+ * resource bundle).
+ * 
+ * The instances are cached through a {@link ClassValue}, the cache entries are
+ * therefore released together with the bean class and do not keep class
+ * loaders alive.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class BeanMetadata {
+
+	/**
+	 * Primitive classes by name.
+	 */
+	private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+	static {
+		for (Class<?> c : new Class<?>[] { boolean.class, byte.class,
+				char.class, short.class, int.class, long.class, float.class,
+				double.class }) {
+			PRIMITIVES.put(c.getName(), c);
+		}
+	}
+
+	/**
+	 * Per class cache of the accessible {@link JMXBeanNotification} fields.
+	 * Invalid fields are left out here, they are reported when the class is
+	 * analyzed.
+	 */
+	private static final ClassValue<Field[]> NOTIFIERS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			try {
+				return getNotifierFields(type).toArray(new Field[0]);
+			} catch (IntrospectionException e) {
+				return new Field[0];
+			}
+		}
+	};
+
+	/**
+	 * Per class cache of the analyzed metadata, keyed by the locale that was
+	 * used to resolve names and descriptions.
+	 */
+	private static final ClassValue<ConcurrentMap<Locale, BeanMetadata>> CACHE = new ClassValue<ConcurrentMap<Locale, BeanMetadata>>() {
+		@Override
+		protected ConcurrentMap<Locale, BeanMetadata> computeValue(
+				Class<?> type) {
+			return new ConcurrentHashMap<Locale, BeanMetadata>(4);
+		}
+	};
+
+	/**
+	 * The generated bean info.
+	 */
+	private final MBeanInfo beanInfo;
+
+	/**
+	 * The bean attributes, in the same order as in the bean info.
+	 */
+	private final BeanAttribute[] attributes;
+
+	/**
+	 * Maps attribute names to their index in {@link #attributes}.
+	 */
+	private final NameTable attributeIndex;
+
+	/**
+	 * The bean operations, grouped by name. Each group holds all overloads of
+	 * one operation name.
+	 */
+	private final BeanOperation[][] operations;
+
+	/**
+	 * Maps operation names to their index in {@link #operations}.
+	 */
+	private final NameTable operationIndex;
+
+	/**
+	 * The number of operations, counting all overloads.
+	 */
+	private final int operationCount;
+
+	/**
+	 * Calls the snapshot method of the bean, <code>null</code> if the bean has
+	 * none.
+	 */
+	private final MemberAccessor snapshot;
+
+	/**
+	 * Flags the attributes the snapshot method returns, by attribute index.
+	 * <code>null</code> if the snapshot method may return any attribute.
+	 */
+	private final boolean[] snapshotAttributes;
+
+	/**
+	 * If attribute values are read back after a bulk write.
+	 */
+	private final boolean readBackAttributes;
+
+	/**
+	 * The layout of the call statistics of the wrappers, <code>null</code> if
+	 * they are not recorded.
+	 */
+	private final WrapperStatistics.Layout statistics;
+
+	/**
+	 * The compiled variant of this metadata, created on first request.
+	 */
+	private volatile BeanMetadata compiled;
+
+	/**
+	 * The names and descriptions of the resource bundle, only used while
+	 * analyzing the class.
+	 */
+	private Localization localization;
+
+	/**
+	 * Returns the metadata for an annotated bean class. The metadata is built
+	 * on first request and then shared between all wrappers of that class.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @return The shared metadata for the class.
+	 * @throws IntrospectionException
+	 */
+	static BeanMetadata forClass(Class<?> beanClass)
+			throws IntrospectionException {
+		JMXBean jmxBean = checkClass(beanClass);
+		/*
+		 * Names and descriptions only depend on the locale if a bundle is used
+		 */
+		Locale locale = jmxBean.resourceBundleName().equals("") ? Locale.ROOT
+				: Locale.getDefault();
+
+		ConcurrentMap<Locale, BeanMetadata> perLocale = CACHE.get(beanClass);
+		BeanMetadata metadata = perLocale.get(locale);
+		if (metadata == null) {
+			metadata = new BeanMetadata(beanClass, jmxBean,
+					getBeanMembers(beanClass), locale);
+			BeanMetadata existing = perLocale.putIfAbsent(locale, metadata);
+			if (existing != null) {
+				metadata = existing;
+			}
+		}
+		return metadata;
+	}
+
+	/**
+	 * Checks that a class is annotated as a JMX bean.
+	 * 
+	 * @param beanClass
+	 *            The bean class.
+	 * @return The class annotation.
+	 * @throws IllegalArgumentException
+	 *             If the class is not annotated.
+	 */
+	static JMXBean checkClass(Class<?> beanClass) {
+		JMXBean jmxBean = beanClass.getAnnotation(JMXBean.class);
+		if (jmxBean == null) {
+			throw new IllegalArgumentException(beanClass.getName()
+					+ " not a JMXBean annotated class.");
+		}
+		return jmxBean;
+	}
+
+	/**
+	 * Returns the class name of the bean info, without analyzing the class.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @return The class name used in the bean info.
+	 */
+	static String getBeanClassName(Class<?> beanClass) {
+		JMXBean jmxBean = checkClass(beanClass);
+		return jmxBean.className().equals("") ? beanClass.getName() : jmxBean
+				.className();
+	}
+
+	/**
+	 * Analyzes an annotated class and builds up the bean info.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @param jmxBean
+	 *            The class annotation.
+	 * @param members
+	 *            The annotated members of the class.
+	 * @param locale
+	 *            The locale of the names and descriptions.
+	 * @throws IntrospectionException
+	 */
+	private BeanMetadata(Class<?> beanClass, JMXBean jmxBean,
+			List<BeanMember> members, Locale locale)
+			throws IntrospectionException {
+		String beanName = jmxBean.className().equals("") ? beanClass.getName()
+				: jmxBean.className();
+		this.localization = Localization.forBundle(
+				jmxBean.resourceBundleName(), locale);
+		String beanDescription = localization.get(jmxBean.descriptionKey(),
+				jmxBean.description());
+
+		final Map<String, BeanAttribute> beanAttributes = new HashMap<String, BeanAttribute>();
+		List<Field> notifierFields = getNotifierFields(beanClass);
+		MBeanNotificationInfo[] notifications = getNotificationInfos(
+				notifierFields, beanAttributes);
+		List<MBeanAttributeInfo> attributes = getBeanAttributeInfos(members,
+				beanAttributes, beanClass.getClassLoader());
+		notifications = addMonitorNotificationInfo(notifications,
+				beanAttributes);
+		if (jmxBean.openTypes()) {
+			attributes = getOpenAttributeInfos(beanClass, attributes,
+					beanAttributes);
+		}
+
+		if (jmxBean.sorted()) {
+			Collections.sort(attributes, new Comparator<MBeanAttributeInfo>() {
+
+				@Override
+				public int compare(MBeanAttributeInfo o1, MBeanAttributeInfo o2) {
+					BeanAttribute a1 = beanAttributes.get(o1.getName());
+					BeanAttribute a2 = beanAttributes.get(o2.getName());
+					String s1 = a1.getSortValue().equals("") ? o1.getName()
+							: a1.getSortValue();
+					String s2 = a2.getSortValue().equals("") ? o2.getName()
+							: a2.getSortValue();
+					return s1.compareTo(s2);
+				}
+			});
+		}
+
+		Map<String, List<BeanOperation>> beanOperations = new HashMap<String, List<BeanOperation>>();
+		List<MBeanOperationInfo> operations = getBeanOperationInfos(members,
+				beanOperations, jmxBean.timeoutMillis());
+
+		if (jmxBean.sorted()) {
+			Collections.sort(operations, new Comparator<MBeanOperationInfo>() {
+
+				@Override
+				public int compare(MBeanOperationInfo o1, MBeanOperationInfo o2) {
+					String s1 = (String) o1.getDescriptor().getFieldValue(
+							JMXBeanWrapper.BEAN_OPERATION_SORT);
+					String s2 = (String) o2.getDescriptor().getFieldValue(
+							JMXBeanWrapper.BEAN_OPERATION_SORT);
+					if ("".equals(s1)) {
+						s1 = o1.getName();
+					}
+					if ("".equals(s2)) {
+						s2 = o2.getName();
+					}
+					return s1.compareTo(s2);
+				}
+			});
+		}
+
+		this.beanInfo = new MBeanInfo(beanName, beanDescription,
+				attributes.toArray(new MBeanAttributeInfo[0]), null,
+				operations.toArray(new MBeanOperationInfo[0]), notifications);
+
+		/*
+		 * Freeze the attributes and operations into the lookup tables
+		 */
+		this.attributes = new BeanAttribute[attributes.size()];
+		String[] attributeNames = new String[attributes.size()];
+		for (int i = 0; i < attributes.size(); i++) {
+			attributeNames[i] = attributes.get(i).getName();
+			this.attributes[i] = beanAttributes.get(attributeNames[i]);
+			if (this.attributes[i].getTimeoutMillis() == 0) {
+				this.attributes[i].setTimeoutMillis(jmxBean.timeoutMillis());
+			}
+		}
+		this.attributeIndex = new NameTable(attributeNames);
+
+		List<String> operationNames = new ArrayList<String>();
+		for (MBeanOperationInfo info : operations) {
+			if (!operationNames.contains(info.getName())) {
+				operationNames.add(info.getName());
+			}
+		}
+		this.operations = new BeanOperation[operationNames.size()][];
+		int operationCount = 0;
+		for (int i = 0; i < operationNames.size(); i++) {
+			List<BeanOperation> overloads = beanOperations.get(operationNames
+					.get(i));
+			this.operations[i] = new BeanOperation[overloads.size()];
+			for (int j = 0; j < overloads.size(); j++) {
+				this.operations[i][j] = overloads.get(j).withIndex(
+						operationCount++);
+			}
+		}
+		this.operationCount = operationCount;
+		this.operationIndex = new NameTable(
+				operationNames.toArray(new String[0]));
+
+		BeanMember snapshotMember = getSnapshotMember(members);
+		this.snapshot = snapshotMember == null ? null : snapshotMember
+				.getAccessor();
+		this.snapshotAttributes = snapshotMember == null ? null
+				: getSnapshotAttributes(snapshotMember);
+		this.readBackAttributes = jmxBean.readBackAttributes();
+		this.statistics = jmxBean.statistics() ? new WrapperStatistics.Layout(
+				beanInfo, this.attributes, this.operations, operationCount)
+				: null;
+
+		this.localization = null;
+	}
+
+	/**
+	 * Creates the compiled variant of analyzed metadata. It shares the bean
+	 * info and lookup tables, but calls the bean methods through generated
+	 * classes.
+	 * 
+	 * @param source
+	 *            The reflectively analyzed metadata.
+	 */
+	private BeanMetadata(BeanMetadata source) {
+		this.beanInfo = source.beanInfo;
+		this.attributeIndex = source.attributeIndex;
+		this.operationIndex = source.operationIndex;
+		this.operationCount = source.operationCount;
+		this.snapshot = source.snapshot == null ? null : source.snapshot
+				.compile();
+		this.snapshotAttributes = source.snapshotAttributes;
+		this.readBackAttributes = source.readBackAttributes;
+		this.statistics = source.statistics;
+		this.attributes = new BeanAttribute[source.attributes.length];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = source.attributes[i].compile();
+		}
+		this.operations = new BeanOperation[source.operations.length][];
+		for (int i = 0; i < operations.length; i++) {
+			operations[i] = new BeanOperation[source.operations[i].length];
+			for (int j = 0; j < operations[i].length; j++) {
+				operations[i][j] = source.operations[i][j].compile();
+			}
+		}
+		this.compiled = this;
+	}
+
+	/**
+	 * Returns a variant of this metadata that calls getters, setters and
+	 * operations through classes generated at runtime. It is created on first
+	 * request and shared from then on.
+	 * 
+	 * @return The compiled metadata.
+	 */
+	BeanMetadata compiled() {
+		BeanMetadata result = compiled;
+		if (result == null) {
+			synchronized (this) {
+				result = compiled;
+				if (result == null) {
+					result = new BeanMetadata(this);
+					compiled = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The bean info, shared by all wrappers of the class.
+	 */
+	MBeanInfo getBeanInfo() {
+		return beanInfo;
+	}
+
+	/**
+	 * Looks up an attribute by its JMX name.
+	 * 
+	 * @param name
+	 *            The attribute name.
+	 * @return The attribute, or <code>null</code> if there is none with this
+	 *         name.
+	 */
+	BeanAttribute getAttribute(String name) {
+		int index = attributeIndex.indexOf(name);
+		return index < 0 ? null : attributes[index];
+	}
+
+	/**
+	 * Looks up the index of an attribute by its JMX name.
+	 * 
+	 * @param name
+	 *            The attribute name.
+	 * @return The index, in the order of the bean info, or <code>-1</code> if
+	 *         there is no attribute with this name.
+	 */
+	int getAttributeIndex(String name) {
+		return attributeIndex.indexOf(name);
+	}
+
+	/**
+	 * @param index
+	 *            The attribute index, as returned by
+	 *            {@link #getAttributeIndex(String)}.
+	 * @return The attribute at this index.
+	 */
+	BeanAttribute getAttribute(int index) {
+		return attributes[index];
+	}
+
+	/**
+	 * Creates the samplers for one bean. The samplers are not started.
+	 * 
+	 * @param bean
+	 *            The bean to sample.
+	 * @param guards
+	 *            The guards of the bean, from {@link #newAttributeGuards()}.
+	 * @return The samplers, indexed like the attributes. Sampled attributes
+	 *         and their sample time attributes share one sampler, the elements
+	 *         of all other attributes are <code>null</code>.
+	 *         <code>null</code> if no attribute of the bean is sampled.
+	 */
+	AttributeSampler[] newAttributeSamplers(Object bean,
+			CallGuard[] guards) {
+		AttributeSampler[] samplers = null;
+		for (int i = 0; i < attributes.length; i++) {
+			String sampled = attributes[i].getSampleTimeOf();
+			if (sampled == null) {
+				continue;
+			}
+			int index = attributeIndex.indexOf(sampled);
+			if (samplers == null) {
+				samplers = new AttributeSampler[attributes.length];
+			}
+			samplers[index] = new AttributeSampler(bean, attributes[index],
+					attributes[index].getSampleMillis(),
+					guards == null ? null : guards[index]);
+			samplers[i] = samplers[index];
+		}
+		return samplers;
+	}
+
+	/**
+	 * Creates the rates for one bean. The rates are not started.
+	 * 
+	 * @param bean
+	 *            The bean to read the counters from.
+	 * @return The rates, indexed like the attributes. The rate and delta
+	 *         attributes of a counter share one rate, the elements of all
+	 *         other attributes are <code>null</code>. <code>null</code> if no
+	 *         attribute of the bean has a rate.
+	 */
+	AttributeRate[] newAttributeRates(Object bean) {
+		AttributeRate[] rates = null;
+		for (int i = 0; i < attributes.length; i++) {
+			String counter = attributes[i].getRateOf();
+			if (counter == null) {
+				continue;
+			}
+			int index = attributeIndex.indexOf(counter);
+			if (rates == null) {
+				rates = new AttributeRate[attributes.length];
+			}
+			if (rates[index] == null) {
+				rates[index] = new AttributeRate(bean, attributes[index],
+						"long".equals(numericType(attributes[index]
+								.getGetter().getReturnType())));
+			}
+			rates[i] = rates[index];
+		}
+		return rates;
+	}
+
+	/**
+	 * Creates the call guards for the getters of one bean.
+	 * 
+	 * @return The guards, indexed like the attributes, with <code>null</code>
+	 *         elements for getters without timeout. <code>null</code> if no
+	 *         getter has a timeout.
+	 */
+	CallGuard[] newAttributeGuards() {
+		CallGuard[] guards = null;
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i].getTimeoutMillis() > 0
+					&& attributes[i].getGetter() != null) {
+				if (guards == null) {
+					guards = new CallGuard[attributes.length];
+				}
+				guards[i] = new CallGuard(attributes[i].getTimeoutMillis());
+			}
+		}
+		return guards;
+	}
+
+	/**
+	 * Creates the call guards for the operations of one bean.
+	 * 
+	 * @return The guards, indexed by {@link BeanOperation#getIndex()}, with
+	 *         <code>null</code> elements for operations without timeout.
+	 *         <code>null</code> if no operation has a timeout.
+	 */
+	CallGuard[] newOperationGuards() {
+		CallGuard[] guards = null;
+		for (BeanOperation[] overloads : operations) {
+			for (BeanOperation operation : overloads) {
+				if (operation.getTimeoutMillis() > 0) {
+					if (guards == null) {
+						guards = new CallGuard[operationCount];
+					}
+					guards[operation.getIndex()] = new CallGuard(
+							operation.getTimeoutMillis());
+				}
+			}
+		}
+		return guards;
+	}
+
+	/**
+	 * Creates the value caches for one bean.
+	 * 
+	 * @return The caches, indexed like the attributes, with <code>null</code>
+	 *         elements for attributes that are not cached. <code>null</code>
+	 *         if no attribute of the bean is cached.
+	 */
+	AttributeCache[] newAttributeCaches() {
+		AttributeCache[] caches = null;
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i].getCacheMillis() > 0 && attributes[i].isReadable()) {
+				if (caches == null) {
+					caches = new AttributeCache[attributes.length];
+				}
+				caches[i] = new AttributeCache(attributes[i].getCacheMillis());
+			}
+		}
+		return caches;
+	}
+
+	/**
+	 * @return <code>true</code> if an attribute is read in the background,
+	 *         because it is sampled, has a rate or is monitored.
+	 */
+	boolean hasBackgroundReads() {
+		for (BeanAttribute att : attributes) {
+			if (att.getSampleTimeOf() != null || att.getRateOf() != null
+					|| att.getMonitorMillis() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> if an attribute has a
+	 *         {@link JMXBeanAttribute#monitorMillis()}.
+	 */
+	boolean hasMonitors() {
+		for (BeanAttribute att : attributes) {
+			if (att.getMonitorMillis() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the monitors of the attributes of one bean.
+	 * 
+	 * @param bean
+	 *            The bean to read from.
+	 * @param notifier
+	 *            Sends the notifications of the wrapper.
+	 * @return The monitors, indexed like the attributes, with
+	 *         <code>null</code> elements for attributes that are not
+	 *         monitored. <code>null</code> if no attribute is monitored.
+	 */
+	AttributeMonitor[] newAttributeMonitors(Object bean,
+			JMXBeanNotifier notifier) {
+		AttributeMonitor[] monitors = null;
+		MBeanAttributeInfo[] infos = beanInfo.getAttributes();
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i].getMonitorMillis() > 0) {
+				if (monitors == null) {
+					monitors = new AttributeMonitor[attributes.length];
+				}
+				monitors[i] = new AttributeMonitor(bean, attributes[i],
+						infos[i].getName(), infos[i].getType(), notifier);
+			}
+		}
+		return monitors;
+	}
+
+	/**
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @return <code>true</code> if the bean has {@link JMXBeanNotifier}
+	 *         fields.
+	 */
+	static boolean hasNotifiers(Class<?> beanClass) {
+		return NOTIFIERS.get(beanClass).length > 0;
+	}
+
+	/**
+	 * Connects the notifiers of a bean to its wrapper. Fields that are
+	 * <code>null</code> are set to a new notifier. This only needs the
+	 * notifier fields, not the analyzed class, so it is done when any wrapper
+	 * is created, including lazy ones.
+	 * 
+	 * @param bean
+	 *            The bean.
+	 * @param source
+	 *            The source of the notifications, the wrapper.
+	 * @param broadcaster
+	 *            The listeners of the wrapper.
+	 */
+	static void attachNotifiers(Object bean, Object source,
+			NotificationBroadcasterSupport broadcaster) {
+		for (Field field : NOTIFIERS.get(bean.getClass())) {
+			try {
+				JMXBeanNotifier notifier = (JMXBeanNotifier) field.get(bean);
+				if (notifier == null) {
+					notifier = new JMXBeanNotifier();
+					field.set(bean, notifier);
+				}
+				notifier.attach(source, broadcaster);
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Can't set notifier "
+						+ field.getName() + ": " + e, e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the call statistics for one bean.
+	 * 
+	 * @return The statistics, <code>null</code> if they are not recorded for
+	 *         this bean class.
+	 */
+	WrapperStatistics newStatistics() {
+		return statistics == null ? null : new WrapperStatistics(statistics);
+	}
+
+	/**
+	 * @param index
+	 *            The attribute index, as returned by
+	 *            {@link #getAttributeIndex(String)}.
+	 * @return If the bean has a snapshot method that may return the
+	 *         attribute.
+	 */
+	boolean isSnapshotAttribute(int index) {
+		return snapshot != null
+				&& (snapshotAttributes == null || snapshotAttributes[index]);
+	}
+
+	/**
+	 * Calls the snapshot method of the bean, if it has one.
+	 * 
+	 * @param bean
+	 *            The bean to take the snapshot of.
+	 * @return The attribute values by attribute name, or <code>null</code> if
+	 *         there is no snapshot method or it failed.
+	 */
+	Map<?, ?> getSnapshot(Object bean) {
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			Object values = snapshot.invoke(bean);
+			return values instanceof Map ? (Map<?, ?>) values : null;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return If attribute values are read back after a bulk write.
+	 */
+	boolean isReadBackAttributes() {
+		return readBackAttributes;
+	}
+
+	/**
+	 * Looks up an operation by its JMX name and signature. If no signature is
+	 * given, the operation is selected by its number of parameters, as long
+	 * as this is unambiguous.
+	 * 
+	 * @param name
+	 *            The operation name.
+	 * @param signature
+	 *            The parameter class names, may be <code>null</code>.
+	 * @param parameterCount
+	 *            The number of parameters passed to the operation.
+	 * @return The operation, or <code>null</code> if there is no matching
+	 *         operation.
+	 */
+	BeanOperation getOperation(String name, String[] signature,
+			int parameterCount) {
+		int index = operationIndex.indexOf(name);
+		if (index < 0) {
+			return null;
+		}
+		BeanOperation[] overloads = operations[index];
+		if (signature == null) {
+			BeanOperation found = null;
+			for (BeanOperation operation : overloads) {
+				if (operation.getParameterCount() == parameterCount) {
+					if (found != null) {
+						return null;
+					}
+					found = operation;
+				}
+			}
+			return found;
+		}
+		for (BeanOperation operation : overloads) {
+			if (operation.signatureMatches(signature)) {
+				return operation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Collects the annotated members of a bean class. If the annotation
+	 * processor generated a {@link JMXBeanSupport} for the class, it describes
+	 * the methods, otherwise they are found through reflection. Annotated
+	 * fields are always found through reflection, in the class and all its
+	 * superclasses.
+	 * 
+	 * @param beanClass
+	 *            The annotated class to wrap.
+	 * @return The annotated members.
+	 * @throws IntrospectionException
+	 */
+	private static List<BeanMember> getBeanMembers(Class<?> beanClass)
+			throws IntrospectionException {
+		List<BeanMember> members = new ArrayList<BeanMember>();
+		JMXBeanSupport support = JMXBeanSupport.forClass(beanClass);
+		if (support != null) {
+			members.addAll(support.getMembers());
+		} else {
+			for (Method method : beanClass.getMethods()) {
+				BeanMember member = BeanMember.forMethod(method);
+				if (member != null) {
+					members.add(member);
+				}
+			}
+		}
+		for (Class<?> c = beanClass; c != null && c != Object.class; c = c
+				.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				BeanMember.forField(field, members);
+			}
+		}
+		return members;
+	}
+
+	/**
+	 * Finds the fields annotated with {@link JMXBeanNotification}, in the
+	 * class and all its superclasses, and makes them accessible.
+	 * 
+	 * @param beanClass
+	 *            The annotated class.
+	 * @return The notifier fields.
+	 * @throws IntrospectionException
+	 *             If an annotated field is static or not a
+	 *             {@link JMXBeanNotifier}.
+	 */
+	private static List<Field> getNotifierFields(Class<?> beanClass)
+			throws IntrospectionException {
+		List<Field> fields = new ArrayList<Field>();
+		for (Class<?> c = beanClass; c != null && c != Object.class; c = c
+				.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.getAnnotation(JMXBeanNotification.class) == null) {
+					continue;
+				}
+				if (field.getType() != JMXBeanNotifier.class
+						|| Modifier.isStatic(field.getModifiers())) {
+					throw new IntrospectionException("notification field "
+							+ field.getName()
+							+ " must be a non-static JMXBeanNotifier");
+				}
+				try {
+					field.setAccessible(true);
+				} catch (SecurityException e) {
+					throw new IntrospectionException("Can't access field "
+							+ field.getName() + ": " + e);
+				}
+				fields.add(field);
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Describes the notifications of the notifier fields, and adds the
+	 * attributes of the notifier counters.
+	 * 
+	 * @param fields
+	 *            The notifier fields.
+	 * @param beanAttributes
+	 *            Receives the counter attributes.
+	 * @return The notification informations, <code>null</code> if there are
+	 *         no notifier fields.
+	 * @throws IntrospectionException
+	 */
+	private MBeanNotificationInfo[] getNotificationInfos(List<Field> fields,
+			Map<String, BeanAttribute> beanAttributes)
+			throws IntrospectionException {
+		if (fields.isEmpty()) {
+			return null;
+		}
+		MBeanNotificationInfo[] infos = new MBeanNotificationInfo[fields
+				.size()];
+		for (int i = 0; i < infos.length; i++) {
+			Field field = fields.get(i);
+			JMXBeanNotification notification = field
+					.getAnnotation(JMXBeanNotification.class);
+			String description = localization.get(
+					notification.descriptionKey(), notification.description());
+			infos[i] = new MBeanNotificationInfo(notification.types(),
+					notification.name(), description);
+			BeanMember counters = new BeanMember(field.getName(),
+					JMXBeanNotifier.class.getName(), new String[0], null, null,
+					new JMXBeanParameter[0], FieldAccessor.reader(field));
+			beanAttributes.put(field.getName(), new BeanAttribute(counters,
+					null, description, ""));
+		}
+		return infos;
+	}
+
+	/**
+	 * Adds the description of the attribute change notifications, if an
+	 * attribute is monitored.
+	 * 
+	 * @param notifications
+	 *            The notification informations of the notifier fields, may be
+	 *            <code>null</code>.
+	 * @param beanAttributes
+	 *            The attributes.
+	 * @return The notification informations.
+	 */
+	private static MBeanNotificationInfo[] addMonitorNotificationInfo(
+			MBeanNotificationInfo[] notifications,
+			Map<String, BeanAttribute> beanAttributes) {
+		for (BeanAttribute att : beanAttributes.values()) {
+			if (att.getMonitorMillis() > 0) {
+				List<MBeanNotificationInfo> infos = new ArrayList<MBeanNotificationInfo>();
+				if (notifications != null) {
+					infos.addAll(Arrays.asList(notifications));
+				}
+				infos.add(new MBeanNotificationInfo(
+						new String[] { AttributeChangeNotification.ATTRIBUTE_CHANGE },
+						AttributeChangeNotification.class.getName(),
+						"Thresholds and changes of monitored attributes"));
+				return infos.toArray(new MBeanNotificationInfo[0]);
+			}
+		}
+		return notifications;
+	}
+
+	/**
+	 * Finds the snapshot method among the annotated members.
+	 * 
+	 * @param members
+	 *            The annotated members of the class.
+	 * @return The snapshot method, <code>null</code> if there is none.
+	 * @throws IntrospectionException
+	 *             If there is more than one snapshot method, or it takes
+	 *             parameters.
+	 */
+	private static BeanMember getSnapshotMember(List<BeanMember> members)
+			throws IntrospectionException {
+		BeanMember found = null;
+		for (BeanMember member : members) {
+			if (member.getSnapshot() == null) {
+				continue;
+			}
+			if (found != null) {
+				throw new IntrospectionException("more than one snapshot method: "
+						+ found.getMemberName() + ", " + member.getMemberName());
+			}
+			if (member.getParameterTypes().length != 0
+					|| member.getReturnType().equals("void")) {
+				throw new IntrospectionException("snapshot method "
+						+ member.getMemberName()
+						+ " must return a map and take no parameters");
+			}
+			found = member;
+		}
+		return found;
+	}
+
+	/**
+	 * Looks up the attributes named by the snapshot annotation.
+	 * 
+	 * @param member
+	 *            The snapshot method.
+	 * @return The flags by attribute index, <code>null</code> if the
+	 *         annotation names no attributes.
+	 * @throws IntrospectionException
+	 *             If a named attribute does not exist.
+	 */
+	private boolean[] getSnapshotAttributes(BeanMember member)
+			throws IntrospectionException {
+		String[] names = member.getSnapshot().value();
+		if (names.length == 0) {
+			return null;
+		}
+		boolean[] result = new boolean[attributes.length];
+		for (String name : names) {
+			int index = attributeIndex.indexOf(name);
+			if (index < 0) {
+				throw new IntrospectionException("snapshot method "
+						+ member.getMemberName()
+						+ " names unknown attribute " + name);
+			}
+			result[index] = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Analyzes the annotated bean and builds up all the operation informations.
+	 * 
+	 * @param members
+	 *            The annotated members of the class.
+	 * @param beanOperations
+	 *            Receives the operations, grouped by operation name.
+	 * @param defaultTimeoutMillis
+	 *            The timeout for operations that do not specify one.
+	 * @return A <code>List</code> of bean operation informations, empty array
+	 *         if no operations are defined.
+	 */
+	private List<MBeanOperationInfo> getBeanOperationInfos(
+			List<BeanMember> members,
+			Map<String, List<BeanOperation>> beanOperations,
+			long defaultTimeoutMillis) {
+		List<MBeanOperationInfo> operations = new ArrayList<MBeanOperationInfo>();
+		for (BeanMember method : members) {
+			JMXBeanOperation jmxBeanOperation = method.getOperation();
+			/*
+			 * Skip operations without annotation
+			 */
+			if (jmxBeanOperation == null) {
+				continue;
+			}
+			String name = localization.get(jmxBeanOperation.nameKey(),
+					jmxBeanOperation.name());
+			String description = localization.get(
+					jmxBeanOperation.descriptionKey(),
+					jmxBeanOperation.description());
+			String sortValue = jmxBeanOperation.sortValue();
+			if ("".equals(name)) {
+				name = method.getMemberName();
+			}
+			int impact = MBeanOperationInfo.UNKNOWN;
+			switch (jmxBeanOperation.impactType()) {
+			case INFO:
+				impact = MBeanOperationInfo.INFO;
+				break;
+			case ACTION:
+				impact = MBeanOperationInfo.ACTION;
+				break;
+			case ACTION_INFO:
+				impact = MBeanOperationInfo.ACTION_INFO;
+				break;
+			default:
+				impact = MBeanOperationInfo.UNKNOWN;
+				break;
+			}
+			int counter = 0;
+			ArrayList<MBeanParameterInfo> pInfos = new ArrayList<MBeanParameterInfo>();
+			JMXBeanParameter[] paramAnnotations = method.getParameters();
+			for (String paramType : method.getParameterTypes()) {
+				String paramName = "param" + ++counter;
+				String paramDescription = "";
+				JMXBeanParameter jmxBeanParameter = paramAnnotations[counter - 1];
+				if (jmxBeanParameter != null) {
+					if (!"".equals(jmxBeanParameter.name()))
+						paramName = jmxBeanParameter.name();
+					paramName = localization.get(jmxBeanParameter.nameKey(),
+							paramName);
+					paramDescription = localization.get(
+							jmxBeanParameter.descriptionKey(),
+							jmxBeanParameter.description());
+				}
+				MBeanParameterInfo pInfo = Interner
+						.intern(new MBeanParameterInfo(paramName, paramType,
+								paramDescription));
+				pInfos.add(pInfo);
+			}
+
+			Map<String, String> descriptorValues = new HashMap<String, String>();
+			descriptorValues.put(JMXBeanWrapper.BEAN_OPERATION_SORT, sortValue);
+			ImmutableDescriptor desc = Interner.intern(new ImmutableDescriptor(
+					descriptorValues));
+
+			MBeanOperationInfo info = Interner.intern(new MBeanOperationInfo(
+					name, description,
+					pInfos.toArray(new MBeanParameterInfo[0]),
+					method.getReturnType(), impact, desc));
+			List<BeanOperation> overloads = beanOperations.get(name);
+			if (overloads == null) {
+				overloads = new ArrayList<BeanOperation>(1);
+				beanOperations.put(name, overloads);
+			}
+			long timeoutMillis = jmxBeanOperation.timeoutMillis() > 0 ? jmxBeanOperation
+					.timeoutMillis() : defaultTimeoutMillis;
+			overloads.add(new BeanOperation(name, method, timeoutMillis));
+			operations.add(info);
+		}
+		return operations;
+	}
+
+	/**
+	 * Analyzes an annotated bean for JMX attributes.
+	 * 
+	 * @param members
+	 *            The annotated members of the class.
+	 * @param beanAttributes
+	 *            Receives the attributes, mapped by attribute name.
+	 * @param loader
+	 *            The class loader of the bean class.
+	 * @return A <code>List</code> of attribute informations, empty array if no
+	 *         attributes were found.
+	 * @throws IntrospectionException
+	 */
+	private List<MBeanAttributeInfo> getBeanAttributeInfos(
+			List<BeanMember> members,
+			Map<String, BeanAttribute> beanAttributes, ClassLoader loader)
+			throws IntrospectionException {
+
+		/*
+		 * Get all setters and getters and build up the map of attributes
+		 */
+		for (BeanMember method : members) {
+			JMXBeanAttribute jmxBeanAttribute = method.getAttribute();
+			/*
+			 * Skip attributes without annotation
+			 */
+			if (jmxBeanAttribute == null) {
+				continue;
+			}
+			String description = localization.get(
+					jmxBeanAttribute.descriptionKey(),
+					jmxBeanAttribute.description());
+			String name = localization.get(jmxBeanAttribute.nameKey(),
+					jmxBeanAttribute.name());
+			String sortValue = jmxBeanAttribute.sortValue();
+
+			/*
+			 * Fields are named like the field, the reading member is the
+			 * getter and the writing member the setter
+			 */
+			if (method.isField()) {
+				if ("".equals(name)) {
+					name = method.getMemberName();
+				}
+				BeanAttribute att = beanAttributes.get(name);
+				boolean getter = method.getParameterTypes().length == 0;
+				if (att == null) {
+					beanAttributes.put(name, new BeanAttribute(getter ? method
+							: null, getter ? null : method, description,
+							sortValue));
+				} else if (getter) {
+					att.setGetter(method);
+				} else {
+					att.setSetter(method);
+				}
+			} else if (method.getMemberName().startsWith("get")
+					|| method.getMemberName().startsWith("is")) {
+				if ("".equals(name)) {
+					if (method.getMemberName().startsWith("get")) {
+						name = method.getMemberName().substring(3);
+					} else {
+						name = method.getMemberName().substring(2);
+					}
+					name = Character.toLowerCase(name.charAt(0))
+							+ name.substring(1);
+				}
+				BeanAttribute att = beanAttributes.get(name);
+				if (att == null) {
+					beanAttributes.put(name, new BeanAttribute(method, null,
+							description, sortValue));
+				} else {
+					att.setGetter(method);
+					if ("".equals(att.getDescription())) {
+						att.setDescription(description);
+					}
+				}
+			} else if (method.getMemberName().startsWith("set")) {
+				if ("".equals(name)) {
+					name = method.getMemberName().substring(3);
+					name = Character.toLowerCase(name.charAt(0))
+							+ name.substring(1);
+				}
+				BeanAttribute att = beanAttributes.get(name);
+				if (att == null) {
+					beanAttributes.put(name, new BeanAttribute(null, method,
+							description, sortValue));
+				} else {
+					att.setSetter(method);
+					if ("".equals(att.getDescription())) {
+						att.setDescription(description);
+					}
+				}
+			} else {
+				continue;
+			}
+		}
+		/*
+		 * Replace metric attributes with one read-only attribute for each
+		 * value of the metric
+		 */
+		for (Map.Entry<String, BeanAttribute> entry : new ArrayList<Map.Entry<String, BeanAttribute>>(
+				beanAttributes.entrySet())) {
+			BeanAttribute att = entry.getValue();
+			BeanMember getter = att.getGetter();
+			String[] suffixes = getter == null ? null : MetricAccessor
+					.suffixes(getter.getReturnType(), loader);
+			if (suffixes == null) {
+				continue;
+			}
+			String type = getter.getReturnType();
+			String[] types = MetricAccessor.types(type);
+			beanAttributes.remove(entry.getKey());
+			for (int i = 0; i < suffixes.length; i++) {
+				BeanMember value = getter.forMetricValue(types[i],
+						new MetricAccessor(getter.getAccessor(), i));
+				beanAttributes.put(entry.getKey() + suffixes[i],
+						new BeanAttribute(value, null, MetricAccessor
+								.description(type, i, att.getDescription()),
+								att.getSortValue().equals("") ? "" : att
+										.getSortValue() + suffixes[i]));
+			}
+		}
+		/*
+		 * Take the cache and sample times from the getter or setter and add
+		 * the sample time, rate and delta attributes
+		 */
+		for (Map.Entry<String, BeanAttribute> entry : new ArrayList<Map.Entry<String, BeanAttribute>>(
+				beanAttributes.entrySet())) {
+			BeanAttribute att = entry.getValue();
+			JMXBeanAttribute getter = att.getGetter() == null ? null : att
+					.getGetter().getAttribute();
+			JMXBeanAttribute setter = att.getSetter() == null ? null : att
+					.getSetter().getAttribute();
+			if (getter != null && getter.cacheMillis() > 0) {
+				att.setCacheMillis(getter.cacheMillis());
+			} else if (setter != null) {
+				att.setCacheMillis(setter.cacheMillis());
+			}
+			if (getter != null && getter.timeoutMillis() > 0) {
+				att.setTimeoutMillis(getter.timeoutMillis());
+			} else if (setter != null) {
+				att.setTimeoutMillis(setter.timeoutMillis());
+			}
+			if (getter != null && getter.sampleMillis() > 0) {
+				att.setSampleMillis(getter.sampleMillis());
+			} else if (setter != null) {
+				att.setSampleMillis(setter.sampleMillis());
+			}
+			String timeName = entry.getKey() + "SampleTime";
+			if (att.getSampleMillis() > 0 && getter != null
+					&& !beanAttributes.containsKey(timeName)) {
+				BeanAttribute time = new BeanAttribute(null, null,
+						"Time of the last sample of " + entry.getKey()
+								+ ", in milliseconds since the epoch", "");
+				time.setSortValue(att.getSortValue().equals("") ? ""
+						: att.getSortValue() + "SampleTime");
+				time.setSampleTimeOf(entry.getKey());
+				beanAttributes.put(timeName, time);
+			}
+			if (getter != null && getter.rateWindowMillis() > 0) {
+				att.setRateWindowMillis(getter.rateWindowMillis());
+			} else if (setter != null) {
+				att.setRateWindowMillis(setter.rateWindowMillis());
+			}
+			if (att.getRateWindowMillis() > 0 && getter != null) {
+				if (numericType(att.getGetter().getReturnType()) == null) {
+					throw new IntrospectionException("attribute "
+							+ entry.getKey() + " has a rate but is not numeric");
+				}
+				addRateAttribute(beanAttributes, entry.getKey(), att, false);
+				addRateAttribute(beanAttributes, entry.getKey(), att, true);
+			}
+			JMXBeanAttribute monitor = getter != null
+					&& getter.monitorMillis() > 0 ? getter : setter;
+			if (monitor != null && monitor.monitorMillis() > 0) {
+				if (getter == null) {
+					throw new IntrospectionException("attribute "
+							+ entry.getKey() + " is monitored but has no getter");
+				}
+				if ((!Double.isNaN(monitor.highThreshold()) || !Double
+						.isNaN(monitor.lowThreshold()))
+						&& numericType(att.getGetter().getReturnType()) == null) {
+					throw new IntrospectionException("attribute "
+							+ entry.getKey()
+							+ " has a threshold but is not numeric");
+				}
+				att.setMonitor(monitor.monitorMillis(), monitor.highThreshold(),
+						monitor.lowThreshold(), monitor.notifyOnChange());
+			}
+		}
+		/*
+		 * Build the list of attributes out of the map and return it
+		 */
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (Map.Entry<String, BeanAttribute> entry : beanAttributes.entrySet()) {
+			BeanMember getter = entry.getValue().getGetter();
+			BeanMember setter = entry.getValue().getSetter();
+			if (entry.getValue().getSampleTimeOf() != null) {
+				attributes.add(Interner.intern(new MBeanAttributeInfo(entry
+						.getKey(), "long", entry.getValue().getDescription(),
+						true, false, false)));
+				continue;
+			}
+			if (entry.getValue().getRateOf() != null) {
+				String type = "double";
+				Descriptor descriptor = ImmutableDescriptor.EMPTY_DESCRIPTOR;
+				if (entry.getValue().isDelta()) {
+					type = numericType(beanAttributes.get(
+							entry.getValue().getRateOf()).getGetter()
+							.getReturnType());
+					descriptor = new ImmutableDescriptor(
+							JMXBeanWrapper.BEAN_ATTRIBUTE_DELTA + "=true");
+				}
+				attributes.add(Interner.intern(new MBeanAttributeInfo(entry
+						.getKey(), type, entry.getValue().getDescription(),
+						true, false, false, descriptor)));
+				continue;
+			}
+			MBeanAttributeInfo info = Interner.intern(new MBeanAttributeInfo(
+					entry.getKey(), attributeType(getter, setter), entry
+							.getValue().getDescription(), getter != null,
+					setter != null, isIs(getter)));
+			attributes.add(info);
+		}
+		return attributes;
+	}
+
+	/**
+	 * Describes the attributes with their open types and converts their
+	 * values to open data, see {@link JMXBean#openTypes()}.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @param attributes
+	 *            The attribute informations.
+	 * @param beanAttributes
+	 *            The attributes by name.
+	 * @return The open attribute informations.
+	 * @throws IntrospectionException
+	 *             If an attribute type can't be mapped, or a writable
+	 *             attribute type can't be converted back.
+	 */
+	private static List<MBeanAttributeInfo> getOpenAttributeInfos(
+			Class<?> beanClass, List<MBeanAttributeInfo> attributes,
+			Map<String, BeanAttribute> beanAttributes)
+			throws IntrospectionException {
+		List<MBeanAttributeInfo> result = new ArrayList<MBeanAttributeInfo>(
+				attributes.size());
+		Map<Type, OpenConverter> converters = new HashMap<Type, OpenConverter>();
+		for (MBeanAttributeInfo info : attributes) {
+			BeanAttribute att = beanAttributes.get(info.getName());
+			Type type;
+			if (att.getGetter() != null) {
+				type = genericType(beanClass, att.getGetter(), true);
+			} else if (att.getSetter() != null) {
+				type = genericType(beanClass, att.getSetter(), false);
+			} else {
+				type = PRIMITIVES.get(info.getType());
+			}
+			OpenConverter converter;
+			try {
+				converter = OpenConverter.forType(type, converters);
+			} catch (OpenDataException e) {
+				throw new IntrospectionException("attribute " + info.getName()
+						+ " can't be mapped to an open type: "
+						+ e.getMessage());
+			}
+			if (info.isWritable() && !converter.isReconstructible()) {
+				throw new IntrospectionException("attribute " + info.getName()
+						+ " of type " + type + " can't be written as open data");
+			}
+			att.setOpenConverter(converter);
+			/*
+			 * Open attribute infos need a description
+			 */
+			String description = info.getDescription() == null
+					|| info.getDescription().equals("") ? info.getName()
+					: info.getDescription();
+			/*
+			 * Not interned, open infos are equal regardless of their
+			 * description
+			 */
+			result.add(new OpenMBeanAttributeInfoSupport(info.getName(),
+					description, converter.getOpenType(), info.isReadable(),
+					info.isWritable(), info.isIs(), info.getDescriptor()));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the generic type of the value of a getter or setter.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @param member
+	 *            The getter or setter.
+	 * @param getter
+	 *            <code>true</code> for a getter.
+	 * @return The generic type.
+	 * @throws IntrospectionException
+	 *             If the member can't be found.
+	 */
+	private static Type genericType(Class<?> beanClass, BeanMember member,
+			boolean getter) throws IntrospectionException {
+		String typeName = getter ? member.getReturnType() : member
+				.getParameterTypes()[0];
+		/*
+		 * Metrics and atomics are read as primitive values
+		 */
+		if (PRIMITIVES.containsKey(typeName)) {
+			return PRIMITIVES.get(typeName);
+		}
+		if (member.isField()) {
+			for (Class<?> c = beanClass; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!field.getName().equals(member.getMemberName())) {
+						continue;
+					}
+					Type type = field.getGenericType();
+					if (field.getType() == AtomicReference.class) {
+						return type instanceof ParameterizedType ? ((ParameterizedType) type)
+								.getActualTypeArguments()[0] : Object.class;
+					}
+					return type;
+				}
+			}
+		} else {
+			for (Method method : beanClass.getMethods()) {
+				if (!method.getName().equals(member.getMemberName())
+						|| method.getParameterTypes().length != member
+								.getParameterTypes().length) {
+					continue;
+				}
+				if (getter) {
+					return method.getGenericReturnType();
+				}
+				if (method.getParameterTypes()[0].getName().equals(typeName)) {
+					return method.getGenericParameterTypes()[0];
+				}
+			}
+		}
+		throw new IntrospectionException("member " + member.getMemberName()
+				+ " not found in " + beanClass.getName());
+	}
+
+	/**
+	 * Checks the getter and setter of an attribute and returns the attribute
+	 * type, the same way
+	 * {@link MBeanAttributeInfo#MBeanAttributeInfo(String, String, Method, Method)}
+	 * does.
+	 * 
+	 * @param getter
+	 *            The getter, may be <code>null</code>.
+	 * @param setter
+	 *            The setter, may be <code>null</code>.
+	 * @return The class name of the attribute type.
+	 * @throws IntrospectionException
+	 */
+	private static String attributeType(BeanMember getter, BeanMember setter)
+			throws IntrospectionException {
+		String type = null;
+		if (getter != null) {
+			if (getter.getParameterTypes().length != 0) {
+				throw new IntrospectionException("bad getter arg count");
+			}
+			type = getter.getReturnType();
+			if (type.equals("void")) {
+				throw new IntrospectionException("getter "
+						+ getter.getMemberName() + " returns void");
+			}
+		}
+		if (setter != null) {
+			String[] params = setter.getParameterTypes();
+			if (params.length != 1) {
+				throw new IntrospectionException("bad setter arg count");
+			}
+			if (type == null) {
+				type = params[0];
+			} else if (!type.equals(params[0])) {
+				throw new IntrospectionException(
+						"type mismatch between getter and setter");
+			}
+		}
+		if (type == null) {
+			throw new IntrospectionException(
+					"getter and setter cannot both be null");
+		}
+		return type;
+	}
+
+	/**
+	 * Adds the synthetic rate or delta attribute of a counter attribute, if
+	 * there is no attribute of that name yet.
+	 */
+	private static void addRateAttribute(
+			Map<String, BeanAttribute> beanAttributes, String name,
+			BeanAttribute att, boolean delta) {
+		String suffix = delta ? "Delta" : "Rate";
+		if (beanAttributes.containsKey(name + suffix)) {
+			return;
+		}
+		BeanAttribute rate = new BeanAttribute(null, null, (delta ? "Increase of "
+				+ name + " since the last read"
+				: "Increase of " + name + " per second"), "");
+		rate.setSortValue(att.getSortValue().equals("") ? "" : att
+				.getSortValue() + suffix);
+		rate.setRateOf(name, delta);
+		beanAttributes.put(name + suffix, rate);
+	}
+
+	/**
+	 * Returns the type of the delta of a numeric attribute type.
+	 * 
+	 * @param type
+	 *            The class name of the attribute type.
+	 * @return <code>long</code> for integral types, <code>double</code> for
+	 *         other numbers, <code>null</code> if the type is not numeric.
+	 */
+	static String numericType(String type) {
+		if (type.equals("long") || type.equals("int") || type.equals("short")
+				|| type.equals("byte") || type.equals("java.lang.Long")
+				|| type.equals("java.lang.Integer")
+				|| type.equals("java.lang.Short")
+				|| type.equals("java.lang.Byte")) {
+			return "long";
+		}
+		if (type.equals("double") || type.equals("float")
+				|| type.equals("java.lang.Double")
+				|| type.equals("java.lang.Float")) {
+			return "double";
+		}
+		return null;
+	}
+
+	private static boolean isIs(BeanMember getter) {
+		return getter != null
+				&& !getter.isField()
+				&& getter.getMemberName().startsWith("is")
+				&& (getter.getReturnType().equals("boolean") || getter
+						.getReturnType().equals("java.lang.Boolean"));
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A bean operation, bound to the method that implements it.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class BeanOperation {
+
+	/**
+	 * The JMX operation name.
+	 */
+	private final String name;
+
+	/**
+	 * The parameter class names, as they are passed in a JMX invoke call.
+	 */
+	private final String[] signature;
+
+	/**
+	 * The bound accessor of the operation method.
+	 */
+	private final MemberAccessor accessor;
+
+	/**
+	 * The timeout for calls, <code>0</code> for no timeout.
+	 */
+	private final long timeoutMillis;
+
+	/**
+	 * The position of this operation among all operations of the bean.
+	 */
+	private final int index;
+
+	/**
+	 * Creates a new bean operation.
+	 * 
+	 * @param name
+	 *            The JMX operation name.
+	 * @param member
+	 *            The member implementing the operation.
+	 * @param timeoutMillis
+	 *            The timeout for calls, <code>0</code> for no timeout.
+	 */
+	BeanOperation(String name, BeanMember member, long timeoutMillis) {
+		this(name, member.getParameterTypes(), member.getAccessor(),
+				timeoutMillis, 0);
+	}
+
+	private BeanOperation(String name, String[] signature,
+			MemberAccessor accessor, long timeoutMillis, int index) {
+		this.name = name;
+		this.signature = signature;
+		this.accessor = accessor;
+		this.timeoutMillis = timeoutMillis;
+		this.index = index;
+	}
+
+	/**
+	 * Creates a copy of this operation that calls the method through a
+	 * generated class, if possible.
+	 * 
+	 * @return The compiled operation.
+	 */
+	BeanOperation compile() {
+		return new BeanOperation(name, signature, accessor.compile(),
+				timeoutMillis, index);
+	}
+
+	/**
+	 * Creates a copy of this operation at another position.
+	 * 
+	 * @param index
+	 *            The position among all operations of the bean.
+	 * @return The copy.
+	 */
+	BeanOperation withIndex(int index) {
+		return new BeanOperation(name, signature, accessor, timeoutMillis,
+				index);
+	}
+
+	String getName() {
+		return name;
+	}
+
+	long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return The number of operation parameters.
+	 */
+	int getParameterCount() {
+		return signature.length;
+	}
+
+	/**
+	 * Check if a JMX signature matches this operation.
+	 * 
+	 * @param signature
+	 *            String array of parameter class names, <code>null</code> or
+	 *            empty for no parameters.
+	 * @return <code>true</code> if the signature matches the method,
+	 *         <code>false</code> otherwise.
+	 */
+	boolean signatureMatches(String[] signature) {
+		int length = signature == null ? 0 : signature.length;
+		if (length != this.signature.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (!this.signature[i].equals(signature[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Calls the operation method.
+	 * 
+	 * @param bean
+	 *            The bean to call the method on.
+	 * @param params
+	 *            The method arguments.
+	 * @return The method result.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	Object invoke(Object bean, Object[] params) throws IllegalAccessException,
+			InvocationTargetException {
+		return accessor.invoke(bean, params);
+	}
+}
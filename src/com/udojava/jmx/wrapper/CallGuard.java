@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls a getter or operation of one bean with a timeout, so a hanging member
+ * does not block the JMX connector thread. The call runs on a shared, bounded
+ * pool of daemon threads, the caller waits at most for the timeout and then
+ * interrupts the call.
+ * 
+ * A member that timed out, or failed {@value #FAILURE_THRESHOLD} times in a
+ * row, is skipped for a back-off time, which starts at
+ * {@value #MIN_BACKOFF_MILLIS} milliseconds and doubles with every further
+ * failure, up to {@value #MAX_BACKOFF_MILLIS} milliseconds. Calls during the
+ * back-off fail immediately. The first successful call resets the back-off.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class CallGuard {
+
+	/**
+	 * Number of failures in a row that start the back-off.
+	 */
+	static final int FAILURE_THRESHOLD = 3;
+
+	static final long MIN_BACKOFF_MILLIS = 1000;
+
+	static final long MAX_BACKOFF_MILLIS = 60000;
+
+	/**
+	 * Maximum number of member calls running at the same time, for all beans.
+	 */
+	private static final int MAX_THREADS = 32;
+
+	private final long timeoutMillis;
+
+	/**
+	 * The number of failures in a row.
+	 */
+	private int failures;
+
+	/**
+	 * The current back-off time, <code>0</code> if the last call succeeded.
+	 */
+	private long backoffMillis;
+
+	/**
+	 * The time until calls are skipped, as returned by
+	 * {@link System#nanoTime()}.
+	 */
+	private long skipUntil;
+
+	/**
+	 * Creates a new guard.
+	 * 
+	 * @param timeoutMillis
+	 *            The maximum time to wait for a call, in milliseconds.
+	 */
+	CallGuard(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Runs a call with the timeout.
+	 * 
+	 * @param call
+	 *            The call to run.
+	 * @return The result of the call.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 *             If the call failed, timed out (with a
+	 *             {@link TimeoutException} as cause), or was skipped because
+	 *             of earlier failures.
+	 */
+	Object call(Callable<Object> call) throws IllegalAccessException,
+			InvocationTargetException {
+		synchronized (this) {
+			if (backoffMillis > 0 && System.nanoTime() - skipUntil < 0) {
+				throw new InvocationTargetException(new TimeoutException(
+						"Skipped after " + failures + " failures, retry in "
+								+ backoffMillis + " ms"));
+			}
+		}
+
+		Future<Object> future;
+		try {
+			future = getExecutor().submit(call);
+		} catch (RejectedExecutionException e) {
+			throw new InvocationTargetException(e);
+		}
+
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					Object result = future.get(timeoutMillis,
+							TimeUnit.MILLISECONDS);
+					succeeded();
+					return result;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			failed(true);
+			throw new InvocationTargetException(new TimeoutException(
+					"No result after " + timeoutMillis + " ms"));
+		} catch (ExecutionException e) {
+			failed(false);
+			Throwable cause = e.getCause();
+			if (cause instanceof InvocationTargetException) {
+				throw (InvocationTargetException) cause;
+			}
+			if (cause instanceof IllegalAccessException) {
+				throw (IllegalAccessException) cause;
+			}
+			throw new InvocationTargetException(cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private synchronized void succeeded() {
+		failures = 0;
+		backoffMillis = 0;
+	}
+
+	/**
+	 * Counts a failure and starts or extends the back-off.
+	 * 
+	 * @param timeout
+	 *            <code>true</code> if the call timed out, which starts the
+	 *            back-off at once.
+	 */
+	private synchronized void failed(boolean timeout) {
+		failures++;
+		if (timeout || failures >= FAILURE_THRESHOLD) {
+			backoffMillis = backoffMillis == 0 ? MIN_BACKOFF_MILLIS : Math
+					.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+			skipUntil = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+		}
+	}
+
+	/**
+	 * Holds the shared executor, which is created when the first call is
+	 * made, without locking on every call.
+	 */
+	private static final class ExecutorHolder {
+		static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0,
+				MAX_THREADS, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "JMXBeanWrapper call "
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	private static ExecutorService getExecutor() {
+		return ExecutorHolder.EXECUTOR;
+	}
+}
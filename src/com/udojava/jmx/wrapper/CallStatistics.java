@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count, latency histogram and CPU time of one bean member.
+ * Recording does not lock or allocate.
+ * 
+ * Latencies are counted in buckets of powers of two, the first bucket holds
+ * calls shorter than 1024 nanoseconds, every further bucket twice the range
+ * of the previous one. Percentiles are reported as the upper bound of the
+ * bucket they fall into, but never more than the maximum latency.
+ * 
+ * CPU time is measured with {@link ThreadMXBean#getCurrentThreadCpuTime()} on
+ * the calling thread. For members with a timeout, the time spent on the
+ * thread that runs the call is not included.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class CallStatistics {
+
+	static final int BUCKETS = 32;
+
+	/**
+	 * The number of low bits of the latency in nanoseconds covered by the
+	 * first bucket.
+	 */
+	private static final int FIRST_BUCKET_BITS = 10;
+
+	private static final double NANOS_PER_MICRO = 1000d;
+
+	private static final ThreadMXBean THREADS = ManagementFactory
+			.getThreadMXBean();
+
+	private static final boolean CPU_TIME = THREADS
+			.isCurrentThreadCpuTimeSupported();
+
+	private static final AtomicLongFieldUpdater<CallStatistics> MAX = AtomicLongFieldUpdater
+			.newUpdater(CallStatistics.class, "maxNanos");
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAdder cpuNanos = new LongAdder();
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private volatile long maxNanos;
+
+	/**
+	 * @return The CPU time of the current thread in nanoseconds, or
+	 *         <code>-1</code> if it is not available.
+	 */
+	static long cpuTime() {
+		return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+	}
+
+	/**
+	 * Records a call that was started at the given times.
+	 * 
+	 * @param startNanos
+	 *            The {@link System#nanoTime()} at the start of the call.
+	 * @param startCpu
+	 *            The {@link #cpuTime()} at the start of the call.
+	 * @param failed
+	 *            <code>true</code> if the call threw an exception.
+	 */
+	void record(long startNanos, long startCpu, boolean failed) {
+		long nanos = System.nanoTime() - startNanos;
+		count.increment();
+		if (failed) {
+			errors.increment();
+		}
+		totalNanos.add(nanos);
+		buckets.incrementAndGet(bucket(nanos));
+		long max;
+		while (nanos > (max = maxNanos) && !MAX.compareAndSet(this, max, nanos)) {
+		}
+		if (startCpu >= 0) {
+			long cpu = cpuTime();
+			if (cpu >= 0) {
+				cpuNanos.add(cpu - startCpu);
+			}
+		}
+	}
+
+	private static int bucket(long nanos) {
+		if (nanos < (1L << FIRST_BUCKET_BITS)) {
+			return 0;
+		}
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)
+				- FIRST_BUCKET_BITS);
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+
+	double getMeanMicros() {
+		long n = count.sum();
+		return n == 0 ? 0 : totalNanos.sum() / NANOS_PER_MICRO / n;
+	}
+
+	double getMaxMicros() {
+		return maxNanos / NANOS_PER_MICRO;
+	}
+
+	double getCpuMicros() {
+		return cpuNanos.sum() / NANOS_PER_MICRO;
+	}
+
+	/**
+	 * Returns a latency percentile.
+	 * 
+	 * @param percentile
+	 *            The percentile, between <code>0</code> and <code>1</code>.
+	 * @return The latency in microseconds, <code>0</code> if there were no
+	 *         calls.
+	 */
+	double getPercentileMicros(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile * total);
+		long seen = 0;
+		int i = 0;
+		for (; i < BUCKETS - 1; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				break;
+			}
+		}
+		long max = maxNanos;
+		long upper = i == BUCKETS - 1 ? max : Math.min(max,
+				1L << (i + FIRST_BUCKET_BITS));
+		return upper / NANOS_PER_MICRO;
+	}
+
+	/**
+	 * Sets all counters to zero. Calls recorded at the same time may be
+	 * partly lost.
+	 */
+	void reset() {
+		count.reset();
+		errors.reset();
+		totalNanos.reset();
+		cpuNanos.reset();
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		maxNanos = 0;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that can be incremented from many threads without contention.
+ * Updates are spread over several cells, like with a {@link LongAdder}, and
+ * do not lock or allocate.
+ * 
+ * A counter in an annotated field, or returned by an annotated getter, is
+ * exposed as a read-only <code>long</code> attribute holding the current
+ * count:
+ * 
+ * <pre>
+ * &#064;JMXBeanAttribute(description = &quot;Requests served&quot;)
+ * private final Counter requests = new Counter();
+ * </pre>
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class Counter {
+
+	private final LongAdder adder = new LongAdder();
+
+	/**
+	 * Adds one to the count.
+	 */
+	public void increment() {
+		adder.increment();
+	}
+
+	/**
+	 * Adds a value to the count.
+	 * 
+	 * @param value
+	 *            The value to add.
+	 */
+	public void add(long value) {
+		adder.add(value);
+	}
+
+	/**
+	 * Returns the current count. Updates that happen concurrently may or may
+	 * not be included.
+	 * 
+	 * @return The count.
+	 */
+	public long get() {
+		return adder.sum();
+	}
+
+	/**
+	 * Returns the current count and sets it to zero.
+	 * 
+	 * @return The count before the reset.
+	 */
+	public long reset() {
+		return adder.sumThenReset();
+	}
+
+	@Override
+	public String toString() {
+		return adder.toString();
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.IntrospectionException;
+
+/**
+ * Reads or writes an annotated field through a {@link MethodHandle}. Field
+ * handles access the field with the memory semantics of its declaration, so a
+ * <code>volatile</code> field is read and written as volatile, a plain field
+ * as plain field.
+ * 
+ * Fields holding an atomic value are exposed with the type of the value:
+ * {@link AtomicLong}, {@link AtomicInteger}, {@link AtomicBoolean} and
+ * {@link AtomicReference} are read with <code>get()</code> and written with
+ * <code>set()</code>, {@link LongAdder} and {@link DoubleAdder} are read with
+ * <code>sum()</code>, {@link LongAccumulator} and {@link DoubleAccumulator}
+ * with <code>get()</code>. Adders and accumulators are read-only.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class FieldAccessor extends MemberAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.genericMethodType(1);
+
+	private static final MethodType SETTER_TYPE = MethodType.genericMethodType(2);
+
+	/**
+	 * Handle of type <code>(Object)Object</code> for reading,
+	 * <code>(Object,Object)Object</code> for writing.
+	 */
+	private final MethodHandle handle;
+
+	/**
+	 * The number of parameters, <code>0</code> for reading, <code>1</code> for
+	 * writing.
+	 */
+	private final int arity;
+
+	private FieldAccessor(MethodHandle handle, int arity) {
+		this.handle = handle;
+		this.arity = arity;
+	}
+
+	/**
+	 * Returns the JMX type of a field attribute.
+	 * 
+	 * @param field
+	 *            The annotated field.
+	 * @return The class name of the attribute type.
+	 */
+	static String attributeType(Field field) {
+		Class<?> type = field.getType();
+		if (type == AtomicLong.class || type == LongAdder.class
+				|| type == LongAccumulator.class) {
+			return "long";
+		}
+		if (type == AtomicInteger.class) {
+			return "int";
+		}
+		if (type == AtomicBoolean.class) {
+			return "boolean";
+		}
+		if (type == DoubleAdder.class || type == DoubleAccumulator.class) {
+			return "double";
+		}
+		if (type == AtomicReference.class) {
+			Type generic = field.getGenericType();
+			if (generic instanceof ParameterizedType) {
+				Type value = ((ParameterizedType) generic)
+						.getActualTypeArguments()[0];
+				if (value instanceof Class) {
+					return ((Class<?>) value).getName();
+				}
+				if (value instanceof ParameterizedType
+						&& ((ParameterizedType) value).getRawType() instanceof Class) {
+					return ((Class<?>) ((ParameterizedType) value)
+							.getRawType()).getName();
+				}
+			}
+			return Object.class.getName();
+		}
+		return type.getName();
+	}
+
+	/**
+	 * Creates the accessor that reads a field.
+	 * 
+	 * @param field
+	 *            The annotated field.
+	 * @return The accessor.
+	 * @throws IntrospectionException
+	 *             If the field is not accessible.
+	 */
+	static FieldAccessor reader(Field field) throws IntrospectionException {
+		MethodHandle getter = unreflect(field, false);
+		Class<?> type = field.getType();
+		String valueMethod = null;
+		if (type == AtomicLong.class || type == AtomicInteger.class
+				|| type == AtomicBoolean.class
+				|| type == AtomicReference.class
+				|| type == LongAccumulator.class
+				|| type == DoubleAccumulator.class) {
+			valueMethod = "get";
+		} else if (type == LongAdder.class || type == DoubleAdder.class) {
+			valueMethod = "sum";
+		}
+		if (valueMethod != null) {
+			getter = MethodHandles.filterReturnValue(getter,
+					findValueMethod(type, valueMethod, 0));
+		}
+		return new FieldAccessor(getter.asType(GETTER_TYPE), 0);
+	}
+
+	/**
+	 * Creates the accessor that writes a field.
+	 * 
+	 * @param field
+	 *            The annotated field.
+	 * @return The accessor, or <code>null</code> if the field is read-only.
+	 * @throws IntrospectionException
+	 *             If the field is not accessible.
+	 */
+	static FieldAccessor writer(Field field) throws IntrospectionException {
+		Class<?> type = field.getType();
+		MethodHandle setter;
+		if (type == AtomicLong.class || type == AtomicInteger.class
+				|| type == AtomicBoolean.class
+				|| type == AtomicReference.class) {
+			setter = MethodHandles.filterArguments(
+					findValueMethod(type, "set", 1), 0,
+					unreflect(field, false));
+		} else if (type == LongAdder.class || type == DoubleAdder.class
+				|| type == LongAccumulator.class
+				|| type == DoubleAccumulator.class) {
+			return null;
+		} else if (Modifier.isFinal(field.getModifiers())) {
+			return null;
+		} else {
+			setter = unreflect(field, true);
+		}
+		return new FieldAccessor(setter.asType(SETTER_TYPE), 1);
+	}
+
+	/**
+	 * Returns the field getter or setter, with a leading receiver parameter
+	 * also for static fields.
+	 */
+	private static MethodHandle unreflect(Field field, boolean setter)
+			throws IntrospectionException {
+		MethodHandle handle;
+		try {
+			field.setAccessible(true);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			handle = setter ? lookup.unreflectSetter(field) : lookup
+					.unreflectGetter(field);
+		} catch (Exception e) {
+			throw new IntrospectionException("Can't access field "
+					+ field.getName() + ": " + e);
+		}
+		if (Modifier.isStatic(field.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		return handle;
+	}
+
+	private static MethodHandle findValueMethod(Class<?> type, String name,
+			int arity) throws IntrospectionException {
+		for (Method method : type.getMethods()) {
+			if (method.getName().equals(name)
+					&& method.getParameterTypes().length == arity) {
+				try {
+					return MethodHandles.publicLookup().unreflect(method);
+				} catch (IllegalAccessException e) {
+					throw new IntrospectionException("Can't access "
+							+ type.getName() + "." + name + ": " + e);
+				}
+			}
+		}
+		throw new IntrospectionException("No method " + name + " in "
+				+ type.getName());
+	}
+
+	@Override
+	Object invoke(Object target) throws InvocationTargetException {
+		if (arity != 0) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return (Object) handle.invokeExact(target);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) throws InvocationTargetException {
+		if (arity != 1) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return (Object) handle.invokeExact(target, arg);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args)
+			throws InvocationTargetException {
+		int length = args == null ? 0 : args.length;
+		if (length != arity) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		return arity == 0 ? invoke(target) : invoke1(target, args[0]);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A value that is set or adjusted from any thread, like a queue length or the
+ * number of open connections. Updates are lock-free and do not allocate.
+ * 
+ * A gauge in an annotated field, or returned by an annotated getter, is
+ * exposed as a read-only <code>long</code> attribute holding the current
+ * value.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class Gauge {
+
+	private static final AtomicLongFieldUpdater<Gauge> VALUE = AtomicLongFieldUpdater
+			.newUpdater(Gauge.class, "value");
+
+	private volatile long value;
+
+	/**
+	 * Sets the value.
+	 * 
+	 * @param value
+	 *            The new value.
+	 */
+	public void set(long value) {
+		this.value = value;
+	}
+
+	/**
+	 * Adds to the value.
+	 * 
+	 * @param delta
+	 *            The value to add, may be negative.
+	 * @return The new value.
+	 */
+	public long add(long delta) {
+		return VALUE.addAndGet(this, delta);
+	}
+
+	/**
+	 * Adds one to the value.
+	 * 
+	 * @return The new value.
+	 */
+	public long increment() {
+		return VALUE.incrementAndGet(this);
+	}
+
+	/**
+	 * Subtracts one from the value.
+	 * 
+	 * @return The new value.
+	 */
+	public long decrement() {
+		return VALUE.decrementAndGet(this);
+	}
+
+	/**
+	 * @return The current value.
+	 */
+	public long get() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(value);
+	}
+}
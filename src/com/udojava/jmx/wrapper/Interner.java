@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shares equal instances of the immutable parts of bean infos, like
+ * descriptors and parameter informations, between all analyzed bean classes.
+ * The instances are only weakly referenced and released when no bean info
+ * uses them anymore.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class Interner {
+
+	private static final Map<Object, WeakReference<Object>> INSTANCES = new WeakHashMap<Object, WeakReference<Object>>();
+
+	private Interner() {
+	}
+
+	/**
+	 * Returns the shared instance that is equal to the given one.
+	 * 
+	 * @param value
+	 *            An immutable value.
+	 * @return A shared, equal instance, the value itself if it is the first
+	 *         of its kind.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T intern(T value) {
+		synchronized (INSTANCES) {
+			WeakReference<Object> reference = INSTANCES.get(value);
+			Object shared = reference == null ? null : reference.get();
+			if (shared == null) {
+				INSTANCES.put(value, new WeakReference<Object>(value));
+				return value;
+			}
+			return (T) shared;
+		}
+	}
+}
@@ -84,4 +84,68 @@ public @interface JMXBean {
 	 * @return If the bean attributes and operations should be sorted.
 	 */
 	boolean sorted() default false;
+
+	/**
+	 * If set to <code>true</code> (the default), the values returned by
+	 * {@link JMXBeanWrapper#setAttributes(javax.management.AttributeList)} are
+	 * read back from the getters after setting them. If set to
+	 * <code>false</code>, the values that were written are returned instead,
+	 * which saves one getter call per attribute.
+	 * 
+	 * @return If attribute values are read back after a bulk write.
+	 */
+	boolean readBackAttributes() default true;
+
+	/**
+	 * Default timeout in milliseconds for all getters and operations of the
+	 * bean that do not specify their own timeout. No timeout is used by
+	 * default (<code>0</code>).
+	 * 
+	 * @return The default timeout in milliseconds.
+	 * @see JMXBeanAttribute#timeoutMillis()
+	 * @see JMXBeanOperation#timeoutMillis()
+	 */
+	long timeoutMillis() default 0;
+
+	/**
+	 * If set to <code>true</code>, the wrapper records the number of calls,
+	 * failed calls, latency and CPU time of every getter, setter and
+	 * operation. The statistics are registered as a companion MBean, with the
+	 * object name of the wrapper and the additional key
+	 * <code>wrapperStats=true</code>, while the wrapper is registered. They
+	 * are not recorded by default.
+	 * 
+	 * @return If call statistics are recorded.
+	 */
+	boolean statistics() default false;
+
+	/**
+	 * If set to <code>true</code>, attribute values are converted to open
+	 * data, like for an MXBean, so generic JMX clients can show them without
+	 * the bean classes. Records and classes with getters become
+	 * <code>CompositeData</code>, maps become <code>TabularData</code>,
+	 * collections become arrays and enums become strings. The bean info then
+	 * describes the attributes with their open types. Attributes of types
+	 * that can't be mapped are reported as an error when the class is
+	 * analyzed. Records and classes with getters can't be written. Attribute
+	 * values are returned as they are by default.
+	 * 
+	 * @return If attribute values are converted to open data.
+	 */
+	boolean openTypes() default false;
+
+	/**
+	 * Template for the object name the bean is registered with by a
+	 * {@link JMXBeanRegistry}. Parts in curly braces are replaced with the
+	 * value of the attribute of that name, e.g.
+	 * <code>com.example:type=Cache,name={name}</code>. Values are quoted if
+	 * they contain characters not allowed in an object name, except in the
+	 * domain, where they must not contain a colon. Attributes that are
+	 * <code>null</code> can't be used in a name. The default is
+	 * the package name as domain and the simple class name as
+	 * <code>type</code>.
+	 * 
+	 * @return The object name template.
+	 */
+	String objectName() default "";
 }
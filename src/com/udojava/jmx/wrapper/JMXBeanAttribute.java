@@ -38,6 +38,30 @@ import java.lang.annotation.RetentionPolicy;
  * specified on either the setter or getter. The annotated method(s) has/have to
  * be public and must follow the JMX specification for attributes.
  * 
+ * Fields can be annotated, too. The attribute is named like the field and has
+ * its type, fields holding an atomic value or an adder have the type of the
+ * value. Final fields, adders and accumulators are read-only, other fields are
+ * read-write. Fields need not be public. A field is read and written with the
+ * memory semantics of its declaration, a <code>volatile</code> field as
+ * volatile, a plain field as plain field. The supported atomic types are
+ * {@link java.util.concurrent.atomic.AtomicLong},
+ * {@link java.util.concurrent.atomic.AtomicInteger},
+ * {@link java.util.concurrent.atomic.AtomicBoolean} and
+ * {@link java.util.concurrent.atomic.AtomicReference}, read with
+ * <code>get()</code> and written with <code>set()</code>, the adders
+ * {@link java.util.concurrent.atomic.LongAdder} and
+ * {@link java.util.concurrent.atomic.DoubleAdder}, read with
+ * <code>sum()</code>, and the accumulators
+ * {@link java.util.concurrent.atomic.LongAccumulator} and
+ * {@link java.util.concurrent.atomic.DoubleAccumulator}, read with
+ * <code>get()</code>.
+ * 
+ * Fields and getters of the metric types {@link Counter}, {@link Gauge} and
+ * {@link Timer} are exposed as read-only attributes holding the values of the
+ * metric. Fields and getters of other types implementing
+ * {@link java.util.function.LongSupplier} are exposed as read-only
+ * <code>long</code> attributes.
+ * 
  * @author Udo Klimaschewski
  * 
  */
@@ -85,4 +109,105 @@ public @interface JMXBeanAttribute {
 	 * @return The sort value.
 	 */
 	String sortValue() default "";
+
+	/**
+	 * Time in milliseconds to keep the value read from the getter. Reads
+	 * within this time return the cached value, concurrent reads of an
+	 * expired value call the getter only once. Setting the attribute drops the
+	 * cached value. Values are not cached by default (<code>0</code>).
+	 * 
+	 * Use this for getters that are expensive to call, if the clients can live
+	 * with slightly outdated values.
+	 * 
+	 * @return The cache time in milliseconds.
+	 */
+	long cacheMillis() default 0;
+
+	/**
+	 * Interval in milliseconds to read the getter in the background. If set,
+	 * JMX reads return the last sampled value immediately and never call the
+	 * getter themselves. A read-only attribute
+	 * <code>&lt;name&gt;SampleTime</code> is added, holding the time of the
+	 * last sample in milliseconds since the epoch. Attributes are not sampled
+	 * by default (<code>0</code>).
+	 * 
+	 * Sampling runs while the wrapper is registered with an MBean server. Until
+	 * the first sample is taken, reads return <code>null</code>. If the
+	 * wrapper is not registered, reads call the getter directly. A sample
+	 * that does not return within {@link #timeoutMillis()} keeps the previous
+	 * sample.
+	 * 
+	 * @return The sample interval in milliseconds.
+	 */
+	long sampleMillis() default 0;
+
+	/**
+	 * Maximum time in milliseconds to wait for the getter. If set, the getter
+	 * runs on a separate thread, and the JMX read fails with a
+	 * {@link java.util.concurrent.TimeoutException} if it does not return in
+	 * time. A getter that timed out or failed repeatedly is skipped for a
+	 * while. <code>0</code> (the default) uses {@link JMXBean#timeoutMillis()}.
+	 * 
+	 * @return The timeout in milliseconds.
+	 */
+	long timeoutMillis() default 0;
+
+	/**
+	 * Window in milliseconds for a per-second rate of a counter. If set, two
+	 * read-only attributes are added: <code>&lt;name&gt;Rate</code> holds the
+	 * increase per second over the window, <code>&lt;name&gt;Delta</code> the
+	 * increase since the delta was read the last time. A decreasing value is
+	 * taken as a reset of the counter. The attribute must be numeric. No rate
+	 * is kept by default (<code>0</code>).
+	 * 
+	 * The counter is read in the background ten times per window, while the
+	 * wrapper is registered with an MBean server. The rate is <code>0</code>
+	 * until two values were read. The delta is shared by all clients, so
+	 * {@link JMXBeanWrapper#visitAttributes(AttributeVisitor)}, which is used
+	 * by exporters, skips it.
+	 * 
+	 * @return The rate window in milliseconds.
+	 */
+	long rateWindowMillis() default 0;
+
+	/**
+	 * Interval in milliseconds to check the attribute for
+	 * {@link #highThreshold()}, {@link #lowThreshold()} and
+	 * {@link #notifyOnChange()}. The getter is called directly in the
+	 * background while the wrapper is registered with an MBean server, and
+	 * {@link javax.management.AttributeChangeNotification}s are sent to the
+	 * listeners of the wrapper. The attribute is not monitored by default
+	 * (<code>0</code>).
+	 * 
+	 * @return The monitor interval in milliseconds.
+	 */
+	long monitorMillis() default 0;
+
+	/**
+	 * Sends a notification when the value reaches or exceeds this threshold.
+	 * It is sent again only after the value reached the
+	 * {@link #lowThreshold()}, or fell below this threshold if there is no low
+	 * threshold. The attribute must be numeric. Needs
+	 * {@link #monitorMillis()}, no threshold by default.
+	 * 
+	 * @return The high threshold.
+	 */
+	double highThreshold() default Double.NaN;
+
+	/**
+	 * Sends a notification when the value reaches or falls below this
+	 * threshold, the counterpart of {@link #highThreshold()}.
+	 * 
+	 * @return The low threshold.
+	 */
+	double lowThreshold() default Double.NaN;
+
+	/**
+	 * Sends a notification whenever the value differs from the one read
+	 * before. Needs {@link #monitorMillis()}. While a change notification is
+	 * waiting for delivery, a further change replaces it.
+	 * 
+	 * @return <code>true</code> to notify changes.
+	 */
+	boolean notifyOnChange() default false;
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The bean classes listed in the bean indexes written by the JMXWrapper
+ * annotation processor. Every jar or class directory compiled with the
+ * processor contains an index <code>META-INF/jmxwrapper/beans.idx</code> of
+ * its {@link JMXBean} annotated classes, with their object name templates and
+ * generated support classes (see {@link JMXBeanSupport}). The index lets
+ * frameworks find and register the beans without scanning the class path:
+ * 
+ * <pre>
+ * JMXBeanRegistry registry = new JMXBeanRegistry(
+ * 		ManagementFactory.getPlatformMBeanServer());
+ * JMXBeanIndex.load(getClass().getClassLoader()).registerAll(registry);
+ * </pre>
+ * 
+ * Only classes are loaded, the index itself is plain text and reading it does
+ * not analyze any class.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class JMXBeanIndex {
+
+	/**
+	 * The resource name of the index.
+	 */
+	public static final String RESOURCE = "META-INF/jmxwrapper/beans.idx";
+
+	/**
+	 * One bean class of the index.
+	 */
+	public static final class Entry {
+
+		private final String className;
+
+		private final String objectName;
+
+		private final String supportClassName;
+
+		private final boolean instantiable;
+
+		Entry(String className, String objectName, String supportClassName,
+				boolean instantiable) {
+			this.className = className;
+			this.objectName = objectName;
+			this.supportClassName = supportClassName;
+			this.instantiable = instantiable;
+		}
+
+		/**
+		 * @return The binary name of the bean class.
+		 */
+		public String getClassName() {
+			return className;
+		}
+
+		/**
+		 * @return The object name template of the class, see
+		 *         {@link JMXBean#objectName()}. The default template is
+		 *         already filled in.
+		 */
+		public String getObjectName() {
+			return objectName;
+		}
+
+		/**
+		 * @return The binary name of the generated support class,
+		 *         <code>null</code> if none was generated.
+		 */
+		public String getSupportClassName() {
+			return supportClassName;
+		}
+
+		/**
+		 * @return <code>true</code> if the class is public and has a public
+		 *         constructor without parameters.
+		 */
+		public boolean isInstantiable() {
+			return instantiable;
+		}
+
+		@Override
+		public String toString() {
+			return className;
+		}
+	}
+
+	private final ClassLoader loader;
+
+	private final List<Entry> entries;
+
+	private JMXBeanIndex(ClassLoader loader, List<Entry> entries) {
+		this.loader = loader;
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Reads all bean indexes visible to a class loader. A class listed in
+	 * more than one index is only returned once.
+	 * 
+	 * @param loader
+	 *            The class loader to find the indexes and the bean classes
+	 *            with.
+	 * @return The index.
+	 * @throws IOException
+	 *             If an index can not be read or has an invalid line.
+	 */
+	public static JMXBeanIndex load(ClassLoader loader) throws IOException {
+		Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		Enumeration<URL> resources = loader.getResources(RESOURCE);
+		while (resources.hasMoreElements()) {
+			URL url = resources.nextElement();
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					url.openStream(), StandardCharsets.UTF_8));
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.startsWith("#") || line.trim().equals("")) {
+						continue;
+					}
+					String[] columns = line.split("\t", -1);
+					if (columns.length < 4) {
+						throw new IOException("Invalid line in " + url + ": "
+								+ line);
+					}
+					if (!entries.containsKey(columns[0])) {
+						entries.put(columns[0], new Entry(columns[0],
+								columns[1], columns[2].equals("") ? null
+										: columns[2], Boolean
+										.parseBoolean(columns[3])));
+					}
+				}
+			} finally {
+				in.close();
+			}
+		}
+		return new JMXBeanIndex(loader, new ArrayList<Entry>(entries.values()));
+	}
+
+	/**
+	 * @return All bean classes of the index.
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Loads a bean class of the index.
+	 * 
+	 * @param entry
+	 *            An entry of this index.
+	 * @return The bean class.
+	 * @throws ClassNotFoundException
+	 *             If the class is listed, but not found.
+	 */
+	public Class<?> loadClass(Entry entry) throws ClassNotFoundException {
+		return Class.forName(entry.getClassName(), false, loader);
+	}
+
+	/**
+	 * Creates an instance of every instantiable bean class of the index,
+	 * through its constructor without parameters, and registers them all.
+	 * 
+	 * @param registry
+	 *            The registry to register the beans with.
+	 * @return The object names of the beans, in the order of the index.
+	 * @throws JMException
+	 *             If a bean can not be created, wrapped, named or registered.
+	 *             None of the beans is registered then.
+	 */
+	public List<ObjectName> registerAll(JMXBeanRegistry registry)
+			throws JMException {
+		List<Object> beans = new ArrayList<Object>();
+		for (Entry entry : entries) {
+			if (!entry.isInstantiable()) {
+				continue;
+			}
+			try {
+				beans.add(loadClass(entry).getConstructor().newInstance());
+			} catch (Exception e) {
+				JMException failure = new JMException("Can't create bean "
+						+ entry.getClassName() + ": " + e);
+				failure.initCause(e);
+				throw failure;
+			}
+		}
+		return registry.registerAll(beans);
+	}
+}
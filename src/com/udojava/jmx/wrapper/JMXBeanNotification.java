@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Annotation used to declare the notifications a JMX bean sends, by marking a
+ * field of type {@link JMXBeanNotifier}. The wrapper describes the
+ * notifications in the bean info, and sets the field to a new notifier if it
+ * is <code>null</code>, when the wrapper is created. Threads of the bean that
+ * are already running then may not see the new notifier, such beans should
+ * create the notifier themselves, it is only connected to the wrapper. The
+ * field need not be public:
+ * 
+ * <pre>
+ * &#064;JMXBeanNotification(types = &quot;com.example.overload&quot;, description = &quot;Sent when the queue is full&quot;)
+ * private JMXBeanNotifier notifier;
+ * 
+ * public void enqueue(Job job) {
+ * 	if (!queue.offer(job)) {
+ * 		notifier.send(&quot;com.example.overload&quot;, &quot;Queue is full&quot;);
+ * 	}
+ * }
+ * </pre>
+ * 
+ * The read-only attributes <code>&lt;field&gt;Sent</code>,
+ * <code>&lt;field&gt;Delivered</code>, <code>&lt;field&gt;Coalesced</code>
+ * and <code>&lt;field&gt;Dropped</code> are added, holding the counters of
+ * the notifier.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JMXBeanNotification {
+	/**
+	 * The notification types that are sent.
+	 * 
+	 * @return The notification types.
+	 */
+	String[] types();
+
+	/**
+	 * The class name of the notifications, {@link javax.management.Notification}
+	 * by default.
+	 * 
+	 * @return The notification class name.
+	 */
+	String name() default "javax.management.Notification";
+
+	/**
+	 * The description of the notifications, empty by default.
+	 * 
+	 * @return The notification description.
+	 */
+	String description() default "";
+
+	/**
+	 * Resource bundle key that will be used to load the description from the
+	 * bundle using the current <code>java.util.Locale</code>. A
+	 * {@link JMXBean#resourceBundleName()} must be specified in the bean
+	 * annotation for this to work.
+	 * 
+	 * @return The resource bundle key for the description.
+	 */
+	String descriptionKey() default "";
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+
+/**
+ * Sends notifications of a JMX bean, see {@link JMXBeanNotification}.
+ * Sending never blocks: notifications are queued and delivered to the
+ * listeners on a small shared pool of daemon threads, so slow listeners do
+ * not hold up the bean.
+ * 
+ * Bursts are coalesced: while a notification of a type is waiting for
+ * delivery, a further notification of the same type replaces it, and only the
+ * latest one is delivered. The queue holds at most the capacity of waiting
+ * notification types, further types are dropped. Notifications sent before
+ * the notifier is connected to a wrapper are dropped, too.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class JMXBeanNotifier {
+
+	/**
+	 * The default number of notification types waiting for delivery.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Number of threads delivering notifications, for all notifiers.
+	 */
+	private static final int THREADS = 2;
+
+	private final int capacity;
+
+	/**
+	 * The latest waiting notification of every type.
+	 */
+	private final ConcurrentMap<String, Notification> waiting = new ConcurrentHashMap<String, Notification>();
+
+	/**
+	 * The waiting types, in the order they were sent.
+	 */
+	private final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<String>();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final LongAdder sent = new LongAdder();
+
+	private final LongAdder delivered = new LongAdder();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * The source of the notifications, the wrapper.
+	 */
+	private volatile Object source;
+
+	/**
+	 * The listeners of the wrapper.
+	 */
+	private volatile NotificationBroadcasterSupport broadcaster;
+
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			do {
+				String key;
+				while ((key = queue.poll()) != null) {
+					Notification notification = waiting.remove(key);
+					queued.decrementAndGet();
+					if (notification != null) {
+						try {
+							broadcaster.sendNotification(notification);
+							delivered.increment();
+						} catch (RuntimeException e) {
+							/*
+							 * A failing listener must not stop the delivery
+							 */
+						}
+					}
+				}
+				draining.set(false);
+			} while (!queue.isEmpty() && draining.compareAndSet(false, true));
+		}
+	};
+
+	/**
+	 * Creates a notifier with the {@link #DEFAULT_CAPACITY}.
+	 */
+	public JMXBeanNotifier() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a notifier.
+	 * 
+	 * @param capacity
+	 *            The number of notification types that can wait for delivery.
+	 */
+	public JMXBeanNotifier(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Connects the notifier to a wrapper.
+	 * 
+	 * @param source
+	 *            The source of the notifications.
+	 * @param broadcaster
+	 *            The listeners of the wrapper.
+	 */
+	void attach(Object source, NotificationBroadcasterSupport broadcaster) {
+		this.broadcaster = broadcaster;
+		this.source = source;
+	}
+
+	/**
+	 * Sends a notification.
+	 * 
+	 * @param type
+	 *            The notification type.
+	 * @param message
+	 *            The notification message.
+	 * @return <code>false</code> if the notification was dropped.
+	 */
+	public boolean send(String type, String message) {
+		return send(type, message, null);
+	}
+
+	/**
+	 * Sends a notification with user data.
+	 * 
+	 * @param type
+	 *            The notification type.
+	 * @param message
+	 *            The notification message.
+	 * @param userData
+	 *            The user data, may be <code>null</code>.
+	 * @return <code>false</code> if the notification was dropped.
+	 */
+	public boolean send(String type, String message, Object userData) {
+		Object currentSource = source;
+		if (currentSource == null) {
+			dropped.increment();
+			return false;
+		}
+		Notification notification = new Notification(type, currentSource,
+				sequence.incrementAndGet(), System.currentTimeMillis(), message);
+		notification.setUserData(userData);
+		return enqueue(notification, type);
+	}
+
+	/**
+	 * Sends a notification created by the caller, e.g. an
+	 * {@link javax.management.AttributeChangeNotification}. Its source is set
+	 * to the wrapper.
+	 * 
+	 * @param notification
+	 *            The notification.
+	 * @return <code>false</code> if the notification was dropped.
+	 */
+	public boolean send(Notification notification) {
+		Object currentSource = source;
+		if (currentSource == null) {
+			dropped.increment();
+			return false;
+		}
+		notification.setSource(currentSource);
+		return enqueue(notification, notification.getType());
+	}
+
+	/**
+	 * Sends a notification, replacing a waiting one with the same key instead
+	 * of the same type. The source and sequence number are set.
+	 * 
+	 * @param notification
+	 *            The notification.
+	 * @param key
+	 *            The key to coalesce the waiting notifications by.
+	 * @return <code>false</code> if the notification was dropped.
+	 */
+	boolean send(Notification notification, String key) {
+		Object currentSource = source;
+		if (currentSource == null) {
+			dropped.increment();
+			return false;
+		}
+		notification.setSource(currentSource);
+		notification.setSequenceNumber(sequence.incrementAndGet());
+		return enqueue(notification, key);
+	}
+
+	private boolean enqueue(Notification notification, String key) {
+		/*
+		 * The capacity check and the queueing are not atomic, concurrent
+		 * senders may exceed the capacity by a few types
+		 */
+		if (queued.get() >= capacity && !waiting.containsKey(key)) {
+			dropped.increment();
+			return false;
+		}
+		sent.increment();
+		if (waiting.put(key, notification) != null) {
+			coalesced.increment();
+			return true;
+		}
+		queued.incrementAndGet();
+		queue.add(key);
+		if (draining.compareAndSet(false, true)) {
+			getExecutor().execute(drain);
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of notifications accepted for delivery.
+	 */
+	public long getSent() {
+		return sent.sum();
+	}
+
+	/**
+	 * @return The number of notifications delivered to the listeners,
+	 *         without those the broadcaster failed to send.
+	 */
+	public long getDelivered() {
+		return delivered.sum();
+	}
+
+	/**
+	 * @return The number of notifications replaced by a later notification of
+	 *         the same type before they were delivered.
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return The number of notifications dropped, because the queue was full
+	 *         or the notifier was not connected.
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Holds the shared executor, which is created when the first notification
+	 * is sent, without locking on every notification.
+	 */
+	private static final class ExecutorHolder {
+		static final ExecutorService EXECUTOR = newExecutor();
+
+		private static ExecutorService newExecutor() {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS,
+					60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r,
+									"JMXBeanWrapper notifier "
+											+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			pool.allowCoreThreadTimeOut(true);
+			return pool;
+		}
+	}
+
+	private static ExecutorService getExecutor() {
+		return ExecutorHolder.EXECUTOR;
+	}
+}
@@ -100,4 +100,16 @@ public @interface JMXBeanOperation {
 	 * @return The sort value.
 	 */
 	String sortValue() default "";
+
+	/**
+	 * Maximum time in milliseconds to wait for the operation. If set, the
+	 * operation runs on a separate thread, and the JMX call fails with a
+	 * {@link java.util.concurrent.TimeoutException} if it does not finish in
+	 * time. An operation that timed out or failed repeatedly is skipped for a
+	 * while. <code>0</code> (the default) uses
+	 * {@link JMXBean#timeoutMillis()}.
+	 * 
+	 * @return The timeout in milliseconds.
+	 */
+	long timeoutMillis() default 0;
 }
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Wraps annotated beans and registers them with an MBean server, using the
+ * object name template of the {@link JMXBean} annotation.
+ * 
+ * Beans are wrapped and named in parallel, in batches of
+ * {@link #setBatchSize(int)} beans, and each batch is then registered. If a
+ * registration fails, all beans registered by the same call are unregistered
+ * again. The registry remembers the names of the registered beans, so they can
+ * be unregistered all at once:
+ * 
+ * <pre>
+ * JMXBeanRegistry registry = new JMXBeanRegistry(
+ * 		ManagementFactory.getPlatformMBeanServer());
+ * registry.registerAll(caches);
+ * ...
+ * registry.unregisterAll();
+ * </pre>
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public class JMXBeanRegistry {
+
+	/**
+	 * A wrapped bean and its object name.
+	 */
+	private static final class Registration {
+		final JMXBeanWrapper wrapper;
+		final ObjectName name;
+
+		Registration(JMXBeanWrapper wrapper, ObjectName name) {
+			this.wrapper = wrapper;
+			this.name = name;
+		}
+	}
+
+	private final MBeanServer server;
+
+	/**
+	 * The names of all beans registered through this registry.
+	 */
+	private final Set<ObjectName> registered = new LinkedHashSet<ObjectName>();
+
+	private int batchSize = 1000;
+
+	private boolean lazy;
+
+	private boolean compiled;
+
+	/**
+	 * Creates a new registry.
+	 * 
+	 * @param server
+	 *            The MBean server to register the beans with.
+	 */
+	public JMXBeanRegistry(MBeanServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * @param batchSize
+	 *            The number of beans that are wrapped in parallel before they
+	 *            are registered, 1000 by default.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param lazy
+	 *            <code>true</code> to use lazy wrappers, see
+	 *            {@link JMXBeanWrapper#lazy(Object)}. Note that object name
+	 *            templates with attributes need to analyze the bean class,
+	 *            the wrappers stay unresolved.
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/**
+	 * @param compiled
+	 *            <code>true</code> to use compiled wrappers, see
+	 *            {@link JMXBeanWrapper#compiled(Object)}.
+	 */
+	public void setCompiled(boolean compiled) {
+		this.compiled = compiled;
+	}
+
+	/**
+	 * Wraps a bean and registers it.
+	 * 
+	 * @param bean
+	 *            The annotated bean.
+	 * @return The object name the bean was registered with.
+	 * @throws JMException
+	 *             If the bean can not be wrapped, named or registered.
+	 */
+	public ObjectName register(Object bean) throws JMException {
+		return registerAll(Collections.singletonList(bean)).get(0);
+	}
+
+	/**
+	 * Wraps and registers a collection of beans.
+	 * 
+	 * @param beans
+	 *            The annotated beans.
+	 * @return The object names of the beans, in the order of the beans.
+	 * @throws JMException
+	 *             If a bean can not be wrapped, named or registered. None of
+	 *             the beans is registered then.
+	 */
+	public List<ObjectName> registerAll(Collection<?> beans)
+			throws JMException {
+		return registerAll(beans.iterator());
+	}
+
+	/**
+	 * Wraps and registers a stream of beans.
+	 * 
+	 * @param beans
+	 *            The annotated beans.
+	 * @return The object names of the beans, in the order of the beans.
+	 * @throws JMException
+	 *             If a bean can not be wrapped, named or registered. None of
+	 *             the beans is registered then.
+	 */
+	public List<ObjectName> registerAll(Stream<?> beans) throws JMException {
+		return registerAll(beans.iterator());
+	}
+
+	private List<ObjectName> registerAll(Iterator<?> beans) throws JMException {
+		List<ObjectName> names = new ArrayList<ObjectName>();
+		List<Object> batch = new ArrayList<Object>(batchSize);
+		try {
+			while (beans.hasNext()) {
+				batch.add(beans.next());
+				if (batch.size() == batchSize || !beans.hasNext()) {
+					for (Registration registration : prepare(batch)) {
+						server.registerMBean(registration.wrapper,
+								registration.name);
+						names.add(registration.name);
+					}
+					batch.clear();
+				}
+			}
+		} catch (JMException e) {
+			unregister(names);
+			throw e;
+		} catch (RuntimeException e) {
+			unregister(names);
+			throw e;
+		}
+		synchronized (registered) {
+			registered.addAll(names);
+		}
+		return names;
+	}
+
+	/**
+	 * Wraps and names a batch of beans in parallel.
+	 */
+	private List<Registration> prepare(List<Object> batch) throws JMException {
+		try {
+			return batch.parallelStream()
+					.map(new Function<Object, Registration>() {
+						@Override
+						public Registration apply(Object bean) {
+							try {
+								JMXBeanWrapper wrapper = wrap(bean);
+								return new Registration(wrapper,
+										ObjectNameTemplate.forClass(
+												bean.getClass()).create(
+												wrapper));
+							} catch (JMException e) {
+								throw new PreparationException(e);
+							}
+						}
+					}).collect(Collectors.toList());
+		} catch (PreparationException e) {
+			throw (JMException) e.getCause();
+		}
+	}
+
+	/**
+	 * Carries a checked exception out of the parallel preparation.
+	 */
+	private static final class PreparationException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		PreparationException(JMException cause) {
+			super(cause);
+		}
+	}
+
+	private JMXBeanWrapper wrap(Object bean) throws IntrospectionException {
+		if (lazy) {
+			return compiled ? JMXBeanWrapper.lazyCompiled(bean)
+					: JMXBeanWrapper.lazy(bean);
+		}
+		return compiled ? JMXBeanWrapper.compiled(bean) : new JMXBeanWrapper(
+				bean);
+	}
+
+	/**
+	 * Returns the object name a bean would be registered with.
+	 * 
+	 * @param bean
+	 *            The annotated bean.
+	 * @return The object name.
+	 * @throws JMException
+	 *             If the bean can not be wrapped or the name is not valid.
+	 */
+	public ObjectName getObjectName(Object bean) throws JMException {
+		return ObjectNameTemplate.forClass(bean.getClass()).create(wrap(bean));
+	}
+
+	/**
+	 * Unregisters beans. Beans that are not registered are skipped.
+	 * 
+	 * @param names
+	 *            The object names of the beans.
+	 * @throws JMException
+	 *             The first exception thrown by the MBean server, after all
+	 *             other beans were unregistered.
+	 */
+	public void unregisterAll(Collection<ObjectName> names) throws JMException {
+		JMException failure = unregister(names);
+		synchronized (registered) {
+			registered.removeAll(names);
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Unregisters all beans registered through this registry.
+	 * 
+	 * @throws JMException
+	 *             The first exception thrown by the MBean server, after all
+	 *             other beans were unregistered.
+	 */
+	public void unregisterAll() throws JMException {
+		List<ObjectName> names;
+		synchronized (registered) {
+			names = new ArrayList<ObjectName>(registered);
+		}
+		unregisterAll(names);
+	}
+
+	/**
+	 * @return The object names of all beans registered through this registry.
+	 */
+	public Set<ObjectName> getRegisteredNames() {
+		synchronized (registered) {
+			return new LinkedHashSet<ObjectName>(registered);
+		}
+	}
+
+	private JMException unregister(Collection<ObjectName> names) {
+		JMException failure = null;
+		for (ObjectName name : names) {
+			try {
+				server.unregisterMBean(name);
+			} catch (InstanceNotFoundException e) {
+				/*
+				 * Already gone
+				 */
+			} catch (JMException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		return failure;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Map;
+
+/**
+ * Annotation used to mark a method that returns the values of all attributes
+ * at once. The annotated method has to be public, must not take parameters
+ * and has to return a {@link Map} from attribute names (as they appear in the
+ * bean info) to attribute values. A bean can have at most one snapshot method.
+ * 
+ * If present, bulk reads through
+ * {@link JMXBeanWrapper#getAttributes(String[])} call the snapshot method once
+ * instead of every single getter, so the bean can return a consistent set of
+ * values. Attributes that are missing in the returned map are read through
+ * their getters.
+ * 
+ * The snapshot method is only called if a bulk read requests one of the
+ * attributes it returns. These are listed in {@link #value()}, if the list
+ * is empty the snapshot method is called for every bulk read. Values taken
+ * from the snapshot bypass the attribute cache, sampling, the timeout guard
+ * and the call statistics, these only apply to getters.
+ * 
+ * <pre>
+ * &#064;JMXBeanSnapshot
+ * public Map&lt;String, Object&gt; snapshot() {
+ * 	synchronized (lock) {
+ * 		Map&lt;String, Object&gt; values = new HashMap&lt;String, Object&gt;();
+ * 		values.put(&quot;count&quot;, count);
+ * 		values.put(&quot;total&quot;, total);
+ * 		return values;
+ * 	}
+ * }
+ * </pre>
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JMXBeanSnapshot {
+	/**
+	 * The names of the attributes the snapshot method returns. Defaults to
+	 * an empty list, which means the snapshot may return any attribute.
+	 * 
+	 * @return The attribute names.
+	 */
+	String[] value() default {};
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.IntrospectionException;
+
+/**
+ * Base class of the bean support classes generated by the JMXWrapper
+ * annotation processor. For every {@link JMXBean} annotated class
+ * <code>com.example.MyBean</code>, the processor generates a class
+ * <code>com.example.MyBeanMBeanSupport</code> (nested classes use an
+ * underscore instead of the dollar sign, e.g.
+ * <code>Outer_InnerMBeanSupport</code>). It describes the annotated members
+ * of the bean and calls them directly, without reflection.
+ * 
+ * When a bean is wrapped, the {@link JMXBeanWrapper} looks for a support
+ * class first and only analyzes the bean methods through reflection if there
+ * is none. The generated classes are not meant to be written by hand.
+ * 
+ * Support classes only describe methods. Annotated fields, including
+ * notifier fields, are still found through reflection, as are the generic
+ * types of attributes with {@link JMXBean#openTypes()}, because a generated
+ * class can't access private fields.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public abstract class JMXBeanSupport {
+
+	/**
+	 * The suffix appended to the bean class name to get the name of the
+	 * support class.
+	 */
+	public static final String CLASS_NAME_SUFFIX = "MBeanSupport";
+
+	/**
+	 * The described members, in the order of their member index.
+	 */
+	private final List<BeanMember> members = new ArrayList<BeanMember>();
+
+	/**
+	 * Adds the description of an annotated member. Must be called from the
+	 * constructor of the generated class, with increasing member indexes
+	 * starting at <code>0</code>.
+	 * 
+	 * @param member
+	 *            The index of the member, used in the calls to
+	 *            {@link #get(Object, int)}, {@link #set(Object, int, Object)}
+	 *            and {@link #invoke(Object, int, Object[])}.
+	 * @param memberName
+	 *            The Java name of the member.
+	 * @param returnType
+	 *            The class name of the result type.
+	 * @param parameterTypes
+	 *            The class names of the parameter types.
+	 * @param attribute
+	 *            The attribute annotation, <code>null</code> if the member is
+	 *            no attribute.
+	 * @param operation
+	 *            The operation annotation, <code>null</code> if the member is
+	 *            no operation.
+	 * @param parameters
+	 *            The parameter annotations, <code>null</code> elements for
+	 *            parameters without annotation.
+	 */
+	protected final void member(int member, String memberName,
+			String returnType, String[] parameterTypes,
+			JMXBeanAttribute attribute, JMXBeanOperation operation,
+			JMXBeanParameter[] parameters) {
+		member(member, memberName, returnType, parameterTypes, attribute,
+				operation, parameters, null);
+	}
+
+	/**
+	 * Adds the description of an annotated member, that may also be a
+	 * snapshot method.
+	 * 
+	 * @param member
+	 *            The index of the member.
+	 * @param memberName
+	 *            The Java name of the member.
+	 * @param returnType
+	 *            The class name of the result type.
+	 * @param parameterTypes
+	 *            The class names of the parameter types.
+	 * @param attribute
+	 *            The attribute annotation, may be <code>null</code>.
+	 * @param operation
+	 *            The operation annotation, may be <code>null</code>.
+	 * @param parameters
+	 *            The parameter annotations.
+	 * @param snapshot
+	 *            The snapshot annotation, <code>null</code> if the member is
+	 *            no snapshot method.
+	 * @see #member(int, String, String, String[], JMXBeanAttribute,
+	 *      JMXBeanOperation, JMXBeanParameter[])
+	 */
+	protected final void member(int member, String memberName,
+			String returnType, String[] parameterTypes,
+			JMXBeanAttribute attribute, JMXBeanOperation operation,
+			JMXBeanParameter[] parameters, JMXBeanSnapshot snapshot) {
+		if (member != members.size()) {
+			throw new IllegalStateException("Member " + memberName
+					+ " has index " + member + ", expected " + members.size());
+		}
+		members.add(new BeanMember(memberName, returnType, parameterTypes,
+				attribute, operation, parameters, snapshot,
+				new SupportAccessor(this, member, parameterTypes.length)));
+	}
+
+	/**
+	 * Calls a member of a bean.
+	 * 
+	 * @param bean
+	 *            The bean to call the member on.
+	 * @param member
+	 *            The member index.
+	 * @param params
+	 *            The parameters, may be <code>null</code> for members without
+	 *            parameters.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws Exception
+	 *             Any exception thrown by the member.
+	 */
+	protected abstract Object invoke(Object bean, int member, Object[] params)
+			throws Exception;
+
+	/**
+	 * Calls a member without parameters, typically a getter.
+	 * 
+	 * @param bean
+	 *            The bean to call the member on.
+	 * @param member
+	 *            The member index.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws Exception
+	 *             Any exception thrown by the member.
+	 */
+	protected Object get(Object bean, int member) throws Exception {
+		return invoke(bean, member, null);
+	}
+
+	/**
+	 * Calls a member with one parameter, typically a setter.
+	 * 
+	 * @param bean
+	 *            The bean to call the member on.
+	 * @param member
+	 *            The member index.
+	 * @param value
+	 *            The parameter value.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws Exception
+	 *             Any exception thrown by the member.
+	 */
+	protected Object set(Object bean, int member, Object value)
+			throws Exception {
+		return invoke(bean, member, new Object[] { value });
+	}
+
+	/**
+	 * @return The described members.
+	 */
+	List<BeanMember> getMembers() {
+		return Collections.unmodifiableList(members);
+	}
+
+	/**
+	 * Returns the name of the support class for a bean class.
+	 * 
+	 * @param beanClassName
+	 *            The binary name of the bean class.
+	 * @return The binary name of the support class.
+	 */
+	static String supportClassName(String beanClassName) {
+		int packageEnd = beanClassName.lastIndexOf('.') + 1;
+		return beanClassName.substring(0, packageEnd)
+				+ beanClassName.substring(packageEnd).replace('$', '_')
+				+ CLASS_NAME_SUFFIX;
+	}
+
+	/**
+	 * Looks up and instantiates the generated support class of a bean class.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @return The support, or <code>null</code> if there is no support class.
+	 * @throws IntrospectionException
+	 *             If there is a support class, but it can not be created.
+	 */
+	static JMXBeanSupport forClass(Class<?> beanClass)
+			throws IntrospectionException {
+		ClassLoader loader = beanClass.getClassLoader();
+		if (loader == null) {
+			return null;
+		}
+		String supportClassName = supportClassName(beanClass.getName());
+		/*
+		 * Look for the class file first, so classes without support class
+		 * don't cost an exception
+		 */
+		if (loader.getResource(supportClassName.replace('.', '/')
+				+ ".class") == null) {
+			return null;
+		}
+		Class<?> supportClass;
+		try {
+			supportClass = Class.forName(supportClassName, true, loader);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+		if (!JMXBeanSupport.class.isAssignableFrom(supportClass)) {
+			return null;
+		}
+		try {
+			return (JMXBeanSupport) supportClass.getConstructor()
+					.newInstance();
+		} catch (Exception e) {
+			throw new IntrospectionException("Can't create "
+					+ supportClass.getName() + ": " + e);
+		}
+	}
+}
@@ -26,30 +26,38 @@
  */
 package com.udojava.jmx.wrapper;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.ResourceBundle;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.DynamicMBean;
-import javax.management.ImmutableDescriptor;
+import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
 import javax.management.InvalidAttributeValueException;
-import javax.management.MBeanAttributeInfo;
+import javax.management.JMException;
+import javax.management.ListenerNotFoundException;
 import javax.management.MBeanException;
+import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
-import javax.management.MBeanOperationInfo;
-import javax.management.MBeanParameterInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanRegistration;
+import javax.management.MBeanServer;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
 import javax.management.ReflectionException;
+import javax.management.openmbean.OpenDataException;
 
 /**
  * This is a wrapper class that wraps a normal Java object into a JMX dynamic
@@ -159,121 +167,125 @@ import javax.management.ReflectionException;
  * @author Udo Klimaschewski
  * 
  */
-public class JMXBeanWrapper implements DynamicMBean {
+public class JMXBeanWrapper implements DynamicMBean, MBeanRegistration,
+		NotificationEmitter {
 
 	public static final String BEAN_OPERATION_SORT = "com.udojava.jmx.wrapper.BEAN_OPERATION_SORT";
 
 	/**
-	 * The generated bean info.
+	 * Descriptor field of the <code>&lt;name&gt;Delta</code> attributes of
+	 * rates, with the value <code>"true"</code>. These attributes are skipped
+	 * by {@link #visitAttributes(AttributeVisitor)}.
 	 */
-	private MBeanInfo beanInfo = null;
+	public static final String BEAN_ATTRIBUTE_DELTA = "com.udojava.jmx.wrapper.BEAN_ATTRIBUTE_DELTA";
 
 	/**
-	 * The original object, passed in the constructor.
+	 * The registered wrappers by MBean server. Servers and wrappers are held
+	 * weakly, a registered wrapper is reachable through its server, and a
+	 * discarded server is collected together with its wrappers. Guarded by
+	 * the map.
 	 */
-	private Object bean = null;
+	private static final Map<MBeanServer, Set<JMXBeanWrapper>> REGISTERED = new WeakHashMap<MBeanServer, Set<JMXBeanWrapper>>();
 
 	/**
-	 * A <code>Map</code> of the bean attributes, used to easily access the
-	 * setter and getter methods of an attribute.
+	 * The original object, passed in the constructor. <code>null</code> for a
+	 * wrapper created by {@link #weak(Object)}.
 	 */
-	private Map<String, BeanAttribute> beanAttributes = new HashMap<String, JMXBeanWrapper.BeanAttribute>();
+	private final Object bean;
 
 	/**
-	 * Map operation names to method names.
+	 * The weakly referenced bean, <code>null</code> if the bean is referenced
+	 * by {@link #bean}.
 	 */
-	private Map<String, String> operationMapping = new HashMap<String, String>();
+	private final WeakTarget weakTarget;
 
 	/**
-	 * An optional resource bundle, if a resource bundle name is set, this
-	 * bundle will be set.
+	 * If the bean class is analyzed on first use, the compiled variant is
+	 * used.
 	 */
-	private ResourceBundle resourceBundle = null;
+	private final boolean compiled;
 
 	/**
-	 * Should the bean attributes and operations be sorted?
+	 * The analyzed bean class, shared by all wrappers of the same class.
+	 * <code>null</code> until a lazy wrapper is used for the first time. The
+	 * fields below are set before this one and must only be used after
+	 * reading it.
 	 */
-	private boolean sorted = false;
+	private volatile BeanMetadata metadata;
 
 	/**
-	 * Access to the attributes setter and getter methods.
-	 * 
-	 * @author Udo Klimaschewski
-	 * 
+	 * The value caches of this bean, <code>null</code> if no attribute is
+	 * cached.
 	 */
-	private class BeanAttribute {
-		/**
-		 * The getter method for this attribute.
-		 */
-		private Method getter;
-
-		/**
-		 * The setter method for this attribute.
-		 */
-		private Method setter;
+	private AttributeCache[] caches;
 
-		/**
-		 * The description for this attribute.
-		 */
-		private String description;
-
-		private String sortValue;
+	/**
+	 * The attribute samplers of this bean, <code>null</code> if no attribute
+	 * is sampled.
+	 */
+	private AttributeSampler[] samplers;
 
-		/**
-		 * Creates a new bean attribute.
-		 * 
-		 * @param getter
-		 *            The getter method.
-		 * @param setter
-		 *            The setter method.
-		 * @param description
-		 *            The attribute description.
-		 */
-		public BeanAttribute(Method getter, Method setter, String description,
-				String sortValue) {
-			setGetter(getter);
-			setSetter(setter);
-			setDescription(description);
-			setSortValue(sortValue);
-		}
+	/**
+	 * The counter rates of this bean, <code>null</code> if no attribute has a
+	 * rate.
+	 */
+	private AttributeRate[] rates;
 
-		public String getDescription() {
-			return description;
-		}
+	/**
+	 * The attribute monitors of this bean, <code>null</code> if no attribute
+	 * is monitored.
+	 */
+	private AttributeMonitor[] monitors;
 
-		public void setDescription(String description) {
-			this.description = description;
-		}
+	/**
+	 * The timeout guards of the getters, <code>null</code> if no getter has a
+	 * timeout.
+	 */
+	private CallGuard[] attributeGuards;
 
-		public Method getGetter() {
-			return getter;
-		}
+	/**
+	 * The timeout guards of the operations, <code>null</code> if no operation
+	 * has a timeout.
+	 */
+	private CallGuard[] operationGuards;
 
-		public Method getSetter() {
-			return setter;
-		}
+	/**
+	 * The call statistics of this bean, <code>null</code> if they are not
+	 * recorded.
+	 */
+	private WrapperStatistics statistics;
 
-		public void setGetter(Method method) {
-			this.getter = method;
-		}
+	/**
+	 * The notification listeners, <code>null</code> until the first listener
+	 * is added or a notifier is connected.
+	 */
+	private NotificationBroadcasterSupport broadcaster;
 
-		public void setSetter(Method method) {
-			this.setter = method;
-		}
+	/**
+	 * <code>true</code> while the wrapper is registered with an MBean server.
+	 */
+	private volatile boolean registered;
 
-		public String getSortValue() {
-			return sortValue;
-		}
+	/**
+	 * The server and name the wrapper is registered with.
+	 */
+	private MBeanServer server;
 
-		public void setSortValue(String sortValue) {
-			this.sortValue = sortValue;
-		}
+	private ObjectName name;
 
-	}
+	/**
+	 * The name the statistics are registered with, <code>null</code> if they
+	 * are not registered.
+	 */
+	private ObjectName statisticsName;
 
 	/**
 	 * Creates a new dynamic JMX bean on the basis of an annotated class.
 	 * 
+	 * The class is analyzed only once, further wrappers of the same class (and
+	 * locale, if a resource bundle is used) share the bean info and the
+	 * attribute and operation tables.
+	 * 
 	 * @param bean
 	 *            The bean object which acts as a proxy target.
 	 * @throws SecurityException
@@ -281,399 +293,838 @@ public class JMXBeanWrapper implements DynamicMBean {
 	 */
 	public JMXBeanWrapper(Object bean) throws SecurityException,
 			IntrospectionException {
+		this(bean, BeanMetadata.forClass(bean.getClass()));
+	}
+
+	private JMXBeanWrapper(Object bean, BeanMetadata metadata) {
 		this.bean = bean;
-		Class<?> beanClass = bean.getClass();
+		this.weakTarget = null;
+		this.compiled = false;
+		attachNotifiers(bean);
+		setMetadata(metadata);
+	}
 
-		JMXBean jmxBean = beanClass.getAnnotation(JMXBean.class);
-		if (jmxBean == null) {
-			throw new IllegalArgumentException(beanClass.getName()
-					+ " not a JMXBean annotated class.");
-		}
+	private JMXBeanWrapper(Object bean, boolean compiled) {
+		this.bean = bean;
+		this.weakTarget = null;
+		this.compiled = compiled;
+		attachNotifiers(bean);
+	}
 
-		String beanName = jmxBean.className().equals("") ? beanClass.getName()
-				: jmxBean.className();
-		String beanDescription = jmxBean.description();
+	private JMXBeanWrapper(Object bean, BeanMetadata metadata, boolean weak) {
+		this.bean = weak ? null : bean;
+		this.weakTarget = weak ? new WeakTarget(bean, this) : null;
+		this.compiled = false;
+		attachNotifiers(bean);
+		setMetadata(metadata);
+	}
 
-		if (!jmxBean.resourceBundleName().equals("")) {
-			this.resourceBundle = ResourceBundle.getBundle(jmxBean
-					.resourceBundleName());
-			if (resourceBundle != null) {
-				if (resourceBundle.containsKey(jmxBean.descriptionKey()))
-					beanDescription = resourceBundle.getString(jmxBean
-							.descriptionKey());
-			}
+	/**
+	 * Connects the {@link JMXBeanNotification} fields of the bean to this
+	 * wrapper, before the wrapper is returned to the application.
+	 */
+	private void attachNotifiers(Object bean) {
+		if (BeanMetadata.hasNotifiers(bean.getClass())) {
+			BeanMetadata.attachNotifiers(bean, this, getBroadcaster());
+		}
+	}
+
+	/**
+	 * Creates a new dynamic JMX bean that only holds a weak reference to the
+	 * bean. Once the bean is garbage collected, the wrapper unregisters itself
+	 * from the MBean server, on a background thread that handles all
+	 * collected beans in batches. This is meant for short lived beans, like
+	 * per session or per connection beans, that would otherwise stay
+	 * registered forever if unregistering them is forgotten.
+	 * 
+	 * Until the wrapper is unregistered, reading an attribute of a collected
+	 * bean fails, and bulk reads return no attributes. The number of wrappers
+	 * unregistered this way is returned by {@link #getLeakedCount()}.
+	 * 
+	 * Sampled attributes, rates and monitors read the bean in the background
+	 * and keep it reachable, they are not allowed for weak wrappers.
+	 * 
+	 * @param bean
+	 *            The bean object which acts as a proxy target.
+	 * @return The wrapped bean.
+	 * @throws IntrospectionException
+	 *             If the bean class can't be analyzed, or it has attributes
+	 *             that are read in the background.
+	 */
+	public static JMXBeanWrapper weak(Object bean)
+			throws IntrospectionException {
+		BeanMetadata metadata = BeanMetadata.forClass(bean.getClass());
+		if (metadata.hasBackgroundReads()) {
+			throw new IntrospectionException(bean.getClass().getName()
+					+ " has sampled, rate or monitored attributes"
+					+ " and can't be wrapped weakly");
 		}
+		return new JMXBeanWrapper(bean, metadata, true);
+	}
 
-		this.sorted = jmxBean.sorted();
+	/**
+	 * @return The number of registered wrappers created by
+	 *         {@link #weak(Object)}, whose beans were not collected yet.
+	 */
+	public static int getWeakCount() {
+		return WeakTarget.getTrackedCount();
+	}
 
-		List<MBeanAttributeInfo> attributes = getBeanAttributeInfos(bean);
+	/**
+	 * @return The number of wrappers created by {@link #weak(Object)} that
+	 *         were unregistered automatically, because their beans were
+	 *         garbage collected while the wrappers were still registered.
+	 */
+	public static long getLeakedCount() {
+		return WeakTarget.getLeakedCount();
+	}
 
-		if (sorted) {
-			Collections.sort(attributes, new Comparator<MBeanAttributeInfo>() {
+	/**
+	 * @return The number of getters, setters and operations of wrappers
+	 *         created by {@link #compiled(Object)} or
+	 *         {@link #lazyCompiled(Object)} that could not be called from a
+	 *         generated class and are called through method handles instead.
+	 */
+	public static long getUncompiledCount() {
+		return LambdaAccessor.getUncompiledCount();
+	}
 
-				@Override
-				public int compare(MBeanAttributeInfo o1, MBeanAttributeInfo o2) {
-					BeanAttribute a1 = beanAttributes.get(o1.getName());
-					BeanAttribute a2 = beanAttributes.get(o2.getName());
-					String s1 = a1.getSortValue().equals("") ? o1.getName()
-							: a1.getSortValue();
-					String s2 = a2.getSortValue().equals("") ? o2.getName()
-							: a2.getSortValue();
-					return s1.compareTo(s2);
-				}
-			});
-		}
+	/**
+	 * @return The bean, <code>null</code> if it was weakly referenced and is
+	 *         collected.
+	 */
+	private Object target() {
+		return weakTarget == null ? bean : weakTarget.get();
+	}
 
-		List<MBeanOperationInfo> operations = getBeanOperationInfos(bean);
+	/**
+	 * @return The bean.
+	 * @throws IllegalStateException
+	 *             If the bean was weakly referenced and is collected.
+	 */
+	private Object bean() {
+		Object target = target();
+		if (target == null) {
+			throw new IllegalStateException("The bean was garbage collected");
+		}
+		return target;
+	}
 
-		if (sorted) {
-			Collections.sort(operations, new Comparator<MBeanOperationInfo>() {
+	/**
+	 * Creates a new dynamic JMX bean that analyzes the bean class only when it
+	 * is used for the first time. Creating the wrapper only checks the
+	 * {@link JMXBean} annotation. The bean info, attribute and operation
+	 * tables are built on the first call to {@link #getAttribute(String)},
+	 * {@link #invoke(String, Object[], String[])} and the like.
+	 * 
+	 * Registering the wrapper with an MBean server does not analyze the class,
+	 * the bean info returned by {@link #getMBeanInfo()} is completed only when
+	 * its attributes, operations or description are read. This makes the
+	 * registration of many beans fast, if most of them are never looked at.
+	 * Errors in the annotations are reported when the class is analyzed, as
+	 * an {@link IllegalStateException}. Attributes with a
+	 * {@link JMXBeanAttribute#sampleMillis()} are sampled from the first use
+	 * on.
+	 * 
+	 * @param bean
+	 *            The bean object which acts as a proxy target.
+	 * @return The wrapped bean.
+	 */
+	public static JMXBeanWrapper lazy(Object bean) {
+		BeanMetadata.checkClass(bean.getClass());
+		return new JMXBeanWrapper(bean, false);
+	}
 
-				@Override
-				public int compare(MBeanOperationInfo o1, MBeanOperationInfo o2) {
-					String s1 = (String) o1.getDescriptor().getFieldValue(
-							BEAN_OPERATION_SORT);
-					String s2 = (String) o2.getDescriptor().getFieldValue(
-							BEAN_OPERATION_SORT);
-					if ("".equals(s1)) {
-						s1 = o1.getName();
+	/**
+	 * Returns the metadata, and analyzes the bean class if this was not done
+	 * yet.
+	 */
+	private BeanMetadata metadata() {
+		BeanMetadata result = metadata;
+		if (result == null) {
+			synchronized (this) {
+				result = metadata;
+				if (result == null) {
+					try {
+						result = BeanMetadata.forClass(bean.getClass());
+					} catch (IntrospectionException e) {
+						throw new IllegalStateException("Can't analyze "
+								+ bean.getClass().getName() + ": "
+								+ e.getMessage(), e);
 					}
-					if ("".equals(s2)) {
-						s2 = o2.getName();
+					if (compiled) {
+						result = result.compiled();
 					}
-					return s1.compareTo(s2);
+					setMetadata(result);
 				}
-			});
+			}
+			if (registered) {
+				startSampling();
+				registerStatistics();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sets up the per bean state. The metadata is set last, it publishes the
+	 * other fields.
+	 */
+	private void setMetadata(BeanMetadata metadata) {
+		Object bean = target();
+		this.caches = metadata.newAttributeCaches();
+		this.attributeGuards = metadata.newAttributeGuards();
+		this.samplers = metadata.newAttributeSamplers(bean, attributeGuards);
+		this.rates = metadata.newAttributeRates(bean);
+		this.operationGuards = metadata.newOperationGuards();
+		this.statistics = metadata.newStatistics();
+		if (metadata.hasMonitors()) {
+			JMXBeanNotifier notifier = new JMXBeanNotifier();
+			notifier.attach(this, getBroadcaster());
+			this.monitors = metadata.newAttributeMonitors(bean, notifier);
 		}
+		this.metadata = metadata;
+	}
 
-		this.beanInfo = new MBeanInfo(beanName, beanDescription,
-				attributes.toArray(new MBeanAttributeInfo[0]), null,
-				operations.toArray(new MBeanOperationInfo[0]), null);
+	/**
+	 * @return <code>true</code> if the bean class was analyzed.
+	 */
+	boolean isResolved() {
+		return metadata != null;
+	}
 
+	/**
+	 * Creates a new dynamic JMX bean that calls getters, setters and
+	 * operations of the bean through classes generated at runtime, instead of
+	 * method handles. This costs some extra time and memory when the first
+	 * bean of a class is wrapped, but removes all reflection from the
+	 * attribute access. It is meant for beans that are accessed very
+	 * frequently.
+	 * 
+	 * The bean info is the same as with {@link #JMXBeanWrapper(Object)}.
+	 * Methods that can not be called from a generated class are called
+	 * through method handles. This happens if the bean class is not public, or
+	 * if it is not visible to the class loader of this library, for example
+	 * because it was loaded by a child class loader of a plugin or web
+	 * application. Such methods are counted in {@link #getUncompiledCount()}.
+	 * 
+	 * @param bean
+	 *            The bean object which acts as a proxy target.
+	 * @return The wrapped bean.
+	 * @throws SecurityException
+	 * @throws IntrospectionException
+	 */
+	public static JMXBeanWrapper compiled(Object bean)
+			throws SecurityException, IntrospectionException {
+		return new JMXBeanWrapper(bean, BeanMetadata.forClass(bean.getClass())
+				.compiled());
+	}
+
+	/**
+	 * Creates a new dynamic JMX bean that is analyzed on first use, like
+	 * {@link #lazy(Object)}, and then calls the bean methods through
+	 * generated classes, like {@link #compiled(Object)}.
+	 * 
+	 * @param bean
+	 *            The bean object which acts as a proxy target.
+	 * @return The wrapped bean.
+	 */
+	public static JMXBeanWrapper lazyCompiled(Object bean) {
+		BeanMetadata.checkClass(bean.getClass());
+		return new JMXBeanWrapper(bean, true);
 	}
 
 	@Override
 	public Object getAttribute(String attribute)
 			throws AttributeNotFoundException, MBeanException,
 			ReflectionException {
-		BeanAttribute att = beanAttributes.get(attribute);
-		if (att == null) {
+		BeanMetadata metadata = metadata();
+		int index = metadata.getAttributeIndex(attribute);
+		if (index < 0) {
 			throw new AttributeNotFoundException(attribute);
 		}
 		try {
-			return att.getGetter().invoke(bean);
+			return getValue(index, metadata.getAttribute(index));
 		} catch (Exception e) {
 			throw new ReflectionException(e);
 		}
 	}
 
+	/**
+	 * Reads an attribute for an object name template. A lazy wrapper that is
+	 * not resolved yet calls the getter of the analyzed class directly, so
+	 * naming it does not set up its caches, samplers and statistics. Rate
+	 * attributes and sample times still resolve the wrapper.
+	 * 
+	 * @param attribute
+	 *            The attribute name.
+	 * @return The attribute value.
+	 * @throws JMException
+	 *             If the class can't be analyzed, or the attribute does not
+	 *             exist or fails to read.
+	 */
+	Object getNameAttribute(String attribute) throws JMException {
+		if (metadata == null) {
+			BeanMetadata classMetadata = BeanMetadata.forClass(bean.getClass());
+			int index = classMetadata.getAttributeIndex(attribute);
+			if (index >= 0) {
+				BeanAttribute att = classMetadata.getAttribute(index);
+				if (att.getGetter() != null && att.getRateOf() == null) {
+					try {
+						return att.getValue(bean);
+					} catch (Exception e) {
+						throw new ReflectionException(e);
+					}
+				}
+			}
+		}
+		return getAttribute(attribute);
+	}
+
 	@Override
 	public void setAttribute(Attribute attribute)
 			throws AttributeNotFoundException, InvalidAttributeValueException,
 			MBeanException, ReflectionException {
-		BeanAttribute att = beanAttributes.get(attribute.getName());
-		if (att == null) {
+		BeanMetadata metadata = metadata();
+		int index = metadata.getAttributeIndex(attribute.getName());
+		if (index < 0) {
 			throw new AttributeNotFoundException(attribute.getName());
 		}
 		try {
-			att.getSetter().invoke(bean, attribute.getValue());
+			setValue(index, metadata.getAttribute(index), attribute.getValue());
 		} catch (Exception e) {
 			throw new ReflectionException(e);
 		}
 	}
 
+	/**
+	 * Reads several attributes at once. Attributes that do not exist, are not
+	 * readable or fail to read are left out of the result. If the bean has a
+	 * {@link JMXBeanSnapshot} method and one of the requested attributes may
+	 * be in the snapshot, it is called once and its values are used, only
+	 * attributes missing in the snapshot are read through their getters.
+	 * Snapshot values bypass the attribute cache, sampling, the timeout guard
+	 * and the call statistics.
+	 */
 	@Override
 	public AttributeList getAttributes(String[] attributes) {
-		AttributeList result = new AttributeList();
+		BeanMetadata metadata = metadata();
+		AttributeList result = new AttributeList(attributes.length);
+		Object target = target();
+		if (target == null) {
+			return result;
+		}
+		Map<?, ?> snapshot = null;
+		boolean snapshotTaken = false;
 
 		for (String name : attributes) {
-			try {
-				Object value = getAttribute(name);
-				result.add(new Attribute(name, value));
-			} catch (Exception ex) {
-
+			int index = metadata.getAttributeIndex(name);
+			if (index < 0 || !metadata.getAttribute(index).isReadable()) {
+				continue;
+			}
+			if (!snapshotTaken && metadata.isSnapshotAttribute(index)) {
+				snapshot = metadata.getSnapshot(target);
+				snapshotTaken = true;
+			}
+			Object value;
+			if (snapshot != null && snapshot.containsKey(name)) {
+				try {
+					value = metadata.getAttribute(index).toOpenValue(
+							snapshot.get(name));
+				} catch (OpenDataException e) {
+					continue;
+				}
+			} else {
+				try {
+					value = getValue(index, metadata.getAttribute(index));
+				} catch (Exception e) {
+					continue;
+				}
 			}
+			result.add(new Attribute(name, value));
 		}
 		return result;
 	}
 
+	/**
+	 * Reads all readable attributes and passes them to a visitor, without
+	 * looking up the attributes by name or collecting them in a list. Like
+	 * {@link #getAttributes(String[])}, attributes that fail to read are
+	 * skipped, and the {@link JMXBeanSnapshot} method is used if there is
+	 * one.
+	 * 
+	 * The <code>&lt;name&gt;Delta</code> attributes of rates are skipped as
+	 * well. Reading a delta resets it, so an exporter that reads all
+	 * attributes would take the deltas away from every other client.
+	 * 
+	 * @param visitor
+	 *            Receives the names and values.
+	 */
+	public void visitAttributes(AttributeVisitor visitor) {
+		BeanMetadata metadata = metadata();
+		MBeanAttributeInfo[] infos = metadata.getBeanInfo().getAttributes();
+		Object target = target();
+		if (target == null) {
+			return;
+		}
+		Map<?, ?> snapshot = null;
+		boolean snapshotTaken = false;
+
+		for (int index = 0; index < infos.length; index++) {
+			BeanAttribute att = metadata.getAttribute(index);
+			if (!att.isReadable() || att.isDelta()) {
+				continue;
+			}
+			if (!snapshotTaken && metadata.isSnapshotAttribute(index)) {
+				snapshot = metadata.getSnapshot(target);
+				snapshotTaken = true;
+			}
+			String name = infos[index].getName();
+			Object value;
+			try {
+				if (snapshot != null && snapshot.containsKey(name)) {
+					value = att.toOpenValue(snapshot.get(name));
+				} else {
+					value = getValue(index, att);
+				}
+			} catch (Exception e) {
+				continue;
+			}
+			visitor.visit(name, value);
+		}
+	}
+
+	/**
+	 * @return The name the wrapper is registered with, <code>null</code> if it
+	 *         is not registered.
+	 */
+	public ObjectName getObjectName() {
+		return registered ? name : null;
+	}
+
+	/**
+	 * Returns the wrappers registered with an MBean server, for exporters that
+	 * read the beans directly instead of through the server.
+	 * 
+	 * @param server
+	 *            The MBean server.
+	 * @return The registered wrappers, in no particular order.
+	 */
+	public static List<JMXBeanWrapper> getRegistered(MBeanServer server) {
+		synchronized (REGISTERED) {
+			Set<JMXBeanWrapper> wrappers = REGISTERED.get(server);
+			return wrappers == null ? new ArrayList<JMXBeanWrapper>()
+					: new ArrayList<JMXBeanWrapper>(wrappers);
+		}
+	}
+
+	/**
+	 * Writes several attributes at once. Attributes that do not exist, are not
+	 * writable or fail to write are left out of the result. The returned
+	 * values are read back from the getters, unless this is switched off by
+	 * {@link JMXBean#readBackAttributes()} or the attribute is write-only, in
+	 * which case the written values are returned.
+	 */
 	@Override
 	public AttributeList setAttributes(AttributeList attributes) {
-		AttributeList result = new AttributeList();
+		BeanMetadata metadata = metadata();
+		AttributeList result = new AttributeList(attributes.size());
+		boolean readBack = metadata.isReadBackAttributes();
 
-		Iterator<Object> iterator = attributes.iterator();
-		while (iterator.hasNext()) {
-			Attribute att = (Attribute) iterator.next();
+		for (Attribute attribute : attributes.asList()) {
+			int index = metadata.getAttributeIndex(attribute.getName());
+			if (index < 0) {
+				continue;
+			}
+			BeanAttribute att = metadata.getAttribute(index);
+			if (!att.isWritable()) {
+				continue;
+			}
 			try {
-				setAttribute(att);
-				Attribute res = new Attribute(att.getName(),
-						getAttribute(att.getName()));
-				result.add(res);
+				setValue(index, att, attribute.getValue());
 			} catch (Exception e) {
+				continue;
+			}
+			if (readBack && att.isReadable()) {
+				try {
+					result.add(new Attribute(attribute.getName(), getValue(
+							index, att)));
+					continue;
+				} catch (Exception e) {
+				}
 			}
+			result.add(attribute);
 		}
-
 		return result;
 	}
 
 	/**
-	 * Check if a method signature matches.
-	 * 
-	 * @param signature
-	 *            String array of parameter class names.
-	 * @param method
-	 *            The method to check for a match.
-	 * @return <code>true</code> if the signature matches the method,
-	 *         <code>false</code> otherwise.
-	 */
-	private boolean signatureMatches(String[] signature, Method method) {
-		if (signature != null
-				&& method.getParameterTypes().length != signature.length) {
-			return false;
+	 * Reads an attribute value and records the call statistics, if they are
+	 * recorded.
+	 */
+	private Object getValue(int index, BeanAttribute att)
+			throws IllegalAccessException, InvocationTargetException {
+		CallStatistics stats = statistics == null ? null : statistics
+				.getRead(index);
+		if (stats == null) {
+			return guardedValue(index, att);
+		}
+		long cpu = CallStatistics.cpuTime();
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object value = guardedValue(index, att);
+			failed = false;
+			return value;
+		} finally {
+			stats.record(start, cpu, failed);
+		}
+	}
+
+	/**
+	 * Reads an attribute value, from the last sample if the attribute is
+	 * sampled, otherwise from the cache if it is cached, with the timeout of
+	 * the getter, if it has one. Rate and delta attributes are read from the
+	 * rate of their counter.
+	 */
+	private Object guardedValue(final int index, final BeanAttribute att)
+			throws IllegalAccessException, InvocationTargetException {
+		if (att.getRateOf() != null) {
+			return att.isDelta() ? rates[index].getDelta() : rates[index]
+					.getRate();
+		}
+		if (samplers != null && samplers[index] != null) {
+			AttributeSampler sampler = samplers[index];
+			if (att.getSampleTimeOf() != null) {
+				return sampler.getTime();
+			}
+			if (sampler.isRunning()) {
+				return sampler.getValue();
+			}
 		}
+		CallGuard guard = attributeGuards == null ? null
+				: attributeGuards[index];
+		if (caches != null && caches[index] != null) {
+			return caches[index].getValue(bean(), att, guard);
+		}
+		if (guard != null) {
+			return guard.call(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return att.getValue(bean());
+				}
+			});
+		}
+		return att.getValue(bean());
+	}
 
-		int i = 0;
-		for (Class<?> clazz : method.getParameterTypes()) {
-			if (!clazz.getName().equals(signature[i++]))
-				return false;
+	/**
+	 * Writes an attribute value and drops the cached value, if the attribute
+	 * is cached.
+	 */
+	private void setValue(int index, BeanAttribute att, Object value)
+			throws IllegalAccessException, InvocationTargetException {
+		CallStatistics stats = statistics == null ? null : statistics
+				.getWrite(index);
+		Object bean = bean();
+		if (stats == null) {
+			att.setValue(bean, value);
+		} else {
+			long cpu = CallStatistics.cpuTime();
+			long start = System.nanoTime();
+			boolean failed = true;
+			try {
+				att.setValue(bean, value);
+				failed = false;
+			} finally {
+				stats.record(start, cpu, failed);
+			}
+		}
+		if (caches != null && caches[index] != null) {
+			caches[index].invalidate();
 		}
-		return true;
 	}
 
 	@Override
-	public Object invoke(String actionName, Object[] params, String[] signature)
-			throws MBeanException, ReflectionException {
-		String methodName = operationMapping.get(actionName);
-		if (methodName != null) {
+	public Object invoke(String actionName, final Object[] params,
+			String[] signature) throws MBeanException, ReflectionException {
+		final BeanOperation operation = metadata().getOperation(actionName,
+				signature, params == null ? 0 : params.length);
+		if (operation != null) {
+			final Object bean = bean();
+			CallStatistics stats = statistics == null ? null : statistics
+					.getOperation(operation.getIndex());
+			long cpu = stats == null ? -1 : CallStatistics.cpuTime();
+			long start = stats == null ? 0 : System.nanoTime();
+			boolean failed = true;
 			try {
-				for (Method method : bean.getClass().getMethods()) {
-					if (method.getName().equals(methodName)
-							&& signatureMatches(signature, method))
-						return method.invoke(bean, params);
+				Object result;
+				if (operationGuards != null
+						&& operationGuards[operation.getIndex()] != null) {
+					result = operationGuards[operation.getIndex()]
+							.call(new Callable<Object>() {
+								@Override
+								public Object call() throws Exception {
+									return operation.invoke(bean, params);
+								}
+							});
+				} else {
+					result = operation.invoke(bean, params);
 				}
+				failed = false;
+				return result;
 			} catch (Exception ex) {
 				throw new ReflectionException(ex,
 						"Can't convert signature for operation " + actionName);
+			} finally {
+				if (stats != null) {
+					stats.record(start, cpu, failed);
+				}
+			}
+		}
+		StringBuilder types = new StringBuilder();
+		if (signature != null) {
+			for (String type : signature) {
+				if (types.length() > 0) {
+					types.append(',');
+				}
+				types.append(type);
 			}
 		}
 		throw new MBeanException(new IllegalArgumentException(
-				"Operation not found: " + actionName + "(" + signature + ")"));
+				"Operation not found: " + actionName + "(" + types + ")"));
 	}
 
 	@Override
-	public MBeanInfo getMBeanInfo() {
-		return beanInfo;
+	public ObjectName preRegister(MBeanServer server, ObjectName name)
+			throws Exception {
+		this.server = server;
+		this.name = name;
+		return name;
 	}
 
 	/**
-	 * Analyzes the annotated bean and builds up all the operation informations.
-	 * 
-	 * @param bean
-	 *            The annotated object to wrap.
-	 * @return A <code>List</code> of bean operation informations, empty array
-	 *         if no operations are defined.
-	 */
-	private List<MBeanOperationInfo> getBeanOperationInfos(Object bean) {
-		Class<?> beanClass = bean.getClass();
-		List<MBeanOperationInfo> operations = new ArrayList<MBeanOperationInfo>();
-		for (Method method : beanClass.getMethods()) {
-			JMXBeanOperation jmxBeanOperation = method
-					.getAnnotation(JMXBeanOperation.class);
-			/*
-			 * Skip operations without annotation
-			 */
-			if (jmxBeanOperation == null) {
-				continue;
-			}
-			String name = jmxBeanOperation.name();
-			String description = jmxBeanOperation.description();
-			String sortValue = jmxBeanOperation.sortValue();
-			if (resourceBundle != null) {
-				if (!jmxBeanOperation.nameKey().equals("")) {
-					if (resourceBundle.containsKey(jmxBeanOperation.nameKey()))
-						name = resourceBundle.getString(jmxBeanOperation
-								.nameKey());
+	 * Starts sampling the attributes with a
+	 * {@link JMXBeanAttribute#sampleMillis()},
+	 * {@link JMXBeanAttribute#rateWindowMillis()} or
+	 * {@link JMXBeanAttribute#monitorMillis()} and registers the call
+	 * statistics, once the wrapper is registered.
+	 */
+	@Override
+	public void postRegister(Boolean registrationDone) {
+		if (Boolean.TRUE.equals(registrationDone)) {
+			registered = true;
+			synchronized (REGISTERED) {
+				Set<JMXBeanWrapper> wrappers = REGISTERED.get(server);
+				if (wrappers == null) {
+					wrappers = Collections
+							.newSetFromMap(new WeakHashMap<JMXBeanWrapper, Boolean>());
+					REGISTERED.put(server, wrappers);
 				}
-				if (!jmxBeanOperation.descriptionKey().equals("")) {
-					if (resourceBundle.containsKey(jmxBeanOperation
-							.descriptionKey()))
-						description = resourceBundle.getString(jmxBeanOperation
-								.descriptionKey());
+				wrappers.add(this);
+			}
+			if (weakTarget != null) {
+				weakTarget.track();
+			}
+			if (metadata != null) {
+				startSampling();
+				registerStatistics();
+			}
+		}
+	}
+
+	/**
+	 * Unregisters the call statistics, if they are registered.
+	 */
+	@Override
+	public void preDeregister() throws Exception {
+		ObjectName registeredName;
+		synchronized (this) {
+			registeredName = statisticsName;
+			statisticsName = null;
+		}
+		if (registeredName != null) {
+			try {
+				server.unregisterMBean(registeredName);
+			} catch (InstanceNotFoundException e) {
+			}
+		}
+	}
+
+	/**
+	 * Stops sampling the attributes, reading the counters with a rate and
+	 * monitoring the attributes, once the wrapper is unregistered.
+	 */
+	@Override
+	public void postDeregister() {
+		registered = false;
+		synchronized (REGISTERED) {
+			Set<JMXBeanWrapper> wrappers = REGISTERED.get(server);
+			if (wrappers != null) {
+				wrappers.remove(this);
+				if (wrappers.isEmpty()) {
+					REGISTERED.remove(server);
 				}
 			}
-			if ("".equals(name)) {
-				name = method.getName();
+		}
+		if (weakTarget != null) {
+			weakTarget.untrack();
+		}
+		if (metadata != null && samplers != null) {
+			for (AttributeSampler sampler : samplers) {
+				if (sampler != null) {
+					sampler.stop();
+				}
 			}
-			int impact = MBeanOperationInfo.UNKNOWN;
-			switch (jmxBeanOperation.impactType()) {
-			case INFO:
-				impact = MBeanOperationInfo.INFO;
-				break;
-			case ACTION:
-				impact = MBeanOperationInfo.ACTION;
-				break;
-			case ACTION_INFO:
-				impact = MBeanOperationInfo.ACTION_INFO;
-				break;
-			default:
-				impact = MBeanOperationInfo.UNKNOWN;
-				break;
+		}
+		if (metadata != null && rates != null) {
+			for (AttributeRate rate : rates) {
+				if (rate != null) {
+					rate.stop();
+				}
 			}
-			int counter = 0;
-			ArrayList<MBeanParameterInfo> pInfos = new ArrayList<MBeanParameterInfo>();
-			Class<?>[] classes = method.getParameterTypes();
-			Annotation[][] paramAnnotations = method.getParameterAnnotations();
-			for (Class<?> clazz : classes) {
-				String paramName = "param" + ++counter;
-				String paramType = clazz.getName();
-				String paramDescription = "";
-				if (paramAnnotations[counter - 1].length > 0) {
-					for (Annotation a : paramAnnotations[counter - 1]) {
-						if (a instanceof JMXBeanParameter) {
-							JMXBeanParameter jmxBeanParameter = (JMXBeanParameter) a;
-							paramDescription = jmxBeanParameter.description();
-							if (!"".equals(jmxBeanParameter.name()))
-								paramName = jmxBeanParameter.name();
-							if (resourceBundle != null) {
-								if (!jmxBeanParameter.nameKey().equals("")) {
-									if (resourceBundle
-											.containsKey(jmxBeanParameter
-													.nameKey()))
-										paramName = resourceBundle
-												.getString(jmxBeanParameter
-														.nameKey());
-								}
-								if (!jmxBeanParameter.descriptionKey().equals(
-										"")) {
-									if (resourceBundle
-											.containsKey(jmxBeanParameter
-													.descriptionKey()))
-										paramDescription = resourceBundle
-												.getString(jmxBeanParameter
-														.descriptionKey());
-								}
-							}
-							continue;
-						}
-					}
+		}
+		if (metadata != null && monitors != null) {
+			for (AttributeMonitor monitor : monitors) {
+				if (monitor != null) {
+					monitor.stop();
 				}
-				MBeanParameterInfo pInfo = new MBeanParameterInfo(paramName,
-						paramType, paramDescription);
-				pInfos.add(pInfo);
 			}
-
-			Map<String, String> descriptorValues = new HashMap<String, String>();
-			descriptorValues.put(BEAN_OPERATION_SORT, sortValue);
-			ImmutableDescriptor desc = new ImmutableDescriptor(descriptorValues);
-
-			MBeanOperationInfo info = new MBeanOperationInfo(name, description,
-					pInfos.toArray(new MBeanParameterInfo[0]), method
-							.getReturnType().getName(), impact, desc);
-			operationMapping.put(name, method.getName());
-			operations.add(info);
 		}
-		return operations;
 	}
 
 	/**
-	 * Analyzes an annotated bean for JMX attributes.
+	 * Unregisters the wrapper after its weakly referenced bean was collected.
 	 * 
-	 * @param bean
-	 *            The annotated object to wrap.
-	 * @return A <code>List</code> of attribute informations, empty array if no
-	 *         attributes were found.
-	 * @throws IntrospectionException
+	 * @return <code>true</code> if the wrapper was registered and is
+	 *         unregistered now.
 	 */
-	private List<MBeanAttributeInfo> getBeanAttributeInfos(Object bean)
-			throws IntrospectionException {
+	boolean unregisterCollected() {
+		if (!registered) {
+			return false;
+		}
+		try {
+			server.unregisterMBean(name);
+			return true;
+		} catch (JMException e) {
+			return false;
+		}
+	}
 
-		/*
-		 * Get all setters and getters and build up the map of attributes
-		 */
-		Class<?> beanClass = bean.getClass();
-		for (Method method : beanClass.getMethods()) {
-			JMXBeanAttribute jmxBeanAttribute = method
-					.getAnnotation(JMXBeanAttribute.class);
-			/*
-			 * Skip attributes without annotation
-			 */
-			if (jmxBeanAttribute == null) {
-				continue;
+	/**
+	 * Registers the call statistics next to the wrapper, if they are recorded.
+	 * If the name of the statistics is already taken, they are not
+	 * registered.
+	 */
+	private void registerStatistics() {
+		if (statistics == null) {
+			return;
+		}
+		synchronized (this) {
+			if (statisticsName != null || !registered) {
+				return;
 			}
-			String description = jmxBeanAttribute.description();
-			String name = jmxBeanAttribute.name();
-			String sortValue = jmxBeanAttribute.sortValue();
-			if (resourceBundle != null) {
-				if (!jmxBeanAttribute.nameKey().equals("")) {
-					if (resourceBundle.containsKey(jmxBeanAttribute.nameKey()))
-						name = resourceBundle.getString(jmxBeanAttribute
-								.nameKey());
-				}
-				if (!jmxBeanAttribute.descriptionKey().equals("")) {
-					if (resourceBundle.containsKey(jmxBeanAttribute
-							.descriptionKey()))
-						description = resourceBundle.getString(jmxBeanAttribute
-								.descriptionKey());
-				}
+			try {
+				statisticsName = server.registerMBean(statistics,
+						WrapperStatistics.nameOf(name)).getObjectName();
+			} catch (JMException e) {
 			}
+		}
+	}
 
-			if (method.getName().startsWith("get")
-					|| method.getName().startsWith("is")) {
-				if ("".equals(name)) {
-					if (method.getName().startsWith("get")) {
-						name = method.getName().substring(3);
-					} else {
-						name = method.getName().substring(2);
-					}
-					name = Character.toLowerCase(name.charAt(0))
-							+ name.substring(1);
+	private void startSampling() {
+		if (samplers != null) {
+			for (AttributeSampler sampler : samplers) {
+				if (sampler != null) {
+					sampler.start();
 				}
-				BeanAttribute att = beanAttributes.get(name);
-				if (att == null) {
-					beanAttributes.put(name, new BeanAttribute(method, null,
-							description, sortValue));
-				} else {
-					att.setGetter(method);
-					if ("".equals(att.getDescription())) {
-						att.setDescription(description);
-					}
-				}
-			} else if (method.getName().startsWith("set")) {
-				if ("".equals(name)) {
-					name = method.getName().substring(3);
-					name = Character.toLowerCase(name.charAt(0))
-							+ name.substring(1);
+			}
+		}
+		if (rates != null) {
+			for (AttributeRate rate : rates) {
+				if (rate != null) {
+					rate.start();
 				}
-				BeanAttribute att = beanAttributes.get(name);
-				if (att == null) {
-					beanAttributes.put(name, new BeanAttribute(null, method,
-							description, sortValue));
-				} else {
-					att.setSetter(method);
-					if ("".equals(att.getDescription())) {
-						att.setDescription(description);
-					}
+			}
+		}
+		if (monitors != null) {
+			for (AttributeMonitor monitor : monitors) {
+				if (monitor != null) {
+					monitor.start();
 				}
-			} else {
-				continue;
 			}
 		}
-		/*
-		 * Build the list of attributes out of the map and return it
-		 */
-		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
-		for (Map.Entry<String, BeanAttribute> entry : beanAttributes.entrySet()) {
-			MBeanAttributeInfo info = new MBeanAttributeInfo(entry.getKey(),
-					entry.getValue().getDescription(), entry.getValue()
-							.getGetter(), entry.getValue().getSetter());
-			attributes.add(info);
+	}
+
+	private synchronized NotificationBroadcasterSupport getBroadcaster() {
+		if (broadcaster == null) {
+			broadcaster = new NotificationBroadcasterSupport();
+		}
+		return broadcaster;
+	}
+
+	@Override
+	public void addNotificationListener(NotificationListener listener,
+			NotificationFilter filter, Object handback) {
+		getBroadcaster().addNotificationListener(listener, filter, handback);
+	}
+
+	@Override
+	public void removeNotificationListener(NotificationListener listener)
+			throws ListenerNotFoundException {
+		getBroadcaster().removeNotificationListener(listener);
+	}
+
+	@Override
+	public void removeNotificationListener(NotificationListener listener,
+			NotificationFilter filter, Object handback)
+			throws ListenerNotFoundException {
+		getBroadcaster().removeNotificationListener(listener, filter,
+				handback);
+	}
+
+	/**
+	 * Returns the notifications declared with {@link JMXBeanNotification}. For
+	 * a lazy wrapper, the bean class is analyzed if this was not done yet.
+	 */
+	@Override
+	public MBeanNotificationInfo[] getNotificationInfo() {
+		return metadata().getBeanInfo().getNotifications();
+	}
+
+	/**
+	 * Returns the bean info. For a lazy wrapper that was not used yet, this is
+	 * a placeholder that only knows the class name, and analyzes the bean
+	 * class as soon as any other information is requested.
+	 */
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		BeanMetadata result = metadata;
+		if (result == null) {
+			return new LazyBeanInfo(this);
 		}
-		return attributes;
+		return result.getBeanInfo();
+	}
+
+	/**
+	 * @return The complete bean info, the bean class is analyzed if this was
+	 *         not done yet.
+	 */
+	MBeanInfo getResolvedBeanInfo() {
+		return metadata().getBeanInfo();
+	}
+
+	/**
+	 * @return The bean object which acts as a proxy target.
+	 */
+	Object getBean() {
+		return bean;
 	}
 
 	@Override
 	public String toString() {
-		return bean.toString() + ":" + beanInfo.toString();
+		return String.valueOf(target()) + ":"
+				+ metadata().getBeanInfo().toString();
 	}
 
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link MethodAccessor} that calls getters and setters through classes
+ * spun by the {@link LambdaMetafactory}. The generated classes call the bean
+ * method with a direct <code>invokevirtual</code>, so there is no reflection
+ * and no method handle indirection left on the call path, and the JIT can
+ * inline the bean method into the caller.
+ * 
+ * Methods with more than one parameter are still called through the method
+ * handle of the super class. So are methods a generated class can't link
+ * against, these are counted in {@link #getUncompiledCount()}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class LambdaAccessor extends MethodAccessor {
+
+	/**
+	 * Functional interface implemented for methods without parameters.
+	 */
+	interface Getter {
+		Object get(Object bean);
+	}
+
+	/**
+	 * Functional interface implemented for <code>void</code> methods with one
+	 * parameter.
+	 */
+	interface Setter {
+		void set(Object bean, Object value);
+	}
+
+	/**
+	 * Functional interface implemented for methods with one parameter and a
+	 * result.
+	 */
+	interface Caller {
+		Object call(Object bean, Object value);
+	}
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(
+			Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(
+			void.class, Object.class, Object.class);
+
+	private static final MethodType CALLER_TYPE = MethodType.methodType(
+			Object.class, Object.class, Object.class);
+
+	private static final AtomicLong uncompiledCount = new AtomicLong();
+
+	/**
+	 * The spun getter, <code>null</code> if the method has parameters.
+	 */
+	private final Getter getter;
+
+	/**
+	 * The spun setter, <code>null</code> if the method does not have exactly
+	 * one parameter or has a result.
+	 */
+	private final Setter setter;
+
+	/**
+	 * The spun caller, <code>null</code> if the method does not have exactly
+	 * one parameter or has no result.
+	 */
+	private final Caller caller;
+
+	private LambdaAccessor(Method method, Getter getter, Setter setter,
+			Caller caller) {
+		super(method);
+		this.getter = getter;
+		this.setter = setter;
+		this.caller = caller;
+	}
+
+	/**
+	 * Creates an accessor for a method. If the method can not be called from
+	 * a generated class, for example because the bean class is not visible to
+	 * the class loader of this library, or if it is a <code>void</code> method
+	 * without parameters, a method handle based accessor is returned.
+	 * 
+	 * @param method
+	 *            The method to access.
+	 * @return The accessor for the method.
+	 */
+	static MethodAccessor create(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		boolean isVoid = method.getReturnType() == void.class;
+		if (parameterTypes.length > 1
+				|| (parameterTypes.length == 0 && isVoid)) {
+			return new MethodAccessor(method);
+		}
+		if (!isLinkable(method)) {
+			uncompiledCount.incrementAndGet();
+			return new MethodAccessor(method);
+		}
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle implementation = lookup.unreflect(method);
+			Class<?> beanClass = method.getDeclaringClass();
+			if (parameterTypes.length == 0) {
+				CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+						MethodType.methodType(Getter.class), GETTER_TYPE,
+						implementation,
+						MethodType.methodType(Object.class, beanClass));
+				return new LambdaAccessor(method,
+						(Getter) site.getTarget().invoke(), null, null);
+			}
+			if (isVoid) {
+				CallSite site = LambdaMetafactory.metafactory(lookup, "set",
+						MethodType.methodType(Setter.class), SETTER_TYPE,
+						implementation, MethodType.methodType(void.class,
+								beanClass, box(parameterTypes[0])));
+				return new LambdaAccessor(method, null, (Setter) site
+						.getTarget().invoke(), null);
+			}
+			CallSite site = LambdaMetafactory.metafactory(lookup, "call",
+					MethodType.methodType(Caller.class), CALLER_TYPE,
+					implementation, MethodType.methodType(Object.class,
+							beanClass, box(parameterTypes[0])));
+			return new LambdaAccessor(method, null, null, (Caller) site
+					.getTarget().invoke());
+		} catch (Throwable t) {
+			uncompiledCount.incrementAndGet();
+			return new MethodAccessor(method);
+		}
+	}
+
+	/**
+	 * @return The number of getters, setters and operations with up to one
+	 *         parameter that could not be called from a generated class and
+	 *         fell back to a method handle.
+	 */
+	static long getUncompiledCount() {
+		return uncompiledCount.get();
+	}
+
+	@Override
+	Object invoke(Object target) throws IllegalAccessException,
+			InvocationTargetException {
+		if (getter == null) {
+			return super.invoke(target);
+		}
+		try {
+			return getter.get(target);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) throws IllegalAccessException,
+			InvocationTargetException {
+		if (setter == null && caller == null) {
+			return super.invoke1(target, arg);
+		}
+		if (arg == null && getMethod().getParameterTypes()[0].isPrimitive()) {
+			throw new IllegalArgumentException("null for primitive parameter");
+		}
+		try {
+			if (setter != null) {
+				setter.set(target, arg);
+				return null;
+			}
+			return caller.call(target, arg);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args) throws IllegalAccessException,
+			InvocationTargetException {
+		if (getter != null && (args == null || args.length == 0)) {
+			return invoke(target);
+		}
+		if ((setter != null || caller != null) && args != null
+				&& args.length == 1) {
+			return invoke1(target, args[0]);
+		}
+		return super.invoke(target, args);
+	}
+
+	@Override
+	MemberAccessor compile() {
+		return this;
+	}
+
+	/**
+	 * Checks if a generated class can link against the method. The method and
+	 * its class must be public and all involved types must be visible to the
+	 * class loader of this library.
+	 */
+	private static boolean isLinkable(Method method) {
+		if (!Modifier.isPublic(method.getModifiers())
+				|| Modifier.isStatic(method.getModifiers())
+				|| !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			return false;
+		}
+		if (!isVisible(method.getDeclaringClass())
+				|| !isVisible(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> type : method.getParameterTypes()) {
+			if (!isVisible(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		try {
+			return Class.forName(type.getName(), false,
+					LambdaAccessor.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static Class<?> box(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		return MethodType.methodType(type).wrap().returnType();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import javax.management.Descriptor;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanConstructorInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * The bean info of a lazy wrapper that was not used yet. It only knows the
+ * class name, which is all an MBean server needs to register the bean. All
+ * other information is taken from the complete bean info, which is built when
+ * it is requested for the first time.
+ * 
+ * When serialized, for example to be sent to a remote JMX client, it is
+ * replaced by the complete bean info.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class LazyBeanInfo extends MBeanInfo {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient JMXBeanWrapper wrapper;
+
+	LazyBeanInfo(JMXBeanWrapper wrapper) {
+		super(BeanMetadata.getBeanClassName(wrapper.getBean().getClass()),
+				null, null, null, null, null);
+		this.wrapper = wrapper;
+	}
+
+	private MBeanInfo resolved() {
+		return wrapper.getResolvedBeanInfo();
+	}
+
+	@Override
+	public String getDescription() {
+		return resolved().getDescription();
+	}
+
+	@Override
+	public MBeanAttributeInfo[] getAttributes() {
+		return resolved().getAttributes();
+	}
+
+	@Override
+	public MBeanOperationInfo[] getOperations() {
+		return resolved().getOperations();
+	}
+
+	@Override
+	public MBeanConstructorInfo[] getConstructors() {
+		return resolved().getConstructors();
+	}
+
+	@Override
+	public MBeanNotificationInfo[] getNotifications() {
+		return resolved().getNotifications();
+	}
+
+	@Override
+	public Descriptor getDescriptor() {
+		return resolved().getDescriptor();
+	}
+
+	private Object writeReplace() {
+		return resolved();
+	}
+}
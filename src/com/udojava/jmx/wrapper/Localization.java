@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The names and descriptions of a resource bundle in one locale, see
+ * {@link JMXBean#resourceBundleName()}. Resolved strings are kept, so every
+ * key is only looked up once, no matter how many bean classes use the bundle.
+ * Instances are shared per bundle name and locale.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class Localization {
+
+	/**
+	 * Used for beans without a resource bundle, always returns the default.
+	 */
+	static final Localization NONE = new Localization(null);
+
+	/**
+	 * The shared instances, by bundle name and locale.
+	 */
+	private static final ConcurrentMap<String, ConcurrentMap<Locale, Localization>> CACHE = new ConcurrentHashMap<String, ConcurrentMap<Locale, Localization>>();
+
+	/**
+	 * Marks keys that are not in the bundle.
+	 */
+	private static final String MISSING = new String();
+
+	private final ResourceBundle bundle;
+
+	/**
+	 * The resolved strings by key, {@link #MISSING} for unknown keys.
+	 */
+	private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<String, String>();
+
+	private Localization(ResourceBundle bundle) {
+		this.bundle = bundle;
+	}
+
+	/**
+	 * Returns the shared localization of a bundle.
+	 * 
+	 * @param bundleName
+	 *            The base name of the resource bundle, {@link #NONE} is
+	 *            returned for an empty name.
+	 * @param locale
+	 *            The locale to load the bundle for.
+	 * @return The localization.
+	 * @throws MissingResourceException
+	 *             If the bundle can't be found.
+	 */
+	static Localization forBundle(String bundleName, Locale locale) {
+		if (bundleName.equals("")) {
+			return NONE;
+		}
+		ConcurrentMap<Locale, Localization> perLocale = CACHE.get(bundleName);
+		if (perLocale == null) {
+			perLocale = new ConcurrentHashMap<Locale, Localization>(4);
+			ConcurrentMap<Locale, Localization> existing = CACHE.putIfAbsent(
+					bundleName, perLocale);
+			if (existing != null) {
+				perLocale = existing;
+			}
+		}
+		Localization localization = perLocale.get(locale);
+		if (localization == null) {
+			localization = new Localization(ResourceBundle.getBundle(
+					bundleName, locale));
+			Localization existing = perLocale.putIfAbsent(locale,
+					localization);
+			if (existing != null) {
+				localization = existing;
+			}
+		}
+		return localization;
+	}
+
+	/**
+	 * Looks up a string in the bundle.
+	 * 
+	 * @param key
+	 *            The key of the string, may be empty.
+	 * @param defaultValue
+	 *            Returned if the key is empty or not in the bundle.
+	 * @return The localized string or the default.
+	 */
+	String get(String key, String defaultValue) {
+		if (bundle == null || key.equals("")) {
+			return defaultValue;
+		}
+		String value = strings.get(key);
+		if (value == null) {
+			value = bundle.containsKey(key) ? bundle.getString(key) : MISSING;
+			strings.putIfAbsent(key, value);
+		}
+		return value == MISSING ? defaultValue : value;
+	}
+}
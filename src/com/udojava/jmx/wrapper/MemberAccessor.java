@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Calls a bean member, a getter, setter or operation. Implementations are
+ * bound to one member when the bean class is analyzed, they report exceptions
+ * thrown by the member wrapped in an {@link InvocationTargetException}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+abstract class MemberAccessor {
+
+	/**
+	 * Calls a member without parameters, typically a getter.
+	 * 
+	 * @param target
+	 *            The object to call the member on.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	abstract Object invoke(Object target) throws IllegalAccessException,
+			InvocationTargetException;
+
+	/**
+	 * Calls a member with a single parameter, typically a setter.
+	 * 
+	 * @param target
+	 *            The object to call the member on.
+	 * @param arg
+	 *            The argument.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	abstract Object invoke1(Object target, Object arg)
+			throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Calls a member with any number of parameters.
+	 * 
+	 * @param target
+	 *            The object to call the member on.
+	 * @param args
+	 *            The arguments, may be <code>null</code> for members without
+	 *            parameters.
+	 * @return The result, <code>null</code> for <code>void</code> members.
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	abstract Object invoke(Object target, Object[] args)
+			throws IllegalAccessException, InvocationTargetException;
+
+	/**
+	 * Returns an accessor for the same member that avoids reflection
+	 * entirely, if there is a faster way to call the member.
+	 * 
+	 * @return The compiled accessor, this accessor by default.
+	 */
+	MemberAccessor compile() {
+		return this;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Calls a bean method through a {@link MethodHandle} that is resolved once,
+ * when the bean class is analyzed. The handles are adapted to a generic
+ * <code>Object</code> based type, so they can be called with
+ * <code>invokeExact</code> without any further lookup or access checks.
+ * 
+ * If no handle can be created for the method, plain reflection is used as a
+ * fallback. Both ways report exceptions thrown by the method the same way
+ * {@link Method#invoke(Object, Object...)} does, wrapped in an
+ * {@link InvocationTargetException}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+class MethodAccessor extends MemberAccessor {
+
+	/**
+	 * The accessed method.
+	 */
+	private final Method method;
+
+	/**
+	 * The number of method parameters.
+	 */
+	private final int arity;
+
+	/**
+	 * Handle of type <code>(Object)Object</code> for methods without
+	 * parameters, <code>(Object,Object)Object</code> for methods with one
+	 * parameter, <code>null</code> otherwise or if reflection is used.
+	 */
+	private final MethodHandle direct;
+
+	/**
+	 * Handle of type <code>(Object,Object[])Object</code>, <code>null</code>
+	 * if reflection is used.
+	 */
+	private final MethodHandle spreader;
+
+	/**
+	 * Creates a new accessor for a method.
+	 * 
+	 * @param method
+	 *            The method to access.
+	 */
+	MethodAccessor(Method method) {
+		this.method = method;
+		this.arity = method.getParameterTypes().length;
+
+		MethodHandle handle = null;
+		try {
+			handle = MethodHandles.publicLookup().unreflect(method);
+		} catch (IllegalAccessException e) {
+			/*
+			 * Not accessible through a public lookup, use reflection
+			 */
+		}
+		if (handle != null) {
+			MethodHandle generic = handle.asType(MethodType
+					.genericMethodType(arity + 1));
+			this.direct = arity <= 1 ? generic : null;
+			this.spreader = generic.asSpreader(Object[].class, arity);
+		} else {
+			this.direct = null;
+			this.spreader = null;
+		}
+	}
+
+	/**
+	 * @return The accessed method.
+	 */
+	Method getMethod() {
+		return method;
+	}
+
+	@Override
+	Object invoke(Object target) throws IllegalAccessException,
+			InvocationTargetException {
+		if (direct == null || arity != 0) {
+			return invoke(target, (Object[]) null);
+		}
+		try {
+			return (Object) direct.invokeExact(target);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) throws IllegalAccessException,
+			InvocationTargetException {
+		if (direct == null || arity != 1) {
+			return invoke(target, new Object[] { arg });
+		}
+		try {
+			return (Object) direct.invokeExact(target, arg);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args) throws IllegalAccessException,
+			InvocationTargetException {
+		if (spreader == null) {
+			return method.invoke(target, args);
+		}
+		if ((args == null ? 0 : args.length) != arity) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return (Object) spreader.invokeExact(target, args);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	MemberAccessor compile() {
+		return LambdaAccessor.create(method);
+	}
+
+	@Override
+	public String toString() {
+		return method.toString();
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads one value of a {@link Counter}, {@link Gauge} or {@link Timer}, one
+ * counter of a {@link JMXBeanNotifier}, or the value of a {@link LongSupplier},
+ * e.g. a counter kept outside of the heap. The metric is read through the
+ * accessor of the annotated field or getter, and each of its values is
+ * exposed as an attribute of its own.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class MetricAccessor extends MemberAccessor {
+
+	private static final double NANOS_PER_MILLI = 1000000d;
+
+	private static final String[] SINGLE_SUFFIXES = { "" };
+
+	private static final String[] SINGLE_TYPES = { "long" };
+
+	private static final String[] TIMER_SUFFIXES = { "Count", "TotalMillis",
+			"MaxMillis", "MeanMillis" };
+
+	private static final String[] TIMER_TYPES = { "long", "double", "double",
+			"double" };
+
+	private static final String[] TIMER_DESCRIPTIONS = { "number of events",
+			"total time in milliseconds", "longest time in milliseconds",
+			"mean time in milliseconds" };
+
+	private static final String[] NOTIFIER_SUFFIXES = { "Sent", "Delivered",
+			"Coalesced", "Dropped" };
+
+	private static final String[] NOTIFIER_TYPES = { "long", "long", "long",
+			"long" };
+
+	private static final String[] NOTIFIER_DESCRIPTIONS = {
+			"notifications sent", "notifications delivered",
+			"notifications replaced by a later one",
+			"notifications dropped" };
+
+	/**
+	 * Accessor of the field or getter returning the metric.
+	 */
+	private final MemberAccessor metric;
+
+	/**
+	 * The index of the value, into the suffixes of the metric type.
+	 */
+	private final int index;
+
+	MetricAccessor(MemberAccessor metric, int index) {
+		this.metric = metric;
+		this.index = index;
+	}
+
+	/**
+	 * Returns the suffixes that are appended to the attribute name, one for
+	 * each value of a metric type.
+	 * 
+	 * @param type
+	 *            The class name of the getter or field type.
+	 * @param loader
+	 *            The class loader of the bean, to find out if the type is a
+	 *            {@link LongSupplier}.
+	 * @return The suffixes, <code>null</code> if the type is not a metric.
+	 */
+	static String[] suffixes(String type, ClassLoader loader) {
+		if (type.equals(Counter.class.getName())
+				|| type.equals(Gauge.class.getName())) {
+			return SINGLE_SUFFIXES;
+		}
+		if (type.equals(Timer.class.getName())) {
+			return TIMER_SUFFIXES;
+		}
+		if (type.equals(JMXBeanNotifier.class.getName())) {
+			return NOTIFIER_SUFFIXES;
+		}
+		if (isLongSupplier(type, loader)) {
+			return SINGLE_SUFFIXES;
+		}
+		return null;
+	}
+
+	private static boolean isLongSupplier(String type, ClassLoader loader) {
+		if (type.indexOf('.') < 0 || type.startsWith("java.lang.")) {
+			return false;
+		}
+		try {
+			return LongSupplier.class.isAssignableFrom(Class.forName(type,
+					false, loader));
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the attribute types of the values of a metric type.
+	 * 
+	 * @param type
+	 *            The class name of the metric type.
+	 * @return The class names of the value types.
+	 */
+	static String[] types(String type) {
+		if (type.equals(Timer.class.getName())) {
+			return TIMER_TYPES;
+		}
+		if (type.equals(JMXBeanNotifier.class.getName())) {
+			return NOTIFIER_TYPES;
+		}
+		return SINGLE_TYPES;
+	}
+
+	/**
+	 * Returns the description of a value of a metric attribute.
+	 * 
+	 * @param type
+	 *            The class name of the metric type.
+	 * @param index
+	 *            The index of the value.
+	 * @param description
+	 *            The description of the annotated field or getter.
+	 * @return The description of the value.
+	 */
+	static String description(String type, int index, String description) {
+		String[] descriptions;
+		if (type.equals(Timer.class.getName())) {
+			descriptions = TIMER_DESCRIPTIONS;
+		} else if (type.equals(JMXBeanNotifier.class.getName())) {
+			descriptions = NOTIFIER_DESCRIPTIONS;
+		} else {
+			return description;
+		}
+		if (description.equals("")) {
+			return descriptions[index];
+		}
+		return description + ", " + descriptions[index];
+	}
+
+	@Override
+	Object invoke(Object target) throws IllegalAccessException,
+			InvocationTargetException {
+		Object value = metric.invoke(target);
+		if (value instanceof Counter) {
+			return ((Counter) value).get();
+		}
+		if (value instanceof Gauge) {
+			return ((Gauge) value).get();
+		}
+		if (value instanceof LongSupplier) {
+			return ((LongSupplier) value).getAsLong();
+		}
+		if (value instanceof Timer) {
+			Timer timer = (Timer) value;
+			switch (index) {
+			case 0:
+				return timer.getCount();
+			case 1:
+				return timer.getTotalNanos() / NANOS_PER_MILLI;
+			case 2:
+				return timer.getMaxNanos() / NANOS_PER_MILLI;
+			default:
+				return timer.getMeanNanos() / NANOS_PER_MILLI;
+			}
+		}
+		if (value instanceof JMXBeanNotifier) {
+			JMXBeanNotifier notifier = (JMXBeanNotifier) value;
+			switch (index) {
+			case 0:
+				return notifier.getSent();
+			case 1:
+				return notifier.getDelivered();
+			case 2:
+				return notifier.getCoalesced();
+			default:
+				return notifier.getDropped();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) {
+		throw new IllegalArgumentException("wrong number of arguments");
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args) throws IllegalAccessException,
+			InvocationTargetException {
+		if (args != null && args.length != 0) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		return invoke(target);
+	}
+
+	@Override
+	MemberAccessor compile() {
+		MemberAccessor compiled = metric.compile();
+		return compiled == metric ? this : new MetricAccessor(compiled, index);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+/**
+ * An immutable, open addressing hash table that maps names to array indexes.
+ * It is built once when a bean class is analyzed and then only read, a lookup
+ * does not allocate and only compares the names that share a hash slot.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class NameTable {
+
+	/**
+	 * The names, <code>null</code> for empty slots.
+	 */
+	private final String[] keys;
+
+	/**
+	 * The index that belongs to the name in the same slot.
+	 */
+	private final int[] indexes;
+
+	/**
+	 * Bit mask to map a hash code to a slot.
+	 */
+	private final int mask;
+
+	/**
+	 * Creates a new table, the index of each name is its position in the
+	 * array.
+	 * 
+	 * @param names
+	 *            The names to put into the table, must not contain duplicates.
+	 */
+	NameTable(String[] names) {
+		int capacity = 2;
+		while (capacity < names.length * 2) {
+			capacity <<= 1;
+		}
+		this.keys = new String[capacity];
+		this.indexes = new int[capacity];
+		this.mask = capacity - 1;
+		for (int i = 0; i < names.length; i++) {
+			int slot = slot(names[i]);
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = names[i];
+			indexes[slot] = i;
+		}
+	}
+
+	/**
+	 * Looks up the index of a name.
+	 * 
+	 * @param name
+	 *            The name to look up, may be <code>null</code>.
+	 * @return The index of the name, or <code>-1</code> if the name is not in
+	 *         the table.
+	 */
+	int indexOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		int slot = slot(name);
+		String key;
+		while ((key = keys[slot]) != null) {
+			if (key == name || key.equals(name)) {
+				return indexes[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int slot(String name) {
+		int h = name.hashCode();
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
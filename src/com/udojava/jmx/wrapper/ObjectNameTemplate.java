@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * A parsed {@link JMXBean#objectName()} template. Templates are parsed once
+ * per class and cached.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class ObjectNameTemplate {
+
+	private static final ClassValue<ObjectNameTemplate> CACHE = new ClassValue<ObjectNameTemplate>() {
+		@Override
+		protected ObjectNameTemplate computeValue(Class<?> type) {
+			JMXBean jmxBean = BeanMetadata.checkClass(type);
+			String template = jmxBean.objectName();
+			if (template.equals("")) {
+				Package pkg = type.getPackage();
+				template = (pkg == null || pkg.getName().equals("") ? "default"
+						: pkg.getName())
+						+ ":type="
+						+ type.getName().substring(
+								type.getName().lastIndexOf('.') + 1);
+			}
+			return new ObjectNameTemplate(template);
+		}
+	};
+
+	/**
+	 * The template split at the placeholders: constant text at even indexes,
+	 * attribute names at odd indexes.
+	 */
+	private final String[] parts;
+
+	/**
+	 * The index of the first constant part that contains the domain
+	 * separator. Placeholders before it are part of the domain, their values
+	 * are not quoted.
+	 */
+	private final int domainEnd;
+
+	private ObjectNameTemplate(String template) {
+		List<String> parts = new ArrayList<String>();
+		int start = 0;
+		while (true) {
+			int open = template.indexOf('{', start);
+			int close = open < 0 ? -1 : template.indexOf('}', open);
+			if (close < 0) {
+				parts.add(template.substring(start));
+				break;
+			}
+			parts.add(template.substring(start, open));
+			parts.add(template.substring(open + 1, close));
+			start = close + 1;
+		}
+		this.parts = parts.toArray(new String[0]);
+		int domainEnd = this.parts.length;
+		for (int i = 0; i < this.parts.length; i += 2) {
+			if (this.parts[i].indexOf(':') >= 0) {
+				domainEnd = i;
+				break;
+			}
+		}
+		this.domainEnd = domainEnd;
+	}
+
+	/**
+	 * Returns the template of an annotated class.
+	 * 
+	 * @param beanClass
+	 *            The annotated bean class.
+	 * @return The parsed template.
+	 */
+	static ObjectNameTemplate forClass(Class<?> beanClass) {
+		return CACHE.get(beanClass);
+	}
+
+	/**
+	 * Creates the object name for a wrapped bean.
+	 * 
+	 * @param wrapper
+	 *            The wrapped bean, used to read the attributes. Lazy wrappers
+	 *            are not resolved by this, but the bean class is analyzed if
+	 *            the template has attributes.
+	 * @return The object name.
+	 * @throws MalformedObjectNameException
+	 *             If the name is not valid or a pattern, or an attribute can
+	 *             not be read or is <code>null</code>.
+	 */
+	ObjectName create(JMXBeanWrapper wrapper)
+			throws MalformedObjectNameException {
+		StringBuilder name = new StringBuilder(parts[0]);
+		for (int i = 1; i < parts.length; i += 2) {
+			Object value;
+			try {
+				value = wrapper.getNameAttribute(parts[i]);
+			} catch (Exception e) {
+				MalformedObjectNameException malformed = new MalformedObjectNameException(
+						"Can't read attribute " + parts[i] + ": " + e);
+				malformed.initCause(e);
+				throw malformed;
+			}
+			if (value == null) {
+				throw new MalformedObjectNameException("Attribute " + parts[i]
+						+ " is null");
+			}
+			String text = value.toString();
+			if (i < domainEnd) {
+				if (text.indexOf(':') >= 0 || text.indexOf('\n') >= 0
+						|| text.indexOf('*') >= 0 || text.indexOf('?') >= 0) {
+					throw new MalformedObjectNameException("Attribute "
+							+ parts[i] + " can't be used in the domain: "
+							+ text);
+				}
+				name.append(text);
+			} else {
+				name.append(quoteIfNeeded(text));
+			}
+			name.append(parts[i + 1]);
+		}
+		ObjectName result = new ObjectName(name.toString());
+		if (result.isPattern()) {
+			throw new MalformedObjectNameException(
+					"Object name is a pattern: " + result);
+		}
+		return result;
+	}
+
+	private static String quoteIfNeeded(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			switch (value.charAt(i)) {
+			case ',':
+			case '=':
+			case ':':
+			case '"':
+			case '*':
+			case '?':
+			case '\n':
+				return ObjectName.quote(value);
+			default:
+				break;
+			}
+		}
+		return value;
+	}
+}
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.io.InvalidObjectException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Converts attribute values of one Java type to open data, following the
+ * MXBean mapping rules, see {@link JMXBean#openTypes()}:
+ * <ul>
+ * <li>Primitive types, their wrappers, <code>String</code>,
+ * <code>BigDecimal</code>, <code>BigInteger</code>, <code>Date</code> and
+ * <code>ObjectName</code> are kept as they are.</li>
+ * <li>Enums are mapped to the name of the constant.</li>
+ * <li>Arrays, and collections, are mapped to arrays of the mapped elements.</li>
+ * <li>Maps are mapped to {@link TabularData} with the columns
+ * <code>key</code> and <code>value</code>.</li>
+ * <li>Records, and classes with getters, are mapped to
+ * {@link CompositeData} with an item for each record component or getter.</li>
+ * </ul>
+ * 
+ * Converters are built once for each type used by a bean class and kept in
+ * its metadata, they are not cached globally, so they do not keep classes of
+ * other class loaders alive. The open types and the handles of the getters
+ * are part of the converter, so a conversion only copies the values. Values
+ * of all types but records and beans can be converted back.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+abstract class OpenConverter {
+
+	private static final Map<Class<?>, SimpleType<?>> SIMPLE_TYPES = new HashMap<Class<?>, SimpleType<?>>();
+
+	static {
+		SIMPLE_TYPES.put(boolean.class, SimpleType.BOOLEAN);
+		SIMPLE_TYPES.put(Boolean.class, SimpleType.BOOLEAN);
+		SIMPLE_TYPES.put(byte.class, SimpleType.BYTE);
+		SIMPLE_TYPES.put(Byte.class, SimpleType.BYTE);
+		SIMPLE_TYPES.put(char.class, SimpleType.CHARACTER);
+		SIMPLE_TYPES.put(Character.class, SimpleType.CHARACTER);
+		SIMPLE_TYPES.put(short.class, SimpleType.SHORT);
+		SIMPLE_TYPES.put(Short.class, SimpleType.SHORT);
+		SIMPLE_TYPES.put(int.class, SimpleType.INTEGER);
+		SIMPLE_TYPES.put(Integer.class, SimpleType.INTEGER);
+		SIMPLE_TYPES.put(long.class, SimpleType.LONG);
+		SIMPLE_TYPES.put(Long.class, SimpleType.LONG);
+		SIMPLE_TYPES.put(float.class, SimpleType.FLOAT);
+		SIMPLE_TYPES.put(Float.class, SimpleType.FLOAT);
+		SIMPLE_TYPES.put(double.class, SimpleType.DOUBLE);
+		SIMPLE_TYPES.put(Double.class, SimpleType.DOUBLE);
+		SIMPLE_TYPES.put(String.class, SimpleType.STRING);
+		SIMPLE_TYPES.put(BigDecimal.class, SimpleType.BIGDECIMAL);
+		SIMPLE_TYPES.put(BigInteger.class, SimpleType.BIGINTEGER);
+		SIMPLE_TYPES.put(Date.class, SimpleType.DATE);
+		SIMPLE_TYPES.put(ObjectName.class, SimpleType.OBJECTNAME);
+	}
+
+	private final OpenType<?> openType;
+
+	OpenConverter(OpenType<?> openType) {
+		this.openType = openType;
+	}
+
+	/**
+	 * @return The open type the values are converted to.
+	 */
+	OpenType<?> getOpenType() {
+		return openType;
+	}
+
+	/**
+	 * Converts a value to open data.
+	 * 
+	 * @param value
+	 *            The value, may be <code>null</code>.
+	 * @return The open data, <code>null</code> for <code>null</code>.
+	 * @throws OpenDataException
+	 *             If the value can't be converted.
+	 */
+	abstract Object toOpenValue(Object value) throws OpenDataException;
+
+	/**
+	 * @return <code>true</code> if open data can be converted back.
+	 */
+	boolean isReconstructible() {
+		return true;
+	}
+
+	/**
+	 * Converts open data back to a value of the Java type.
+	 * 
+	 * @param value
+	 *            The open data, may be <code>null</code>.
+	 * @return The value, <code>null</code> for <code>null</code>.
+	 * @throws InvalidObjectException
+	 *             If the data can't be converted.
+	 */
+	abstract Object fromOpenValue(Object value) throws InvalidObjectException;
+
+	/**
+	 * Returns the converter for a type, it is built if it is not in the given
+	 * converters yet.
+	 * 
+	 * @param type
+	 *            The Java type.
+	 * @param converters
+	 *            The converters built so far for one bean class, receives the
+	 *            new converters. Types that are being built are mapped to
+	 *            <code>null</code>.
+	 * @return The converter.
+	 * @throws OpenDataException
+	 *             If the type can't be mapped to an open type.
+	 */
+	static OpenConverter forType(Type type,
+			Map<Type, OpenConverter> converters) throws OpenDataException {
+		OpenConverter converter = converters.get(type);
+		if (converter != null) {
+			return converter;
+		}
+		if (converters.containsKey(type)) {
+			throw new OpenDataException("Recursive type " + type);
+		}
+		converters.put(type, null);
+		try {
+			converter = build(type, converters);
+		} finally {
+			converters.remove(type);
+		}
+		converters.put(type, converter);
+		return converter;
+	}
+
+	private static OpenConverter build(Type type,
+			Map<Type, OpenConverter> converters)
+			throws OpenDataException {
+		if (type instanceof Class) {
+			Class<?> c = (Class<?>) type;
+			SimpleType<?> simple = SIMPLE_TYPES.get(c);
+			if (simple != null) {
+				return new Identity(simple);
+			}
+			if (c.isEnum()) {
+				return new EnumConverter(c);
+			}
+			if (c.isArray()) {
+				if (c.getComponentType().isPrimitive()) {
+					return new Identity(ArrayType.getPrimitiveArrayType(c));
+				}
+				return new ArrayConverter(c.getComponentType(), forType(
+						c.getComponentType(), converters));
+			}
+			if (Collection.class.isAssignableFrom(c)
+					|| Map.class.isAssignableFrom(c)) {
+				throw new OpenDataException("Raw type " + c.getName()
+						+ " can't be mapped");
+			}
+			return CompositeConverter.forClass(c, converters);
+		}
+		if (type instanceof GenericArrayType) {
+			Type component = ((GenericArrayType) type)
+					.getGenericComponentType();
+			return new ArrayConverter(rawClass(component), forType(component,
+					converters));
+		}
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parameterized = (ParameterizedType) type;
+			Class<?> raw = rawClass(parameterized);
+			Type[] arguments = parameterized.getActualTypeArguments();
+			if (Collection.class.isAssignableFrom(raw)) {
+				return new CollectionConverter(raw, forType(arguments[0],
+						converters));
+			}
+			if (Map.class.isAssignableFrom(raw)) {
+				return new MapConverter(type, raw, forType(arguments[0],
+						converters), forType(arguments[1], converters));
+			}
+			return CompositeConverter.forClass(raw, converters);
+		}
+		throw new OpenDataException("Type " + type + " can't be mapped");
+	}
+
+	private static Class<?> rawClass(Type type) throws OpenDataException {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		}
+		if (type instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) type).getRawType();
+		}
+		if (type instanceof GenericArrayType) {
+			return Array.newInstance(
+					rawClass(((GenericArrayType) type)
+							.getGenericComponentType()), 0).getClass();
+		}
+		throw new OpenDataException("Type " + type + " can't be mapped");
+	}
+
+	/**
+	 * Returns the class of the values of an open type.
+	 */
+	private static Class<?> openClass(OpenType<?> openType)
+			throws OpenDataException {
+		try {
+			return Class.forName(openType.getClassName());
+		} catch (ClassNotFoundException e) {
+			throw new OpenDataException(e.toString());
+		}
+	}
+
+	/**
+	 * Values that are open data already.
+	 */
+	private static final class Identity extends OpenConverter {
+		Identity(OpenType<?> openType) {
+			super(openType);
+		}
+
+		@Override
+		Object toOpenValue(Object value) {
+			return value;
+		}
+
+		@Override
+		Object fromOpenValue(Object value) {
+			return value;
+		}
+	}
+
+	/**
+	 * Enums, as the names of their constants.
+	 */
+	private static final class EnumConverter extends OpenConverter {
+		private final Class<?> enumClass;
+
+		EnumConverter(Class<?> enumClass) {
+			super(SimpleType.STRING);
+			this.enumClass = enumClass;
+		}
+
+		@Override
+		Object toOpenValue(Object value) {
+			return value == null ? null : ((Enum<?>) value).name();
+		}
+
+		@Override
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Object fromOpenValue(Object value) throws InvalidObjectException {
+			if (value == null) {
+				return null;
+			}
+			try {
+				return Enum.valueOf((Class) enumClass, (String) value);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidObjectException(e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Arrays, with every element converted.
+	 */
+	private static final class ArrayConverter extends OpenConverter {
+		private final Class<?> componentClass;
+		private final Class<?> openComponentClass;
+		private final OpenConverter component;
+
+		ArrayConverter(Class<?> componentClass, OpenConverter component)
+				throws OpenDataException {
+			super(ArrayType.getArrayType(component.getOpenType()));
+			this.componentClass = componentClass;
+			this.openComponentClass = openClass(component.getOpenType());
+			this.component = component;
+		}
+
+		@Override
+		Object toOpenValue(Object value) throws OpenDataException {
+			if (value == null) {
+				return null;
+			}
+			int length = Array.getLength(value);
+			Object result = Array.newInstance(openComponentClass, length);
+			for (int i = 0; i < length; i++) {
+				Array.set(result, i, component.toOpenValue(Array.get(value, i)));
+			}
+			return result;
+		}
+
+		@Override
+		boolean isReconstructible() {
+			return component.isReconstructible();
+		}
+
+		@Override
+		Object fromOpenValue(Object value) throws InvalidObjectException {
+			if (value == null) {
+				return null;
+			}
+			int length = Array.getLength(value);
+			Object result = Array.newInstance(componentClass, length);
+			for (int i = 0; i < length; i++) {
+				Array.set(result, i,
+						component.fromOpenValue(Array.get(value, i)));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Collections, as arrays of the converted elements.
+	 */
+	private static final class CollectionConverter extends OpenConverter {
+		private final Class<?> collectionClass;
+		private final Class<?> openComponentClass;
+		private final OpenConverter component;
+
+		CollectionConverter(Class<?> collectionClass, OpenConverter component)
+				throws OpenDataException {
+			super(ArrayType.getArrayType(component.getOpenType()));
+			this.collectionClass = collectionClass;
+			this.openComponentClass = openClass(component.getOpenType());
+			this.component = component;
+		}
+
+		@Override
+		Object toOpenValue(Object value) throws OpenDataException {
+			if (value == null) {
+				return null;
+			}
+			Collection<?> collection = (Collection<?>) value;
+			Object result = Array.newInstance(openComponentClass,
+					collection.size());
+			int i = 0;
+			for (Object element : collection) {
+				Array.set(result, i++, component.toOpenValue(element));
+			}
+			return result;
+		}
+
+		/**
+		 * Only the collection interfaces can be created again.
+		 */
+		@Override
+		boolean isReconstructible() {
+			return component.isReconstructible()
+					&& (collectionClass == List.class
+							|| collectionClass == Collection.class
+							|| collectionClass == Set.class || collectionClass == SortedSet.class);
+		}
+
+		@Override
+		Object fromOpenValue(Object value) throws InvalidObjectException {
+			if (value == null) {
+				return null;
+			}
+			int length = Array.getLength(value);
+			Collection<Object> result;
+			if (collectionClass == SortedSet.class) {
+				result = new TreeSet<Object>();
+			} else if (collectionClass == Set.class) {
+				result = new LinkedHashSet<Object>();
+			} else {
+				result = new ArrayList<Object>(length);
+			}
+			for (int i = 0; i < length; i++) {
+				result.add(component.fromOpenValue(Array.get(value, i)));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Maps, as tabular data with the columns <code>key</code> and
+	 * <code>value</code>, indexed by the key.
+	 */
+	private static final class MapConverter extends OpenConverter {
+		private static final String[] ITEMS = { "key", "value" };
+
+		private final Class<?> mapClass;
+		private final CompositeType rowType;
+		private final OpenConverter key;
+		private final OpenConverter value;
+
+		MapConverter(Type type, Class<?> mapClass, OpenConverter key,
+				OpenConverter value) throws OpenDataException {
+			super(tabularType(type, key, value));
+			this.mapClass = mapClass;
+			this.rowType = ((TabularType) getOpenType()).getRowType();
+			this.key = key;
+			this.value = value;
+		}
+
+		private static TabularType tabularType(Type type, OpenConverter key,
+				OpenConverter value) throws OpenDataException {
+			String name = type.toString();
+			CompositeType row = new CompositeType(name, name, ITEMS, ITEMS,
+					new OpenType<?>[] { key.getOpenType(), value.getOpenType() });
+			return new TabularType(name, name, row, new String[] { "key" });
+		}
+
+		@Override
+		Object toOpenValue(Object data) throws OpenDataException {
+			if (data == null) {
+				return null;
+			}
+			TabularDataSupport result = new TabularDataSupport(
+					(TabularType) getOpenType());
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+				result.put(new CompositeDataSupport(rowType, ITEMS,
+						new Object[] { key.toOpenValue(entry.getKey()),
+								value.toOpenValue(entry.getValue()) }));
+			}
+			return result;
+		}
+
+		/**
+		 * Only the map interfaces can be created again.
+		 */
+		@Override
+		boolean isReconstructible() {
+			return key.isReconstructible() && value.isReconstructible()
+					&& (mapClass == Map.class || mapClass == SortedMap.class);
+		}
+
+		@Override
+		Object fromOpenValue(Object data) throws InvalidObjectException {
+			if (data == null) {
+				return null;
+			}
+			Map<Object, Object> result = mapClass == SortedMap.class ? new TreeMap<Object, Object>()
+					: new LinkedHashMap<Object, Object>();
+			for (Object row : ((TabularData) data).values()) {
+				CompositeData composite = (CompositeData) row;
+				result.put(key.fromOpenValue(composite.get("key")),
+						value.fromOpenValue(composite.get("value")));
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Records and beans, as composite data with one item for each record
+	 * component or getter.
+	 */
+	private static final class CompositeConverter extends OpenConverter {
+		private static final MethodType GETTER_TYPE = MethodType
+				.genericMethodType(1);
+
+		private final String[] names;
+		private final MethodHandle[] getters;
+		private final OpenConverter[] items;
+
+		private CompositeConverter(CompositeType type, String[] names,
+				MethodHandle[] getters, OpenConverter[] items) {
+			super(type);
+			this.names = names;
+			this.getters = getters;
+			this.items = items;
+		}
+
+		static CompositeConverter forClass(Class<?> c,
+				Map<Type, OpenConverter> converters)
+				throws OpenDataException {
+			Map<String, Method> properties = new TreeMap<String, Method>();
+			Method[] components = recordAccessors(c);
+			if (components != null) {
+				for (Method accessor : components) {
+					properties.put(accessor.getName(), accessor);
+				}
+			} else {
+				for (Method method : c.getMethods()) {
+					String name = propertyName(method);
+					if (name != null) {
+						properties.put(name, method);
+					}
+				}
+			}
+			if (properties.isEmpty()) {
+				throw new OpenDataException("Type " + c.getName()
+						+ " has no properties and can't be mapped");
+			}
+			String[] names = properties.keySet().toArray(new String[0]);
+			MethodHandle[] getters = new MethodHandle[names.length];
+			OpenConverter[] items = new OpenConverter[names.length];
+			OpenType<?>[] itemTypes = new OpenType<?>[names.length];
+			for (int i = 0; i < names.length; i++) {
+				Method method = properties.get(names[i]);
+				items[i] = OpenConverter.forType(method.getGenericReturnType(),
+						converters);
+				itemTypes[i] = items[i].getOpenType();
+				try {
+					method.setAccessible(true);
+					getters[i] = MethodHandles.lookup().unreflect(method)
+							.asType(GETTER_TYPE);
+				} catch (Exception e) {
+					throw new OpenDataException("Can't access "
+							+ method.getName() + ": " + e);
+				}
+			}
+			return new CompositeConverter(new CompositeType(c.getName(),
+					c.getName(), names, names, itemTypes), names, getters,
+					items);
+		}
+
+		/**
+		 * Returns the accessors of the record components, in the order of
+		 * the components. Records are found through reflection, so this works
+		 * on a Java 8 runtime, too.
+		 * 
+		 * @return The accessors, <code>null</code> if the class is not a
+		 *         record.
+		 */
+		private static Method[] recordAccessors(Class<?> c)
+				throws OpenDataException {
+			try {
+				Method isRecord = Class.class.getMethod("isRecord");
+				if (!Boolean.TRUE.equals(isRecord.invoke(c))) {
+					return null;
+				}
+				Object[] components = (Object[]) Class.class.getMethod(
+						"getRecordComponents").invoke(c);
+				Method[] accessors = new Method[components.length];
+				for (int i = 0; i < components.length; i++) {
+					accessors[i] = (Method) components[i].getClass()
+							.getMethod("getAccessor").invoke(components[i]);
+				}
+				return accessors;
+			} catch (NoSuchMethodException e) {
+				return null;
+			} catch (Exception e) {
+				throw new OpenDataException("Can't read record components of "
+						+ c.getName() + ": " + e);
+			}
+		}
+
+		/**
+		 * Returns the property name of a getter, like the
+		 * {@link java.beans.Introspector} does.
+		 * 
+		 * @return The property name, <code>null</code> if the method is not a
+		 *         getter.
+		 */
+		private static String propertyName(Method method) {
+			if (Modifier.isStatic(method.getModifiers())
+					|| method.getParameterTypes().length != 0
+					|| method.getReturnType() == void.class
+					|| method.getDeclaringClass() == Object.class) {
+				return null;
+			}
+			String name = method.getName();
+			String property;
+			if (name.startsWith("get") && name.length() > 3) {
+				property = name.substring(3);
+			} else if (name.startsWith("is") && name.length() > 2
+					&& method.getReturnType() == boolean.class) {
+				property = name.substring(2);
+			} else {
+				return null;
+			}
+			if (property.length() > 1
+					&& Character.isUpperCase(property.charAt(1))
+					&& Character.isUpperCase(property.charAt(0))) {
+				return property;
+			}
+			return Character.toLowerCase(property.charAt(0))
+					+ property.substring(1);
+		}
+
+		@Override
+		Object toOpenValue(Object value) throws OpenDataException {
+			if (value == null) {
+				return null;
+			}
+			Object[] values = new Object[names.length];
+			for (int i = 0; i < names.length; i++) {
+				Object item;
+				try {
+					item = (Object) getters[i].invokeExact(value);
+				} catch (Throwable t) {
+					OpenDataException e = new OpenDataException("Can't read "
+							+ names[i] + ": " + t);
+					e.initCause(t);
+					throw e;
+				}
+				values[i] = items[i].toOpenValue(item);
+			}
+			return new CompositeDataSupport((CompositeType) getOpenType(),
+					names, values);
+		}
+
+		@Override
+		boolean isReconstructible() {
+			return false;
+		}
+
+		@Override
+		Object fromOpenValue(Object value) throws InvalidObjectException {
+			throw new InvalidObjectException("Can't create "
+					+ getOpenType().getTypeName() + " from composite data");
+		}
+	}
+}
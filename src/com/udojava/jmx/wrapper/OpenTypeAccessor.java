@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.io.InvalidObjectException;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.management.openmbean.OpenDataException;
+
+/**
+ * Converts the values of a getter to open data, or the values passed to a
+ * setter back from open data, see {@link JMXBean#openTypes()}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class OpenTypeAccessor extends MemberAccessor {
+
+	/**
+	 * Accessor of the getter or setter.
+	 */
+	private final MemberAccessor accessor;
+
+	private final OpenConverter converter;
+
+	OpenTypeAccessor(MemberAccessor accessor, OpenConverter converter) {
+		this.accessor = accessor;
+		this.converter = converter;
+	}
+
+	@Override
+	Object invoke(Object target) throws IllegalAccessException,
+			InvocationTargetException {
+		try {
+			return converter.toOpenValue(accessor.invoke(target));
+		} catch (OpenDataException e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) throws IllegalAccessException,
+			InvocationTargetException {
+		try {
+			return accessor.invoke1(target, converter.fromOpenValue(arg));
+		} catch (InvalidObjectException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args) throws IllegalAccessException,
+			InvocationTargetException {
+		int length = args == null ? 0 : args.length;
+		if (length == 0) {
+			return invoke(target);
+		}
+		if (length == 1) {
+			return invoke1(target, args[0]);
+		}
+		throw new IllegalArgumentException("wrong number of arguments");
+	}
+
+	@Override
+	MemberAccessor compile() {
+		MemberAccessor compiled = accessor.compile();
+		return compiled == accessor ? this : new OpenTypeAccessor(compiled,
+				converter);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Calls a bean member through the generated {@link JMXBeanSupport} of the
+ * bean class.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class SupportAccessor extends MemberAccessor {
+
+	private final JMXBeanSupport support;
+
+	/**
+	 * The member index in the support class.
+	 */
+	private final int member;
+
+	/**
+	 * The number of member parameters.
+	 */
+	private final int arity;
+
+	SupportAccessor(JMXBeanSupport support, int member, int arity) {
+		this.support = support;
+		this.member = member;
+		this.arity = arity;
+	}
+
+	@Override
+	Object invoke(Object target) throws InvocationTargetException {
+		if (arity != 0) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return support.get(target, member);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke1(Object target, Object arg) throws InvocationTargetException {
+		if (arity != 1) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return support.set(target, member, arg);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	Object invoke(Object target, Object[] args)
+			throws InvocationTargetException {
+		if ((args == null ? 0 : args.length) != arity) {
+			throw new IllegalArgumentException("wrong number of arguments");
+		}
+		try {
+			return support.invoke(target, member, args);
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+}
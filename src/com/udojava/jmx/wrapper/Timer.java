@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the duration of events, keeping their count, total and maximum
+ * duration. Recording does not lock or allocate, count and total are striped
+ * like a {@link Counter}:
+ * 
+ * <pre>
+ * long start = timer.start();
+ * try {
+ * 	handleRequest();
+ * } finally {
+ * 	timer.stop(start);
+ * }
+ * </pre>
+ * 
+ * A timer in an annotated field, or returned by an annotated getter, is
+ * exposed as the read-only attributes <code>&lt;name&gt;Count</code>,
+ * <code>&lt;name&gt;TotalMillis</code>, <code>&lt;name&gt;MaxMillis</code> and
+ * <code>&lt;name&gt;MeanMillis</code>. Count and total are read one after the
+ * other, so a read may see an event in one but not yet in the other.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+public final class Timer {
+
+	private static final AtomicLongFieldUpdater<Timer> MAX = AtomicLongFieldUpdater
+			.newUpdater(Timer.class, "maxNanos");
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private volatile long maxNanos;
+
+	/**
+	 * Returns the start time of an event, to be passed to {@link #stop(long)}
+	 * when the event is over.
+	 * 
+	 * @return The start time in nanoseconds.
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the event started at the given time.
+	 * 
+	 * @param start
+	 *            The start time returned by {@link #start()}.
+	 * @return The duration in nanoseconds.
+	 */
+	public long stop(long start) {
+		long nanos = System.nanoTime() - start;
+		record(nanos);
+		return nanos;
+	}
+
+	/**
+	 * Records an event.
+	 * 
+	 * @param duration
+	 *            The duration of the event.
+	 * @param unit
+	 *            The unit of the duration.
+	 */
+	public void record(long duration, TimeUnit unit) {
+		record(unit.toNanos(duration));
+	}
+
+	/**
+	 * Records an event.
+	 * 
+	 * @param nanos
+	 *            The duration of the event in nanoseconds.
+	 */
+	public void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		long max;
+		while (nanos > (max = maxNanos)
+				&& !MAX.compareAndSet(this, max, nanos)) {
+		}
+	}
+
+	/**
+	 * @return The number of recorded events.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The total duration of the recorded events in nanoseconds.
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * @return The longest recorded duration in nanoseconds.
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * @return The mean duration in nanoseconds, <code>0</code> if no events
+	 *         were recorded.
+	 */
+	public double getMeanNanos() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) totalNanos.sum() / n;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", totalNanos=" + getTotalNanos()
+				+ ", maxNanos=" + getMaxNanos();
+	}
+}
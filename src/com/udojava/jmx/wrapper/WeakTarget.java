@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The weakly referenced bean of a wrapper created by
+ * {@link JMXBeanWrapper#weak(Object)}. While the wrapper is registered, the
+ * reference is tracked, and once the bean was garbage collected, a shared
+ * daemon thread unregisters the wrapper. The thread takes all references that
+ * are queued at once, so a collection of many beans is handled in one batch.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class WeakTarget extends WeakReference<Object> {
+
+	/**
+	 * The maximum number of wrappers unregistered in one batch.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<Object>();
+
+	/**
+	 * The references of the registered wrappers. A reference is only queued
+	 * if it is still reachable, this set keeps it reachable after the
+	 * application dropped the wrapper.
+	 */
+	private static final Set<WeakTarget> TRACKED = ConcurrentHashMap
+			.newKeySet();
+
+	/**
+	 * The number of wrappers that were unregistered because their bean was
+	 * collected.
+	 */
+	private static final AtomicLong LEAKED = new AtomicLong();
+
+	/**
+	 * The thread unregistering the wrappers, started with the first tracked
+	 * reference.
+	 */
+	private static Thread cleaner;
+
+	private final JMXBeanWrapper wrapper;
+
+	WeakTarget(Object bean, JMXBeanWrapper wrapper) {
+		super(bean, QUEUE);
+		this.wrapper = wrapper;
+	}
+
+	/**
+	 * Starts tracking the reference, called when the wrapper is registered.
+	 */
+	void track() {
+		startCleaner();
+		TRACKED.add(this);
+	}
+
+	/**
+	 * Stops tracking the reference, called when the wrapper is unregistered.
+	 */
+	void untrack() {
+		TRACKED.remove(this);
+	}
+
+	/**
+	 * @return The number of registered wrappers with a weakly referenced bean.
+	 */
+	static int getTrackedCount() {
+		return TRACKED.size();
+	}
+
+	/**
+	 * @return The number of wrappers that were unregistered because their
+	 *         bean was collected.
+	 */
+	static long getLeakedCount() {
+		return LEAKED.get();
+	}
+
+	private static synchronized void startCleaner() {
+		if (cleaner != null) {
+			return;
+		}
+		cleaner = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				List<WeakTarget> batch = new ArrayList<WeakTarget>();
+				try {
+					while (true) {
+						batch.add((WeakTarget) QUEUE.remove());
+						Reference<?> next;
+						while (batch.size() < BATCH_SIZE
+								&& (next = QUEUE.poll()) != null) {
+							batch.add((WeakTarget) next);
+						}
+						for (WeakTarget target : batch) {
+							target.untrack();
+							if (target.wrapper.unregisterCollected()) {
+								LEAKED.incrementAndGet();
+							}
+						}
+						batch.clear();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "JMXBeanWrapper cleaner");
+		cleaner.setDaemon(true);
+		cleaner.start();
+	}
+}
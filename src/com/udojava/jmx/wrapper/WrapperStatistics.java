@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012 Udo Klimaschewski
+ * 
+ * http://UdoJava.com/
+ * http://about.me/udo.klimaschewski
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ */
+package com.udojava.jmx.wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * The call statistics of one wrapped bean, see {@link JMXBean#statistics()}.
+ * It is registered as a companion MBean next to the wrapper, with the object
+ * name of the wrapper and the additional key <code>wrapperStats=true</code>.
+ * 
+ * Every getter, setter and operation is described by the attributes
+ * <code>&lt;member&gt;.Count</code>, <code>.Errors</code>,
+ * <code>.MeanMicros</code>, <code>.P50Micros</code>, <code>.P99Micros</code>,
+ * <code>.MaxMicros</code> and <code>.CpuMicros</code>, where the member is
+ * <code>get.&lt;attribute&gt;</code>, <code>set.&lt;attribute&gt;</code> or
+ * <code>invoke.&lt;operation&gt;</code>. Overloaded operations share their
+ * statistics. The operation <code>reset</code> sets all statistics to zero.
+ * 
+ * The names and the bean info are the same for all beans of a class, they are
+ * kept in a {@link Layout} that is shared through the {@link BeanMetadata}.
+ * 
+ * @author Udo Klimaschewski
+ * 
+ */
+final class WrapperStatistics implements DynamicMBean {
+
+	/**
+	 * The object name key added to the name of the wrapper.
+	 */
+	static final String NAME_KEY = "wrapperStats";
+
+	private static final String[] STATS = { "Count", "Errors", "MeanMicros",
+			"P50Micros", "P99Micros", "MaxMicros", "CpuMicros" };
+
+	private static final String[] STAT_TYPES = { "long", "long", "double",
+			"double", "double", "double", "double" };
+
+	private static final String[] STAT_DESCRIPTIONS = { "Number of calls",
+			"Number of failed calls", "Mean latency in microseconds",
+			"Median latency in microseconds",
+			"99th percentile latency in microseconds",
+			"Maximum latency in microseconds",
+			"Total CPU time in microseconds" };
+
+	private static final MBeanOperationInfo RESET = new MBeanOperationInfo(
+			"reset", "Sets all statistics to zero", new MBeanParameterInfo[0],
+			"void", MBeanOperationInfo.ACTION);
+
+	/**
+	 * The attribute names and bean info of the statistics of a bean class, and
+	 * which statistics belong to which getter, setter and operation.
+	 */
+	static final class Layout {
+
+		/**
+		 * The index into the members of the statistics of every getter and
+		 * setter, indexed like the attributes, <code>-1</code> if the
+		 * attribute is not readable or writable.
+		 */
+		private final int[] readMembers;
+
+		private final int[] writeMembers;
+
+		/**
+		 * The index into the members of every operation, indexed by
+		 * {@link BeanOperation#getIndex()}.
+		 */
+		private final int[] operationMembers;
+
+		private final int memberCount;
+
+		private final NameTable attributeIndex;
+
+		private final MBeanInfo info;
+
+		Layout(MBeanInfo beanInfo, BeanAttribute[] attributes,
+				BeanOperation[][] operations, int operationCount) {
+			List<String> names = new ArrayList<String>();
+			this.readMembers = new int[attributes.length];
+			this.writeMembers = new int[attributes.length];
+			MBeanAttributeInfo[] attributeInfos = beanInfo.getAttributes();
+			for (int i = 0; i < attributes.length; i++) {
+				readMembers[i] = -1;
+				writeMembers[i] = -1;
+				if (attributes[i].isReadable()) {
+					readMembers[i] = names.size();
+					names.add("get." + attributeInfos[i].getName());
+				}
+				if (attributes[i].isWritable()) {
+					writeMembers[i] = names.size();
+					names.add("set." + attributeInfos[i].getName());
+				}
+			}
+			this.operationMembers = new int[operationCount];
+			for (BeanOperation[] overloads : operations) {
+				for (BeanOperation operation : overloads) {
+					operationMembers[operation.getIndex()] = names.size();
+				}
+				names.add("invoke." + overloads[0].getName());
+			}
+			this.memberCount = names.size();
+
+			String[] attributeNames = new String[names.size() * STATS.length];
+			MBeanAttributeInfo[] infos = new MBeanAttributeInfo[attributeNames.length];
+			for (int i = 0; i < names.size(); i++) {
+				for (int j = 0; j < STATS.length; j++) {
+					int index = i * STATS.length + j;
+					attributeNames[index] = names.get(i) + "." + STATS[j];
+					infos[index] = new MBeanAttributeInfo(
+							attributeNames[index], STAT_TYPES[j],
+							STAT_DESCRIPTIONS[j] + " of " + names.get(i), true,
+							false, false);
+				}
+			}
+			this.attributeIndex = new NameTable(attributeNames);
+			this.info = new MBeanInfo(WrapperStatistics.class.getName(),
+					"Call statistics of " + beanInfo.getClassName(), infos,
+					null, new MBeanOperationInfo[] { RESET }, null);
+		}
+	}
+
+	/**
+	 * The statistics of the getters, indexed like the attributes.
+	 */
+	private final CallStatistics[] reads;
+
+	/**
+	 * The statistics of the setters, indexed like the attributes.
+	 */
+	private final CallStatistics[] writes;
+
+	/**
+	 * The statistics of the operations, indexed by
+	 * {@link BeanOperation#getIndex()}.
+	 */
+	private final CallStatistics[] operations;
+
+	/**
+	 * All statistics, in the order of the attributes of this bean.
+	 */
+	private final CallStatistics[] members;
+
+	private final Layout layout;
+
+	WrapperStatistics(Layout layout) {
+		this.layout = layout;
+		this.members = new CallStatistics[layout.memberCount];
+		for (int i = 0; i < members.length; i++) {
+			members[i] = new CallStatistics();
+		}
+		this.reads = new CallStatistics[layout.readMembers.length];
+		this.writes = new CallStatistics[layout.writeMembers.length];
+		for (int i = 0; i < reads.length; i++) {
+			if (layout.readMembers[i] >= 0) {
+				reads[i] = members[layout.readMembers[i]];
+			}
+			if (layout.writeMembers[i] >= 0) {
+				writes[i] = members[layout.writeMembers[i]];
+			}
+		}
+		this.operations = new CallStatistics[layout.operationMembers.length];
+		for (int i = 0; i < operations.length; i++) {
+			operations[i] = members[layout.operationMembers[i]];
+		}
+	}
+
+	/**
+	 * Returns the object name of the statistics of a wrapper.
+	 * 
+	 * @param name
+	 *            The object name of the wrapper.
+	 * @return The object name of the statistics.
+	 * @throws MalformedObjectNameException
+	 */
+	static ObjectName nameOf(ObjectName name)
+			throws MalformedObjectNameException {
+		return new ObjectName(name.getDomain() + ":"
+				+ name.getKeyPropertyListString() + "," + NAME_KEY + "=true");
+	}
+
+	/**
+	 * @return The statistics of a getter, <code>null</code> if the attribute
+	 *         is not readable.
+	 */
+	CallStatistics getRead(int index) {
+		return reads[index];
+	}
+
+	/**
+	 * @return The statistics of a setter, <code>null</code> if the attribute
+	 *         is not writable.
+	 */
+	CallStatistics getWrite(int index) {
+		return writes[index];
+	}
+
+	/**
+	 * @return The statistics of an operation.
+	 */
+	CallStatistics getOperation(int index) {
+		return operations[index];
+	}
+
+	@Override
+	public Object getAttribute(String attribute)
+			throws AttributeNotFoundException {
+		int index = layout.attributeIndex.indexOf(attribute);
+		if (index < 0) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		CallStatistics statistics = members[index / STATS.length];
+		switch (index % STATS.length) {
+		case 0:
+			return statistics.getCount();
+		case 1:
+			return statistics.getErrors();
+		case 2:
+			return statistics.getMeanMicros();
+		case 3:
+			return statistics.getPercentileMicros(0.5);
+		case 4:
+			return statistics.getPercentileMicros(0.99);
+		case 5:
+			return statistics.getMaxMicros();
+		default:
+			return statistics.getCpuMicros();
+		}
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute)
+			throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Attribute "
+				+ attribute.getName() + " is read-only");
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList result = new AttributeList(attributes.length);
+		for (String name : attributes) {
+			try {
+				result.add(new Attribute(name, getAttribute(name)));
+			} catch (AttributeNotFoundException e) {
+				continue;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature)
+			throws MBeanException {
+		if (!actionName.equals("reset")
+				|| (params != null && params.length != 0)) {
+			throw new MBeanException(new IllegalArgumentException(
+					"Operation not found: " + actionName));
+		}
+		for (CallStatistics statistics : members) {
+			statistics.reset();
+		}
+		return null;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		return layout.info;
+	}
+}
@@ -5,7 +5,14 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ BeanAnnotationTest.class, BeanAttributeTest.class,
-		BeanMethodTest.class, InheritanceTest.class, ResourceBundleTest.class, SortingTest.class })
+@SuiteClasses({ AttributeCacheTest.class, BeanAnnotationTest.class,
+		BeanAttributeTest.class, BulkAttributeTest.class,
+		CompiledWrapperTest.class, BeanMethodTest.class,
+		FieldAttributeTest.class, InheritanceTest.class,
+		LazyWrapperTest.class, MetadataCacheTest.class, MetricTest.class,
+		MonitorTest.class, NotificationTest.class, OpenTypeTest.class, RateTest.class,
+		RegistryTest.class, ResourceBundleTest.class,
+		SamplingTest.class, SortingTest.class, StatisticsTest.class,
+		TimeoutTest.class, WeakWrapperTest.class })
 public class AllTests {
 }
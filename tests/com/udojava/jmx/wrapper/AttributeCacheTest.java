@@ -0,0 +1,152 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.Attribute;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class AttributeCacheTest {
+	@JMXBean
+	public class TestBean1 {
+		final AtomicInteger reads = new AtomicInteger();
+		int value;
+		boolean fail;
+
+		@JMXBeanAttribute(cacheMillis = 60000)
+		public int getValue() {
+			reads.incrementAndGet();
+			if (fail) {
+				throw new IllegalStateException("failed");
+			}
+			return value;
+		}
+
+		@JMXBeanAttribute
+		public void setValue(int value) {
+			this.value = value;
+		}
+
+		@JMXBeanAttribute(cacheMillis = 1)
+		public int getShort() {
+			return reads.incrementAndGet();
+		}
+
+		@JMXBeanAttribute
+		public int getUncached() {
+			return reads.incrementAndGet();
+		}
+	}
+
+	@JMXBean
+	public class TestBean2 {
+		final AtomicInteger reads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@JMXBeanAttribute(cacheMillis = 60000)
+		public int getSlow() throws InterruptedException {
+			reads.incrementAndGet();
+			release.await();
+			return 42;
+		}
+	}
+
+	@Test
+	public void testCachedValue() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		testBean.value = 1;
+		assertEquals(1, bean.getAttribute("value"));
+		testBean.value = 2;
+		assertEquals(1, bean.getAttribute("value"));
+		assertEquals(1, bean.getAttributes(new String[] { "value" }).asList()
+				.get(0).getValue());
+		assertEquals(1, testBean.reads.get());
+
+		bean.setAttribute(new Attribute("value", 3));
+		assertEquals(3, bean.getAttribute("value"));
+		assertEquals(2, testBean.reads.get());
+	}
+
+	@Test
+	public void testCachesPerBean() throws Exception {
+		TestBean1 testBean1 = new TestBean1();
+		TestBean1 testBean2 = new TestBean1();
+		testBean1.value = 1;
+		testBean2.value = 2;
+
+		assertEquals(1, new JMXBeanWrapper(testBean1).getAttribute("value"));
+		assertEquals(2, new JMXBeanWrapper(testBean2).getAttribute("value"));
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		assertEquals(1, bean.getAttribute("short"));
+		Thread.sleep(5);
+		assertEquals(2, bean.getAttribute("short"));
+
+		assertEquals(3, bean.getAttribute("uncached"));
+		assertEquals(4, bean.getAttribute("uncached"));
+	}
+
+	@Test
+	public void testFailureNotCached() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(testBean);
+
+		testBean.fail = true;
+		try {
+			bean.getAttribute("value");
+			throw new AssertionError("ReflectionException expected");
+		} catch (ReflectionException e) {
+			assertTrue(e.getTargetException().getCause() instanceof IllegalStateException);
+		}
+		testBean.fail = false;
+		testBean.value = 5;
+		assertEquals(5, bean.getAttribute("value"));
+		assertEquals(2, testBean.reads.get());
+	}
+
+	@Test
+	public void testConcurrentReadsCallGetterOnce() throws Exception {
+		TestBean2 testBean = new TestBean2();
+		final JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Object>> results = new ArrayList<Future<Object>>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						return bean.getAttribute("slow");
+					}
+				}));
+			}
+			Thread.sleep(100);
+			testBean.release.countDown();
+			for (Future<Object> result : results) {
+				assertEquals(42, result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, testBean.reads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
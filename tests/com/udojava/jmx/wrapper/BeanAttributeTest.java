@@ -1,6 +1,9 @@
 package com.udojava.jmx.wrapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
@@ -39,6 +42,26 @@ public class BeanAttributeTest {
 		}
 	}
 
+	@JMXBean
+	public class TestBean2 {
+		private int intAttribute;
+
+		@JMXBeanAttribute
+		public int getIntAttribute() {
+			return intAttribute;
+		}
+
+		@JMXBeanAttribute
+		public void setIntAttribute(int intAttribute) {
+			this.intAttribute = intAttribute;
+		}
+
+		@JMXBeanAttribute
+		public String getFailing() {
+			throw new IllegalStateException("failed");
+		}
+	}
+
 	@Test(expected=AttributeNotFoundException.class)
 	public void testStringSetUnknown() throws IntrospectionException,
 			SecurityException, InvalidAttributeValueException, MBeanException,
@@ -102,4 +125,29 @@ public class BeanAttributeTest {
 
 	}
 
+	@Test
+	public void testPrimitiveSetGet() throws IntrospectionException,
+			SecurityException, AttributeNotFoundException,
+			InvalidAttributeValueException, MBeanException, ReflectionException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean2());
+
+		bean.setAttribute(new Attribute("intAttribute", 42));
+		assertEquals(42, bean.getAttribute("intAttribute"));
+	}
+
+	@Test
+	public void testGetterException() throws IntrospectionException,
+			SecurityException, AttributeNotFoundException, MBeanException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean2());
+
+		try {
+			bean.getAttribute("failing");
+		} catch (ReflectionException e) {
+			assertTrue(e.getTargetException() instanceof InvocationTargetException);
+			assertTrue(e.getTargetException().getCause() instanceof IllegalStateException);
+			return;
+		}
+		throw new AssertionError("ReflectionException expected");
+	}
+
 }
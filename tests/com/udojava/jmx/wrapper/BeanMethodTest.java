@@ -74,4 +74,20 @@ public class BeanMethodTest {
 		
 		assertEquals("Hello Two Three", bean.invoke("m",new Object[] {"Hello", "Two", "Three"}, new String[] {"java.lang.String", "java.lang.String", "java.lang.String"}));
 	}
+	
+	@Test
+	public void testMethodWithoutSignature() throws IntrospectionException, SecurityException, MBeanException, ReflectionException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+		
+		assertEquals("Hello Two", bean.invoke("m",new Object[] {"Hello", "Two"}, null));
+		
+		assertEquals("Hello Test 2", bean.invoke("complexMethod", new Object[] {"Hello", 2}, null));
+	}
+	
+	@Test(expected=MBeanException.class)
+	public void testMethodWrongSignature() throws IntrospectionException, SecurityException, MBeanException, ReflectionException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+		
+		bean.invoke("m",new Object[] {"Hello", 2}, new String[] {"java.lang.String", "int"});
+	}
 }
@@ -0,0 +1,256 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.IntrospectionException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class BulkAttributeTest {
+	@JMXBean
+	public class TestBean1 {
+		int count;
+		int reads;
+		private String written;
+
+		@JMXBeanAttribute
+		public int getCount() {
+			reads++;
+			return count;
+		}
+
+		@JMXBeanAttribute
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		@JMXBeanAttribute
+		public String getFailing() {
+			throw new IllegalStateException("failed");
+		}
+
+		@JMXBeanAttribute
+		public void setWriteOnly(String written) {
+			this.written = written;
+		}
+	}
+
+	@JMXBean(readBackAttributes = false)
+	public class TestBean2 extends TestBean1 {
+	}
+
+	@JMXBean
+	public class TestBean3 {
+		private int snapshots;
+		private int reads;
+
+		@JMXBeanAttribute
+		public int getCount() {
+			reads++;
+			return 1;
+		}
+
+		@JMXBeanAttribute
+		public int getTotal() {
+			reads++;
+			return 2;
+		}
+
+		@JMXBeanAttribute
+		public int getOther() {
+			reads++;
+			return 3;
+		}
+
+		@JMXBeanSnapshot
+		public Map<String, Object> snapshot() {
+			snapshots++;
+			Map<String, Object> values = new HashMap<String, Object>();
+			values.put("count", 10);
+			values.put("total", 20);
+			return values;
+		}
+	}
+
+	@JMXBean
+	public class TestBean5 extends TestBean3 {
+		@Override
+		@JMXBeanSnapshot({ "count", "total" })
+		public Map<String, Object> snapshot() {
+			return super.snapshot();
+		}
+	}
+
+	@JMXBean
+	public class TestBean6 {
+		@JMXBeanAttribute
+		public int getCount() {
+			return 1;
+		}
+
+		@JMXBeanSnapshot("unknown")
+		public Map<String, Object> snapshot() {
+			return null;
+		}
+	}
+
+	@JMXBean
+	public class TestBean4 {
+		@JMXBeanSnapshot
+		public Map<String, Object> snapshot(int p) {
+			return null;
+		}
+	}
+
+	@Test
+	public void testGetAttributesSkipsUnknownAndFailing()
+			throws IntrospectionException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		AttributeList attributes = bean.getAttributes(new String[] {
+				"unknown", "failing", "writeOnly", "count" });
+
+		assertEquals(1, attributes.size());
+		assertEquals("count", attributes.asList().get(0).getName());
+		assertEquals(0, attributes.asList().get(0).getValue());
+	}
+
+	@Test
+	public void testSetAttributesReadsBack() throws IntrospectionException {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		AttributeList aList = new AttributeList();
+		aList.add(new Attribute("count", 5));
+		aList.add(new Attribute("writeOnly", "value"));
+		aList.add(new Attribute("failing", "value"));
+		aList.add(new Attribute("unknown", "value"));
+
+		AttributeList result = bean.setAttributes(aList);
+
+		assertEquals(2, result.size());
+		assertEquals(5, result.asList().get(0).getValue());
+		assertEquals("value", result.asList().get(1).getValue());
+		assertEquals(1, testBean.reads);
+		assertEquals("value", testBean.written);
+	}
+
+	@Test
+	public void testSetAttributesWithoutReadBack()
+			throws IntrospectionException {
+		TestBean2 testBean = new TestBean2();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		AttributeList aList = new AttributeList();
+		aList.add(new Attribute("count", 5));
+
+		AttributeList result = bean.setAttributes(aList);
+
+		assertEquals(1, result.size());
+		assertEquals(5, result.asList().get(0).getValue());
+		assertEquals(0, testBean.reads);
+		assertEquals(5, testBean.count);
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		TestBean3 testBean = new TestBean3();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		AttributeList attributes = bean.getAttributes(new String[] { "count",
+				"total", "other" });
+
+		assertEquals(3, attributes.size());
+		assertEquals(10, attributes.asList().get(0).getValue());
+		assertEquals(20, attributes.asList().get(1).getValue());
+		assertEquals(3, attributes.asList().get(2).getValue());
+		assertEquals(1, testBean.snapshots);
+		assertEquals(1, testBean.reads);
+
+		assertEquals(1, bean.getAttribute("count"));
+		assertEquals(0, bean.getMBeanInfo().getOperations().length);
+	}
+
+	@Test
+	public void testCompiledSnapshot() throws Exception {
+		TestBean3 testBean = new TestBean3();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(testBean);
+
+		AttributeList attributes = bean.getAttributes(new String[] { "total" });
+
+		assertEquals(20, attributes.asList().get(0).getValue());
+		assertEquals(1, testBean.snapshots);
+		assertEquals(0, testBean.reads);
+	}
+
+	@Test
+	public void testSnapshotOnlyForItsAttributes() throws Exception {
+		TestBean3 testBean = new TestBean5();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		AttributeList attributes = bean.getAttributes(new String[] { "other" });
+		assertEquals(3, attributes.asList().get(0).getValue());
+		assertEquals(0, testBean.snapshots);
+
+		attributes = bean.getAttributes(new String[] { "other", "total" });
+		assertEquals(20, attributes.asList().get(1).getValue());
+		assertEquals(1, testBean.snapshots);
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testSnapshotUnknownAttribute() throws IntrospectionException {
+		new JMXBeanWrapper(new TestBean6());
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testSnapshotWithParameters() throws IntrospectionException {
+		new JMXBeanWrapper(new TestBean4());
+	}
+
+	@Test
+	public void testVisitAttributes() throws Exception {
+		TestBean3 testBean = new TestBean3();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		final Map<String, Object> values = new HashMap<String, Object>();
+
+		bean.visitAttributes(new AttributeVisitor() {
+			@Override
+			public void visit(String name, Object value) {
+				values.put(name, value);
+			}
+		});
+
+		assertEquals(3, values.size());
+		assertEquals(10, values.get("count"));
+		assertEquals(3, values.get("other"));
+		assertEquals(1, testBean.snapshots);
+		assertEquals(1, testBean.reads);
+	}
+
+	@Test
+	public void testRegistered() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean3());
+		ObjectName name = new ObjectName("test:type=Bulk");
+		assertNull(bean.getObjectName());
+
+		server.registerMBean(bean, name);
+		assertEquals(name, bean.getObjectName());
+		assertEquals(1, JMXBeanWrapper.getRegistered(server).size());
+		assertTrue(JMXBeanWrapper.getRegistered(server).contains(bean));
+
+		server.unregisterMBean(name);
+		assertNull(bean.getObjectName());
+		assertEquals(0, JMXBeanWrapper.getRegistered(server).size());
+	}
+}
@@ -0,0 +1,182 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanException;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class CompiledWrapperTest {
+	@JMXBean(sorted = true)
+	public class TestBean1 {
+		private String stringAttribute;
+		private long longAttribute;
+
+		@JMXBeanAttribute
+		public String getStringAttribute() {
+			return stringAttribute;
+		}
+
+		@JMXBeanAttribute
+		public void setStringAttribute(String stringAttribute) {
+			this.stringAttribute = stringAttribute;
+		}
+
+		@JMXBeanAttribute
+		public long getLongAttribute() {
+			return longAttribute;
+		}
+
+		@JMXBeanAttribute
+		public void setLongAttribute(long longAttribute) {
+			this.longAttribute = longAttribute;
+		}
+
+		@JMXBeanAttribute
+		public int getFailing() {
+			throw new IllegalStateException("failed");
+		}
+
+		@JMXBeanOperation
+		public void reset() {
+			stringAttribute = null;
+			longAttribute = 0;
+		}
+
+		@JMXBeanOperation
+		public String m(String p1) {
+			return p1;
+		}
+
+		@JMXBeanOperation
+		public String m(String p1, String p2) {
+			return p1 + " " + p2;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute
+		public int getCount() {
+			return 42;
+		}
+	}
+
+	/**
+	 * Defines its own copy of a class, which is not visible to the class
+	 * loader of the wrapper.
+	 */
+	static class ChildLoader extends ClassLoader {
+		private final String className;
+
+		ChildLoader(String className) {
+			super(ChildLoader.class.getClassLoader());
+			this.className = className;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve)
+				throws ClassNotFoundException {
+			if (!name.equals(className)) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> c = findLoadedClass(name);
+				if (c == null) {
+					try {
+						InputStream in = getParent().getResourceAsStream(
+								name.replace('.', '/') + ".class");
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						byte[] buffer = new byte[4096];
+						int n;
+						while ((n = in.read(buffer)) > 0) {
+							out.write(buffer, 0, n);
+						}
+						in.close();
+						byte[] bytes = out.toByteArray();
+						c = defineClass(name, bytes, 0, bytes.length);
+					} catch (IOException e) {
+						throw new ClassNotFoundException(name, e);
+					}
+				}
+				return c;
+			}
+		}
+	}
+
+	@Test
+	public void testUncompiledCount() throws Exception {
+		long before = JMXBeanWrapper.getUncompiledCount();
+		JMXBeanWrapper.compiled(new TestBean2());
+		assertEquals(before, JMXBeanWrapper.getUncompiledCount());
+
+		Object hidden = new ChildLoader(TestBean2.class.getName())
+				.loadClass(TestBean2.class.getName()).getConstructor()
+				.newInstance();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(hidden);
+		assertEquals(before + 1, JMXBeanWrapper.getUncompiledCount());
+		assertEquals(42, bean.getAttribute("count"));
+	}
+
+	@Test
+	public void testSameBeanInfo() throws IntrospectionException,
+			SecurityException {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+		JMXBeanWrapper compiled = JMXBeanWrapper.compiled(new TestBean1());
+
+		assertSame(bean.getMBeanInfo(), compiled.getMBeanInfo());
+	}
+
+	@Test
+	public void testSetGet() throws IntrospectionException, SecurityException,
+			AttributeNotFoundException, InvalidAttributeValueException,
+			MBeanException, ReflectionException {
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(new TestBean1());
+
+		bean.setAttribute(new Attribute("stringAttribute", "test value"));
+		bean.setAttribute(new Attribute("longAttribute", 42L));
+		assertEquals("test value", bean.getAttribute("stringAttribute"));
+		assertEquals(42L, bean.getAttribute("longAttribute"));
+
+		bean.invoke("reset", null, null);
+		assertEquals(0L, bean.getAttribute("longAttribute"));
+	}
+
+	@Test
+	public void testOperations() throws IntrospectionException,
+			SecurityException, MBeanException, ReflectionException {
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(new TestBean1());
+
+		assertEquals("Hello", bean.invoke("m", new Object[] { "Hello" },
+				new String[] { "java.lang.String" }));
+		assertEquals("Hello Two", bean.invoke("m", new Object[] { "Hello",
+				"Two" }, new String[] { "java.lang.String", "java.lang.String" }));
+	}
+
+	@Test
+	public void testGetterException() throws IntrospectionException,
+			SecurityException, AttributeNotFoundException, MBeanException {
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(new TestBean1());
+
+		try {
+			bean.getAttribute("failing");
+		} catch (ReflectionException e) {
+			assertTrue(e.getTargetException() instanceof InvocationTargetException);
+			assertTrue(e.getTargetException().getCause() instanceof IllegalStateException);
+			return;
+		}
+		throw new AssertionError("ReflectionException expected");
+	}
+}
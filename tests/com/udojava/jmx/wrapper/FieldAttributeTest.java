@@ -0,0 +1,175 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Attribute;
+import javax.management.MBeanAttributeInfo;
+
+import org.junit.Test;
+
+public class FieldAttributeTest {
+	@JMXBean
+	public static class TestBean1 {
+		@JMXBeanAttribute(description = "Volatile counter")
+		volatile long hits;
+
+		@JMXBeanAttribute(name = "Label")
+		private String label = "start";
+
+		@JMXBeanAttribute
+		final int limit = 10;
+
+		@JMXBeanAttribute
+		final AtomicLong requests = new AtomicLong(5);
+
+		@JMXBeanAttribute
+		final AtomicInteger errors = new AtomicInteger();
+
+		@JMXBeanAttribute
+		final AtomicBoolean enabled = new AtomicBoolean(true);
+
+		@JMXBeanAttribute
+		final AtomicReference<String> state = new AtomicReference<String>(
+				"idle");
+
+		@JMXBeanAttribute
+		final LongAdder bytes = new LongAdder();
+
+		int notAnnotated;
+
+		String getLabel() {
+			return label;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 extends TestBean1 {
+		@JMXBeanAttribute
+		private static volatile int shared = 1;
+
+		@JMXBeanAttribute
+		public String getName() {
+			return "sub";
+		}
+	}
+
+	private static MBeanAttributeInfo findAttribute(JMXBeanWrapper bean,
+			String name) {
+		for (MBeanAttributeInfo info : bean.getMBeanInfo().getAttributes()) {
+			if (info.getName().equals(name)) {
+				return info;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testAttributeInfo() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		assertEquals(8, bean.getMBeanInfo().getAttributes().length);
+
+		MBeanAttributeInfo info = findAttribute(bean, "hits");
+		assertEquals("long", info.getType());
+		assertEquals("Volatile counter", info.getDescription());
+		assertTrue(info.isReadable());
+		assertTrue(info.isWritable());
+		assertFalse(info.isIs());
+
+		info = findAttribute(bean, "Label");
+		assertEquals("java.lang.String", info.getType());
+		assertTrue(info.isWritable());
+
+		info = findAttribute(bean, "limit");
+		assertEquals("int", info.getType());
+		assertFalse(info.isWritable());
+
+		assertEquals("long", findAttribute(bean, "requests").getType());
+		assertTrue(findAttribute(bean, "requests").isWritable());
+		assertEquals("int", findAttribute(bean, "errors").getType());
+		assertEquals("boolean", findAttribute(bean, "enabled").getType());
+		assertFalse(findAttribute(bean, "enabled").isIs());
+		assertEquals("java.lang.String", findAttribute(bean, "state")
+				.getType());
+
+		info = findAttribute(bean, "bytes");
+		assertEquals("long", info.getType());
+		assertFalse(info.isWritable());
+	}
+
+	@Test
+	public void testReadWriteFields() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		testBean.hits = 42;
+		assertEquals(42L, bean.getAttribute("hits"));
+		bean.setAttribute(new Attribute("hits", 43L));
+		assertEquals(43L, testBean.hits);
+
+		assertEquals("start", bean.getAttribute("Label"));
+		bean.setAttribute(new Attribute("Label", "changed"));
+		assertEquals("changed", testBean.getLabel());
+
+		assertEquals(10, bean.getAttribute("limit"));
+	}
+
+	@Test
+	public void testAtomicFields() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		assertEquals(5L, bean.getAttribute("requests"));
+		bean.setAttribute(new Attribute("requests", 6L));
+		assertEquals(6L, testBean.requests.get());
+
+		testBean.errors.incrementAndGet();
+		assertEquals(1, bean.getAttribute("errors"));
+		bean.setAttribute(new Attribute("errors", 0));
+		assertEquals(0, testBean.errors.get());
+
+		assertEquals(true, bean.getAttribute("enabled"));
+		bean.setAttribute(new Attribute("enabled", false));
+		assertFalse(testBean.enabled.get());
+
+		assertEquals("idle", bean.getAttribute("state"));
+		bean.setAttribute(new Attribute("state", "busy"));
+		assertEquals("busy", testBean.state.get());
+
+		testBean.bytes.add(100);
+		testBean.bytes.add(28);
+		assertEquals(128L, bean.getAttribute("bytes"));
+	}
+
+	@Test
+	public void testInheritedAndStaticFields() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean2());
+		TestBean2.shared = 1;
+
+		assertNotNull(findAttribute(bean, "hits"));
+		assertNotNull(findAttribute(bean, "name"));
+		assertEquals(1, bean.getAttribute("shared"));
+		bean.setAttribute(new Attribute("shared", 2));
+		assertEquals(2, TestBean2.shared);
+	}
+
+	@Test
+	public void testCompiled() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(testBean);
+
+		testBean.requests.set(99);
+		assertEquals(99L, bean.getAttribute("requests"));
+		bean.setAttribute(new Attribute("hits", 7L));
+		assertEquals(7L, testBean.hits);
+	}
+}
@@ -0,0 +1,125 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import javax.management.Attribute;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class LazyWrapperTest {
+	@JMXBean(className = "LazyBean", description = "A lazy bean")
+	public class TestBean1 {
+		private int level;
+
+		@JMXBeanAttribute
+		public int getLevel() {
+			return level;
+		}
+
+		@JMXBeanAttribute
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		@JMXBeanOperation
+		public String echo(String p) {
+			return p;
+		}
+	}
+
+	@JMXBean
+	public class TestBean2 {
+		@JMXBeanAttribute
+		public int getValue() {
+			return 0;
+		}
+
+		@JMXBeanAttribute
+		public void setValue(String value) {
+		}
+	}
+
+	public class TestBean3 {
+	}
+
+	@Test
+	public void testConstructionDoesNotAnalyze() {
+		JMXBeanWrapper bean = JMXBeanWrapper.lazy(new TestBean2());
+		assertFalse(bean.isResolved());
+		assertEquals(TestBean2.class.getName(), bean.getMBeanInfo()
+				.getClassName());
+		assertFalse(bean.isResolved());
+		try {
+			bean.getMBeanInfo().getAttributes();
+			throw new AssertionError("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotAnnotated() {
+		JMXBeanWrapper.lazy(new TestBean3());
+	}
+
+	@Test
+	public void testFirstUseAnalyzes() throws Exception {
+		JMXBeanWrapper bean = JMXBeanWrapper.lazy(new TestBean1());
+
+		bean.setAttribute(new Attribute("level", 3));
+		assertTrue(bean.isResolved());
+		assertEquals(3, bean.getAttribute("level"));
+		assertSame(new JMXBeanWrapper(new TestBean1()).getMBeanInfo(),
+				bean.getMBeanInfo());
+
+		bean = JMXBeanWrapper.lazyCompiled(new TestBean1());
+		assertEquals("x", bean.invoke("echo", new Object[] { "x" },
+				new String[] { "java.lang.String" }));
+	}
+
+	@Test
+	public void testRegistration() throws Exception {
+		JMXBeanWrapper bean = JMXBeanWrapper.lazy(new TestBean1());
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=LazyWrapperTest");
+
+		server.registerMBean(bean, name);
+		assertFalse(bean.isResolved());
+		assertEquals("LazyBean", server.getObjectInstance(name)
+				.getClassName());
+
+		MBeanInfo info = server.getMBeanInfo(name);
+		assertEquals("A lazy bean", info.getDescription());
+		assertEquals(1, info.getAttributes().length);
+		assertEquals(1, info.getOperations().length);
+		assertTrue(bean.isResolved());
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		MBeanInfo info = JMXBeanWrapper.lazy(new TestBean1()).getMBeanInfo();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(info);
+		out.close();
+		Object copy = new ObjectInputStream(new ByteArrayInputStream(
+				bytes.toByteArray())).readObject();
+
+		assertSame(MBeanInfo.class, copy.getClass());
+		assertEquals(info, copy);
+		assertEquals(1, ((MBeanInfo) copy).getOperations().length);
+	}
+}
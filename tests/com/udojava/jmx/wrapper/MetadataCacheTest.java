@@ -0,0 +1,136 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Locale;
+
+import javax.management.Attribute;
+import javax.management.AttributeNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class MetadataCacheTest {
+	@JMXBean
+	public class TestBean1 {
+		private String stringAttribute;
+
+		@JMXBeanAttribute
+		public String getStringAttribute() {
+			return stringAttribute;
+		}
+
+		@JMXBeanAttribute
+		public void setStringAttribute(String stringAttribute) {
+			this.stringAttribute = stringAttribute;
+		}
+
+		@JMXBeanOperation
+		public String echo(String p1) {
+			return p1;
+		}
+	}
+
+	@JMXBean(statistics = true)
+	public class TestBean2 {
+		@JMXBeanAttribute
+		public String getStringAttribute() {
+			return "";
+		}
+
+		@JMXBeanOperation
+		public String echo(String p1) {
+			return p1;
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class OpenBean1 {
+		@JMXBeanAttribute(name = "Count", description = "First count")
+		public long getCount() {
+			return 1;
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class OpenBean2 {
+		@JMXBeanAttribute(name = "Count", description = "Second count")
+		public long getCount() {
+			return 2;
+		}
+	}
+
+	@Test
+	public void testSharedBeanInfo() throws IntrospectionException,
+			SecurityException {
+		JMXBeanWrapper bean1 = new JMXBeanWrapper(new TestBean1());
+		JMXBeanWrapper bean2 = new JMXBeanWrapper(new TestBean1());
+
+		assertSame(bean1.getMBeanInfo(), bean2.getMBeanInfo());
+	}
+
+	@Test
+	public void testSharedInfosAcrossClasses() throws IntrospectionException {
+		MBeanInfo info1 = new JMXBeanWrapper(new TestBean1()).getMBeanInfo();
+		MBeanInfo info2 = new JMXBeanWrapper(new TestBean2()).getMBeanInfo();
+
+		MBeanOperationInfo echo1 = info1.getOperations()[0];
+		MBeanOperationInfo echo2 = info2.getOperations()[0];
+		assertSame(echo1, echo2);
+		assertSame(echo1.getSignature()[0], echo2.getSignature()[0]);
+	}
+
+	@Test
+	public void testOpenInfosKeepDescription() throws IntrospectionException {
+		MBeanInfo info1 = new JMXBeanWrapper(new OpenBean1()).getMBeanInfo();
+		MBeanInfo info2 = new JMXBeanWrapper(new OpenBean2()).getMBeanInfo();
+
+		assertEquals("First count", info1.getAttributes()[0].getDescription());
+		assertEquals("Second count", info2.getAttributes()[0].getDescription());
+	}
+
+	@Test
+	public void testSharedStatisticsInfo() throws IntrospectionException {
+		BeanMetadata metadata = BeanMetadata.forClass(TestBean2.class);
+
+		assertSame(metadata.newStatistics().getMBeanInfo(), metadata
+				.newStatistics().getMBeanInfo());
+		assertSame(metadata.newStatistics().getMBeanInfo(), metadata
+				.compiled().newStatistics().getMBeanInfo());
+	}
+
+	@Test
+	public void testSharedLocalization() {
+		Localization localization = Localization.forBundle(
+				"com.udojava.jmx.wrapper.ResourceBundleTest", Locale.GERMAN);
+
+		assertSame(localization, Localization.forBundle(
+				"com.udojava.jmx.wrapper.ResourceBundleTest", Locale.GERMAN));
+		assertEquals("BeanDescription_DE",
+				localization.get("beanDescriptionKey", "none"));
+		assertEquals("none", localization.get("unknownKey", "none"));
+		assertEquals("none", localization.get("", "none"));
+	}
+
+	@Test
+	public void testSeparateTargets() throws IntrospectionException,
+			SecurityException, AttributeNotFoundException,
+			InvalidAttributeValueException, MBeanException, ReflectionException {
+		JMXBeanWrapper bean1 = new JMXBeanWrapper(new TestBean1());
+		JMXBeanWrapper bean2 = new JMXBeanWrapper(new TestBean1());
+
+		bean1.setAttribute(new Attribute("stringAttribute", "one"));
+		bean2.setAttribute(new Attribute("stringAttribute", "two"));
+
+		assertEquals("one", bean1.getAttribute("stringAttribute"));
+		assertEquals("two", bean2.getAttribute("stringAttribute"));
+		assertEquals("two", bean2.invoke("echo", new Object[] { "two" },
+				new String[] { "java.lang.String" }));
+	}
+}
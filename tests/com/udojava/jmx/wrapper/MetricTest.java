@@ -0,0 +1,181 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.MBeanAttributeInfo;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class MetricTest {
+	@JMXBean
+	public static class TestBean1 {
+		@JMXBeanAttribute(description = "Requests served")
+		final Counter requests = new Counter();
+
+		@JMXBeanAttribute
+		final Gauge connections = new Gauge();
+
+		@JMXBeanAttribute(description = "Request time", sortValue = "x")
+		final Timer time = new Timer();
+
+		final Timer notAnnotated = new Timer();
+
+		@JMXBeanAttribute(name = "errors")
+		public Counter getErrorCounter() {
+			return errors;
+		}
+
+		private final Counter errors = new Counter();
+	}
+
+	public static class Supplied implements LongSupplier {
+		volatile long value;
+
+		@Override
+		public long getAsLong() {
+			return value;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute(description = "Supplied value")
+		final Supplied supplied = new Supplied();
+	}
+
+	private static MBeanAttributeInfo findAttribute(JMXBeanWrapper bean,
+			String name) {
+		for (MBeanAttributeInfo info : bean.getMBeanInfo().getAttributes()) {
+			if (info.getName().equals(name)) {
+				return info;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testAttributeInfo() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		assertEquals(7, bean.getMBeanInfo().getAttributes().length);
+
+		MBeanAttributeInfo info = findAttribute(bean, "requests");
+		assertEquals("long", info.getType());
+		assertEquals("Requests served", info.getDescription());
+		assertFalse(info.isWritable());
+
+		assertEquals("long", findAttribute(bean, "connections").getType());
+		assertEquals("long", findAttribute(bean, "errors").getType());
+
+		assertNull(findAttribute(bean, "time"));
+		assertEquals("long", findAttribute(bean, "timeCount").getType());
+		assertEquals("double", findAttribute(bean, "timeTotalMillis")
+				.getType());
+		assertEquals("double", findAttribute(bean, "timeMaxMillis").getType());
+		info = findAttribute(bean, "timeMeanMillis");
+		assertEquals("double", info.getType());
+		assertEquals("Request time, mean time in milliseconds",
+				info.getDescription());
+		assertFalse(info.isWritable());
+	}
+
+	@Test
+	public void testValues() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		testBean.requests.increment();
+		testBean.requests.add(2);
+		assertEquals(3L, bean.getAttribute("requests"));
+
+		testBean.connections.set(5);
+		testBean.connections.decrement();
+		assertEquals(4L, bean.getAttribute("connections"));
+
+		testBean.errors.increment();
+		assertEquals(1L, bean.getAttribute("errors"));
+
+		testBean.time.record(2, TimeUnit.MILLISECONDS);
+		testBean.time.record(4000000);
+		assertEquals(2L, bean.getAttribute("timeCount"));
+		assertEquals(6.0, (Double) bean.getAttribute("timeTotalMillis"), 0);
+		assertEquals(4.0, (Double) bean.getAttribute("timeMaxMillis"), 0);
+		assertEquals(3.0, (Double) bean.getAttribute("timeMeanMillis"), 0);
+
+		assertEquals(3L, testBean.requests.reset());
+		assertEquals(0L, bean.getAttribute("requests"));
+	}
+
+	@Test
+	public void testLongSupplier() throws Exception {
+		TestBean2 testBean = new TestBean2();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		MBeanAttributeInfo info = findAttribute(bean, "supplied");
+		assertEquals("long", info.getType());
+		assertEquals("Supplied value", info.getDescription());
+		assertFalse(info.isWritable());
+		testBean.supplied.value = 12;
+		assertEquals(12L, bean.getAttribute("supplied"));
+	}
+
+	@Test(expected = ReflectionException.class)
+	public void testReadOnly() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		bean.setAttribute(new Attribute("requests", 1L));
+	}
+
+	@Test
+	public void testCompiled() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(testBean);
+
+		testBean.errors.add(7);
+		testBean.time.record(1000000);
+		assertEquals(7L, bean.getAttribute("errors"));
+		assertEquals(1L, bean.getAttribute("timeCount"));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final TestBean1 testBean = new TestBean1();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < 10000; j++) {
+						testBean.requests.increment();
+						testBean.connections.increment();
+						testBean.time.record(j);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(40000, testBean.requests.get());
+		assertEquals(40000, testBean.connections.get());
+		assertEquals(40000, testBean.time.getCount());
+		assertEquals(9999, testBean.time.getMaxNanos());
+	}
+}
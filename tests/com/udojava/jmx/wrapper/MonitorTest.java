@@ -0,0 +1,166 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.AttributeChangeNotification;
+import javax.management.AttributeChangeNotificationFilter;
+import javax.management.IntrospectionException;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MonitorTest {
+	@JMXBean
+	public static class TestBean1 {
+		@JMXBeanAttribute(monitorMillis = 10, highThreshold = 100, lowThreshold = 10)
+		volatile long level = 50;
+
+		volatile String state = "idle";
+
+		@JMXBeanAttribute(monitorMillis = 10, notifyOnChange = true)
+		public String getState() {
+			return state;
+		}
+
+		@JMXBeanAttribute
+		public int getPlain() {
+			return 1;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute(monitorMillis = 10, highThreshold = 1)
+		public String getName() {
+			return "name";
+		}
+	}
+
+	@JMXBean
+	public static class TestBean3 {
+		@JMXBeanAttribute(monitorMillis = 10, highThreshold = 100)
+		volatile double load;
+	}
+
+	private static BlockingQueue<Notification> listen(MBeanServer server,
+			ObjectName name, String attribute) throws Exception {
+		final BlockingQueue<Notification> received = new LinkedBlockingQueue<Notification>();
+		AttributeChangeNotificationFilter filter = new AttributeChangeNotificationFilter();
+		filter.enableAttribute(attribute);
+		server.addNotificationListener(name, new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification,
+					Object handback) {
+				received.add(notification);
+			}
+		}, filter, null);
+		return received;
+	}
+
+	@Test
+	public void testNotificationInfo() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		MBeanNotificationInfo[] infos = bean.getNotificationInfo();
+		assertEquals(1, infos.length);
+		assertEquals(AttributeChangeNotification.class.getName(),
+				infos[0].getName());
+		assertEquals(AttributeChangeNotification.ATTRIBUTE_CHANGE,
+				infos[0].getNotifTypes()[0]);
+	}
+
+	@Test
+	public void testNoMonitors() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new RateTest.TestBean1());
+
+		assertEquals(0, bean.getNotificationInfo().length);
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testNotNumeric() throws Exception {
+		new JMXBeanWrapper(new TestBean2());
+	}
+
+	@Test
+	public void testThresholds() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=Monitor");
+		server.registerMBean(new JMXBeanWrapper(testBean), name);
+		BlockingQueue<Notification> received = listen(server, name, "level");
+
+		testBean.level = 150;
+		AttributeChangeNotification high = (AttributeChangeNotification) received
+				.poll(5, TimeUnit.SECONDS);
+		assertNotNull(high);
+		assertEquals("level", high.getAttributeName());
+		assertEquals("long", high.getAttributeType());
+		assertEquals(150L, high.getNewValue());
+		assertEquals(name, high.getSource());
+
+		testBean.level = 120;
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+		testBean.level = 5;
+		AttributeChangeNotification low = (AttributeChangeNotification) received
+				.poll(5, TimeUnit.SECONDS);
+		assertNotNull(low);
+		assertEquals(5L, low.getNewValue());
+
+		testBean.level = 200;
+		assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testHighOnly() throws Exception {
+		TestBean3 testBean = new TestBean3();
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=Monitor");
+		server.registerMBean(new JMXBeanWrapper(testBean), name);
+		BlockingQueue<Notification> received = listen(server, name, "load");
+
+		testBean.load = 100;
+		assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		testBean.load = 150;
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+		testBean.load = 50;
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+		testBean.load = 101;
+		assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testChange() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=Monitor");
+		server.registerMBean(new JMXBeanWrapper(testBean), name);
+		BlockingQueue<Notification> received = listen(server, name, "state");
+		Thread.sleep(50);
+
+		testBean.state = "busy";
+		AttributeChangeNotification change = (AttributeChangeNotification) received
+				.poll(5, TimeUnit.SECONDS);
+		assertNotNull(change);
+		assertEquals("idle", change.getOldValue());
+		assertEquals("busy", change.getNewValue());
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+
+		server.unregisterMBean(name);
+		testBean.state = "stopped";
+		assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,194 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.IntrospectionException;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class NotificationTest {
+	@JMXBean
+	public static class TestBean1 {
+		@JMXBeanNotification(types = { "test.started", "test.stopped" }, description = "State changes")
+		JMXBeanNotifier notifier;
+
+		@JMXBeanAttribute
+		public int getLevel() {
+			return 1;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanNotification(types = "test.event")
+		final JMXBeanNotifier notifier = new JMXBeanNotifier(1);
+	}
+
+	@JMXBean
+	public static class TestBean3 {
+		@JMXBeanNotification(types = "test.event")
+		String notifier;
+	}
+
+	private static void awaitDelivered(JMXBeanNotifier notifier, long count)
+			throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (notifier.getDelivered() < count
+				&& System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testNotificationInfo() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		MBeanNotificationInfo[] infos = bean.getNotificationInfo();
+		assertEquals(1, infos.length);
+		assertEquals("javax.management.Notification", infos[0].getName());
+		assertEquals("State changes", infos[0].getDescription());
+		assertEquals(2, infos[0].getNotifTypes().length);
+		assertEquals("test.started", infos[0].getNotifTypes()[0]);
+		assertEquals(1, bean.getMBeanInfo().getNotifications().length);
+		assertEquals(5, bean.getMBeanInfo().getAttributes().length);
+		assertEquals(0L, bean.getAttribute("notifierSent"));
+	}
+
+	@Test
+	public void testNoNotifications() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new MetricTest.TestBean1());
+
+		assertEquals(0, bean.getNotificationInfo().length);
+	}
+
+	@Test
+	public void testFieldIsSet() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		new JMXBeanWrapper(testBean);
+
+		assertNotNull(testBean.notifier);
+	}
+
+	@Test
+	public void testLazyWrapper() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = JMXBeanWrapper.lazy(testBean);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=LazyNotification");
+		server.registerMBean(bean, name);
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		server.addNotificationListener(name, new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification,
+					Object handback) {
+				latch.countDown();
+			}
+		}, null, null);
+
+		assertNotNull(testBean.notifier);
+		assertTrue(testBean.notifier.send("test.started", "started"));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertFalse(bean.isResolved());
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testNoNotifier() throws Exception {
+		new JMXBeanWrapper(new TestBean3());
+	}
+
+	@Test
+	public void testNotAttached() throws Exception {
+		JMXBeanNotifier notifier = new JMXBeanNotifier();
+
+		assertFalse(notifier.send("test.event", "lost"));
+		assertEquals(1, notifier.getDropped());
+		assertEquals(0, notifier.getSent());
+	}
+
+	@Test
+	public void testDelivery() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=Notification");
+		server.registerMBean(bean, name);
+
+		final List<Notification> received = new CopyOnWriteArrayList<Notification>();
+		final CountDownLatch latch = new CountDownLatch(2);
+		server.addNotificationListener(name, new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification,
+					Object handback) {
+				received.add(notification);
+				latch.countDown();
+			}
+		}, null, null);
+
+		assertTrue(testBean.notifier.send("test.started", "started"));
+		assertTrue(testBean.notifier.send("test.stopped", "stopped", 42));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		assertEquals(2, received.size());
+		assertEquals(name, received.get(0).getSource());
+		assertEquals(42, received.get(1).getUserData());
+		assertEquals(2L, server.getAttribute(name, "notifierSent"));
+		awaitDelivered(testBean.notifier, 2);
+		assertEquals(2L, server.getAttribute(name, "notifierDelivered"));
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testCoalescingAndCapacity() throws Exception {
+		TestBean2 testBean = new TestBean2();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Notification> received = new CopyOnWriteArrayList<Notification>();
+		bean.addNotificationListener(new NotificationListener() {
+			@Override
+			public void handleNotification(Notification notification,
+					Object handback) {
+				received.add(notification);
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, null, null);
+
+		JMXBeanNotifier notifier = testBean.notifier;
+		notifier.send("test.event", "first");
+		assertTrue(blocked.await(5, TimeUnit.SECONDS));
+		notifier.send("test.event", "second");
+		notifier.send("test.event", "third");
+		assertFalse(notifier.send("test.other", "dropped"));
+		release.countDown();
+
+		awaitDelivered(notifier, 2);
+		assertEquals(2, received.size());
+		assertEquals("third", received.get(1).getMessage());
+		assertSame(bean, received.get(1).getSource());
+		assertEquals(3, notifier.getSent());
+		assertEquals(1, notifier.getCoalesced());
+		assertEquals(1, notifier.getDropped());
+		assertEquals(1L, bean.getAttribute("notifierDropped"));
+	}
+}
@@ -0,0 +1,291 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.IntrospectionException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenMBeanAttributeInfo;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularType;
+
+import org.junit.Test;
+
+public class OpenTypeTest {
+	public static class Point {
+		private final int x;
+		private final int y;
+
+		public Point(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public int getY() {
+			return y;
+		}
+	}
+
+	public static class Line {
+		public Point getStart() {
+			return new Point(1, 2);
+		}
+
+		public Point getEnd() {
+			return null;
+		}
+
+		public boolean isClosed() {
+			return false;
+		}
+	}
+
+	public static class Node {
+		public Node getNext() {
+			return null;
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class TestBean1 {
+		List<String> names = Arrays.asList("a", "b");
+		Map<String, Integer> sizes = new LinkedHashMap<String, Integer>();
+		TimeUnit unit = TimeUnit.SECONDS;
+
+		@JMXBeanAttribute
+		public int getLevel() {
+			return 3;
+		}
+
+		@JMXBeanAttribute
+		public List<String> getNames() {
+			return names;
+		}
+
+		@JMXBeanAttribute
+		public void setNames(List<String> names) {
+			this.names = names;
+		}
+
+		@JMXBeanAttribute
+		public Map<String, Integer> getSizes() {
+			return sizes;
+		}
+
+		@JMXBeanAttribute
+		public void setSizes(Map<String, Integer> sizes) {
+			this.sizes = sizes;
+		}
+
+		@JMXBeanAttribute
+		public TimeUnit getUnit() {
+			return unit;
+		}
+
+		@JMXBeanAttribute
+		public void setUnit(TimeUnit unit) {
+			this.unit = unit;
+		}
+
+		@JMXBeanAttribute
+		public Line getLine() {
+			return new Line();
+		}
+
+		@JMXBeanAttribute
+		public Point[] getPoints() {
+			return new Point[] { new Point(1, 1), new Point(2, 2) };
+		}
+
+		@JMXBeanAttribute
+		public int[] getValues() {
+			return new int[] { 1, 2, 3 };
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class TestBean2 {
+		@JMXBeanAttribute
+		public Object getAnything() {
+			return null;
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class TestBean3 {
+		@JMXBeanAttribute
+		public Node getNode() {
+			return null;
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class TestBean4 {
+		@JMXBeanAttribute
+		public Point getPoint() {
+			return null;
+		}
+
+		@JMXBeanAttribute
+		public void setPoint(Point point) {
+		}
+	}
+
+	@JMXBean(openTypes = true)
+	public static class TestBean5 {
+		@JMXBeanSnapshot
+		public Map<String, Object> snapshot() {
+			Map<String, Object> values = new LinkedHashMap<String, Object>();
+			values.put("unit", TimeUnit.DAYS);
+			return values;
+		}
+
+		@JMXBeanAttribute
+		public TimeUnit getUnit() {
+			return TimeUnit.HOURS;
+		}
+	}
+
+	private static OpenMBeanAttributeInfo findAttribute(JMXBeanWrapper bean,
+			String name) {
+		for (MBeanAttributeInfo info : bean.getMBeanInfo().getAttributes()) {
+			if (info.getName().equals(name)) {
+				return (OpenMBeanAttributeInfo) info;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testOpenTypes() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		assertEquals(SimpleType.INTEGER, findAttribute(bean, "level")
+				.getOpenType());
+		assertEquals(ArrayType.getArrayType(SimpleType.STRING), findAttribute(
+				bean, "names").getOpenType());
+		assertTrue(findAttribute(bean, "sizes").getOpenType() instanceof TabularType);
+		assertEquals(SimpleType.STRING, findAttribute(bean, "unit")
+				.getOpenType());
+		assertEquals(ArrayType.getPrimitiveArrayType(int[].class),
+				findAttribute(bean, "values").getOpenType());
+
+		CompositeType line = (CompositeType) findAttribute(bean, "line")
+				.getOpenType();
+		assertEquals(Line.class.getName(), line.getTypeName());
+		assertEquals(SimpleType.BOOLEAN, line.getType("closed"));
+		assertTrue(line.getType("start") instanceof CompositeType);
+	}
+
+	@Test
+	public void testReadValues() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		testBean.sizes.put("small", 1);
+		testBean.sizes.put("large", 100);
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		assertEquals(3, bean.getAttribute("level"));
+		assertArrayEquals(new String[] { "a", "b" },
+				(String[]) bean.getAttribute("names"));
+		assertEquals("SECONDS", bean.getAttribute("unit"));
+
+		TabularData sizes = (TabularData) bean.getAttribute("sizes");
+		assertEquals(2, sizes.size());
+		assertEquals(100, sizes.get(new Object[] { "large" }).get("value"));
+
+		CompositeData line = (CompositeData) bean.getAttribute("line");
+		CompositeData start = (CompositeData) line.get("start");
+		assertEquals(1, start.get("x"));
+		assertEquals(2, start.get("y"));
+		assertEquals(null, line.get("end"));
+
+		CompositeData[] points = (CompositeData[]) bean.getAttribute("points");
+		assertEquals(2, points.length);
+		assertEquals(2, points[1].get("x"));
+	}
+
+	@Test
+	public void testWriteValues() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		bean.setAttribute(new Attribute("names", new String[] { "x", "y",
+				"z" }));
+		assertEquals(Arrays.asList("x", "y", "z"), testBean.names);
+
+		bean.setAttribute(new Attribute("unit", "MINUTES"));
+		assertSame(TimeUnit.MINUTES, testBean.unit);
+
+		TabularType type = (TabularType) findAttribute(bean, "sizes")
+				.getOpenType();
+		TabularData sizes = (TabularData) bean.getAttribute("sizes");
+		sizes.put(new CompositeDataSupport(type.getRowType(), new String[] {
+				"key", "value" }, new Object[] { "medium", 10 }));
+		bean.setAttribute(new Attribute("sizes", sizes));
+		assertEquals(Integer.valueOf(10), testBean.sizes.get("medium"));
+	}
+
+	@Test
+	public void testSnapshotConverted() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean5());
+
+		AttributeList values = bean.getAttributes(new String[] { "unit" });
+		assertEquals("DAYS", values.asList().get(0).getValue());
+	}
+
+	@Test
+	public void testCompiled() throws Exception {
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(new TestBean1());
+
+		assertEquals("SECONDS", bean.getAttribute("unit"));
+		assertTrue(bean.getAttribute("line") instanceof CompositeData);
+	}
+
+	@Test
+	public void testConverterCached() throws Exception {
+		Map<Type, OpenConverter> converters = new HashMap<Type, OpenConverter>();
+
+		assertSame(OpenConverter.forType(Point.class, converters),
+				OpenConverter.forType(Point.class, converters));
+		assertNotSame(OpenConverter.forType(Point.class, converters),
+				OpenConverter.forType(Point.class,
+						new HashMap<Type, OpenConverter>()));
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testUnmappable() throws Exception {
+		new JMXBeanWrapper(new TestBean2());
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testRecursive() throws Exception {
+		new JMXBeanWrapper(new TestBean3());
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testCompositeNotWritable() throws Exception {
+		new JMXBeanWrapper(new TestBean4());
+	}
+}
@@ -0,0 +1,164 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.IntrospectionException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class RateTest {
+	@JMXBean
+	public static class TestBean1 {
+		@JMXBeanAttribute(rateWindowMillis = 1000, description = "Requests")
+		final AtomicLong requests = new AtomicLong();
+
+		double load;
+
+		@JMXBeanAttribute(rateWindowMillis = 200)
+		public double getLoad() {
+			return load;
+		}
+
+		@JMXBeanAttribute
+		public long getPlain() {
+			return 1;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute(rateWindowMillis = 1000)
+		public String getName() {
+			return "name";
+		}
+	}
+
+	private static MBeanAttributeInfo findAttribute(JMXBeanWrapper bean,
+			String name) {
+		for (MBeanAttributeInfo info : bean.getMBeanInfo().getAttributes()) {
+			if (info.getName().equals(name)) {
+				return info;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testAttributeInfo() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		assertEquals(7, bean.getMBeanInfo().getAttributes().length);
+		MBeanAttributeInfo info = findAttribute(bean, "requestsRate");
+		assertEquals("double", info.getType());
+		assertTrue(info.isReadable());
+		assertFalse(info.isWritable());
+		assertEquals("long", findAttribute(bean, "requestsDelta").getType());
+		assertEquals("true", findAttribute(bean, "requestsDelta")
+				.getDescriptor().getFieldValue(
+						JMXBeanWrapper.BEAN_ATTRIBUTE_DELTA));
+		assertNull(info.getDescriptor().getFieldValue(
+				JMXBeanWrapper.BEAN_ATTRIBUTE_DELTA));
+		assertEquals("double", findAttribute(bean, "loadDelta").getType());
+		assertNull(findAttribute(bean, "plainRate"));
+	}
+
+	@Test
+	public void testVisitSkipsDelta() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		final Set<String> names = new HashSet<String>();
+
+		testBean.requests.set(10);
+		assertEquals(0L, bean.getAttribute("requestsDelta"));
+		testBean.requests.set(15);
+		bean.visitAttributes(new AttributeVisitor() {
+			@Override
+			public void visit(String name, Object value) {
+				names.add(name);
+			}
+		});
+
+		assertTrue(names.contains("requestsRate"));
+		assertFalse(names.contains("requestsDelta"));
+		assertFalse(names.contains("loadDelta"));
+		assertEquals(5L, bean.getAttribute("requestsDelta"));
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testNotNumeric() throws Exception {
+		new JMXBeanWrapper(new TestBean2());
+	}
+
+	@Test
+	public void testDelta() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		testBean.requests.set(10);
+		assertEquals(0L, bean.getAttribute("requestsDelta"));
+		testBean.requests.set(25);
+		assertEquals(15L, bean.getAttribute("requestsDelta"));
+		assertEquals(0L, bean.getAttribute("requestsDelta"));
+		// reset of the counter
+		testBean.requests.set(4);
+		assertEquals(4L, bean.getAttribute("requestsDelta"));
+
+		testBean.load = 1.5;
+		assertEquals(0.0, bean.getAttribute("loadDelta"));
+		testBean.load = 2.0;
+		assertEquals(0.5, bean.getAttribute("loadDelta"));
+	}
+
+	@Test
+	public void testRate() throws Exception {
+		BeanMetadata metadata = BeanMetadata.forClass(TestBean1.class);
+		AttributeRate rate = new AttributeRate(new TestBean1(),
+				metadata.getAttribute(metadata.getAttributeIndex("requests")),
+				true);
+
+		assertEquals(0.0, rate.getRate(), 0);
+		rate.add(100, 0);
+		assertEquals(0.0, rate.getRate(), 0);
+		rate.add(150, 500000000L);
+		assertEquals(100.0, rate.getRate(), 0.001);
+		// reset, the increase is the new value
+		rate.add(50, 1000000000L);
+		assertEquals(100.0, rate.getRate(), 0.001);
+
+		// the oldest values fall out of the ring
+		for (int i = 1; i <= AttributeRate.SLOTS; i++) {
+			rate.add(50 + i * 10, 1000000000L + i * 100000000L);
+		}
+		assertEquals(100.0, rate.getRate(), 0.001);
+	}
+
+	@Test
+	public void testBackgroundReads() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=Rate");
+
+		assertEquals(0.0, bean.getAttribute("requestsRate"));
+		server.registerMBean(bean, name);
+		long end = System.currentTimeMillis() + 5000;
+		while ((Double) bean.getAttribute("requestsRate") == 0.0
+				&& System.currentTimeMillis() < end) {
+			testBean.requests.addAndGet(10);
+			Thread.sleep(20);
+		}
+		assertTrue((Double) bean.getAttribute("requestsRate") > 0);
+		server.unregisterMBean(name);
+	}
+}
@@ -0,0 +1,167 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RegistryTest {
+	@JMXBean(objectName = "test:type=Cache,name={name}")
+	public static class TestBean1 {
+		private final String name;
+
+		public TestBean1(String name) {
+			this.name = name;
+		}
+
+		@JMXBeanAttribute
+		public String getName() {
+			return name;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+	}
+
+	@JMXBean(objectName = "test.{name}:type=Tenant")
+	public static class TestBean3 extends TestBean1 {
+		public TestBean3(String name) {
+			super(name);
+		}
+	}
+
+	private MBeanServer server;
+
+	private JMXBeanRegistry registry;
+
+	@Before
+	public void setUp() {
+		server = MBeanServerFactory.newMBeanServer();
+		registry = new JMXBeanRegistry(server);
+	}
+
+	@Test
+	public void testObjectNames() throws Exception {
+		assertEquals(new ObjectName("test:type=Cache,name=users"),
+				registry.getObjectName(new TestBean1("users")));
+		assertEquals(new ObjectName("test:type=Cache,name="
+				+ ObjectName.quote("a,b=c")),
+				registry.getObjectName(new TestBean1("a,b=c")));
+		assertEquals(new ObjectName(
+				"com.udojava.jmx.wrapper:type=RegistryTest$TestBean2"),
+				registry.getObjectName(new TestBean2()));
+	}
+
+	@Test
+	public void testDomainNotQuoted() throws Exception {
+		assertEquals(new ObjectName("test.a,b:type=Tenant"),
+				registry.getObjectName(new TestBean3("a,b")));
+	}
+
+	@Test(expected = MalformedObjectNameException.class)
+	public void testColonInDomain() throws Exception {
+		registry.getObjectName(new TestBean3("a:b"));
+	}
+
+	@Test(expected = MalformedObjectNameException.class)
+	public void testWildcardInDomain() throws Exception {
+		registry.getObjectName(new TestBean3("a*"));
+	}
+
+	@Test(expected = MalformedObjectNameException.class)
+	public void testNullValue() throws Exception {
+		registry.getObjectName(new TestBean1(null));
+	}
+
+	@Test
+	public void testLazyNotResolved() throws Exception {
+		JMXBeanWrapper wrapper = JMXBeanWrapper.lazy(new TestBean1("lazy"));
+
+		assertEquals(new ObjectName("test:type=Cache,name=lazy"),
+				ObjectNameTemplate.forClass(TestBean1.class).create(wrapper));
+		assertFalse(wrapper.isResolved());
+	}
+
+	@Test
+	public void testRegisteredByServer() throws Exception {
+		MBeanServer other = MBeanServerFactory.newMBeanServer();
+		ObjectName name = registry.register(new TestBean1("one"));
+		new JMXBeanRegistry(other).register(new TestBean1("two"));
+
+		List<JMXBeanWrapper> wrappers = JMXBeanWrapper.getRegistered(server);
+		assertEquals(1, wrappers.size());
+		assertEquals(name, wrappers.get(0).getObjectName());
+		assertEquals(1, JMXBeanWrapper.getRegistered(other).size());
+
+		registry.unregisterAll();
+		assertTrue(JMXBeanWrapper.getRegistered(server).isEmpty());
+	}
+
+	@Test
+	public void testRegisterAndUnregister() throws Exception {
+		ObjectName name = registry.register(new TestBean2());
+		assertTrue(server.isRegistered(name));
+
+		List<TestBean1> beans = new ArrayList<TestBean1>();
+		for (int i = 0; i < 250; i++) {
+			beans.add(new TestBean1("cache" + i));
+		}
+		registry.setBatchSize(100);
+		List<ObjectName> names = registry.registerAll(beans);
+
+		assertEquals(250, names.size());
+		assertEquals(new ObjectName("test:type=Cache,name=cache42"),
+				names.get(42));
+		assertEquals("cache42", server.getAttribute(names.get(42), "name"));
+		assertEquals(251, registry.getRegisteredNames().size());
+
+		registry.unregisterAll(names.subList(0, 10));
+		assertFalse(server.isRegistered(names.get(0)));
+		assertEquals(241, registry.getRegisteredNames().size());
+
+		registry.unregisterAll();
+		assertFalse(server.isRegistered(name));
+		assertFalse(server.isRegistered(names.get(249)));
+		assertEquals(0, registry.getRegisteredNames().size());
+	}
+
+	@Test
+	public void testRegisterStream() throws Exception {
+		registry.setLazy(true);
+		List<ObjectName> names = registry.registerAll(IntStream.range(0, 20)
+				.mapToObj(i -> new TestBean1("stream" + i)));
+
+		assertEquals(20, names.size());
+		assertEquals("stream7", server.getAttribute(names.get(7), "name"));
+	}
+
+	@Test
+	public void testFailedRegistrationRollsBack() throws Exception {
+		registry.setBatchSize(2);
+		try {
+			registry.registerAll(Arrays.asList(new TestBean1("a"),
+					new TestBean1("b"), new TestBean1("c"), new TestBean1("a")));
+			throw new AssertionError("InstanceAlreadyExistsException expected");
+		} catch (InstanceAlreadyExistsException e) {
+		}
+		assertFalse(server.isRegistered(new ObjectName(
+				"test:type=Cache,name=a")));
+		assertFalse(server.isRegistered(new ObjectName(
+				"test:type=Cache,name=c")));
+		assertEquals(0, registry.getRegisteredNames().size());
+	}
+}
@@ -0,0 +1,145 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class SamplingTest {
+	@JMXBean
+	public class TestBean1 {
+		final AtomicInteger reads = new AtomicInteger();
+
+		@JMXBeanAttribute(sampleMillis = 10, description = "Sampled value")
+		public int getValue() {
+			return reads.incrementAndGet();
+		}
+
+		@JMXBeanAttribute
+		public int getPlain() {
+			return 7;
+		}
+	}
+
+	@JMXBean
+	public class TestBean2 {
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile String samplerThread;
+		volatile String rateThread;
+		final AtomicInteger rateReads = new AtomicInteger();
+
+		@JMXBeanAttribute(sampleMillis = 10, timeoutMillis = 50)
+		public int getHanging() throws InterruptedException {
+			samplerThread = Thread.currentThread().getName();
+			release.await();
+			return 1;
+		}
+
+		@JMXBeanAttribute(rateWindowMillis = 100)
+		public long getCount() {
+			rateThread = Thread.currentThread().getName();
+			return rateReads.incrementAndGet();
+		}
+	}
+
+	private static MBeanAttributeInfo findAttribute(JMXBeanWrapper bean,
+			String name) {
+		for (MBeanAttributeInfo info : bean.getMBeanInfo().getAttributes()) {
+			if (info.getName().equals(name)) {
+				return info;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testSampleTimeAttribute() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean1());
+
+		MBeanAttributeInfo info = findAttribute(bean, "valueSampleTime");
+		assertNotNull(info);
+		assertEquals("long", info.getType());
+		assertTrue(info.isReadable());
+		assertFalse(info.isWritable());
+		assertNull(findAttribute(bean, "plainSampleTime"));
+		assertEquals(3, bean.getMBeanInfo().getAttributes().length);
+	}
+
+	@Test
+	public void testUnregisteredReadsGetter() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		assertEquals(1, bean.getAttribute("value"));
+		assertEquals(2, bean.getAttribute("value"));
+		assertEquals(0L, bean.getAttribute("valueSampleTime"));
+	}
+
+	@Test
+	public void testSampling() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=SamplingTest");
+
+		server.registerMBean(bean, name);
+		try {
+			long timeout = System.currentTimeMillis() + 10000;
+			while (testBean.reads.get() < 3
+					&& System.currentTimeMillis() < timeout) {
+				Thread.sleep(5);
+			}
+			assertTrue(testBean.reads.get() >= 3);
+
+			int reads = testBean.reads.get();
+			Object value = server.getAttribute(name, "value");
+			assertTrue((Integer) value <= reads + 1);
+			long time = (Long) server.getAttribute(name, "valueSampleTime");
+			assertTrue(time > 0 && time <= System.currentTimeMillis());
+			assertEquals(7, server.getAttribute(name, "plain"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+
+		Thread.sleep(50);
+		int reads = testBean.reads.get();
+		Thread.sleep(50);
+		assertEquals(reads, testBean.reads.get());
+	}
+
+	@Test
+	public void testHangingSampleGuarded() throws Exception {
+		TestBean2 testBean = new TestBean2();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = new ObjectName("test:type=SamplingTest,name=hanging");
+
+		server.registerMBean(bean, name);
+		try {
+			long timeout = System.currentTimeMillis() + 10000;
+			while ((testBean.samplerThread == null || testBean.rateReads
+					.get() < 5) && System.currentTimeMillis() < timeout) {
+				Thread.sleep(5);
+			}
+			assertTrue(testBean.samplerThread
+					.startsWith("JMXBeanWrapper call"));
+			assertTrue(testBean.rateThread.startsWith("JMXBeanWrapper tick"));
+			assertTrue(testBean.rateReads.get() >= 5);
+			assertNull(server.getAttribute(name, "hanging"));
+		} finally {
+			server.unregisterMBean(name);
+			testBean.release.countDown();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class StatisticsTest {
+	@JMXBean(statistics = true)
+	public static class TestBean1 {
+		int level;
+
+		@JMXBeanAttribute
+		public int getLevel() {
+			return level;
+		}
+
+		@JMXBeanAttribute
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		@JMXBeanAttribute
+		public String getBroken() {
+			throw new IllegalStateException("broken");
+		}
+
+		@JMXBeanOperation
+		public void sleep(long millis) throws InterruptedException {
+			Thread.sleep(millis);
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute
+		public int getLevel() {
+			return 1;
+		}
+	}
+
+	private static final ObjectName NAME;
+	private static final ObjectName STATS_NAME;
+
+	static {
+		try {
+			NAME = new ObjectName("test:type=Test,name=one");
+			STATS_NAME = new ObjectName(
+					"test:type=Test,name=one,wrapperStats=true");
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void testCompanionRegistration() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		server.registerMBean(new JMXBeanWrapper(new TestBean1()), NAME);
+
+		assertTrue(server.isRegistered(STATS_NAME));
+
+		server.unregisterMBean(NAME);
+		assertFalse(server.isRegistered(STATS_NAME));
+	}
+
+	@Test
+	public void testNoStatistics() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		server.registerMBean(new JMXBeanWrapper(new TestBean2()), NAME);
+
+		assertEquals(1, server.queryNames(new ObjectName("test:*"), null)
+				.size());
+		assertFalse(server.isRegistered(STATS_NAME));
+	}
+
+	@Test
+	public void testRecording() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		server.registerMBean(new JMXBeanWrapper(new TestBean1()), NAME);
+
+		server.setAttribute(NAME, new Attribute("level", 3));
+		assertEquals(3, server.getAttribute(NAME, "level"));
+		assertEquals(3, server.getAttribute(NAME, "level"));
+		server.getAttributes(NAME, new String[] { "level", "broken" });
+		server.invoke(NAME, "sleep", new Object[] { 5L },
+				new String[] { "long" });
+
+		assertEquals(3L, server.getAttribute(STATS_NAME, "get.level.Count"));
+		assertEquals(0L, server.getAttribute(STATS_NAME, "get.level.Errors"));
+		assertEquals(1L, server.getAttribute(STATS_NAME, "set.level.Count"));
+		assertEquals(1L, server.getAttribute(STATS_NAME, "get.broken.Count"));
+		assertEquals(1L, server.getAttribute(STATS_NAME, "get.broken.Errors"));
+		assertEquals(1L, server.getAttribute(STATS_NAME, "invoke.sleep.Count"));
+
+		double max = (Double) server.getAttribute(STATS_NAME,
+				"invoke.sleep.MaxMicros");
+		assertTrue(max >= 5000);
+		double p99 = (Double) server.getAttribute(STATS_NAME,
+				"invoke.sleep.P99Micros");
+		assertTrue(p99 >= 5000 && p99 <= max);
+		assertEquals(max, (Double) server.getAttribute(STATS_NAME,
+				"invoke.sleep.MeanMicros"), 0.001);
+
+		server.invoke(STATS_NAME, "reset", null, null);
+		assertEquals(0L, server.getAttribute(STATS_NAME, "get.level.Count"));
+	}
+
+	@Test
+	public void testAttributeNames() throws Exception {
+		WrapperStatistics statistics = BeanMetadata.forClass(TestBean1.class)
+				.newStatistics();
+
+		// get.level, set.level, get.broken, invoke.sleep
+		assertEquals(4 * 7, statistics.getMBeanInfo().getAttributes().length);
+		AttributeList values = statistics.getAttributes(new String[] {
+				"get.level.P50Micros", "get.level.CpuMicros", "unknown" });
+		assertEquals(2, values.size());
+	}
+
+	@Test
+	public void testLazyWrapper() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		JMXBeanWrapper bean = JMXBeanWrapper.lazy(new TestBean1());
+		server.registerMBean(bean, NAME);
+
+		assertFalse(server.isRegistered(STATS_NAME));
+		server.getAttribute(NAME, "level");
+		assertTrue(server.isRegistered(STATS_NAME));
+	}
+}
@@ -0,0 +1,189 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.AttributeList;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class TimeoutTest {
+	@JMXBean
+	public class TestBean1 {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger calls = new AtomicInteger();
+
+		@JMXBeanAttribute(timeoutMillis = 50)
+		public int getHanging() throws InterruptedException {
+			calls.incrementAndGet();
+			release.await();
+			return 1;
+		}
+
+		@JMXBeanAttribute(timeoutMillis = 1000)
+		public int getFast() {
+			return 2;
+		}
+
+		@JMXBeanAttribute(timeoutMillis = 1000)
+		public int getFailing() {
+			calls.incrementAndGet();
+			throw new IllegalStateException("failed");
+		}
+
+		@JMXBeanOperation(timeoutMillis = 50)
+		public String hang(String p) throws InterruptedException {
+			calls.incrementAndGet();
+			release.await();
+			return p;
+		}
+
+		@JMXBeanOperation(timeoutMillis = 1000)
+		public String echo(String p) {
+			return p;
+		}
+	}
+
+	@JMXBean
+	public class TestBean3 {
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile String thread;
+
+		@JMXBeanAttribute(timeoutMillis = 1000, cacheMillis = 60000)
+		public int getCached() {
+			thread = Thread.currentThread().getName();
+			return 3;
+		}
+
+		@JMXBeanAttribute(timeoutMillis = 50, cacheMillis = 60000)
+		public int getHanging() throws InterruptedException {
+			release.await();
+			return 1;
+		}
+	}
+
+	@JMXBean(timeoutMillis = 50)
+	public class TestBean2 {
+		@JMXBeanAttribute
+		public int getHanging() throws InterruptedException {
+			Thread.sleep(10000);
+			return 1;
+		}
+	}
+
+	private static void assertTimeout(ReflectionException e) {
+		assertTrue(e.getTargetException().getCause() instanceof TimeoutException);
+	}
+
+	@Test
+	public void testGetterTimeout() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		long start = System.currentTimeMillis();
+		try {
+			bean.getAttribute("hanging");
+			throw new AssertionError("ReflectionException expected");
+		} catch (ReflectionException e) {
+			assertTimeout(e);
+		}
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(2, bean.getAttribute("fast"));
+		testBean.release.countDown();
+	}
+
+	@Test
+	public void testSkippedAfterTimeout() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				bean.getAttribute("hanging");
+				throw new AssertionError("ReflectionException expected");
+			} catch (ReflectionException e) {
+				assertTimeout(e);
+			}
+		}
+		assertEquals(1, testBean.calls.get());
+
+		AttributeList attributes = bean.getAttributes(new String[] {
+				"hanging", "fast" });
+		assertEquals(1, attributes.size());
+		testBean.release.countDown();
+	}
+
+	@Test
+	public void testSkippedAfterFailures() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		for (int i = 0; i < 5; i++) {
+			try {
+				bean.getAttribute("failing");
+				throw new AssertionError("ReflectionException expected");
+			} catch (ReflectionException e) {
+				if (i < CallGuard.FAILURE_THRESHOLD) {
+					assertTrue(e.getTargetException().getCause() instanceof IllegalStateException);
+				} else {
+					assertTimeout(e);
+				}
+			}
+		}
+		assertEquals(CallGuard.FAILURE_THRESHOLD, testBean.calls.get());
+	}
+
+	@Test
+	public void testOperationTimeout() throws Exception {
+		TestBean1 testBean = new TestBean1();
+		JMXBeanWrapper bean = JMXBeanWrapper.compiled(testBean);
+
+		try {
+			bean.invoke("hang", new Object[] { "x" },
+					new String[] { "java.lang.String" });
+			throw new AssertionError("ReflectionException expected");
+		} catch (ReflectionException e) {
+			assertTimeout(e);
+		}
+		assertEquals("x", bean.invoke("echo", new Object[] { "x" },
+				new String[] { "java.lang.String" }));
+		testBean.release.countDown();
+	}
+
+	@Test
+	public void testCachedGetterGuarded() throws Exception {
+		TestBean3 testBean = new TestBean3();
+		JMXBeanWrapper bean = new JMXBeanWrapper(testBean);
+
+		assertEquals(3, bean.getAttribute("cached"));
+		assertTrue(testBean.thread.startsWith("JMXBeanWrapper call"));
+		testBean.thread = null;
+		assertEquals(3, bean.getAttribute("cached"));
+		assertEquals(null, testBean.thread);
+
+		try {
+			bean.getAttribute("hanging");
+			throw new AssertionError("ReflectionException expected");
+		} catch (ReflectionException e) {
+			assertTimeout(e);
+		}
+		testBean.release.countDown();
+	}
+
+	@Test
+	public void testBeanTimeout() throws Exception {
+		JMXBeanWrapper bean = new JMXBeanWrapper(new TestBean2());
+
+		try {
+			bean.getAttribute("hanging");
+			throw new AssertionError("ReflectionException expected");
+		} catch (ReflectionException e) {
+			assertTimeout(e);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.udojava.jmx.wrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.IntrospectionException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class WeakWrapperTest {
+	@JMXBean(statistics = true)
+	public static class TestBean1 {
+		@JMXBeanAttribute
+		public int getLevel() {
+			return 3;
+		}
+	}
+
+	@JMXBean
+	public static class TestBean2 {
+		@JMXBeanAttribute(sampleMillis = 10)
+		public int getLevel() {
+			return 3;
+		}
+	}
+
+	private static final ObjectName NAME;
+
+	static {
+		try {
+			NAME = new ObjectName("test:type=Weak");
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void testReferencedBean() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		TestBean1 bean = new TestBean1();
+		int weakCount = JMXBeanWrapper.getWeakCount();
+		server.registerMBean(JMXBeanWrapper.weak(bean), NAME);
+		assertEquals(weakCount + 1, JMXBeanWrapper.getWeakCount());
+
+		System.gc();
+		assertEquals(3, server.getAttribute(NAME, "level"));
+
+		server.unregisterMBean(NAME);
+		assertEquals(weakCount, JMXBeanWrapper.getWeakCount());
+		assertEquals(3, bean.getLevel());
+	}
+
+	@Test
+	public void testCollectedBean() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		long leaked = JMXBeanWrapper.getLeakedCount();
+		server.registerMBean(JMXBeanWrapper.weak(new TestBean1()), NAME);
+		assertTrue(server.isRegistered(WrapperStatistics.nameOf(NAME)));
+
+		long end = System.currentTimeMillis() + 10000;
+		while (server.isRegistered(NAME) && System.currentTimeMillis() < end) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertFalse(server.isRegistered(NAME));
+		assertFalse(server.isRegistered(WrapperStatistics.nameOf(NAME)));
+		assertTrue(JMXBeanWrapper.getLeakedCount() > leaked);
+	}
+
+	@Test(expected = IntrospectionException.class)
+	public void testSampledRejected() throws Exception {
+		JMXBeanWrapper.weak(new TestBean2());
+	}
+}